@@ -0,0 +1,19 @@
+-- 充电桩计量采样表（OCPP MeterValues / StopTransaction.transactionData）
+-- 协议服务按批次多行写入，值已换算到基本单位
+CREATE TABLE IF NOT EXISTS charger_telemetry (
+    telemetry_id BIGSERIAL PRIMARY KEY,
+    tenant_id BIGINT NOT NULL,
+    charger_id BIGINT NOT NULL,
+    connector_id INTEGER NOT NULL DEFAULT 0, -- 0表示整桩
+    transaction_id INTEGER, -- 非交易期间为空
+    sampled_at TIMESTAMP NOT NULL, -- 采样时间
+    measurand VARCHAR(64) NOT NULL, -- OCPP计量项
+    phase VARCHAR(8), -- 相位
+    value DOUBLE PRECISION NOT NULL,
+    unit VARCHAR(16), -- 基本单位：Wh/W/A/V/Celsius/Percent
+    received_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_telemetry_charger_time ON charger_telemetry(charger_id, sampled_at);
+CREATE INDEX IF NOT EXISTS idx_telemetry_tenant_time ON charger_telemetry(tenant_id, sampled_at);
+CREATE INDEX IF NOT EXISTS idx_telemetry_transaction ON charger_telemetry(transaction_id) WHERE transaction_id IS NOT NULL;
@@ -0,0 +1,24 @@
+-- 充电卡表：OCPP Authorize/StartTransaction 的idTag授权数据，协议服务按租户缓存并可同步为充电桩本地授权列表
+-- 卡片停用/删除请使用UPDATE（软删除），update_time的变化即本地授权列表的版本变化
+CREATE TABLE IF NOT EXISTS charging_card (
+    card_id BIGSERIAL PRIMARY KEY,
+    tenant_id BIGINT NOT NULL,
+    id_tag VARCHAR(20) NOT NULL, -- OCPP idToken，最长20个字符
+    user_id BIGINT, -- 绑定的用户
+    status INTEGER NOT NULL DEFAULT 1, -- 0-停用（挂失），1-正常
+    expire_time TIMESTAMP, -- 有效期，为空表示长期有效
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    deleted INTEGER DEFAULT 0,
+
+    CONSTRAINT uk_charging_card_tenant_tag UNIQUE(tenant_id, id_tag)
+);
+
+CREATE INDEX IF NOT EXISTS idx_charging_card_tenant_update ON charging_card(tenant_id, update_time);
+CREATE INDEX IF NOT EXISTS idx_charging_card_user ON charging_card(user_id) WHERE user_id IS NOT NULL;
+
+-- update_modified_column() 由 sql/charging_station_tables.sql 定义，这里只挂触发器
+DROP TRIGGER IF EXISTS update_charging_card_modtime ON charging_card;
+CREATE TRIGGER update_charging_card_modtime
+    BEFORE UPDATE ON charging_card
+    FOR EACH ROW EXECUTE FUNCTION update_modified_column();
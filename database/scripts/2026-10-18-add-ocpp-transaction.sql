@@ -0,0 +1,29 @@
+-- OCPP交易ID序列：步长即每个节点一次租用的ID段大小，ID范围限定在OCPP 1.6的32位整型内，到顶后循环
+CREATE SEQUENCE IF NOT EXISTS ocpp_transaction_id_seq
+    AS INTEGER
+    INCREMENT BY 1000
+    MINVALUE 1
+    MAXVALUE 2147483647
+    START WITH 1
+    CYCLE;
+
+-- OCPP交易表：transactionId 与平台充电会话的对应关系，供StopTransaction和RemoteStopTransaction查找
+-- 协议服务异步批量写入，序列循环后复用的ID覆盖旧记录
+CREATE TABLE IF NOT EXISTS ocpp_transaction (
+    transaction_id INTEGER PRIMARY KEY, -- OCPP transactionId
+    tenant_id BIGINT NOT NULL,
+    charger_id BIGINT NOT NULL,
+    charger_code VARCHAR(64) NOT NULL,
+    connector_id INTEGER NOT NULL DEFAULT 0,
+    id_tag VARCHAR(64),
+    session_id VARCHAR(64) NOT NULL, -- 充电会话ID（订单session_id），本地发起的交易为TXN_{transaction_id}
+    meter_start INTEGER, -- 开始电表读数（Wh）
+    meter_stop INTEGER, -- 结束电表读数（Wh）
+    started_at TIMESTAMP NOT NULL,
+    stopped_at TIMESTAMP, -- 进行中为空
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_ocpp_transaction_session ON ocpp_transaction(session_id);
+CREATE INDEX IF NOT EXISTS idx_ocpp_transaction_charger_active ON ocpp_transaction(charger_code, started_at) WHERE stopped_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_ocpp_transaction_tenant_time ON ocpp_transaction(tenant_id, started_at);
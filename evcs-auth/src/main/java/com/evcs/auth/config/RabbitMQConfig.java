@@ -0,0 +1,24 @@
+package com.evcs.auth.config;
+
+import org.springframework.amqp.core.ExchangeBuilder;
+import org.springframework.amqp.core.FanoutExchange;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * RabbitMQ配置
+ * 认证服务只发布idTag授权撤销广播，订阅方为协议服务各节点
+ */
+@Configuration
+public class RabbitMQConfig {
+
+    /**
+     * idTag授权撤销广播交换机（fanout），与协议服务 RabbitMQConfig.IDTAG_REVOCATION_EXCHANGE 保持一致
+     */
+    public static final String IDTAG_REVOCATION_EXCHANGE = "evcs.idtag.revocations";
+
+    @Bean
+    public FanoutExchange idTagRevocationExchange() {
+        return ExchangeBuilder.fanoutExchange(IDTAG_REVOCATION_EXCHANGE).durable(true).build();
+    }
+}
@@ -0,0 +1,24 @@
+package com.evcs.auth.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 用户授权撤销事件
+ * 用户被禁用或删除后在认证服务内发布，事务提交后广播到 {@code evcs.idtag.revocations} 交换机，
+ * 协议服务各节点据此失效该用户idTag（{@code USER_<用户ID>}）的授权缓存
+ */
+@Getter
+public class UserRevokedEvent extends ApplicationEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long tenantId;
+    private final Long userId;
+
+    public UserRevokedEvent(Object source, Long tenantId, Long userId) {
+        super(source);
+        this.tenantId = tenantId;
+        this.userId = userId;
+    }
+}
@@ -0,0 +1,59 @@
+package com.evcs.auth.mq;
+
+import com.evcs.auth.config.RabbitMQConfig;
+import com.evcs.auth.event.UserRevokedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * idTag授权撤销广播
+ * 事务提交后把被禁用、删除的用户以 {@code {"tenantId":..,"idTag":"USER_<用户ID>"}} 发到
+ * evcs.idtag.revocations 交换机，协议服务各节点据此失效授权缓存；
+ * 未启用RabbitMQ或发送失败时由协议服务的缓存TTL兜底
+ */
+@Slf4j
+@Component
+public class IdTagRevocationRelay {
+
+    /**
+     * 平台用户idTag前缀，与协议服务 IdTagAuthorizationCache.USER_TAG_PREFIX 保持一致
+     */
+    static final String USER_TAG_PREFIX = "USER_";
+
+    private final ObjectProvider<RabbitTemplate> rabbitTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public IdTagRevocationRelay(ObjectProvider<RabbitTemplate> rabbitTemplate) {
+        this.rabbitTemplate = rabbitTemplate;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserRevoked(UserRevokedEvent event) {
+        RabbitTemplate template = rabbitTemplate.getIfAvailable();
+        if (template == null) {
+            return;
+        }
+        try {
+            Map<String, Object> revocation = new LinkedHashMap<>();
+            revocation.put("tenantId", event.getTenantId());
+            revocation.put("idTag", USER_TAG_PREFIX + event.getUserId());
+            Message message = MessageBuilder.withBody(objectMapper.writeValueAsBytes(revocation))
+                    .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                    .build();
+            template.send(RabbitMQConfig.IDTAG_REVOCATION_EXCHANGE, "", message);
+        } catch (Exception e) {
+            log.warn("用户授权撤销广播失败，用户: {}，将由协议服务缓存过期兜底: {}",
+                    event.getUserId(), e.getMessage());
+        }
+    }
+}
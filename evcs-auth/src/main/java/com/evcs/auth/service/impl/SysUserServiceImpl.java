@@ -7,6 +7,7 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.evcs.auth.entity.Role;
 import com.evcs.auth.entity.SysUser;
 import com.evcs.auth.entity.SysUserRole;
+import com.evcs.auth.event.UserRevokedEvent;
 import com.evcs.auth.mapper.SysRoleMapper;
 import com.evcs.auth.mapper.SysUserMapper;
 import com.evcs.auth.mapper.SysUserRoleMapper;
@@ -16,6 +17,7 @@ import com.evcs.common.exception.TenantContextMissingException;
 import com.evcs.common.tenant.TenantContext;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -32,6 +34,7 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
 
     private final SysRoleMapper roleMapper;
     private final SysUserRoleMapper userRoleMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public IPage<SysUser> pageUsers(UserQuery query, Long tenantId) {
@@ -166,6 +169,9 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
         }
         user.setTenantId(tenantId);
         this.updateById(user);
+        if (Objects.equals(user.getStatus(), 0) && !Objects.equals(existing.getStatus(), 0)) {
+            eventPublisher.publishEvent(new UserRevokedEvent(this, tenantId, user.getId()));
+        }
     }
 
     @Override
@@ -181,6 +187,7 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
                 .eq(SysUserRole::getTenantId, tenantId);
         userRoleMapper.delete(wrapper);
         this.removeById(userId);
+        eventPublisher.publishEvent(new UserRevokedEvent(this, tenantId, userId));
     }
 
     @Override
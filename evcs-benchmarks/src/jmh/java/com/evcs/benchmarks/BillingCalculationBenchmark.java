@@ -0,0 +1,139 @@
+package com.evcs.benchmarks;
+
+import com.evcs.order.entity.BillingPlan;
+import com.evcs.order.entity.BillingPlanSegment;
+import com.evcs.order.entity.BillingRate;
+import com.evcs.order.service.IBillingPlanService;
+import com.evcs.order.service.IBillingRateService;
+import com.evcs.order.service.impl.BillingServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BillingServiceImpl.calculateAmount 基准
+ * 计费计划形态（无分段回落峰谷、4段、48段半小时、96段一刻钟）× 充电时长（分钟）
+ * 计划与分段由内存桩返回，只测计算本身
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BillingCalculationBenchmark {
+
+    private static final long PLAN_ID = 1L;
+    private static final long STATION_ID = 100L;
+    private static final long CHARGER_ID = 1000L;
+
+    @Param({"tou", "segments-4", "segments-48", "segments-96"})
+    private String planShape;
+
+    @Param({"30", "240", "1440"})
+    private int sessionMinutes;
+
+    private BillingServiceImpl billingService;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private Double energyKwh;
+
+    @Setup
+    public void setup() throws Exception {
+        List<BillingPlanSegment> segments = switch (planShape) {
+            case "segments-4" -> segments(List.of("00:00", "08:00", "12:00", "18:00"));
+            case "segments-48" -> evenSegments(48);
+            case "segments-96" -> evenSegments(96);
+            default -> List.of();
+        };
+        BillingPlan plan = new BillingPlan();
+        plan.setId(PLAN_ID);
+
+        BillingRate rate = new BillingRate();
+        rate.setTouEnabled(1);
+        rate.setPeakStart("08:00");
+        rate.setPeakEnd("22:00");
+        rate.setPeakPrice(new BigDecimal("1.20"));
+        rate.setOffpeakPrice(new BigDecimal("0.60"));
+        rate.setFlatPrice(new BigDecimal("1.00"));
+        rate.setServiceFee(new BigDecimal("0.50"));
+
+        IBillingPlanService planService = stub(IBillingPlanService.class, (method, args) -> switch (method) {
+            case "getById", "getChargerPlan" -> plan;
+            case "listSegments" -> segments;
+            default -> null;
+        });
+        IBillingRateService rateService = stub(IBillingRateService.class,
+                (method, args) -> "getEffectiveRate".equals(method) ? rate : null);
+
+        billingService = new BillingServiceImpl(rateService, planService);
+        setField("touEnabled", true);
+        setField("peakStart", "08:00");
+        setField("peakEnd", "22:00");
+        setField("peakPrice", new BigDecimal("1.20"));
+        setField("offpeakPrice", new BigDecimal("0.60"));
+        setField("serviceFee", new BigDecimal("0.50"));
+        setField("flatPrice", new BigDecimal("1.00"));
+
+        startTime = LocalDateTime.of(2024, 1, 1, 19, 37);
+        endTime = startTime.plusMinutes(sessionMinutes);
+        energyKwh = sessionMinutes * 7.0 / 60;
+    }
+
+    @Benchmark
+    public BigDecimal calculateAmount() {
+        return billingService.calculateAmount(startTime, endTime, energyKwh, STATION_ID, CHARGER_ID, PLAN_ID);
+    }
+
+    private static List<BillingPlanSegment> evenSegments(int count) {
+        List<String> starts = new ArrayList<>(count);
+        int minutes = 24 * 60 / count;
+        for (int i = 0; i < count; i++) {
+            starts.add(LocalTime.MIDNIGHT.plusMinutes((long) i * minutes).toString());
+        }
+        return segments(starts);
+    }
+
+    private static List<BillingPlanSegment> segments(List<String> starts) {
+        List<BillingPlanSegment> segments = new ArrayList<>(starts.size());
+        for (int i = 0; i < starts.size(); i++) {
+            BillingPlanSegment segment = new BillingPlanSegment();
+            segment.setPlanId(PLAN_ID);
+            segment.setSegmentIndex(i + 1);
+            segment.setStartTime(starts.get(i));
+            segment.setEndTime(starts.get((i + 1) % starts.size()));
+            segment.setEnergyPrice(BigDecimal.valueOf(60 + (i * 37) % 80, 2));
+            segment.setServiceFee(new BigDecimal("0.50"));
+            segments.add(segment);
+        }
+        return segments;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, StubAnswer answer) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> answer.answer(method.getName(), args));
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        Field field = BillingServiceImpl.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(billingService, value);
+    }
+
+    @FunctionalInterface
+    private interface StubAnswer {
+        Object answer(String method, Object[] args);
+    }
+}
@@ -0,0 +1,72 @@
+package com.evcs.benchmarks;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.service.CloudChargeSignatureValidator;
+import com.evcs.protocol.service.CloudChargeSignatureValidator.CloudChargeRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CloudChargeSignatureValidator.validateSignature 基准
+ * 按业务数据字段数区分签名串长度，分别测签名正确与错误的请求
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CloudChargeSignatureBenchmark {
+
+    @Param({"2", "8", "32"})
+    private int dataFields;
+
+    private CloudChargeSignatureValidator validator;
+    private CloudChargeRequest validRequest;
+    private CloudChargeRequest invalidRequest;
+
+    @Setup
+    public void setup() {
+        ProtocolProperties properties = new ProtocolProperties();
+        properties.getCloudCharge().setAppSecret("benchmark-app-secret-0123456789");
+        validator = new CloudChargeSignatureValidator(properties);
+
+        validRequest = request();
+        validRequest.setSignature(validator.generateSignature(validRequest));
+        invalidRequest = request();
+        invalidRequest.setSignature(new StringBuilder(validRequest.getSignature()).reverse().toString());
+    }
+
+    @Benchmark
+    public boolean validSignature() {
+        return validator.validateSignature(validRequest);
+    }
+
+    @Benchmark
+    public boolean invalidSignature() {
+        return validator.validateSignature(invalidRequest);
+    }
+
+    private CloudChargeRequest request() {
+        CloudChargeRequest request = new CloudChargeRequest();
+        request.setRequestId("REQ-20240101080000-0001");
+        request.setApiVersion("1.0");
+        request.setTimestamp("2024-01-01T08:00:00");
+        request.setDeviceCode("CP000001");
+        request.setSessionId("SESSION-0001");
+        request.setAction("StartCharging");
+        Map<String, Object> data = new HashMap<>();
+        for (int i = 0; i < dataFields; i++) {
+            data.put("field" + i, i % 2 == 0 ? "value-" + i : i * 1000);
+        }
+        request.setData(data);
+        return request;
+    }
+}
@@ -0,0 +1,61 @@
+package com.evcs.benchmarks;
+
+import com.evcs.common.util.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtUtil 基准
+ * verifyToken 每次构建 Algorithm/JWTVerifier 并校验HMAC；getUserId/getTenantId 各自完整解码一次
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtUtilBenchmark {
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        jwtUtil = new JwtUtil();
+        setField("secret", "benchmark-jwt-secret-0123456789abcdef");
+        setField("expire", 7200L);
+        token = jwtUtil.generateToken(10001L, "benchmark-user", 1L);
+    }
+
+    @Benchmark
+    public boolean verifyToken() {
+        return jwtUtil.verifyToken(token);
+    }
+
+    @Benchmark
+    public Long decodeUserId() {
+        return jwtUtil.getUserId(token);
+    }
+
+    /**
+     * 网关/过滤器常见用法：校验后分别取用户、租户
+     */
+    @Benchmark
+    public Long verifyAndDecodeClaims() {
+        if (!jwtUtil.verifyToken(token)) {
+            return null;
+        }
+        return jwtUtil.getUserId(token) + jwtUtil.getTenantId(token);
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        Field field = JwtUtil.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(jwtUtil, value);
+    }
+}
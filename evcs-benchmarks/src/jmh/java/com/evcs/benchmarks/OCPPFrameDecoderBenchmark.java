@@ -0,0 +1,89 @@
+package com.evcs.benchmarks;
+
+import com.evcs.protocol.dto.ocpp.OCPPFrameDecoder;
+import com.evcs.protocol.dto.ocpp.OCPPMessage;
+import com.evcs.protocol.dto.ocpp.OCPPMessageParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OCPP入站帧解码基准
+ * 对比原有 readValue(Object.class) / readTree 两段式解析与单遍流式解码
+ * 分配情况使用 -Pjmh.profilers=gc 查看 gc.alloc.rate.norm
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OCPPFrameDecoderBenchmark {
+
+    private static final String HEARTBEAT =
+            "[2,\"19223201\",\"Heartbeat\",{}]";
+
+    private static final String STATUS_NOTIFICATION =
+            "[2,\"19223202\",\"StatusNotification\",{\"connectorId\":1,\"errorCode\":\"NoError\","
+                    + "\"status\":\"Charging\",\"timestamp\":\"2024-01-01T08:00:00Z\"}]";
+
+    private static final String METER_VALUES =
+            "[2,\"19223203\",\"MeterValues\",{\"connectorId\":1,\"transactionId\":1024,\"meterValue\":[{"
+                    + "\"timestamp\":\"2024-01-01T08:00:00Z\",\"sampledValue\":["
+                    + "{\"value\":\"12345.6\",\"context\":\"Sample.Periodic\",\"measurand\":\"Energy.Active.Import.Register\",\"unit\":\"Wh\"},"
+                    + "{\"value\":\"7200\",\"context\":\"Sample.Periodic\",\"measurand\":\"Power.Active.Import\",\"unit\":\"W\"},"
+                    + "{\"value\":\"230.1\",\"context\":\"Sample.Periodic\",\"measurand\":\"Voltage\",\"phase\":\"L1\",\"unit\":\"V\"},"
+                    + "{\"value\":\"31.3\",\"context\":\"Sample.Periodic\",\"measurand\":\"Current.Import\",\"phase\":\"L1\",\"unit\":\"A\"},"
+                    + "{\"value\":\"41\",\"context\":\"Sample.Periodic\",\"measurand\":\"Temperature\",\"unit\":\"Celsius\"}"
+                    + "]}]}]";
+
+    @Param({"Heartbeat", "StatusNotification", "MeterValues"})
+    private String action;
+
+    private String frame;
+    private ObjectMapper objectMapper;
+    private OCPPMessageParser messageParser;
+    private OCPPFrameDecoder frameDecoder;
+
+    @Setup
+    public void setup() {
+        frame = switch (action) {
+            case "Heartbeat" -> HEARTBEAT;
+            case "StatusNotification" -> STATUS_NOTIFICATION;
+            default -> METER_VALUES;
+        };
+        objectMapper = new ObjectMapper();
+        messageParser = new OCPPMessageParser();
+        frameDecoder = new OCPPFrameDecoder();
+    }
+
+    /**
+     * 原处理器路径：handler 先 readValue(Object.class)，processor 再 readTree 转 Map
+     */
+    @Benchmark
+    public OCPPMessage legacyTwoPass() throws Exception {
+        objectMapper.readValue(frame, Object.class);
+        return messageParser.parse(frame);
+    }
+
+    /**
+     * 仅 readTree + Map 转换
+     */
+    @Benchmark
+    public OCPPMessage legacyTreeParse() {
+        return messageParser.parse(frame);
+    }
+
+    /**
+     * 单遍流式解码为强类型载荷
+     */
+    @Benchmark
+    public OCPPMessage streamingDecode() {
+        return frameDecoder.decode(frame);
+    }
+}
@@ -0,0 +1,64 @@
+package com.evcs.benchmarks;
+
+import com.evcs.protocol.dto.ocpp.OCPPFrameEncoder;
+import com.evcs.protocol.dto.ocpp.OCPPMessageParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OCPP出站应答编码基准
+ * 对比 HashMap + Object[] + writeValueAsString 与模板/JsonGenerator 编码
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OCPPFrameEncoderBenchmark {
+
+    private static final String MESSAGE_ID = "19223201";
+
+    private OCPPMessageParser messageParser;
+    private OCPPFrameEncoder frameEncoder;
+
+    @Setup
+    public void setup() {
+        messageParser = new OCPPMessageParser();
+        frameEncoder = new OCPPFrameEncoder();
+    }
+
+    @Benchmark
+    public String legacyHeartbeat() {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("currentTime", LocalDateTime.now().toString());
+        return messageParser.createCallResultMessage(MESSAGE_ID, payload);
+    }
+
+    @Benchmark
+    public String templateHeartbeat() {
+        return frameEncoder.encodeHeartbeatResult(MESSAGE_ID);
+    }
+
+    @Benchmark
+    public String legacyEmptyResult() {
+        return messageParser.createCallResultMessage(MESSAGE_ID, new HashMap<>());
+    }
+
+    @Benchmark
+    public String templateEmptyResult() {
+        return frameEncoder.encodeEmptyResult(MESSAGE_ID);
+    }
+
+    @Benchmark
+    public String generatorIdTagInfo() {
+        return frameEncoder.encodeIdTagInfoResult(MESSAGE_ID, 1024, "Accepted", null);
+    }
+}
@@ -0,0 +1,106 @@
+package com.evcs.benchmarks;
+
+import com.evcs.protocol.dto.ocpp.OCPPErrorCode;
+import com.evcs.protocol.dto.ocpp.OCPPMessage;
+import com.evcs.protocol.dto.ocpp.OCPPMessageParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OCPPMessageParser 基准
+ * 覆盖三种消息类型的 parse 以及 create* 编码方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OCPPMessageParserBenchmark {
+
+    private static final String MESSAGE_ID = "19223201";
+
+    private static final String CALL =
+            "[2,\"19223201\",\"StartTransaction\",{\"connectorId\":1,\"idTag\":\"TAG0001\","
+                    + "\"meterStart\":12345,\"timestamp\":\"2024-01-01T08:00:00Z\"}]";
+
+    private static final String CALL_RESULT =
+            "[3,\"19223201\",{\"status\":\"Accepted\",\"configurationKey\":[{\"key\":\"HeartbeatInterval\","
+                    + "\"readonly\":false,\"value\":\"300\"}]}]";
+
+    private static final String CALL_ERROR =
+            "[4,\"19223201\",\"FormationViolation\",\"Payload for action is syntactically incorrect\",{\"field\":\"meterStart\"}]";
+
+    private OCPPMessageParser messageParser;
+    private Map<String, Object> callPayload;
+    private Map<String, Object> resultPayload;
+    private Map<String, Object> errorDetails;
+
+    @Setup
+    public void setup() {
+        messageParser = new OCPPMessageParser();
+
+        callPayload = new HashMap<>();
+        callPayload.put("connectorId", 1);
+        callPayload.put("idTag", "TAG0001");
+        callPayload.put("chargingProfile", Map.of("chargingProfileId", 1, "stackLevel", 0,
+                "chargingSchedule", Map.of("chargingRateUnit", "A",
+                        "chargingSchedulePeriod", List.of(Map.of("startPeriod", 0, "limit", 32.0)))));
+
+        resultPayload = new HashMap<>();
+        resultPayload.put("idTagInfo", Map.of("status", "Accepted", "expiryDate", "2024-12-31T23:59:59Z"));
+        resultPayload.put("transactionId", 1024);
+
+        errorDetails = Map.of("field", "meterStart");
+    }
+
+    @Benchmark
+    public OCPPMessage parse(Frame frame) {
+        return messageParser.parse(frame.text);
+    }
+
+    @Benchmark
+    public String createCallMessage() {
+        return messageParser.createCallMessage(MESSAGE_ID, "RemoteStartTransaction", callPayload);
+    }
+
+    @Benchmark
+    public String createCallResultMessage() {
+        return messageParser.createCallResultMessage(MESSAGE_ID, resultPayload);
+    }
+
+    @Benchmark
+    public String createCallErrorMessage() {
+        return messageParser.createCallErrorMessage(MESSAGE_ID, OCPPErrorCode.FORMATION_VIOLATION,
+                "Payload for action is syntactically incorrect", errorDetails);
+    }
+
+    /**
+     * 解码用的入站帧，只对 parse 生效，编码方法不随消息类型重复运行
+     */
+    @State(Scope.Benchmark)
+    public static class Frame {
+
+        @Param({"Call", "CallResult", "CallError"})
+        private String messageType;
+
+        private String text;
+
+        @Setup
+        public void setup() {
+            text = switch (messageType) {
+                case "Call" -> CALL;
+                case "CallResult" -> CALL_RESULT;
+                default -> CALL_ERROR;
+            };
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.evcs.benchmarks;
+
+import com.evcs.protocol.event.HeartbeatEvent;
+import com.evcs.protocol.event.ProtocolEvent;
+import com.evcs.protocol.event.StatusEvent;
+import com.evcs.protocol.event.StopEvent;
+import com.evcs.protocol.mq.ProtocolEventCodec;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 协议事件报文编解码基准
+ * 对比 Jackson JSON 与 {@link ProtocolEventCodec} 二进制格式的编码/解码耗时，
+ * 每个事件的字节数在 Setup 时输出到标准输出
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProtocolEventCodecBenchmark {
+
+    @Param({"heartbeat", "status", "stop"})
+    public String eventType;
+
+    private ObjectMapper objectMapper;
+    private ProtocolEvent event;
+    private Class<? extends ProtocolEvent> eventClass;
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        // 与 Jackson2JsonMessageConverter 一样注册 classpath 上的 Java 时间模块并忽略未知属性（routingKey）
+        objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+        LocalDateTime now = LocalDateTime.now();
+        event = switch (eventType) {
+            case "heartbeat" -> HeartbeatEvent.builder()
+                    .eventId(UUID.randomUUID().toString()).chargerId(100234L).tenantId(12L)
+                    .eventType(ProtocolEvent.EventType.HEARTBEAT).eventTime(now).protocolType("OCPP")
+                    .lastHeartbeatTime(now)
+                    .build();
+            case "status" -> StatusEvent.builder()
+                    .eventId(UUID.randomUUID().toString()).chargerId(100234L).tenantId(12L)
+                    .eventType(ProtocolEvent.EventType.STATUS_CHANGE).eventTime(now).protocolType("OCPP")
+                    .oldStatus(1).newStatus(2).statusDesc("Charging")
+                    .build();
+            default -> StopEvent.builder()
+                    .eventId(UUID.randomUUID().toString()).chargerId(100234L).tenantId(12L)
+                    .eventType(ProtocolEvent.EventType.CHARGING_STOP).eventTime(now).protocolType("OCPP")
+                    .sessionId(UUID.randomUUID().toString()).orderNo("ORD202610180000123")
+                    .energy(32.75).duration(96L).reason("Local").success(true).message("Charging stopped")
+                    .build();
+        };
+        eventClass = event.getClass();
+        json = objectMapper.writeValueAsBytes(event);
+        binary = ProtocolEventCodec.encode(event);
+        System.out.printf("%n[%s] bytes per event: json=%d, binary=%d (%.1f%%)%n",
+                eventType, json.length, binary.length, 100.0 * binary.length / json.length);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() throws Exception {
+        return objectMapper.writeValueAsBytes(event);
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+        return ProtocolEventCodec.encode(event);
+    }
+
+    @Benchmark
+    public ProtocolEvent jsonDecode() throws Exception {
+        return objectMapper.readValue(json, eventClass);
+    }
+
+    @Benchmark
+    public ProtocolEvent binaryDecode() {
+        return ProtocolEventCodec.decode(binary);
+    }
+}
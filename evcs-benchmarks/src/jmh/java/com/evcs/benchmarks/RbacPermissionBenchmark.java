@@ -0,0 +1,118 @@
+package com.evcs.benchmarks;
+
+import com.evcs.auth.entity.Permission;
+import com.evcs.auth.entity.Role;
+import com.evcs.auth.security.RbacPermissionEvaluator;
+import com.evcs.auth.service.IPermissionService;
+import com.evcs.auth.service.IRoleService;
+import com.evcs.common.tenant.TenantContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RbacPermissionEvaluator 权限匹配基准
+ * matchesPermission 为私有方法，经 MethodHandle 直接调用单次匹配；
+ * hasPermission 在角色权限列表上逐条匹配，列表大小和命中位置决定扫描长度
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RbacPermissionBenchmark {
+
+    private static final MethodHandle MATCHES_PERMISSION;
+
+    static {
+        try {
+            MATCHES_PERMISSION = MethodHandles.privateLookupIn(RbacPermissionEvaluator.class, MethodHandles.lookup())
+                    .findVirtual(RbacPermissionEvaluator.class, "matchesPermission",
+                            MethodType.methodType(boolean.class, String.class, String.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Param({"10", "100", "500"})
+    private int permissionCount;
+
+    /**
+     * exact：末条精确命中；wildcard：末条 module:* 通配命中；miss：全部扫描未命中
+     */
+    @Param({"exact", "wildcard", "miss"})
+    private String match;
+
+    private RbacPermissionEvaluator evaluator;
+    private Authentication authentication;
+    private String userPermission;
+    private String requiredPermission;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<Permission> permissions = new ArrayList<>(permissionCount);
+        for (int i = 0; i < permissionCount - 1; i++) {
+            permissions.add(permission("module" + i + ":resource" + i + ":view"));
+        }
+        requiredPermission = "order:refund:approve";
+        userPermission = switch (match) {
+            case "exact" -> requiredPermission;
+            case "wildcard" -> "order:refund:*";
+            default -> "station:charger:edit";
+        };
+        permissions.add(permission(userPermission));
+
+        Role role = new Role();
+        role.setId(1L);
+        role.setRoleCode("ROLE_OPERATOR");
+        IRoleService roleService = (IRoleService) Proxy.newProxyInstance(IRoleService.class.getClassLoader(),
+                new Class<?>[]{IRoleService.class},
+                (proxy, method, args) -> "listByRoleCodes".equals(method.getName()) ? List.of(role) : null);
+        IPermissionService permissionService = (IPermissionService) Proxy.newProxyInstance(
+                IPermissionService.class.getClassLoader(), new Class<?>[]{IPermissionService.class},
+                (proxy, method, args) -> "listByRoleIds".equals(method.getName()) ? permissions : null);
+
+        evaluator = new RbacPermissionEvaluator(roleService, permissionService);
+        authentication = new UsernamePasswordAuthenticationToken("operator", null,
+                List.of(new SimpleGrantedAuthority("ROLE_OPERATOR")));
+        TenantContext.setCurrentTenantId(1L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Benchmark
+    public boolean matchesPermission() throws Throwable {
+        return (boolean) MATCHES_PERMISSION.invokeExact(evaluator, userPermission, requiredPermission);
+    }
+
+    @Benchmark
+    public boolean hasPermission() {
+        return evaluator.hasPermission(authentication, requiredPermission);
+    }
+
+    private static Permission permission(String perms) {
+        Permission permission = new Permission();
+        permission.setPerms(perms);
+        permission.setStatus(1);
+        return permission;
+    }
+}
@@ -0,0 +1,80 @@
+package com.evcs.benchmarks;
+
+import com.baomidou.mybatisplus.extension.plugins.inner.TenantLineInnerInterceptor;
+import com.evcs.common.tenant.CustomTenantLineHandler;
+import com.evcs.common.tenant.TenantContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CustomTenantLineHandler SQL改写基准
+ * 经 MyBatis-Plus TenantLineInnerInterceptor 完整走一遍 JSqlParser 解析、追加 tenant_id 条件和重新输出
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TenantSqlRewriteBenchmark {
+
+    private static final String SELECT_SIMPLE =
+            "SELECT id, order_no, status FROM charging_order WHERE user_id = ? AND deleted = 0";
+
+    private static final String SELECT_JOIN =
+            "SELECT o.id, o.order_no, c.charger_code, s.station_name FROM charging_order o "
+                    + "LEFT JOIN charger c ON o.charger_id = c.id "
+                    + "LEFT JOIN station s ON c.station_id = s.id "
+                    + "WHERE o.status IN (?, ?) AND o.create_time >= ? ORDER BY o.create_time DESC LIMIT 20";
+
+    private static final String SELECT_SUBQUERY =
+            "SELECT id, charger_code FROM charger WHERE station_id IN "
+                    + "(SELECT id FROM station WHERE region_code = ?) AND id NOT IN "
+                    + "(SELECT charger_id FROM charging_order WHERE status = 1)";
+
+    private static final String UPDATE =
+            "UPDATE charger SET status = ?, last_heartbeat = ? WHERE charger_code = ?";
+
+    private static final String INSERT =
+            "INSERT INTO charging_order (order_no, user_id, charger_id, status) VALUES (?, ?, ?, ?)";
+
+    private static final String IGNORED_TABLE =
+            "SELECT dict_value, dict_label FROM sys_dict_data WHERE dict_type = ?";
+
+    @Param({"select", "join", "subquery", "update", "insert", "ignored"})
+    private String statement;
+
+    private String sql;
+    private TenantLineInnerInterceptor interceptor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        sql = switch (statement) {
+            case "select" -> SELECT_SIMPLE;
+            case "join" -> SELECT_JOIN;
+            case "subquery" -> SELECT_SUBQUERY;
+            case "update" -> UPDATE;
+            case "insert" -> INSERT;
+            default -> IGNORED_TABLE;
+        };
+        interceptor = new TenantLineInnerInterceptor(new CustomTenantLineHandler());
+        TenantContext.setTenantId(1L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Benchmark
+    public String rewrite() {
+        return interceptor.parserSingle(sql, null);
+    }
+}
@@ -11,7 +11,7 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
  * Entry point for the EVCS order service.
  */
 @SpringBootApplication(
-    scanBasePackages = "com.evcs",
+    scanBasePackages = {"com.evcs.order", "com.evcs.common"},
     exclude = {SecurityAutoConfiguration.class}
 )
 @EnableDiscoveryClient
@@ -1,5 +1,7 @@
 package com.evcs.protocol.api;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface IOCPPProtocolService {
     boolean connect(String chargerCode);
     void disconnect(String chargerCode);
@@ -8,5 +10,12 @@ public interface IOCPPProtocolService {
     boolean startCharging(Long chargerId, String sessionId, Long userId);
     boolean stopCharging(Long chargerId);
 
+    /**
+     * 远程启动充电，不阻塞调用线程
+     *
+     * @return 充电桩应答 Accepted 时为 true；未连接、CallError、超时以异常结束
+     */
+    CompletableFuture<Boolean> startChargingAsync(String chargerCode, String sessionId, Long userId);
+
     void setEventListener(ProtocolEventListener listener);
 }
@@ -31,4 +31,16 @@ public interface IProtocolEventConsumer {
      * @param event 停止充电事件
      */
     void onStopEvent(StopEvent event);
+
+    /**
+     * 处理上线/离线事件
+     * @param event 上线/离线事件
+     */
+    void onConnectivityEvent(ConnectivityEvent event);
+
+    /**
+     * 处理最后在线时间快照
+     * @param event 快照事件
+     */
+    void onLastSeenSnapshot(LastSeenSnapshotEvent event);
 }
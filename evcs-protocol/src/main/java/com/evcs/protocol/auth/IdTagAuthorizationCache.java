@@ -0,0 +1,271 @@
+package com.evcs.protocol.auth;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.dto.IdTagAuthorization;
+import com.evcs.protocol.event.IdTagRevokedEvent;
+import com.evcs.protocol.mapper.IdTagAuthorizationMapper;
+import com.evcs.protocol.metrics.ProtocolMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * idTag授权缓存
+ * Authorize/StartTransaction 按 (租户, idTag) 查询缓存，未命中或过期时回源充电卡/用户数据。
+ * 有效的idTag按正向TTL缓存，未知、停用、过期的idTag按较短的负向TTL缓存，避免反复回源；
+ * 回源失败时沿用过期条目。充电桩上线时按租户批量预热有效卡片，卡片停用事件到达后立即失效
+ */
+@Slf4j
+@Component
+public class IdTagAuthorizationCache {
+
+    public static final String ACCEPTED = "Accepted";
+    public static final String BLOCKED = "Blocked";
+    public static final String EXPIRED = "Expired";
+    public static final String INVALID = "Invalid";
+
+    /**
+     * 平台远程启动使用的用户idTag前缀
+     */
+    public static final String USER_TAG_PREFIX = "USER_";
+
+    private static final IdTagInfo INVALID_INFO = new IdTagInfo(INVALID, null);
+
+    /**
+     * OCPP idTagInfo
+     *
+     * @param expiryDate 有效期，为空表示不限
+     */
+    public record IdTagInfo(String status, LocalDateTime expiryDate) {
+
+        public boolean isAccepted() {
+            return ACCEPTED.equals(status);
+        }
+    }
+
+    private final IdTagAuthorizationMapper authorizationMapper;
+    private final ProtocolMetrics protocolMetrics;
+    private final boolean enabled;
+    private final long positiveTtlNanos;
+    private final long negativeTtlNanos;
+    private final int maxEntries;
+    private final LongSupplier nanoClock;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 租户 → 最近一次预热时间
+     */
+    private final Map<Long, Long> warmedAt = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    @Autowired
+    public IdTagAuthorizationCache(IdTagAuthorizationMapper authorizationMapper,
+                                   ProtocolMetrics protocolMetrics,
+                                   ProtocolProperties protocolProperties) {
+        this(authorizationMapper, protocolMetrics, protocolProperties, System::nanoTime);
+    }
+
+    IdTagAuthorizationCache(IdTagAuthorizationMapper authorizationMapper,
+                            ProtocolMetrics protocolMetrics,
+                            ProtocolProperties protocolProperties,
+                            LongSupplier nanoClock) {
+        ProtocolProperties.OCPPConfig config = protocolProperties.getOcpp();
+        this.authorizationMapper = authorizationMapper;
+        this.protocolMetrics = protocolMetrics;
+        this.enabled = config.isAuthorizationEnabled();
+        this.positiveTtlNanos = TimeUnit.SECONDS.toNanos(Math.max(1, config.getAuthorizationCacheTtl()));
+        this.negativeTtlNanos = TimeUnit.SECONDS.toNanos(Math.max(1, config.getAuthorizationNegativeTtl()));
+        this.maxEntries = Math.max(16, config.getAuthorizationCacheMaxEntries());
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * 校验idTag
+     *
+     * @param tenantId 充电桩所属租户，未识别的充电桩为空
+     */
+    public IdTagInfo authorize(Long tenantId, String idTag) {
+        if (idTag == null || idTag.isBlank()) {
+            return INVALID_INFO;
+        }
+        if (!enabled) {
+            return new IdTagInfo(ACCEPTED, null);
+        }
+        if (tenantId == null) {
+            return INVALID_INFO;
+        }
+
+        Key key = new Key(tenantId, idTag);
+        long now = nanoClock.getAsLong();
+        Entry entry = entries.get(key);
+        if (entry != null && now - entry.expiresAt < 0) {
+            protocolMetrics.recordAuthorizationHit();
+            return checkExpiry(entry.info);
+        }
+
+        protocolMetrics.recordAuthorizationMiss();
+        IdTagAuthorization authorization;
+        try {
+            authorization = load(tenantId, idTag);
+        } catch (Exception e) {
+            protocolMetrics.recordAuthorizationError();
+            log.warn("Failed to load authorization for idTag {} of tenant {}: {}", idTag, tenantId, e.getMessage());
+            return entry != null ? checkExpiry(entry.info) : INVALID_INFO;
+        }
+        IdTagInfo info = toInfo(authorization);
+        put(key, info, now);
+        return info;
+    }
+
+    /**
+     * 预热租户的有效卡片
+     *
+     * @return 加载的卡片数
+     */
+    public int warmUp(Long tenantId) {
+        long now = nanoClock.getAsLong();
+        List<IdTagAuthorization> cards = authorizationMapper.selectActiveCards(tenantId, maxEntries);
+        for (IdTagAuthorization card : cards) {
+            put(new Key(tenantId, card.getIdTag()), toInfo(card), now);
+        }
+        warmedAt.put(tenantId, now);
+        log.debug("Authorization cache warmed up for tenant {}: {} cards", tenantId, cards.size());
+        return cards.size();
+    }
+
+    /**
+     * 在后台预热租户，正向TTL内已预热过的租户跳过
+     */
+    public void warmUpAsync(Long tenantId) {
+        if (!enabled || tenantId == null) {
+            return;
+        }
+        long now = nanoClock.getAsLong();
+        Long last = warmedAt.get(tenantId);
+        if (last != null && now - last < positiveTtlNanos) {
+            return;
+        }
+        boolean claimed = last == null ? warmedAt.putIfAbsent(tenantId, now) == null : warmedAt.replace(tenantId, last, now);
+        if (!claimed) {
+            return;
+        }
+        Thread.ofVirtual().name("ocpp-authorization-warmup").start(() -> {
+            try {
+                warmUp(tenantId);
+            } catch (Exception e) {
+                warmedAt.remove(tenantId, now);
+                log.warn("Failed to warm up authorization cache for tenant {}: {}", tenantId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 失效idTag条目
+     *
+     * @param idTag 为空时失效该租户的全部条目
+     */
+    public void invalidate(Long tenantId, String idTag) {
+        if (tenantId == null) {
+            return;
+        }
+        if (idTag == null) {
+            entries.keySet().removeIf(key -> key.tenantId.equals(tenantId));
+            warmedAt.remove(tenantId);
+        } else {
+            entries.remove(new Key(tenantId, idTag));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIdTagRevoked(IdTagRevokedEvent event) {
+        log.debug("Invalidating authorization cache: tenant={}, idTag={}", event.getTenantId(), event.getIdTag());
+        invalidate(event.getTenantId(), event.getIdTag());
+    }
+
+    /**
+     * 当前缓存条目数
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private IdTagAuthorization load(Long tenantId, String idTag) {
+        if (idTag.startsWith(USER_TAG_PREFIX)) {
+            try {
+                long userId = Long.parseLong(idTag.substring(USER_TAG_PREFIX.length()));
+                return authorizationMapper.selectUser(tenantId, userId);
+            } catch (NumberFormatException e) {
+                // 非数字后缀按普通卡号处理
+            }
+        }
+        return authorizationMapper.selectCard(tenantId, idTag);
+    }
+
+    private static IdTagInfo toInfo(IdTagAuthorization authorization) {
+        if (authorization == null) {
+            return INVALID_INFO;
+        }
+        if (authorization.getStatus() == null || authorization.getStatus() != 1) {
+            return new IdTagInfo(BLOCKED, null);
+        }
+        return checkExpiry(new IdTagInfo(ACCEPTED, authorization.getExpireTime()));
+    }
+
+    /**
+     * 缓存期间卡片到期的按过期处理
+     */
+    private static IdTagInfo checkExpiry(IdTagInfo info) {
+        if (info.isAccepted() && info.expiryDate() != null && info.expiryDate().isBefore(LocalDateTime.now())) {
+            return new IdTagInfo(EXPIRED, info.expiryDate());
+        }
+        return info;
+    }
+
+    private void put(Key key, IdTagInfo info, long now) {
+        long ttl = info.isAccepted() ? positiveTtlNanos : negativeTtlNanos;
+        entries.put(key, new Entry(info, now + ttl));
+        if (entries.size() > maxEntries) {
+            sweep(now);
+        }
+    }
+
+    /**
+     * 超出上限时先清理过期条目，仍超出则淘汰任意条目直到上限的90%
+     */
+    private void sweep(long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            entries.values().removeIf(entry -> now - entry.expiresAt >= 0);
+            int target = maxEntries / 10 * 9;
+            for (Iterator<Key> it = entries.keySet().iterator(); it.hasNext() && entries.size() > target; ) {
+                it.next();
+                it.remove();
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private record Key(Long tenantId, String idTag) {
+    }
+
+    private record Entry(IdTagInfo info, long expiresAt) {
+    }
+}
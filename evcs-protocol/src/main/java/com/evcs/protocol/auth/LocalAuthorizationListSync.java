@@ -0,0 +1,145 @@
+package com.evcs.protocol.auth;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.dto.IdTagAuthorization;
+import com.evcs.protocol.dto.ocpp.OCPPCallResultMessage;
+import com.evcs.protocol.event.IdTagRevokedEvent;
+import com.evcs.protocol.mapper.IdTagAuthorizationMapper;
+import com.evcs.protocol.metrics.ProtocolMetrics;
+import com.evcs.protocol.websocket.OCPPPendingCallRegistry;
+import com.evcs.protocol.websocket.OCPPSessionManager;
+import com.evcs.protocol.websocket.OCPPWebSocketSession;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 本地授权列表同步（OCPP 1.6 Local Authorization List Management）
+ * 充电桩上线后查询其列表版本（GetLocalListVersion），与租户卡片数据版本不一致时全量下发（SendLocalList Full），
+ * 使充电桩在与平台断开时仍可离线授权。卡片数据版本取租户卡片的最近变更时间，集群各节点计算结果一致；
+ * 卡片停用后对该租户在线的充电桩重新同步，避免离线列表中残留已停用的卡
+ */
+@Slf4j
+@Component
+public class LocalAuthorizationListSync {
+
+    /**
+     * 充电桩不支持本地授权列表时上报的版本
+     */
+    private static final int NOT_SUPPORTED = -1;
+
+    private final OCPPPendingCallRegistry pendingCallRegistry;
+    private final OCPPSessionManager sessionManager;
+    private final IdTagAuthorizationMapper authorizationMapper;
+    private final ProtocolMetrics protocolMetrics;
+    private final boolean enabled;
+    private final int maxLength;
+
+    /**
+     * 应答在充电桩邮箱线程上完成，查库和组装列表切换到独立的虚拟线程
+     */
+    private final ExecutorService syncExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ocpp-local-list-", 0).factory());
+
+    public LocalAuthorizationListSync(OCPPPendingCallRegistry pendingCallRegistry,
+                                      OCPPSessionManager sessionManager,
+                                      IdTagAuthorizationMapper authorizationMapper,
+                                      ProtocolMetrics protocolMetrics,
+                                      ProtocolProperties protocolProperties) {
+        this.pendingCallRegistry = pendingCallRegistry;
+        this.sessionManager = sessionManager;
+        this.authorizationMapper = authorizationMapper;
+        this.protocolMetrics = protocolMetrics;
+        ProtocolProperties.OCPPConfig config = protocolProperties.getOcpp();
+        this.enabled = config.isLocalListEnabled() && config.isAuthorizationEnabled();
+        this.maxLength = Math.max(1, config.getLocalListMaxLength());
+    }
+
+    /**
+     * 充电桩列表版本落后时全量下发
+     *
+     * @return 是否下发并被充电桩接受
+     */
+    public CompletableFuture<Boolean> syncIfOutdated(OCPPWebSocketSession session) {
+        Long tenantId = session.getTenantId();
+        if (!enabled || tenantId == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return pendingCallRegistry.sendCall(session, "GetLocalListVersion", null)
+                .thenComposeAsync(result -> {
+                    Number chargerVersion = result.getPayloadField("listVersion", Number.class);
+                    if (chargerVersion == null || chargerVersion.intValue() == NOT_SUPPORTED) {
+                        log.debug("Charger {} does not support local authorization list", session.getChargerCode());
+                        return CompletableFuture.completedFuture(false);
+                    }
+                    int version = authorizationMapper.selectListVersion(tenantId);
+                    if (version == chargerVersion.intValue()) {
+                        return CompletableFuture.completedFuture(false);
+                    }
+                    List<IdTagAuthorization> cards = authorizationMapper.selectActiveCards(tenantId, maxLength);
+                    log.info("Sending local authorization list to charger {}: version {} -> {}, {} cards",
+                            session.getChargerCode(), chargerVersion, version, cards.size());
+                    return pendingCallRegistry.sendCall(session, "SendLocalList", g -> writeFullList(g, version, cards))
+                            .thenApply(LocalAuthorizationListSync::isAccepted);
+                }, syncExecutor)
+                .whenComplete((accepted, error) -> {
+                    if (error != null) {
+                        log.debug("Local authorization list sync with charger {} failed: {}",
+                                session.getChargerCode(), error.getMessage());
+                    } else if (Boolean.TRUE.equals(accepted)) {
+                        protocolMetrics.recordLocalListPushed();
+                    }
+                })
+                .exceptionally(error -> false);
+    }
+
+    /**
+     * 卡片停用后同步该租户在线的充电桩
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIdTagRevoked(IdTagRevokedEvent event) {
+        if (!enabled || event.getTenantId() == null) {
+            return;
+        }
+        sessionManager.forEachSession(session -> {
+            if (session.isActive() && event.getTenantId().equals(session.getTenantId())) {
+                syncIfOutdated(session);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        syncExecutor.shutdownNow();
+    }
+
+    private static void writeFullList(JsonGenerator g, int version, List<IdTagAuthorization> cards) throws IOException {
+        g.writeNumberField("listVersion", version);
+        g.writeStringField("updateType", "Full");
+        g.writeArrayFieldStart("localAuthorizationList");
+        for (IdTagAuthorization card : cards) {
+            g.writeStartObject();
+            g.writeStringField("idTag", card.getIdTag());
+            g.writeObjectFieldStart("idTagInfo");
+            g.writeStringField("status", IdTagAuthorizationCache.ACCEPTED);
+            if (card.getExpireTime() != null) {
+                g.writeStringField("expiryDate", card.getExpireTime().toString());
+            }
+            g.writeEndObject();
+            g.writeEndObject();
+        }
+        g.writeEndArray();
+    }
+
+    private static boolean isAccepted(OCPPCallResultMessage result) {
+        return result != null && "Accepted".equals(result.getPayloadField("status", String.class));
+    }
+}
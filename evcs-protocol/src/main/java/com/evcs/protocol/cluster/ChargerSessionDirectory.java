@@ -0,0 +1,326 @@
+package com.evcs.protocol.cluster;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.metrics.ProtocolMetrics;
+import com.evcs.protocol.websocket.OCPPSessionManager;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 充电桩会话目录
+ * 多节点部署时充电桩只连接到其中一个节点，目录在Redis中记录 chargerCode → nodeId，供其他节点转发远程指令。
+ * - 连接建立时写入带租约的记录，断开时仅在记录仍属于本节点时删除
+ * - 租约按节点批量续期：定时把本节点全部在线充电桩分批以流水线续期，不随每次心跳写Redis；
+ *   每个脚本调用只涉及一个key，Redis Cluster下各key可分布在不同槽位；节点宕机后其记录在租约到期后自然失效
+ * - 查询结果（包括不在线）在本地缓存一小段时间，转发失败时清除对应缓存
+ * 未启用集群时只作为本节点查询，不访问Redis
+ */
+@Slf4j
+@Component
+public class ChargerSessionDirectory {
+
+    static final String KEY_PREFIX = "ocpp:session:";
+
+    /**
+     * 单个流水线处理的最大充电桩数
+     */
+    static final int RENEW_BATCH_SIZE = 500;
+
+    /**
+     * 记录不存在或属于本节点时续期，已被其他节点接管的记录不覆盖
+     */
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "local owner = redis.call('GET', KEYS[1]) "
+                    + "if not owner or owner == ARGV[1] then "
+                    + "  redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2]) "
+                    + "  return 1 "
+                    + "end "
+                    + "return 0", Long.class);
+
+    /**
+     * 只删除属于本节点的记录
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+                    + "  return redis.call('DEL', KEYS[1]) "
+                    + "end "
+                    + "return 0", Long.class);
+
+    private final OCPPSessionManager sessionManager;
+    private final ProtocolMetrics protocolMetrics;
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final String nodeId;
+    private final long leaseTtlSeconds;
+    private final long renewIntervalSeconds;
+    private final long nearCacheTtlNanos;
+    private final int nearCacheMaxEntries;
+    private final LongSupplier nanoClock;
+
+    /**
+     * 目录查询本地缓存：chargerCode → 所在节点（null表示不在线）
+     */
+    private final Map<String, CachedRoute> nearCache = new ConcurrentHashMap<>();
+
+    /**
+     * 连接建立/断开时的Redis写入在虚拟线程上执行，不占用WebSocket容器线程
+     */
+    private final ExecutorService writeExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ocpp-directory-", 0).factory());
+
+    private final ScheduledExecutorService renewExecutor =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("ocpp-directory-renew").daemon().factory());
+
+    @Autowired
+    public ChargerSessionDirectory(OCPPSessionManager sessionManager,
+                                   ProtocolMetrics protocolMetrics,
+                                   ProtocolProperties protocolProperties,
+                                   ObjectProvider<StringRedisTemplate> redisTemplateProvider) {
+        this(sessionManager, protocolMetrics, protocolProperties,
+                protocolProperties.getCluster().isEnabled() ? redisTemplateProvider.getIfAvailable() : null,
+                System::nanoTime);
+    }
+
+    ChargerSessionDirectory(OCPPSessionManager sessionManager,
+                            ProtocolMetrics protocolMetrics,
+                            ProtocolProperties protocolProperties,
+                            StringRedisTemplate redisTemplate,
+                            LongSupplier nanoClock) {
+        ProtocolProperties.ClusterConfig config = protocolProperties.getCluster();
+        this.sessionManager = sessionManager;
+        this.protocolMetrics = protocolMetrics;
+        this.redisTemplate = redisTemplate;
+        this.enabled = config.isEnabled() && redisTemplate != null;
+        this.nodeId = StringUtils.hasText(config.getNodeId()) ? config.getNodeId().trim() : defaultNodeId();
+        this.leaseTtlSeconds = Math.max(1, config.getLeaseTtl());
+        this.renewIntervalSeconds = Math.max(1, Math.min(config.getRenewInterval(), leaseTtlSeconds / 2));
+        this.nearCacheTtlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.getNearCacheTtl()));
+        this.nearCacheMaxEntries = Math.max(1, config.getNearCacheMaxEntries());
+        this.nanoClock = nanoClock;
+        if (config.isEnabled() && redisTemplate == null) {
+            log.warn("Cluster mode is enabled but Redis is not available, session directory stays node-local");
+        }
+    }
+
+    /**
+     * 启动租约定时续期，未启用集群时不启动
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        renewExecutor.scheduleWithFixedDelay(this::renewQuietly, renewIntervalSeconds, renewIntervalSeconds, TimeUnit.SECONDS);
+        log.info("Charger session directory enabled: nodeId={}, leaseTtl={}s, renewInterval={}s",
+                nodeId, leaseTtlSeconds, renewIntervalSeconds);
+    }
+
+    /**
+     * 本节点ID
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 充电桩连接到本节点，重连到本节点的充电桩直接接管其他节点遗留的记录
+     */
+    public void register(String chargerCode) {
+        if (!enabled) {
+            return;
+        }
+        nearCache.remove(chargerCode);
+        writeExecutor.execute(() -> {
+            try {
+                redisTemplate.opsForValue().set(KEY_PREFIX + chargerCode, nodeId, leaseTtlSeconds, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                log.warn("Failed to register charger {} in session directory: {}", chargerCode, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 充电桩与本节点断开
+     */
+    public void unregister(String chargerCode) {
+        if (!enabled) {
+            return;
+        }
+        nearCache.remove(chargerCode);
+        writeExecutor.execute(() -> {
+            try {
+                redisTemplate.execute(RELEASE_SCRIPT, List.of(KEY_PREFIX + chargerCode), nodeId);
+            } catch (Exception e) {
+                log.warn("Failed to unregister charger {} from session directory: {}", chargerCode, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 查询充电桩所在的其他节点
+     *
+     * @return 节点ID；充电桩不在线、只登记在本节点或Redis不可用时返回null
+     */
+    public String lookup(String chargerCode) {
+        if (!enabled || chargerCode == null) {
+            return null;
+        }
+        long now = nanoClock.getAsLong();
+        CachedRoute cached = nearCache.get(chargerCode);
+        if (cached != null && now - cached.expiresAt() < 0) {
+            protocolMetrics.recordDirectoryNearCacheHit();
+            return cached.nodeId();
+        }
+
+        String owner;
+        try {
+            owner = redisTemplate.opsForValue().get(KEY_PREFIX + chargerCode);
+        } catch (Exception e) {
+            log.warn("Failed to look up charger {} in session directory: {}", chargerCode, e.getMessage());
+            return null;
+        }
+        protocolMetrics.recordDirectoryRedisLookup();
+        // 本节点已没有该会话，遗留记录等待租约到期
+        if (nodeId.equals(owner)) {
+            owner = null;
+        }
+        if (nearCacheTtlNanos > 0) {
+            if (nearCache.size() >= nearCacheMaxEntries) {
+                nearCache.values().removeIf(route -> now - route.expiresAt() >= 0);
+            }
+            if (nearCache.size() < nearCacheMaxEntries) {
+                nearCache.put(chargerCode, new CachedRoute(owner, now + nearCacheTtlNanos));
+            }
+        }
+        return owner;
+    }
+
+    /**
+     * 清除查询缓存，转发失败后下一次查询回源Redis
+     */
+    public void invalidate(String chargerCode) {
+        nearCache.remove(chargerCode);
+    }
+
+    /**
+     * 批量续期本节点全部在线充电桩的租约
+     *
+     * @return 续期成功的记录数
+     */
+    long renewLeases() {
+        List<String> keys = localSessionKeys();
+        long renewed = 0;
+        for (int from = 0; from < keys.size(); from += RENEW_BATCH_SIZE) {
+            List<String> batch = keys.subList(from, Math.min(keys.size(), from + RENEW_BATCH_SIZE));
+            renewed += evalPerKey(RENEW_SCRIPT, batch, nodeId, String.valueOf(leaseTtlSeconds));
+        }
+        if (renewed < keys.size()) {
+            log.debug("{} charger sessions are owned by other nodes, lease not renewed", keys.size() - renewed);
+        }
+        protocolMetrics.recordLeasesRenewed(renewed);
+        return renewed;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renewExecutor.shutdown();
+        writeExecutor.shutdown();
+        if (!enabled) {
+            return;
+        }
+        // 节点正常下线时立即释放记录，其他节点不必等待租约到期
+        try {
+            List<String> keys = localSessionKeys();
+            for (int from = 0; from < keys.size(); from += RENEW_BATCH_SIZE) {
+                evalPerKey(RELEASE_SCRIPT, keys.subList(from, Math.min(keys.size(), from + RENEW_BATCH_SIZE)), nodeId);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to release session directory entries on shutdown: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 以流水线对每个key各执行一次单key脚本，返回结果之和
+     * 流水线中不能处理NOSCRIPT回退，因此直接EVAL脚本内容而不是EVALSHA
+     */
+    private long evalPerKey(RedisScript<Long> script, List<String> keys, String... args) {
+        byte[] body = script.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+        byte[][] argBytes = new byte[args.length][];
+        for (int i = 0; i < args.length; i++) {
+            argBytes[i] = args[i].getBytes(StandardCharsets.UTF_8);
+        }
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                byte[][] keysAndArgs = new byte[1 + argBytes.length][];
+                keysAndArgs[0] = key.getBytes(StandardCharsets.UTF_8);
+                System.arraycopy(argBytes, 0, keysAndArgs, 1, argBytes.length);
+                connection.scriptingCommands().eval(body, ReturnType.INTEGER, 1, keysAndArgs);
+            }
+            return null;
+        });
+        long total = 0;
+        for (Object result : results) {
+            if (result instanceof Long count) {
+                total += count;
+            }
+        }
+        return total;
+    }
+
+    private void renewQuietly() {
+        try {
+            renewLeases();
+        } catch (Exception e) {
+            log.warn("Failed to renew session directory leases: {}", e.getMessage());
+        }
+    }
+
+    private List<String> localSessionKeys() {
+        List<String> keys = new ArrayList<>(sessionManager.getActiveSessionCount());
+        sessionManager.forEachSession(session -> {
+            if (session.isActive()) {
+                keys.add(KEY_PREFIX + session.getChargerCode());
+            }
+        });
+        return keys;
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "-" + ProcessHandle.current().pid();
+    }
+
+    private record CachedRoute(String nodeId, long expiresAt) {
+    }
+}
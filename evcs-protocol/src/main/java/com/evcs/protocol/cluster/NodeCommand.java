@@ -0,0 +1,59 @@
+package com.evcs.protocol.cluster;
+
+import java.util.Map;
+
+/**
+ * 节点间转发的远程指令
+ *
+ * @param type        指令类型：START_CHARGING / STOP_CHARGING / CALL
+ * @param chargerCode 充电桩编码
+ * @param sessionId   充电会话ID（启停充电）
+ * @param userId      用户ID（启动充电）
+ * @param action      OCPP action（CALL）
+ * @param payload     OCPP请求字段（CALL），取值为字符串、数值或布尔
+ */
+public record NodeCommand(String type,
+                          String chargerCode,
+                          String sessionId,
+                          Long userId,
+                          String action,
+                          Map<String, Object> payload) {
+
+    public static final String START_CHARGING = "START_CHARGING";
+    public static final String STOP_CHARGING = "STOP_CHARGING";
+    public static final String CALL = "CALL";
+
+    public static NodeCommand startCharging(String chargerCode, String sessionId, Long userId) {
+        return new NodeCommand(START_CHARGING, chargerCode, sessionId, userId, null, null);
+    }
+
+    public static NodeCommand stopCharging(String chargerCode, String sessionId) {
+        return new NodeCommand(STOP_CHARGING, chargerCode, sessionId, null, null, null);
+    }
+
+    public static NodeCommand call(String chargerCode, String action, Map<String, Object> payload) {
+        return new NodeCommand(CALL, chargerCode, null, null, action, payload);
+    }
+
+    /**
+     * 目标节点的应答
+     *
+     * @param delivered 充电桩是否仍连接在目标节点上
+     * @param status    充电桩应答的状态（Accepted/Rejected等）
+     * @param error     失败原因，成功时为空
+     */
+    public record Reply(boolean delivered, String status, String error) {
+
+        public static Reply of(String status) {
+            return new Reply(true, status, null);
+        }
+
+        public static Reply failed(String error) {
+            return new Reply(true, null, error);
+        }
+
+        public static Reply notConnected(String error) {
+            return new Reply(false, null, error);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.evcs.protocol.cluster;
+
+import com.evcs.protocol.config.ClusterMessagingConfig;
+import com.evcs.protocol.metrics.ProtocolMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 节点间指令转发
+ * 把远程指令发到充电桩所在节点的指令队列，经direct reply-to等待该节点执行完毕后的应答
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "evcs.protocol.cluster.enabled", havingValue = "true")
+public class NodeCommandForwarder {
+
+    private final AsyncRabbitTemplate commandTemplate;
+    private final ChargerSessionDirectory sessionDirectory;
+    private final ProtocolMetrics protocolMetrics;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public NodeCommandForwarder(AsyncRabbitTemplate nodeCommandTemplate,
+                                ChargerSessionDirectory sessionDirectory,
+                                ProtocolMetrics protocolMetrics) {
+        this.commandTemplate = nodeCommandTemplate;
+        this.sessionDirectory = sessionDirectory;
+        this.protocolMetrics = protocolMetrics;
+    }
+
+    /**
+     * 转发指令到目标节点
+     *
+     * @return 目标节点的应答；目标节点不可达或超时以异常结束
+     */
+    public CompletableFuture<NodeCommand.Reply> forward(String nodeId, NodeCommand command) {
+        Message request;
+        try {
+            request = MessageBuilder.withBody(objectMapper.writeValueAsBytes(command))
+                    .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                    .build();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        log.debug("Forwarding {} for charger {} to node {}", command.type(), command.chargerCode(), nodeId);
+
+        return commandTemplate.sendAndReceive(ClusterMessagingConfig.NODE_EXCHANGE, nodeId, request)
+                .thenApply(this::readReply)
+                .whenComplete((reply, error) -> {
+                    if (error == null && reply.delivered()) {
+                        protocolMetrics.recordCommandForwarded();
+                        return;
+                    }
+                    // 充电桩已不在该节点或节点不可达，下一次查询回源Redis
+                    sessionDirectory.invalidate(command.chargerCode());
+                    protocolMetrics.recordCommandForwardFailed();
+                    log.warn("Forwarding {} for charger {} to node {} failed: {}", command.type(), command.chargerCode(),
+                            nodeId, error != null ? error.getMessage() : reply.error());
+                });
+    }
+
+    private NodeCommand.Reply readReply(Message message) {
+        try {
+            return objectMapper.readValue(message.getBody(), NodeCommand.Reply.class);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+}
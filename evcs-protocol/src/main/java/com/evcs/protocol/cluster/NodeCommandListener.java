@@ -0,0 +1,59 @@
+package com.evcs.protocol.cluster;
+
+import com.evcs.protocol.metrics.ProtocolMetrics;
+import com.evcs.protocol.service.impl.OCPPProtocolServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 接收其他节点转发的远程指令
+ * 指令在本节点的充电桩会话上执行，等待充电桩应答期间不占用消费线程，完成后按reply-to应答并确认消息
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "evcs.protocol.cluster.enabled", havingValue = "true")
+public class NodeCommandListener {
+
+    private final OCPPProtocolServiceImpl protocolService;
+    private final ProtocolMetrics protocolMetrics;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public NodeCommandListener(OCPPProtocolServiceImpl protocolService, ProtocolMetrics protocolMetrics) {
+        this.protocolService = protocolService;
+        this.protocolMetrics = protocolMetrics;
+    }
+
+    @RabbitListener(queues = "#{nodeCommandQueue.name}")
+    public CompletableFuture<Message> onCommand(Message request) {
+        protocolMetrics.recordCommandReceived();
+        NodeCommand command;
+        try {
+            command = objectMapper.readValue(request.getBody(), NodeCommand.class);
+        } catch (IOException e) {
+            log.error("Discarding malformed node command: {}", e.getMessage());
+            return CompletableFuture.completedFuture(toMessage(NodeCommand.Reply.failed("Malformed node command")));
+        }
+        log.debug("Executing forwarded {} for charger {}", command.type(), command.chargerCode());
+        return protocolService.executeForwarded(command).thenApply(this::toMessage);
+    }
+
+    private Message toMessage(NodeCommand.Reply reply) {
+        try {
+            return MessageBuilder.withBody(objectMapper.writeValueAsBytes(reply))
+                    .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.evcs.protocol.config;
+
+import com.evcs.protocol.cluster.ChargerSessionDirectory;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.ExchangeBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 节点间指令转发配置
+ * 每个节点声明一个以节点ID命名的独占队列，按节点ID路由；请求方使用direct reply-to接收应答，不为应答声明队列
+ */
+@Configuration
+@ConditionalOnProperty(name = "evcs.protocol.cluster.enabled", havingValue = "true")
+public class ClusterMessagingConfig {
+
+    public static final String NODE_EXCHANGE = "evcs.protocol.nodes";
+    public static final String NODE_QUEUE_PREFIX = "evcs.protocol.node.";
+
+    /**
+     * 声明节点指令交换机
+     */
+    @Bean
+    public DirectExchange nodeExchange() {
+        return ExchangeBuilder
+                .directExchange(NODE_EXCHANGE)
+                .durable(true)
+                .build();
+    }
+
+    /**
+     * 声明本节点指令队列，节点下线后随连接删除，发往该节点的指令立即退回
+     */
+    @Bean
+    public Queue nodeCommandQueue(ChargerSessionDirectory sessionDirectory) {
+        return QueueBuilder
+                .nonDurable(NODE_QUEUE_PREFIX + sessionDirectory.getNodeId())
+                .exclusive()
+                .autoDelete()
+                .build();
+    }
+
+    /**
+     * 按节点ID绑定本节点指令队列
+     */
+    @Bean
+    public Binding nodeCommandBinding(Queue nodeCommandQueue, DirectExchange nodeExchange,
+                                      ChargerSessionDirectory sessionDirectory) {
+        return BindingBuilder
+                .bind(nodeCommandQueue)
+                .to(nodeExchange)
+                .with(sessionDirectory.getNodeId());
+    }
+
+    /**
+     * 节点指令使用独立的RabbitTemplate，退回和应答不与协议事件发布共用回调
+     */
+    @Bean
+    public AsyncRabbitTemplate nodeCommandTemplate(ConnectionFactory connectionFactory,
+                                                   ProtocolProperties protocolProperties) {
+        AsyncRabbitTemplate template = new AsyncRabbitTemplate(new RabbitTemplate(connectionFactory));
+        template.setReceiveTimeout(Math.max(1000, protocolProperties.getCluster().getForwardTimeout()));
+        // 目标节点队列已不存在时立即失败，不等到超时
+        template.setMandatory(true);
+        return template;
+    }
+}
@@ -27,6 +27,12 @@ public class OCPPWebSocketConfig implements WebSocketConfigurer {
         int port = protocolProperties.getOcpp().getPort();
         String path = "/ocpp/{chargerCode}/websocket";
 
+        if (protocolProperties.getOcpp().isNettyTransport()) {
+            // 由 OCPPNettyServer 在独立端口上接入，不再占用Web容器线程
+            log.info("OCPP WebSocket served by standalone Netty transport on port {}", port);
+            return;
+        }
+
         // 注册WebSocket处理器
         registry.addHandler(ocppWebSocketHandler, path)
                 .setAllowedOrigins("*") // 生产环境中应该限制允许的源
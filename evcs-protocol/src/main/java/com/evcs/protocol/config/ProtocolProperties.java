@@ -45,6 +45,21 @@ public class ProtocolProperties {
      */
     private RetryConfig retry = new RetryConfig();
 
+    /**
+     * 协议事件发布配置
+     */
+    private EventPublishConfig eventPublish = new EventPublishConfig();
+
+    /**
+     * 限流与过载保护配置
+     */
+    private RateLimitConfig rateLimit = new RateLimitConfig();
+
+    /**
+     * 多节点集群配置
+     */
+    private ClusterConfig cluster = new ClusterConfig();
+
     /**
      * OCPP协议配置
      */
@@ -61,10 +76,15 @@ public class ProtocolProperties {
         private int port = 8088;
 
         /**
-         * 心跳间隔（秒）
+         * BootNotification接受时下发的心跳间隔（秒）
          */
         private int heartbeatInterval = 60;
 
+        /**
+         * 心跳间隔随机抖动比例（0~0.5），使同时上线的充电桩心跳分散开
+         */
+        private double heartbeatJitter = 0.2;
+
         /**
          * 连接超时时间（秒）
          */
@@ -84,6 +104,150 @@ public class ProtocolProperties {
          * OCPP版本
          */
         private String version = "1.6";
+
+        /**
+         * 单个充电桩待处理消息队列容量，队满时对新的Call回复CallError(GenericError, Busy)
+         */
+        private int mailboxCapacity = 64;
+
+        /**
+         * 单帧发送时间上限（毫秒），超过后关闭该连接
+         */
+        private int sendTimeLimit = 10000;
+
+        /**
+         * 单个连接出站缓冲上限（字节），超过后关闭该连接
+         */
+        private int sendBufferSizeLimit = 512 * 1024;
+
+        /**
+         * 计量采样刷写间隔（毫秒）
+         */
+        private long telemetryFlushInterval = 2000;
+
+        /**
+         * 缓冲采样数达到该值时立即刷写
+         */
+        private int telemetryBatchSize = 5000;
+
+        /**
+         * 计量采样缓冲上限，超过后丢弃新采样
+         */
+        private int telemetryBufferLimit = 100000;
+
+        /**
+         * 交易记录写库间隔（毫秒）
+         */
+        private long transactionFlushInterval = 500;
+
+        /**
+         * 充电桩目录全量重新加载间隔（秒），兜底未送达的档案变更通知，0表示只在启动时加载
+         */
+        private int chargerDirectoryReloadInterval = 600;
+
+        /**
+         * 是否按卡片/用户数据校验idTag，关闭时接受任意非空idTag
+         */
+        private boolean authorizationEnabled = true;
+
+        /**
+         * 授权结果缓存时长（秒）
+         */
+        private int authorizationCacheTtl = 600;
+
+        /**
+         * 未知或不可用idTag的缓存时长（秒）
+         */
+        private int authorizationNegativeTtl = 30;
+
+        /**
+         * 授权缓存最大条目数
+         */
+        private int authorizationCacheMaxEntries = 100000;
+
+        /**
+         * 是否在BootNotification后向充电桩同步本地授权列表（SendLocalList）
+         */
+        private boolean localListEnabled = false;
+
+        /**
+         * 本地授权列表最大条目数，超过时只同步最近更新的卡片
+         */
+        private int localListMaxLength = 1000;
+
+        /**
+         * 充电枪状态去抖窗口（毫秒），窗口内的反复跳变只按最终状态转发一次，0表示只去重不去抖
+         */
+        private long statusDebounceWindow = 3000;
+
+        /**
+         * 断开连接后保留充电枪状态的时长（秒），期间重连上报的相同状态不再转发
+         */
+        private int statusRetention = 600;
+
+        /**
+         * 是否启用接入准入控制（握手与BootNotification限速）
+         */
+        private boolean admissionEnabled = true;
+
+        /**
+         * 节点每秒允许的WebSocket握手数，超出的连接以1013关闭
+         */
+        private double handshakeRatePerSecond = 200;
+
+        /**
+         * 握手突发容量
+         */
+        private int handshakeBurst = 500;
+
+        /**
+         * 节点每秒接受的BootNotification数，超出时应答Pending
+         */
+        private double bootRatePerSecond = 50;
+
+        /**
+         * BootNotification突发容量
+         */
+        private int bootBurst = 100;
+
+        /**
+         * Pending应答的重试间隔下限（秒）
+         */
+        private int pendingRetryMin = 15;
+
+        /**
+         * Pending应答的重试间隔上限（秒），实际间隔在上下限之间随机
+         */
+        private int pendingRetryMax = 120;
+
+        /**
+         * 传输方式：servlet（随Web容器注册在应用端口上）/ netty（独立Netty服务监听port）
+         */
+        private String transport = "servlet";
+
+        /**
+         * Netty I/O线程数，0表示按CPU核数
+         */
+        private int nettyWorkerThreads = 0;
+
+        /**
+         * 单条WebSocket消息最大长度（字节）
+         */
+        private int maxFramePayloadLength = 65536;
+
+        /**
+         * 是否协商permessage-deflate压缩
+         */
+        private boolean compressionEnabled = true;
+
+        /**
+         * WebSocket握手超时时间（毫秒）
+         */
+        private long handshakeTimeout = 10000;
+
+        public boolean isNettyTransport() {
+            return "netty".equalsIgnoreCase(transport);
+        }
     }
 
     /**
@@ -121,6 +285,26 @@ public class ProtocolProperties {
          */
         private String signAlgorithm = "HMAC-SHA256";
 
+        /**
+         * 请求时间戳允许的偏差（秒），超出视为过期请求
+         */
+        private int timestampToleranceSeconds = 300;
+
+        /**
+         * 是否拒绝时间窗口内重复的请求ID（防重放）
+         */
+        private boolean replayProtectionEnabled = true;
+
+        /**
+         * 防重放缓存最大条数
+         */
+        private int nonceCacheMaxEntries = 200000;
+
+        /**
+         * 批量接口单次请求的最大操作数
+         */
+        private int maxBatchSize = 500;
+
         /**
          * 连接超时时间（毫秒）
          */
@@ -234,4 +418,149 @@ public class ProtocolProperties {
          */
         private int maxDelay = 10000;
     }
-}
\ No newline at end of file
+
+    /**
+     * 协议事件发布配置
+     */
+    @Data
+    public static class EventPublishConfig {
+        /**
+         * 待发布队列容量，队满的事件进入溢出缓冲
+         */
+        private int queueCapacity = 10000;
+
+        /**
+         * 每批发布的最大事件数
+         */
+        private int batchSize = 100;
+
+        /**
+         * 发布线程数
+         */
+        private int publisherThreads = 2;
+
+        /**
+         * 等待发布确认的超时时间（毫秒）
+         */
+        private int confirmTimeout = 5000;
+
+        /**
+         * 代理不可用期间本地溢出缓冲容量，超过后丢弃最早的事件
+         */
+        private int spillCapacity = 50000;
+
+        /**
+         * 心跳合并窗口（毫秒），每个窗口发布一次最后在线时间快照
+         */
+        private long heartbeatCoalesceWindow = 30000;
+
+        /**
+         * 超过该时长（毫秒）没有心跳的充电桩判定为离线
+         */
+        private long offlineTimeout = 180000;
+
+        /**
+         * 单条快照包含的最大充电桩数
+         */
+        private int snapshotMaxEntries = 5000;
+
+        /**
+         * 内存事件历史容量（向上取整到2的幂），每种事件类型各保留同样条数
+         */
+        private int historyCapacity = 16384;
+
+        /**
+         * 事件报文格式：json / binary
+         * binary只影响发布端，消费端按content-type自动识别
+         */
+        private String wireFormat = "json";
+    }
+
+    /**
+     * 限流与过载保护配置
+     */
+    @Data
+    public static class RateLimitConfig {
+        /**
+         * 是否启用
+         */
+        private boolean enabled = true;
+
+        /**
+         * 单个充电桩每秒允许的消息数（交易类消息不计）
+         */
+        private double chargerPermitsPerSecond = 10;
+
+        /**
+         * 单个充电桩允许的突发消息数
+         */
+        private int chargerBurst = 100;
+
+        /**
+         * 单个租户每秒允许的消息数（交易类消息不计）
+         */
+        private double tenantPermitsPerSecond = 2000;
+
+        /**
+         * 单个租户允许的突发消息数
+         */
+        private int tenantBurst = 10000;
+
+        /**
+         * 跟踪的充电桩/租户数上限
+         */
+        private int maxTrackedKeys = 200000;
+
+        /**
+         * 节点待处理消息数（邮箱积压+事件发布队列）达到该值时丢弃心跳处理，仅直接应答
+         */
+        private int heartbeatShedThreshold = 20000;
+
+        /**
+         * 节点待处理消息数达到该值时拒绝状态、计量等非交易类消息
+         */
+        private int telemetryShedThreshold = 50000;
+    }
+
+    /**
+     * 多节点集群配置
+     * 充电桩连接到哪个节点由Redis中的会话目录记录，远程指令经RabbitMQ转发到充电桩所在节点
+     */
+    @Data
+    public static class ClusterConfig {
+        /**
+         * 是否启用，单节点部署保持关闭
+         */
+        private boolean enabled = false;
+
+        /**
+         * 节点ID，为空时取主机名+进程号
+         */
+        private String nodeId = "";
+
+        /**
+         * 会话目录租约时长（秒），节点宕机后其充电桩记录最迟在该时长后失效
+         */
+        private int leaseTtl = 90;
+
+        /**
+         * 本节点租约批量续期间隔（秒），应小于租约时长的一半
+         */
+        private int renewInterval = 30;
+
+        /**
+         * 目录查询本地缓存时长（毫秒），充电桩不在线的结果同样缓存
+         */
+        private long nearCacheTtl = 5000;
+
+        /**
+         * 目录查询本地缓存的最大条目数
+         */
+        private int nearCacheMaxEntries = 100000;
+
+        /**
+         * 转发指令等待目标节点应答的超时时间（毫秒），应大于OCPP消息超时
+         */
+        private long forwardTimeout = 15000;
+    }
+}
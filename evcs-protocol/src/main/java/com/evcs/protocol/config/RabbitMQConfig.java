@@ -1,5 +1,7 @@
 package com.evcs.protocol.config;
 
+import com.evcs.protocol.mq.ProtocolEventCodec;
+import com.evcs.protocol.mq.ProtocolEventMessageConverter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
@@ -28,6 +30,15 @@ public class RabbitMQConfig {
     public static final String STATUS_QUEUE = "evcs.protocol.status";
     public static final String CHARGING_QUEUE = "evcs.protocol.charging";
     
+    // 充电桩档案变更广播交换机（fanout），各协议节点以临时队列订阅
+    public static final String CHARGER_CHANGE_EXCHANGE = "evcs.charger.changes";
+
+    // idTag授权撤销广播交换机（fanout），认证服务在用户禁用、删除后发布，各协议节点以临时队列订阅
+    public static final String IDTAG_REVOCATION_EXCHANGE = "evcs.idtag.revocations";
+
+    // 业务服务下发的充电桩指令队列，任一协议节点消费，按reply-to应答充电桩的执行结果
+    public static final String CHARGER_COMMAND_QUEUE = "evcs.protocol.commands";
+
     // 死信交换机和队列
     public static final String DLX_EXCHANGE = "evcs.protocol.dlx";
     public static final String DLX_QUEUE = "evcs.protocol.dlx.queue";
@@ -96,6 +107,14 @@ public class RabbitMQConfig {
                 .build();
     }
 
+    /**
+     * 声明充电桩指令队列
+     */
+    @Bean
+    public Queue chargerCommandQueue() {
+        return QueueBuilder.durable(CHARGER_COMMAND_QUEUE).build();
+    }
+
     /**
      * 声明死信队列
      */
@@ -160,11 +179,16 @@ public class RabbitMQConfig {
     }
 
     /**
-     * 配置消息转换器（使用JSON）
+     * 配置消息转换器
+     * 默认使用JSON；开启二进制格式后协议事件按content-type使用紧凑二进制编码，消费端两种格式都能解析
      */
     @Bean
-    public MessageConverter messageConverter() {
-        return new Jackson2JsonMessageConverter();
+    public MessageConverter messageConverter(ProtocolProperties protocolProperties) {
+        boolean binary = "binary".equalsIgnoreCase(protocolProperties.getEventPublish().getWireFormat());
+        if (binary) {
+            log.info("Protocol events are published in binary wire format ({})", ProtocolEventCodec.CONTENT_TYPE);
+        }
+        return new ProtocolEventMessageConverter(new Jackson2JsonMessageConverter(), binary);
     }
 
     /**
@@ -1,18 +1,29 @@
 package com.evcs.protocol.controller;
 
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.dto.ChargerIdentity;
 import com.evcs.protocol.dto.ProtocolRequest;
+import com.evcs.protocol.service.ChargerDirectory;
 import com.evcs.protocol.service.CloudChargeSignatureValidator;
+import com.evcs.protocol.service.CloudChargeSignatureValidator.Verification;
+import com.evcs.protocol.service.ProtocolRateLimiter;
+import com.evcs.protocol.service.ProtocolRateLimiter.MessagePriority;
 import com.evcs.protocol.mq.ProtocolEventPublisher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 云快充协议HTTP API控制器
@@ -23,8 +34,16 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class CloudChargeController {
 
+    /**
+     * 批量接口支持的操作
+     */
+    private static final Set<String> BATCH_ACTIONS = Set.of("heartbeat", "status", "start", "stop");
+
     private final CloudChargeSignatureValidator signatureValidator;
     private final ProtocolEventPublisher eventPublisher;
+    private final ChargerDirectory chargerDirectory;
+    private final ProtocolProperties protocolProperties;
+    private final ProtocolRateLimiter rateLimiter;
 
     /**
      * 处理心跳请求
@@ -37,15 +56,21 @@ public class CloudChargeController {
         log.info("Received heartbeat request from device: {}", request.getDeviceCode());
 
         try {
-            // 验证签名
-            if (!validateRequest(request)) {
-                return ResponseEntity.badRequest()
-                        .body(CloudChargeApiResponse.failure("401", "Invalid signature"));
+            // 验证时间戳、签名和请求ID
+            Verification verification = validateRequest(request);
+            if (verification != Verification.VALID) {
+                return rejected(verification);
             }
 
             // 构建协议请求
             ProtocolRequest protocolRequest = buildProtocolRequest(request, "heartbeat");
-            protocolRequest.setChargerId(extractChargerId(request.getDeviceCode()));
+            if (protocolRequest.getChargerId() == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(CloudChargeApiResponse.failure("404", "Unknown device"));
+            }
+            if (!admit(protocolRequest)) {
+                return tooManyRequests();
+            }
 
             // 发布心跳事件
             eventPublisher.publishHeartbeat(
@@ -81,15 +106,21 @@ public class CloudChargeController {
                 request.getDeviceCode(), request.getData().get("status"));
 
         try {
-            // 验证签名
-            if (!validateRequest(request)) {
-                return ResponseEntity.badRequest()
-                        .body(CloudChargeApiResponse.failure("401", "Invalid signature"));
+            // 验证时间戳、签名和请求ID
+            Verification verification = validateRequest(request);
+            if (verification != Verification.VALID) {
+                return rejected(verification);
             }
 
             // 构建协议请求
             ProtocolRequest protocolRequest = buildProtocolRequest(request, "status");
-            protocolRequest.setChargerId(extractChargerId(request.getDeviceCode()));
+            if (protocolRequest.getChargerId() == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(CloudChargeApiResponse.failure("404", "Unknown device"));
+            }
+            if (!admit(protocolRequest)) {
+                return tooManyRequests();
+            }
 
             Integer status = (Integer) request.getData().get("status");
 
@@ -129,15 +160,21 @@ public class CloudChargeController {
                 request.getDeviceCode(), request.getSessionId());
 
         try {
-            // 验证签名
-            if (!validateRequest(request)) {
-                return ResponseEntity.badRequest()
-                        .body(CloudChargeApiResponse.failure("401", "Invalid signature"));
+            // 验证时间戳、签名和请求ID
+            Verification verification = validateRequest(request);
+            if (verification != Verification.VALID) {
+                return rejected(verification);
             }
 
             // 构建协议请求
             ProtocolRequest protocolRequest = buildProtocolRequest(request, "start");
-            protocolRequest.setChargerId(extractChargerId(request.getDeviceCode()));
+            if (protocolRequest.getChargerId() == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(CloudChargeApiResponse.failure("404", "Unknown device"));
+            }
+            if (!admit(protocolRequest)) {
+                return tooManyRequests();
+            }
 
             // 发布充电开始事件
             eventPublisher.publishChargingStart(
@@ -179,15 +216,21 @@ public class CloudChargeController {
                 request.getDeviceCode(), request.getSessionId());
 
         try {
-            // 验证签名
-            if (!validateRequest(request)) {
-                return ResponseEntity.badRequest()
-                        .body(CloudChargeApiResponse.failure("401", "Invalid signature"));
+            // 验证时间戳、签名和请求ID
+            Verification verification = validateRequest(request);
+            if (verification != Verification.VALID) {
+                return rejected(verification);
             }
 
             // 构建协议请求
             ProtocolRequest protocolRequest = buildProtocolRequest(request, "stop");
-            protocolRequest.setChargerId(extractChargerId(request.getDeviceCode()));
+            if (protocolRequest.getChargerId() == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(CloudChargeApiResponse.failure("404", "Unknown device"));
+            }
+            if (!admit(protocolRequest)) {
+                return tooManyRequests();
+            }
 
             // 从请求数据中获取充电信息
             Map<String, Object> data = request.getData();
@@ -227,9 +270,127 @@ public class CloudChargeController {
     }
 
     /**
-     * 验证请求签名
+     * 批量处理请求
+     * 聚合平台一次提交多个充电桩的心跳/状态/开始/停止操作，每项独立签名（action为签名内容的一部分），
+     * 逐项校验后合并为一个事件批次发布；返回与请求顺序一致的逐项结果，单项失败不影响其他项
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<CloudChargeApiResponse> handleBatch(
+            @RequestBody CloudChargeBatchRequest batchRequest,
+            HttpServletRequest httpRequest) {
+
+        List<CloudChargeRequest> operations = batchRequest != null ? batchRequest.getOperations() : null;
+        if (operations == null || operations.isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(CloudChargeApiResponse.failure("400", "Empty batch"));
+        }
+        int maxBatchSize = protocolProperties.getCloudCharge().getMaxBatchSize();
+        if (operations.size() > maxBatchSize) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(CloudChargeApiResponse.failure("413", "Batch exceeds " + maxBatchSize + " operations"));
+        }
+
+        log.info("Received batch of {} operations", operations.size());
+
+        try {
+            ProtocolEventPublisher.Batch batch = eventPublisher.newBatch();
+            List<BatchItemResult> results = new ArrayList<>(operations.size());
+            int accepted = 0;
+            for (int i = 0; i < operations.size(); i++) {
+                BatchItemResult result = dispatchBatchItem(i, operations.get(i), batch);
+                if (result.isSuccess()) {
+                    accepted++;
+                }
+                results.add(result);
+            }
+            batch.publish();
+
+            Map<String, Object> data = new HashMap<>();
+            data.put("timestamp", LocalDateTime.now());
+            data.put("total", operations.size());
+            data.put("accepted", accepted);
+            data.put("rejected", operations.size() - accepted);
+            data.put("results", results);
+
+            return ResponseEntity.ok(CloudChargeApiResponse.success(data));
+
+        } catch (Exception e) {
+            log.error("Error processing batch request", e);
+            return ResponseEntity.internalServerError()
+                    .body(CloudChargeApiResponse.failure("500", "Internal server error"));
+        }
+    }
+
+    /**
+     * 校验并把单个批量操作加入事件批次
+     */
+    private BatchItemResult dispatchBatchItem(int index, CloudChargeRequest request, ProtocolEventPublisher.Batch batch) {
+        if (request == null) {
+            return BatchItemResult.failure(index, null, "400", "Empty operation");
+        }
+        String action = request.getAction();
+        if (action == null || !BATCH_ACTIONS.contains(action)) {
+            return BatchItemResult.failure(index, request.getRequestId(), "400", "Unsupported action: " + action);
+        }
+
+        Verification verification = validateRequest(request);
+        if (verification != Verification.VALID) {
+            CloudChargeApiResponse rejected = rejected(verification).getBody();
+            return BatchItemResult.failure(index, request.getRequestId(), rejected.getCode(), rejected.getMessage());
+        }
+
+        ProtocolRequest protocolRequest = buildProtocolRequest(request, action);
+        Long chargerId = protocolRequest.getChargerId();
+        Long tenantId = protocolRequest.getTenantId();
+        if (chargerId == null) {
+            return BatchItemResult.failure(index, request.getRequestId(), "404", "Unknown device");
+        }
+        if (!admit(protocolRequest)) {
+            return BatchItemResult.failure(index, request.getRequestId(), "429", "Too many requests");
+        }
+
+        Map<String, Object> data = request.getData() != null ? request.getData() : Map.of();
+        try {
+            switch (action) {
+                case "heartbeat" -> batch.heartbeat(chargerId, tenantId, "CLOUD_CHARGE", LocalDateTime.now());
+                case "status" -> batch.statusChange(chargerId, tenantId, "CLOUD_CHARGE", null,
+                        toInteger(data.get("status")), "Status reported by device");
+                case "start" -> batch.chargingStart(chargerId, tenantId, "CLOUD_CHARGE", request.getSessionId(),
+                        protocolRequest.getUserId(), null, 0.0, true, "Charging started successfully");
+                default -> batch.chargingStop(chargerId, tenantId, "CLOUD_CHARGE", request.getSessionId(), null,
+                        toDouble(data.getOrDefault("energy", 0.0)), toLong(data.getOrDefault("duration", 0L)),
+                        data.containsKey("reason") ? String.valueOf(data.get("reason")) : "Manual stop",
+                        true, "Charging stopped successfully");
+            }
+        } catch (IllegalArgumentException e) {
+            return BatchItemResult.failure(index, request.getRequestId(), "400", "Invalid data: " + e.getMessage());
+        }
+        return BatchItemResult.success(index, request.getRequestId());
+    }
+
+    private static Integer toInteger(Object value) {
+        return value == null ? null : toNumber(value).intValue();
+    }
+
+    private static Double toDouble(Object value) {
+        return value == null ? null : toNumber(value).doubleValue();
+    }
+
+    private static Long toLong(Object value) {
+        return value == null ? null : toNumber(value).longValue();
+    }
+
+    private static Number toNumber(Object value) {
+        if (value instanceof Number number) {
+            return number;
+        }
+        return new BigDecimal(value.toString());
+    }
+
+    /**
+     * 验证请求时间戳、签名和请求ID
      */
-    private boolean validateRequest(CloudChargeRequest request) {
+    private Verification validateRequest(CloudChargeRequest request) {
         try {
             // 转换为签名验证器需要的格式
             CloudChargeSignatureValidator.CloudChargeRequest validatorRequest =
@@ -241,15 +402,45 @@ public class CloudChargeController {
             validatorRequest.setDeviceCode(request.getDeviceCode());
             validatorRequest.setSessionId(request.getSessionId());
             validatorRequest.setAction(request.getAction());
+            validatorRequest.setVendor(request.getVendor());
             validatorRequest.setData(request.getData());
 
-            return signatureValidator.validateSignature(validatorRequest);
+            return signatureValidator.verify(validatorRequest);
         } catch (Exception e) {
             log.error("Error validating signature for request: {}", request, e);
-            return false;
+            return Verification.INVALID_SIGNATURE;
         }
     }
 
+    /**
+     * 校验失败的响应
+     */
+    private ResponseEntity<CloudChargeApiResponse> rejected(Verification verification) {
+        CloudChargeApiResponse response = switch (verification) {
+            case EXPIRED -> CloudChargeApiResponse.failure("401", "Request expired");
+            case REPLAYED -> CloudChargeApiResponse.failure("409", "Duplicate request");
+            default -> CloudChargeApiResponse.failure("401", "Invalid signature");
+        };
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    /**
+     * 按充电桩/租户限流，开始/停止充电不受限
+     */
+    private boolean admit(ProtocolRequest protocolRequest) {
+        MessagePriority priority = switch (protocolRequest.getAction()) {
+            case "heartbeat" -> MessagePriority.HEARTBEAT;
+            case "start", "stop" -> MessagePriority.TRANSACTION;
+            default -> MessagePriority.TELEMETRY;
+        };
+        return rateLimiter.admit(protocolRequest.getDeviceCode(), protocolRequest.getTenantId(), priority).isAllowed();
+    }
+
+    private ResponseEntity<CloudChargeApiResponse> tooManyRequests() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .body(CloudChargeApiResponse.failure("429", "Too many requests"));
+    }
+
     /**
      * 构建协议请求对象
      */
@@ -264,28 +455,17 @@ public class CloudChargeController {
         protocolRequest.setApiVersion(request.getApiVersion());
         protocolRequest.setTimestamp(LocalDateTime.parse(request.getTimestamp(), DateTimeFormatter.ISO_LOCAL_DATE_TIME));
 
-        // TODO: 从请求中获取或从数据库查询租户ID和用户ID
-        protocolRequest.setTenantId(1L); // 临时硬编码
+        // 充电桩ID与租户ID由充电桩目录按设备编码解析
+        ChargerIdentity identity = chargerDirectory.resolve(request.getDeviceCode());
+        if (identity != null) {
+            protocolRequest.setChargerId(identity.getChargerId());
+            protocolRequest.setTenantId(identity.getTenantId());
+        }
         protocolRequest.setUserId(null); // 根据实际情况设置
 
         return protocolRequest;
     }
 
-    /**
-     * 从设备编码提取充电桩ID
-     * 这里假设设备编码包含充电桩ID信息，实际实现需要根据具体编码规则
-     */
-    private Long extractChargerId(String deviceCode) {
-        // 简单实现：假设设备编码后缀是数字ID
-        try {
-            String[] parts = deviceCode.split("_");
-            return Long.parseLong(parts[parts.length - 1]);
-        } catch (Exception e) {
-            log.warn("Failed to extract charger ID from device code: {}", deviceCode);
-            return 0L; // 临时返回0，实际应该从数据库查询
-        }
-    }
-
     /**
      * 云快充请求对象
      */
@@ -297,6 +477,7 @@ public class CloudChargeController {
         private String deviceCode;
         private String sessionId;
         private String action;
+        private String vendor;
         private Map<String, Object> data;
 
         // Getters and Setters
@@ -314,10 +495,65 @@ public class CloudChargeController {
         public void setSessionId(String sessionId) { this.sessionId = sessionId; }
         public String getAction() { return action; }
         public void setAction(String action) { this.action = action; }
+        public String getVendor() { return vendor; }
+        public void setVendor(String vendor) { this.vendor = vendor; }
         public Map<String, Object> getData() { return data; }
         public void setData(Map<String, Object> data) { this.data = data; }
     }
 
+    /**
+     * 云快充批量请求对象
+     */
+    public static class CloudChargeBatchRequest {
+        private List<CloudChargeRequest> operations;
+
+        public List<CloudChargeRequest> getOperations() { return operations; }
+        public void setOperations(List<CloudChargeRequest> operations) { this.operations = operations; }
+    }
+
+    /**
+     * 批量操作的单项结果，index 对应请求中的位置
+     */
+    public static class BatchItemResult {
+        private int index;
+        private String requestId;
+        private boolean success;
+        private String code;
+        private String message;
+
+        public static BatchItemResult success(int index, String requestId) {
+            BatchItemResult result = new BatchItemResult();
+            result.setIndex(index);
+            result.setRequestId(requestId);
+            result.setSuccess(true);
+            result.setCode("200");
+            result.setMessage("Success");
+            return result;
+        }
+
+        public static BatchItemResult failure(int index, String requestId, String code, String message) {
+            BatchItemResult result = new BatchItemResult();
+            result.setIndex(index);
+            result.setRequestId(requestId);
+            result.setSuccess(false);
+            result.setCode(code);
+            result.setMessage(message);
+            return result;
+        }
+
+        // Getters and Setters
+        public int getIndex() { return index; }
+        public void setIndex(int index) { this.index = index; }
+        public String getRequestId() { return requestId; }
+        public void setRequestId(String requestId) { this.requestId = requestId; }
+        public boolean isSuccess() { return success; }
+        public void setSuccess(boolean success) { this.success = success; }
+        public String getCode() { return code; }
+        public void setCode(String code) { this.code = code; }
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+
     /**
      * 云快充响应对象
      */
@@ -2,12 +2,10 @@ package com.evcs.protocol.controller;
 
 import com.evcs.common.result.Result;
 import com.evcs.protocol.event.*;
+import com.evcs.protocol.mq.ProtocolEventHistory;
 import com.evcs.protocol.mq.ProtocolEventPublisher;
-import java.lang.reflect.Field;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -173,50 +171,36 @@ public class ProtocolDebugController {
 
     /**
      * 查看事件历史
+     * 按充电桩、租户和事件类型过滤，从最新的事件向前查找，最新的在前
      * 注意：这只是演示，生产环境应该从数据库或消息队列中查询
      */
     @GetMapping("/events/history")
     public Result<?> getEventHistory(
         @RequestParam(required = false) Long chargerId,
+        @RequestParam(required = false) Long tenantId,
         @RequestParam(required = false) String eventType,
         @RequestParam(defaultValue = "20") int limit
     ) {
-        log.info(
-            "Querying event history: chargerId={}, eventType={}, limit={}",
+        log.debug(
+            "Querying event history: chargerId={}, tenantId={}, eventType={}, limit={}",
             chargerId,
+            tenantId,
             eventType,
             limit
         );
 
-        List<ProtocolEvent> allEvents = eventPublisher.getEventHistory();
-
-        List<ProtocolEvent> filtered = allEvents
-            .stream()
-            .filter(e -> {
-                if (chargerId != null) {
-                    Long ch = getFieldAsLong(e, "chargerId");
-                    if (ch == null || !ch.equals(chargerId)) {
-                        return false;
-                    }
-                }
-                if (eventType != null) {
-                    String et = getFieldAsString(e, "eventType");
-                    if (et == null || !et.equals(eventType)) {
-                        return false;
-                    }
-                }
-                return true;
-            })
-            .collect(Collectors.toList());
-
-        if (filtered.size() > limit) {
-            filtered = filtered.subList(
-                Math.max(0, filtered.size() - limit),
-                filtered.size()
-            );
+        ProtocolEvent.EventType type = null;
+        if (eventType != null && !eventType.isBlank()) {
+            try {
+                type = ProtocolEvent.EventType.valueOf(eventType.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return Result.failure("Unknown event type: " + eventType);
+            }
         }
 
-        return Result.success(filtered);
+        return Result.success(
+            eventPublisher.getEventHistory(chargerId, tenantId, type, limit)
+        );
     }
 
     /**
@@ -224,64 +208,19 @@ public class ProtocolDebugController {
      */
     @GetMapping("/stats")
     public Result<?> getProtocolStats() {
-        List<ProtocolEvent> events = eventPublisher.getEventHistory();
+        ProtocolEventHistory history = eventPublisher.getHistory();
         ProtocolStats stats = new ProtocolStats();
-        stats.setTotalEvents((long) events.size());
+        stats.setTotalEvents(history.count(e -> true));
         stats.setOcppEvents(
-            events
-                .stream()
-                .filter(e -> "OCPP".equals(getFieldAsString(e, "protocolType")))
-                .count()
+            history.count(e -> "OCPP".equals(e.getProtocolType()))
         );
         stats.setCloudChargeEvents(
-            events
-                .stream()
-                .filter(e ->
-                    "CloudCharge".equals(getFieldAsString(e, "protocolType"))
-                )
-                .count()
+            history.count(e -> "CloudCharge".equals(e.getProtocolType()))
         );
 
         return Result.success(stats);
     }
 
-    // --- Reflection helpers to read fields from ProtocolEvent without relying on generated getters ---
-    private Object getFieldValue(ProtocolEvent event, String fieldName) {
-        try {
-            Field f = ProtocolEvent.class.getDeclaredField(fieldName);
-            f.setAccessible(true);
-            return f.get(event);
-        } catch (Exception ex) {
-            log.warn(
-                "Unable to read field '{}' from ProtocolEvent via reflection: {}",
-                fieldName,
-                ex.getMessage()
-            );
-            return null;
-        }
-    }
-
-    private String getFieldAsString(ProtocolEvent event, String fieldName) {
-        Object v = getFieldValue(event, fieldName);
-        return v == null ? null : v.toString();
-    }
-
-    private Long getFieldAsLong(ProtocolEvent event, String fieldName) {
-        Object v = getFieldValue(event, fieldName);
-        if (v instanceof Long) {
-            return (Long) v;
-        } else if (v instanceof Integer) {
-            return ((Integer) v).longValue();
-        } else if (v != null) {
-            try {
-                return Long.valueOf(v.toString());
-            } catch (NumberFormatException nfe) {
-                return null;
-            }
-        }
-        return null;
-    }
-
     // ===== Request DTOs =====
 
     public static class HeartbeatRequest {
@@ -0,0 +1,11 @@
+package com.evcs.protocol.dto;
+
+/**
+ * 充电桩档案变更通知
+ * 充电站服务在充电桩新增、修改、删除提交后广播，协议服务据此失效充电桩目录
+ *
+ * @param chargerId   充电桩ID
+ * @param chargerCode 充电桩编码（修改后的编码；删除时为删除前的编码）
+ */
+public record ChargerChange(Long chargerId, String chargerCode) {
+}
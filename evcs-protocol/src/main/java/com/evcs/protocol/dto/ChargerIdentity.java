@@ -0,0 +1,35 @@
+package com.evcs.protocol.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 充电桩身份
+ * 充电桩编码解析出的档案主键、所属充电站与租户，连接建立后固定在会话上
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChargerIdentity {
+
+    /**
+     * 充电桩编码
+     */
+    private String chargerCode;
+
+    /**
+     * 充电桩ID
+     */
+    private Long chargerId;
+
+    /**
+     * 充电站ID
+     */
+    private Long stationId;
+
+    /**
+     * 租户ID
+     */
+    private Long tenantId;
+}
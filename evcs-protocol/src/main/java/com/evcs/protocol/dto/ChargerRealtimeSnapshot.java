@@ -0,0 +1,36 @@
+package com.evcs.protocol.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 一次刷写周期内充电桩实时数据的最新值，未上报的项为空
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChargerRealtimeSnapshot {
+
+    private Long chargerId;
+
+    /**
+     * 实时功率(kW)
+     */
+    private Double power;
+
+    /**
+     * 实时电压(V)
+     */
+    private Double voltage;
+
+    /**
+     * 实时电流(A)
+     */
+    private Double current;
+
+    /**
+     * 温度(℃)
+     */
+    private Double temperature;
+}
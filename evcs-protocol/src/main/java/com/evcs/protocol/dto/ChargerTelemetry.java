@@ -0,0 +1,43 @@
+package com.evcs.protocol.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 充电桩计量采样（charger_telemetry 表的一行）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChargerTelemetry {
+
+    private Long tenantId;
+
+    private Long chargerId;
+
+    private Integer connectorId;
+
+    /**
+     * 所属交易，非交易期间的采样为空
+     */
+    private Integer transactionId;
+
+    private LocalDateTime sampledAt;
+
+    /**
+     * OCPP计量项名称
+     */
+    private String measurand;
+
+    private String phase;
+
+    /**
+     * 换算到基本单位后的值
+     */
+    private Double value;
+
+    private String unit;
+}
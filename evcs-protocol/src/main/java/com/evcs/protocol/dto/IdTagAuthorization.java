@@ -0,0 +1,32 @@
+package com.evcs.protocol.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * idTag授权数据（充电卡或平台用户）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdTagAuthorization {
+
+    private String idTag;
+
+    private Long tenantId;
+
+    private Long userId;
+
+    /**
+     * 状态：0-停用，1-正常
+     */
+    private Integer status;
+
+    /**
+     * 有效期，为空表示长期有效
+     */
+    private LocalDateTime expireTime;
+}
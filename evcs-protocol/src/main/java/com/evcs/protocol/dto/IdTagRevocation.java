@@ -0,0 +1,11 @@
+package com.evcs.protocol.dto;
+
+/**
+ * idTag授权撤销通知
+ * 认证服务在用户禁用、删除提交后广播，协议服务据此失效授权缓存
+ *
+ * @param tenantId 租户ID
+ * @param idTag    被撤销的idTag（用户为 {@code USER_<用户ID>}）；为空表示该租户的全部条目
+ */
+public record IdTagRevocation(Long tenantId, String idTag) {
+}
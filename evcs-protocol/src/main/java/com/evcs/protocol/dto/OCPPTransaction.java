@@ -0,0 +1,52 @@
+package com.evcs.protocol.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * OCPP交易（ocpp_transaction 表的一行）
+ * 记录下发给充电桩的 transactionId 与平台充电会话的对应关系
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OCPPTransaction {
+
+    /**
+     * 分配给充电桩的OCPP交易ID
+     */
+    private Integer transactionId;
+
+    private Long tenantId;
+
+    private Long chargerId;
+
+    private String chargerCode;
+
+    private Integer connectorId;
+
+    private String idTag;
+
+    /**
+     * 平台充电会话ID（订单session_id），充电桩本地发起的交易为 TXN_{transactionId}
+     */
+    private String sessionId;
+
+    private Integer meterStart;
+
+    private Integer meterStop;
+
+    private LocalDateTime startedAt;
+
+    /**
+     * 交易结束时间，进行中为空
+     */
+    private LocalDateTime stoppedAt;
+
+    public boolean isActive() {
+        return stoppedAt == null;
+    }
+}
@@ -0,0 +1,111 @@
+package com.evcs.protocol.dto.ocpp;
+
+import java.util.List;
+
+/**
+ * OCPP Call消息强类型载荷
+ * 由 {@link OCPPFrameDecoder} 按 action 直接从 JsonParser 绑定，不经过 Map 中转
+ * 时间字段保留 OCPP 报文中的 ISO-8601 原始字符串，需要时再由业务方解析
+ */
+public sealed interface OCPPActionPayload {
+
+    /**
+     * BootNotification.req
+     */
+    record BootNotification(
+            String chargePointVendor,
+            String chargePointModel,
+            String chargePointSerialNumber,
+            String chargeBoxSerialNumber,
+            String firmwareVersion,
+            String iccid,
+            String imsi,
+            String meterType,
+            String meterSerialNumber) implements OCPPActionPayload {
+
+        /**
+         * 厂商和型号为必填项
+         */
+        public boolean isValid() {
+            return chargePointVendor != null && !chargePointVendor.isBlank()
+                    && chargePointModel != null && !chargePointModel.isBlank();
+        }
+    }
+
+    /**
+     * Heartbeat.req（无字段，复用单例）
+     */
+    record Heartbeat() implements OCPPActionPayload {
+        public static final Heartbeat INSTANCE = new Heartbeat();
+    }
+
+    /**
+     * StatusNotification.req
+     */
+    record StatusNotification(
+            Integer connectorId,
+            String errorCode,
+            String status,
+            String info,
+            String timestamp,
+            String vendorId,
+            String vendorErrorCode) implements OCPPActionPayload {
+    }
+
+    /**
+     * Authorize.req
+     */
+    record Authorize(String idTag) implements OCPPActionPayload {
+    }
+
+    /**
+     * StartTransaction.req
+     */
+    record StartTransaction(
+            Integer connectorId,
+            String idTag,
+            Integer meterStart,
+            Integer reservationId,
+            String timestamp) implements OCPPActionPayload {
+    }
+
+    /**
+     * StopTransaction.req
+     */
+    record StopTransaction(
+            Integer transactionId,
+            String idTag,
+            Integer meterStop,
+            String timestamp,
+            String reason,
+            List<MeterValue> transactionData) implements OCPPActionPayload {
+    }
+
+    /**
+     * MeterValues.req
+     */
+    record MeterValues(
+            Integer connectorId,
+            Integer transactionId,
+            List<MeterValue> meterValue) implements OCPPActionPayload {
+    }
+
+    /**
+     * 单个时间点的采样集合
+     */
+    record MeterValue(String timestamp, List<SampledValue> sampledValue) {
+    }
+
+    /**
+     * 单个采样值，value 在 OCPP 1.6 中为字符串
+     */
+    record SampledValue(
+            String value,
+            String context,
+            String format,
+            String measurand,
+            String phase,
+            String location,
+            String unit) {
+    }
+}
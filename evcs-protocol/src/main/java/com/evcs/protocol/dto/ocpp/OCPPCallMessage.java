@@ -1,5 +1,6 @@
 package com.evcs.protocol.dto.ocpp;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
@@ -30,6 +31,12 @@ public class OCPPCallMessage extends OCPPMessage {
     @JsonProperty(index = 3)
     private Map<String, Object> payload;
 
+    /**
+     * 强类型载荷（由OCPPFrameDecoder绑定，未识别的action为null）
+     */
+    @JsonIgnore
+    private OCPPActionPayload typedPayload;
+
     public OCPPCallMessage() {
         super(OCPPMessageType.CALL.getTypeId(), null);
     }
@@ -40,6 +47,12 @@ public class OCPPCallMessage extends OCPPMessage {
         this.payload = payload;
     }
 
+    public OCPPCallMessage(String messageId, String action, OCPPActionPayload typedPayload) {
+        super(OCPPMessageType.CALL.getTypeId(), messageId);
+        this.action = action;
+        this.typedPayload = typedPayload;
+    }
+
     @Override
     public boolean isValid() {
         return super.isValid() && action != null && !action.trim().isEmpty();
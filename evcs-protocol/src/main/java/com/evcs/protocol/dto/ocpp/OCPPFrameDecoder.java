@@ -0,0 +1,376 @@
+package com.evcs.protocol.dto.ocpp;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OCPP帧流式解码器
+ * 基于Jackson JsonParser单次读取 [type, id, action, payload]，
+ * 并按action将载荷直接绑定为 {@link OCPPActionPayload} 强类型记录，
+ * 取代 readTree + convertValue(Map) 的二次解析。
+ * 非法帧只在此处以DEBUG记录一次原因和截断后的帧内容，不打印堆栈，避免异常充电桩刷屏日志
+ */
+@Slf4j
+@Component
+public class OCPPFrameDecoder {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    /**
+     * 日志中保留的帧内容最大长度
+     */
+    private static final int MAX_LOGGED_FRAME_LENGTH = 256;
+
+    private final ObjectMapper objectMapper;
+
+    public OCPPFrameDecoder() {
+        this.objectMapper = new ObjectMapper();
+    }
+
+    /**
+     * 解码一帧OCPP消息
+     *
+     * @return 解码后的消息；格式不合法时返回null
+     */
+    public OCPPMessage decode(String frame) {
+        if (frame == null || frame.isEmpty()) {
+            return reject("empty frame", frame);
+        }
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(frame)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return reject("expected JSON array", frame);
+            }
+            if (parser.nextToken() != JsonToken.VALUE_NUMBER_INT) {
+                return reject("missing message type ID", frame);
+            }
+            int typeId = parser.getIntValue();
+            if (parser.nextToken() != JsonToken.VALUE_STRING) {
+                return reject("missing message ID", frame);
+            }
+            String messageId = parser.getText();
+
+            OCPPMessage message;
+            switch (typeId) {
+                case 2:
+                    message = decodeCall(parser, messageId);
+                    break;
+                case 3:
+                    message = decodeCallResult(parser, messageId);
+                    break;
+                case 4:
+                    message = decodeCallError(parser, messageId);
+                    break;
+                default:
+                    return reject("unsupported message type " + typeId, frame);
+            }
+
+            // 可选元素缺省时结尾的END_ARRAY可能已被读取
+            if (message == null || (parser.currentToken() != JsonToken.END_ARRAY
+                    && parser.nextToken() != JsonToken.END_ARRAY)) {
+                return reject("invalid frame structure", frame);
+            }
+            return message;
+
+        } catch (IOException | RuntimeException e) {
+            // Jackson的异常消息附带原始内容片段，只取原始描述
+            String reason = e instanceof JsonProcessingException jsonError ? jsonError.getOriginalMessage() : e.getMessage();
+            return reject(e.getClass().getSimpleName() + ": " + reason, frame);
+        }
+    }
+
+    private static OCPPMessage reject(String reason, String frame) {
+        if (log.isDebugEnabled()) {
+            log.debug("Invalid OCPP frame ({}): {}", reason, truncate(frame));
+        }
+        return null;
+    }
+
+    private static String truncate(String frame) {
+        if (frame == null || frame.length() <= MAX_LOGGED_FRAME_LENGTH) {
+            return frame;
+        }
+        return frame.substring(0, MAX_LOGGED_FRAME_LENGTH) + "...(" + frame.length() + " chars)";
+    }
+
+    /**
+     * [2, messageId, action, payload]
+     */
+    private OCPPMessage decodeCall(JsonParser parser, String messageId) throws IOException {
+        if (parser.nextToken() != JsonToken.VALUE_STRING) {
+            return null;
+        }
+        String action = parser.getText();
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+        return new OCPPCallMessage(messageId, action, bindPayload(action, parser));
+    }
+
+    /**
+     * [3, messageId, payload]
+     * 响应载荷结构取决于服务端发出的请求，这里保留为Map
+     */
+    private OCPPMessage decodeCallResult(JsonParser parser, String messageId) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+        Map<String, Object> payload = objectMapper.readValue(parser, MAP_TYPE);
+        return new OCPPCallResultMessage(messageId, payload);
+    }
+
+    /**
+     * [4, messageId, errorCode, errorDescription, errorDetails]
+     */
+    private OCPPMessage decodeCallError(JsonParser parser, String messageId) throws IOException {
+        if (parser.nextToken() != JsonToken.VALUE_STRING) {
+            return null;
+        }
+        String errorCodeStr = parser.getText();
+        OCPPErrorCode errorCode;
+        try {
+            errorCode = OCPPErrorCode.fromCode(errorCodeStr);
+        } catch (IllegalArgumentException e) {
+            errorCode = OCPPErrorCode.GENERIC_ERROR;
+        }
+
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.END_ARRAY) {
+            return new OCPPCallErrorMessage(messageId, errorCode, "", null);
+        }
+        String errorDescription = token == JsonToken.VALUE_STRING ? parser.getText() : "";
+
+        // errorDetails为可选项
+        Map<String, Object> errorDetails = null;
+        if (parser.nextToken() == JsonToken.START_OBJECT) {
+            errorDetails = objectMapper.readValue(parser, MAP_TYPE);
+        }
+        return new OCPPCallErrorMessage(messageId, errorCode, errorDescription, errorDetails);
+    }
+
+    // ========== 载荷绑定 ==========
+
+    private OCPPActionPayload bindPayload(String action, JsonParser parser) throws IOException {
+        switch (action) {
+            case "BootNotification":
+                return readBootNotification(parser);
+            case "Heartbeat":
+                parser.skipChildren();
+                return OCPPActionPayload.Heartbeat.INSTANCE;
+            case "StatusNotification":
+                return readStatusNotification(parser);
+            case "Authorize":
+                return readAuthorize(parser);
+            case "StartTransaction":
+                return readStartTransaction(parser);
+            case "StopTransaction":
+                return readStopTransaction(parser);
+            case "MeterValues":
+                return readMeterValues(parser);
+            default:
+                // 未识别的action不绑定载荷，由处理器回复NotSupported
+                parser.skipChildren();
+                return null;
+        }
+    }
+
+    private OCPPActionPayload.BootNotification readBootNotification(JsonParser parser) throws IOException {
+        String vendor = null, model = null, serialNumber = null, boxSerialNumber = null, firmwareVersion = null;
+        String iccid = null, imsi = null, meterType = null, meterSerialNumber = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "chargePointVendor": vendor = readText(parser); break;
+                case "chargePointModel": model = readText(parser); break;
+                case "chargePointSerialNumber": serialNumber = readText(parser); break;
+                case "chargeBoxSerialNumber": boxSerialNumber = readText(parser); break;
+                case "firmwareVersion": firmwareVersion = readText(parser); break;
+                case "iccid": iccid = readText(parser); break;
+                case "imsi": imsi = readText(parser); break;
+                case "meterType": meterType = readText(parser); break;
+                case "meterSerialNumber": meterSerialNumber = readText(parser); break;
+                default: parser.skipChildren();
+            }
+        }
+        return new OCPPActionPayload.BootNotification(vendor, model, serialNumber, boxSerialNumber,
+                firmwareVersion, iccid, imsi, meterType, meterSerialNumber);
+    }
+
+    private OCPPActionPayload.StatusNotification readStatusNotification(JsonParser parser) throws IOException {
+        Integer connectorId = null;
+        String errorCode = null, status = null, info = null, timestamp = null, vendorId = null, vendorErrorCode = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "connectorId": connectorId = readInt(parser); break;
+                case "errorCode": errorCode = readText(parser); break;
+                case "status": status = readText(parser); break;
+                case "info": info = readText(parser); break;
+                case "timestamp": timestamp = readText(parser); break;
+                case "vendorId": vendorId = readText(parser); break;
+                case "vendorErrorCode": vendorErrorCode = readText(parser); break;
+                default: parser.skipChildren();
+            }
+        }
+        return new OCPPActionPayload.StatusNotification(connectorId, errorCode, status, info, timestamp,
+                vendorId, vendorErrorCode);
+    }
+
+    private OCPPActionPayload.Authorize readAuthorize(JsonParser parser) throws IOException {
+        String idTag = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("idTag".equals(field)) {
+                idTag = readText(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new OCPPActionPayload.Authorize(idTag);
+    }
+
+    private OCPPActionPayload.StartTransaction readStartTransaction(JsonParser parser) throws IOException {
+        Integer connectorId = null, meterStart = null, reservationId = null;
+        String idTag = null, timestamp = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "connectorId": connectorId = readInt(parser); break;
+                case "idTag": idTag = readText(parser); break;
+                case "meterStart": meterStart = readInt(parser); break;
+                case "reservationId": reservationId = readInt(parser); break;
+                case "timestamp": timestamp = readText(parser); break;
+                default: parser.skipChildren();
+            }
+        }
+        return new OCPPActionPayload.StartTransaction(connectorId, idTag, meterStart, reservationId, timestamp);
+    }
+
+    private OCPPActionPayload.StopTransaction readStopTransaction(JsonParser parser) throws IOException {
+        Integer transactionId = null, meterStop = null;
+        String idTag = null, timestamp = null, reason = null;
+        List<OCPPActionPayload.MeterValue> transactionData = Collections.emptyList();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "transactionId": transactionId = readInt(parser); break;
+                case "idTag": idTag = readText(parser); break;
+                case "meterStop": meterStop = readInt(parser); break;
+                case "timestamp": timestamp = readText(parser); break;
+                case "reason": reason = readText(parser); break;
+                case "transactionData": transactionData = readMeterValueList(parser); break;
+                default: parser.skipChildren();
+            }
+        }
+        return new OCPPActionPayload.StopTransaction(transactionId, idTag, meterStop, timestamp, reason,
+                transactionData);
+    }
+
+    private OCPPActionPayload.MeterValues readMeterValues(JsonParser parser) throws IOException {
+        Integer connectorId = null, transactionId = null;
+        List<OCPPActionPayload.MeterValue> meterValue = Collections.emptyList();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "connectorId": connectorId = readInt(parser); break;
+                case "transactionId": transactionId = readInt(parser); break;
+                case "meterValue": meterValue = readMeterValueList(parser); break;
+                default: parser.skipChildren();
+            }
+        }
+        return new OCPPActionPayload.MeterValues(connectorId, transactionId, meterValue);
+    }
+
+    private List<OCPPActionPayload.MeterValue> readMeterValueList(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return Collections.emptyList();
+        }
+        List<OCPPActionPayload.MeterValue> values = new ArrayList<>(1);
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String timestamp = null;
+            List<OCPPActionPayload.SampledValue> sampled = Collections.emptyList();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "timestamp": timestamp = readText(parser); break;
+                    case "sampledValue": sampled = readSampledValueList(parser); break;
+                    default: parser.skipChildren();
+                }
+            }
+            values.add(new OCPPActionPayload.MeterValue(timestamp, sampled));
+        }
+        return values;
+    }
+
+    private List<OCPPActionPayload.SampledValue> readSampledValueList(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return Collections.emptyList();
+        }
+        List<OCPPActionPayload.SampledValue> values = new ArrayList<>(4);
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String value = null, context = null, format = null, measurand = null;
+            String phase = null, location = null, unit = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "value": value = readText(parser); break;
+                    case "context": context = readText(parser); break;
+                    case "format": format = readText(parser); break;
+                    case "measurand": measurand = readText(parser); break;
+                    case "phase": phase = readText(parser); break;
+                    case "location": location = readText(parser); break;
+                    case "unit": unit = readText(parser); break;
+                    default: parser.skipChildren();
+                }
+            }
+            values.add(new OCPPActionPayload.SampledValue(value, context, format, measurand, phase, location, unit));
+        }
+        return values;
+    }
+
+    /**
+     * 读取字符串字段，对象或数组视为结构错误
+     */
+    private String readText(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            throw new IOException("Expected scalar value but got " + token + " for field " + parser.currentName());
+        }
+        return parser.getValueAsString();
+    }
+
+    /**
+     * 读取整型字段，null值返回null，非整型值按OCPP的TypeConstraintViolation处理为解析失败
+     */
+    private Integer readInt(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.VALUE_NUMBER_INT) {
+            throw new IOException("Expected integer value but got " + token + " for field " + parser.currentName());
+        }
+        return parser.getIntValue();
+    }
+}
@@ -0,0 +1,364 @@
+package com.evcs.protocol.dto.ocpp;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * OCPP出站帧编码器
+ * 直接用 JsonGenerator 写入复用的字节缓冲区，不再经过 HashMap / Object[] / writeValueAsString
+ * Heartbeat 与空载荷应答（StatusNotification、MeterValues）使用预计算的字节模板拼接
+ * 编码运行在每任务一个的虚拟线程上，ThreadLocal缓存无法命中，因此缓冲区连同写入它的 JsonGenerator
+ * 放在有界的无锁空闲队列中借还，生成器内部缓冲也随之复用；编码失败的缓冲区不再归还
+ */
+@Component
+public class OCPPFrameEncoder {
+
+    private static final byte[] CALL_RESULT_PREFIX = ascii("[3,\"");
+    private static final byte[] EMPTY_PAYLOAD_SUFFIX = ascii("\",{}]");
+    private static final byte[] CURRENT_TIME_INFIX = ascii("\",{\"currentTime\":\"");
+    private static final byte[] STRING_OBJECT_ARRAY_SUFFIX = ascii("\"}]");
+
+    private static final int CALL = OCPPMessageType.CALL.getTypeId();
+    private static final int CALL_RESULT = OCPPMessageType.CALL_RESULT.getTypeId();
+    private static final int CALL_ERROR = OCPPMessageType.CALL_ERROR.getTypeId();
+
+    /**
+     * 保留的空闲帧缓冲上限，超过的直接丢弃
+     */
+    private static final int MAX_IDLE_FRAMES = 256;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    private final ConcurrentLinkedQueue<Frame> idleFrames = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    /**
+     * 按秒缓存的UTC时间字符串，Heartbeat应答直接复用
+     */
+    private volatile CachedTime cachedTime = new CachedTime(Long.MIN_VALUE, null);
+
+    /**
+     * 载荷写入回调
+     */
+    @FunctionalInterface
+    public interface PayloadWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    /**
+     * [3, messageId, {}]
+     */
+    public String encodeEmptyResult(String messageId) {
+        if (!isPlainAscii(messageId)) {
+            return encodeCallResult(messageId, null);
+        }
+        Frame frame = borrowFrame();
+        FrameBuffer buffer = frame.buffer;
+        buffer.write(CALL_RESULT_PREFIX);
+        buffer.writeAscii(messageId);
+        buffer.write(EMPTY_PAYLOAD_SUFFIX);
+        String text = buffer.toAsciiString();
+        releaseFrame(frame);
+        return text;
+    }
+
+    /**
+     * [3, messageId, {"currentTime": "..."}]
+     */
+    public String encodeHeartbeatResult(String messageId) {
+        if (!isPlainAscii(messageId)) {
+            String currentTime = currentTime();
+            return encodeCallResult(messageId, g -> g.writeStringField("currentTime", currentTime));
+        }
+        Frame frame = borrowFrame();
+        FrameBuffer buffer = frame.buffer;
+        buffer.write(CALL_RESULT_PREFIX);
+        buffer.writeAscii(messageId);
+        buffer.write(CURRENT_TIME_INFIX);
+        buffer.writeAscii(currentTime());
+        buffer.write(STRING_OBJECT_ARRAY_SUFFIX);
+        String text = buffer.toAsciiString();
+        releaseFrame(frame);
+        return text;
+    }
+
+    /**
+     * BootNotification.conf
+     */
+    public String encodeBootNotificationResult(String messageId, String status, Integer interval) {
+        String currentTime = currentTime();
+        return encodeCallResult(messageId, g -> {
+            g.writeStringField("status", status);
+            g.writeStringField("currentTime", currentTime);
+            if (interval != null) {
+                g.writeNumberField("interval", interval);
+            }
+        });
+    }
+
+    /**
+     * Authorize/StartTransaction/StopTransaction.conf
+     *
+     * @param transactionId 仅StartTransaction应答需要，其余传null
+     * @param expiryDate    可为null
+     */
+    public String encodeIdTagInfoResult(String messageId, Integer transactionId, String status, String expiryDate) {
+        return encodeCallResult(messageId, g -> {
+            if (transactionId != null) {
+                g.writeNumberField("transactionId", transactionId);
+            }
+            g.writeObjectFieldStart("idTagInfo");
+            g.writeStringField("status", status);
+            if (expiryDate != null) {
+                g.writeStringField("expiryDate", expiryDate);
+            }
+            g.writeEndObject();
+        });
+    }
+
+    /**
+     * [3, messageId, {...}]
+     *
+     * @param payloadWriter 写入载荷对象内的字段，为null时写出空对象
+     */
+    public String encodeCallResult(String messageId, PayloadWriter payloadWriter) {
+        Frame frame = borrowFrame();
+        try {
+            JsonGenerator g = frame.generator();
+            g.writeStartArray();
+            g.writeNumber(CALL_RESULT);
+            g.writeString(messageId);
+            g.writeStartObject();
+            if (payloadWriter != null) {
+                payloadWriter.write(g);
+            }
+            g.writeEndObject();
+            g.writeEndArray();
+            String text = frame.finish();
+            releaseFrame(frame);
+            return text;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error encoding CallResult: " + messageId, e);
+        }
+    }
+
+    /**
+     * [2, messageId, action, {...}]
+     *
+     * @param payloadWriter 写入载荷对象内的字段，为null时写出空对象
+     */
+    public String encodeCall(String messageId, String action, PayloadWriter payloadWriter) {
+        Frame frame = borrowFrame();
+        try {
+            JsonGenerator g = frame.generator();
+            g.writeStartArray();
+            g.writeNumber(CALL);
+            g.writeString(messageId);
+            g.writeString(action);
+            g.writeStartObject();
+            if (payloadWriter != null) {
+                payloadWriter.write(g);
+            }
+            g.writeEndObject();
+            g.writeEndArray();
+            String text = frame.finish();
+            releaseFrame(frame);
+            return text;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error encoding Call: " + action, e);
+        }
+    }
+
+    /**
+     * [4, messageId, errorCode, errorDescription, {}]
+     */
+    public String encodeCallError(String messageId, OCPPErrorCode errorCode, String errorDescription) {
+        Frame frame = borrowFrame();
+        try {
+            JsonGenerator g = frame.generator();
+            g.writeStartArray();
+            g.writeNumber(CALL_ERROR);
+            g.writeString(messageId);
+            g.writeString(errorCode.getCode());
+            g.writeString(errorDescription != null ? errorDescription : "");
+            g.writeStartObject();
+            g.writeEndObject();
+            g.writeEndArray();
+            String text = frame.finish();
+            releaseFrame(frame);
+            return text;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error encoding CallError: " + messageId, e);
+        }
+    }
+
+    /**
+     * 当前UTC时间（精确到秒），同一秒内复用同一个字符串
+     */
+    public String currentTime() {
+        long epochSecond = System.currentTimeMillis() / 1000;
+        CachedTime cached = cachedTime;
+        if (cached.epochSecond != epochSecond) {
+            cached = new CachedTime(epochSecond, Instant.ofEpochSecond(epochSecond).toString());
+            cachedTime = cached;
+        }
+        return cached.text;
+    }
+
+    /**
+     * 空闲帧缓冲数
+     */
+    public int getIdleFrameCount() {
+        return idleCount.get();
+    }
+
+    private Frame borrowFrame() {
+        Frame frame = idleFrames.poll();
+        if (frame != null) {
+            idleCount.decrementAndGet();
+            frame.buffer.reset();
+            return frame;
+        }
+        return new Frame(jsonFactory);
+    }
+
+    /**
+     * 只归还完整编码过一帧的缓冲区；编码中途失败时生成器状态不可信，直接丢弃
+     */
+    private void releaseFrame(Frame frame) {
+        int count;
+        do {
+            count = idleCount.get();
+            if (count >= MAX_IDLE_FRAMES) {
+                return;
+            }
+        } while (!idleCount.compareAndSet(count, count + 1));
+        idleFrames.offer(frame);
+    }
+
+    /**
+     * 模板拼接要求messageId无需JSON转义
+     */
+    private static boolean isPlainAscii(String value) {
+        if (value == null) {
+            return false;
+        }
+        for (int i = 0, len = value.length(); i < len; i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c > 0x7E || c == '"' || c == '\\') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private record CachedTime(long epochSecond, String text) {
+    }
+
+    /**
+     * 帧缓冲：字节缓冲区及写入它的JsonGenerator
+     * 生成器不关闭，每帧写完后flush到缓冲区；多帧之间不写根值分隔符
+     */
+    private static final class Frame {
+
+        private final JsonFactory jsonFactory;
+        private final FrameBuffer buffer = new FrameBuffer();
+        private JsonGenerator generator;
+
+        Frame(JsonFactory jsonFactory) {
+            this.jsonFactory = jsonFactory;
+        }
+
+        JsonGenerator generator() throws IOException {
+            if (generator == null) {
+                generator = jsonFactory.createGenerator(buffer);
+                generator.setRootValueSeparator(null);
+            }
+            return generator;
+        }
+
+        String finish() throws IOException {
+            generator.flush();
+            return buffer.toUtf8String();
+        }
+    }
+
+    /**
+     * 可复用、可增长的字节缓冲区
+     */
+    static final class FrameBuffer extends OutputStream {
+
+        private static final int INITIAL_CAPACITY = 256;
+
+        /**
+         * 超过该容量的缓冲区在下次使用时收缩，避免偶发大帧长期占用内存
+         */
+        private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+        private byte[] bytes = new byte[INITIAL_CAPACITY];
+        private int length;
+
+        FrameBuffer reset() {
+            if (bytes.length > MAX_RETAINED_CAPACITY) {
+                bytes = new byte[INITIAL_CAPACITY];
+            }
+            length = 0;
+            return this;
+        }
+
+        @Override
+        public void write(int b) {
+            ensureCapacity(1);
+            bytes[length++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] src) {
+            write(src, 0, src.length);
+        }
+
+        @Override
+        public void write(byte[] src, int offset, int len) {
+            ensureCapacity(len);
+            System.arraycopy(src, offset, bytes, length, len);
+            length += len;
+        }
+
+        void writeAscii(String value) {
+            int len = value.length();
+            ensureCapacity(len);
+            for (int i = 0; i < len; i++) {
+                bytes[length++] = (byte) value.charAt(i);
+            }
+        }
+
+        String toAsciiString() {
+            return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+        }
+
+        String toUtf8String() {
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private void ensureCapacity(int extra) {
+            int required = length + extra;
+            if (required > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(required, bytes.length << 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.evcs.protocol.event;
+
+import com.evcs.protocol.dto.ChargerChange;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 充电桩档案变更事件
+ * 充电桩新增、修改、删除后在充电站服务内发布，事务提交后以 {@link ChargerChange} 广播到
+ * {@code evcs.charger.changes} 交换机，协议服务各节点收到后失效充电桩目录
+ */
+@Getter
+public class ChargerChangedEvent extends ApplicationEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long chargerId;
+    private final String chargerCode;
+
+    public ChargerChangedEvent(Object source, Long chargerId, String chargerCode) {
+        super(source);
+        this.chargerId = chargerId;
+        this.chargerCode = chargerCode;
+    }
+
+    public ChargerChange toChange() {
+        return new ChargerChange(chargerId, chargerCode);
+    }
+}
@@ -0,0 +1,35 @@
+package com.evcs.protocol.event;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+import java.time.LocalDateTime;
+
+/**
+ * 上线/离线事件
+ * 心跳按窗口合并后，只有充电桩在线状态发生变化时才单独发布
+ */
+@Data
+@SuperBuilder
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class ConnectivityEvent extends ProtocolEvent {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 是否在线
+     */
+    private Boolean online;
+
+    /**
+     * 最后一次心跳时间
+     */
+    private LocalDateTime lastSeenTime;
+
+    @Override
+    public String getRoutingKey() {
+        return "protocol.heartbeat." + (Boolean.TRUE.equals(online) ? "online" : "offline");
+    }
+}
@@ -0,0 +1,29 @@
+package com.evcs.protocol.event;
+
+import com.evcs.protocol.dto.IdTagRevocation;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * idTag授权变更事件
+ * 协议节点收到认证服务经 {@code evcs.idtag.revocations} 交换机广播的 {@link IdTagRevocation} 后在本节点发布，
+ * 用于失效授权缓存并重新同步本地授权列表
+ */
+@Getter
+public class IdTagRevokedEvent extends ApplicationEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long tenantId;
+
+    /**
+     * 为空表示失效该租户的全部条目
+     */
+    private final String idTag;
+
+    public IdTagRevokedEvent(Object source, Long tenantId, String idTag) {
+        super(source);
+        this.tenantId = tenantId;
+        this.idTag = idTag;
+    }
+}
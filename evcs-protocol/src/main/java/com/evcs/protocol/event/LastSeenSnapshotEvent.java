@@ -0,0 +1,39 @@
+package com.evcs.protocol.event;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * 最后在线时间快照
+ * 一个合并窗口内有心跳的充电桩汇总为一条消息，三个数组按下标一一对应，
+ * 事件本身的chargerId和tenantId为空
+ */
+@Data
+@SuperBuilder
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class LastSeenSnapshotEvent extends ProtocolEvent {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 充电桩ID
+     */
+    private long[] chargerIds;
+
+    /**
+     * 租户ID
+     */
+    private long[] tenantIds;
+
+    /**
+     * 最后一次心跳时间（epoch毫秒）
+     */
+    private long[] lastSeen;
+
+    @Override
+    public String getRoutingKey() {
+        return "protocol.heartbeat.snapshot";
+    }
+}
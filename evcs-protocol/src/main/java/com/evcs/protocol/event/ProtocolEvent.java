@@ -57,7 +57,9 @@ public abstract class ProtocolEvent implements Serializable {
         STATUS_CHANGE,  // 状态变更
         CHARGING_START, // 开始充电
         CHARGING_STOP,  // 停止充电
-        ERROR           // 错误
+        ERROR,          // 错误
+        CONNECTIVITY,   // 上线/离线
+        LAST_SEEN       // 最后在线时间快照
     }
 
     /**
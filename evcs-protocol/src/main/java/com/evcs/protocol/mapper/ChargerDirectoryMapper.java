@@ -0,0 +1,50 @@
+package com.evcs.protocol.mapper;
+
+import com.baomidou.mybatisplus.annotation.InterceptorIgnore;
+import com.evcs.protocol.dto.ChargerIdentity;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 充电桩目录数据访问接口
+ * 协议层按编码识别充电桩，需跨租户查询
+ */
+@Mapper
+public interface ChargerDirectoryMapper {
+
+    /**
+     * 加载全部充电桩身份
+     */
+    @InterceptorIgnore(tenantLine = "1")
+    @Select("""
+        SELECT charger_code, charger_id, station_id, tenant_id
+        FROM charger
+        WHERE deleted = 0
+        """)
+    List<ChargerIdentity> selectAllIdentities();
+
+    /**
+     * 按编码查询充电桩身份（编码在租户内唯一，跨租户可能重复）
+     */
+    @InterceptorIgnore(tenantLine = "1")
+    @Select("""
+        SELECT charger_code, charger_id, station_id, tenant_id
+        FROM charger
+        WHERE charger_code = #{chargerCode} AND deleted = 0
+        """)
+    List<ChargerIdentity> selectIdentitiesByCode(@Param("chargerCode") String chargerCode);
+
+    /**
+     * 按ID查询充电桩身份
+     */
+    @InterceptorIgnore(tenantLine = "1")
+    @Select("""
+        SELECT charger_code, charger_id, station_id, tenant_id
+        FROM charger
+        WHERE charger_id = #{chargerId} AND deleted = 0
+        """)
+    ChargerIdentity selectIdentityById(@Param("chargerId") Long chargerId);
+}
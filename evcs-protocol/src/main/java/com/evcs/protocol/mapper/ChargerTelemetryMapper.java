@@ -0,0 +1,62 @@
+package com.evcs.protocol.mapper;
+
+import com.baomidou.mybatisplus.annotation.InterceptorIgnore;
+import com.evcs.protocol.dto.ChargerRealtimeSnapshot;
+import com.evcs.protocol.dto.ChargerTelemetry;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+/**
+ * 充电桩计量数据访问接口
+ * 采样按批次多行写入，租户ID由采样行显式携带，不经过租户拦截器
+ */
+@Mapper
+public interface ChargerTelemetryMapper {
+
+    /**
+     * 多行插入计量采样
+     */
+    @InterceptorIgnore(tenantLine = "1")
+    @Insert({
+            "<script>",
+            "INSERT INTO charger_telemetry",
+            "(tenant_id, charger_id, connector_id, transaction_id, sampled_at, measurand, phase, value, unit)",
+            "VALUES",
+            "<foreach collection='rows' item='r' separator=','>",
+            "(#{r.tenantId}, #{r.chargerId}, #{r.connectorId}, #{r.transactionId,jdbcType=INTEGER},",
+            "#{r.sampledAt}, #{r.measurand}, #{r.phase,jdbcType=VARCHAR}, #{r.value}, #{r.unit,jdbcType=VARCHAR})",
+            "</foreach>",
+            "</script>"
+    })
+    int insertBatch(@Param("rows") List<ChargerTelemetry> rows);
+
+    /**
+     * 按刷写周期内的最新值批量更新充电桩实时数据，未上报的项保持原值
+     */
+    @InterceptorIgnore(tenantLine = "1")
+    @Update({
+            "<script>",
+            "UPDATE charger AS c SET",
+            "current_power = COALESCE(v.power, c.current_power),",
+            "current_voltage = COALESCE(v.voltage, c.current_voltage),",
+            "current_current = COALESCE(v.current, c.current_current),",
+            "temperature = COALESCE(v.temperature, c.temperature),",
+            "update_time = CURRENT_TIMESTAMP",
+            "FROM (VALUES",
+            "<foreach collection='snapshots' item='s' separator=','>",
+            "(CAST(#{s.chargerId} AS BIGINT),",
+            "CAST(#{s.power,jdbcType=DOUBLE} AS DECIMAL(8,2)),",
+            "CAST(#{s.voltage,jdbcType=DOUBLE} AS DECIMAL(8,2)),",
+            "CAST(#{s.current,jdbcType=DOUBLE} AS DECIMAL(8,2)),",
+            "CAST(#{s.temperature,jdbcType=DOUBLE} AS DECIMAL(5,2)))",
+            "</foreach>",
+            ") AS v(charger_id, power, voltage, current, temperature)",
+            "WHERE c.charger_id = v.charger_id AND c.deleted = 0",
+            "</script>"
+    })
+    int updateRealtimeBatch(@Param("snapshots") List<ChargerRealtimeSnapshot> snapshots);
+}
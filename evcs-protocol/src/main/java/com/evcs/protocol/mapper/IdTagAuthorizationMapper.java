@@ -0,0 +1,64 @@
+package com.evcs.protocol.mapper;
+
+import com.baomidou.mybatisplus.annotation.InterceptorIgnore;
+import com.evcs.protocol.dto.IdTagAuthorization;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * idTag授权数据访问接口
+ * 协议层按充电桩所属租户查询，租户ID显式传入，不经过租户拦截器
+ */
+@Mapper
+public interface IdTagAuthorizationMapper {
+
+    /**
+     * 按idTag查询充电卡
+     */
+    @InterceptorIgnore(tenantLine = "1")
+    @Select("""
+        SELECT id_tag, tenant_id, user_id, status, expire_time
+        FROM charging_card
+        WHERE tenant_id = #{tenantId} AND id_tag = #{idTag} AND deleted = 0
+        """)
+    IdTagAuthorization selectCard(@Param("tenantId") Long tenantId, @Param("idTag") String idTag);
+
+    /**
+     * 查询平台远程启动使用的用户idTag（USER_{userId}）
+     */
+    @InterceptorIgnore(tenantLine = "1")
+    @Select("""
+        SELECT 'USER_' || id AS id_tag, tenant_id, id AS user_id, status, NULL AS expire_time
+        FROM sys_user
+        WHERE tenant_id = #{tenantId} AND id = #{userId} AND deleted = 0
+        """)
+    IdTagAuthorization selectUser(@Param("tenantId") Long tenantId, @Param("userId") Long userId);
+
+    /**
+     * 查询租户下有效的充电卡，最近更新的在前
+     */
+    @InterceptorIgnore(tenantLine = "1")
+    @Select("""
+        SELECT id_tag, tenant_id, user_id, status, expire_time
+        FROM charging_card
+        WHERE tenant_id = #{tenantId} AND deleted = 0 AND status = 1
+          AND (expire_time IS NULL OR expire_time > CURRENT_TIMESTAMP)
+        ORDER BY update_time DESC
+        LIMIT #{limit}
+        """)
+    List<IdTagAuthorization> selectActiveCards(@Param("tenantId") Long tenantId, @Param("limit") int limit);
+
+    /**
+     * 租户充电卡数据版本：最近一次变更时间（秒），含已删除的卡，没有卡片时为0
+     */
+    @InterceptorIgnore(tenantLine = "1")
+    @Select("""
+        SELECT COALESCE(CAST(EXTRACT(EPOCH FROM MAX(update_time)) AS INTEGER), 0)
+        FROM charging_card
+        WHERE tenant_id = #{tenantId}
+        """)
+    int selectListVersion(@Param("tenantId") Long tenantId);
+}
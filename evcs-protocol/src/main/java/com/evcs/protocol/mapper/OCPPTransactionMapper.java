@@ -0,0 +1,97 @@
+package com.evcs.protocol.mapper;
+
+import com.baomidou.mybatisplus.annotation.InterceptorIgnore;
+import com.evcs.protocol.dto.OCPPTransaction;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * OCPP交易数据访问接口
+ * 交易ID全局唯一，按ID或会话查询时跨租户，租户ID由交易行显式携带
+ */
+@Mapper
+public interface OCPPTransactionMapper {
+
+    /**
+     * 租用下一段交易ID，返回段首
+     */
+    @Select("SELECT nextval('ocpp_transaction_id_seq')")
+    long nextBlockStart();
+
+    /**
+     * 交易ID段大小（序列步长）
+     */
+    @Select("""
+        SELECT increment_by FROM pg_sequences
+        WHERE schemaname = current_schema() AND sequencename = 'ocpp_transaction_id_seq'
+        """)
+    long selectBlockSize();
+
+    /**
+     * 多行写入交易，序列循环后复用的ID覆盖旧记录
+     */
+    @InterceptorIgnore(tenantLine = "1")
+    @Insert({
+            "<script>",
+            "INSERT INTO ocpp_transaction",
+            "(transaction_id, tenant_id, charger_id, charger_code, connector_id, id_tag, session_id,",
+            "meter_start, meter_stop, started_at, stopped_at)",
+            "VALUES",
+            "<foreach collection='rows' item='r' separator=','>",
+            "(#{r.transactionId}, #{r.tenantId}, #{r.chargerId}, #{r.chargerCode}, #{r.connectorId},",
+            "#{r.idTag,jdbcType=VARCHAR}, #{r.sessionId}, #{r.meterStart,jdbcType=INTEGER},",
+            "#{r.meterStop,jdbcType=INTEGER}, #{r.startedAt}, #{r.stoppedAt,jdbcType=TIMESTAMP})",
+            "</foreach>",
+            "ON CONFLICT (transaction_id) DO UPDATE SET",
+            "tenant_id = EXCLUDED.tenant_id, charger_id = EXCLUDED.charger_id, charger_code = EXCLUDED.charger_code,",
+            "connector_id = EXCLUDED.connector_id, id_tag = EXCLUDED.id_tag, session_id = EXCLUDED.session_id,",
+            "meter_start = EXCLUDED.meter_start, meter_stop = EXCLUDED.meter_stop,",
+            "started_at = EXCLUDED.started_at, stopped_at = EXCLUDED.stopped_at, update_time = CURRENT_TIMESTAMP",
+            "</script>"
+    })
+    int upsertBatch(@Param("rows") List<OCPPTransaction> rows);
+
+    /**
+     * 按交易ID查询
+     */
+    @InterceptorIgnore(tenantLine = "1")
+    @Select("""
+        SELECT transaction_id, tenant_id, charger_id, charger_code, connector_id, id_tag, session_id,
+               meter_start, meter_stop, started_at, stopped_at
+        FROM ocpp_transaction
+        WHERE transaction_id = #{transactionId}
+        """)
+    OCPPTransaction selectById(@Param("transactionId") Integer transactionId);
+
+    /**
+     * 按充电会话查询进行中的交易
+     */
+    @InterceptorIgnore(tenantLine = "1")
+    @Select("""
+        SELECT transaction_id, tenant_id, charger_id, charger_code, connector_id, id_tag, session_id,
+               meter_start, meter_stop, started_at, stopped_at
+        FROM ocpp_transaction
+        WHERE session_id = #{sessionId} AND stopped_at IS NULL
+        ORDER BY started_at DESC
+        LIMIT 1
+        """)
+    OCPPTransaction selectActiveBySession(@Param("sessionId") String sessionId);
+
+    /**
+     * 查询充电桩最近开始的进行中交易
+     */
+    @InterceptorIgnore(tenantLine = "1")
+    @Select("""
+        SELECT transaction_id, tenant_id, charger_id, charger_code, connector_id, id_tag, session_id,
+               meter_start, meter_stop, started_at, stopped_at
+        FROM ocpp_transaction
+        WHERE charger_code = #{chargerCode} AND stopped_at IS NULL
+        ORDER BY started_at DESC
+        LIMIT 1
+        """)
+    OCPPTransaction selectLatestActiveByCharger(@Param("chargerCode") String chargerCode);
+}
@@ -0,0 +1,685 @@
+package com.evcs.protocol.metrics;
+
+import com.evcs.common.metrics.BusinessMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 协议服务业务监控指标
+ *
+ * 监控指标包括：
+ * - 充电桩消息队列深度、排队等待时长、队满拒绝次数
+ * - 消息处理耗时
+ * - 出站缓冲大小、写出批次、缓冲溢出与慢消费者关闭次数
+ * - 服务端下发Call的待应答数、按action统计的应答延迟分布
+ * - 计量采样缓冲量、入库/拒绝/丢弃数、批量刷写耗时
+ * - 协议事件发布队列与溢出缓冲深度、发布确认延迟、重试与丢弃数
+ * - 心跳合并：收到的心跳数、快照条目数、上线/离线转换次数
+ * - idTag授权：缓存命中/回源/回源失败次数、本地授权列表同步次数
+ * - 限流：按充电桩/租户限流及过载丢弃的消息数
+ * - 接入准入：握手接受/拒绝次数、BootNotification接受/Pending次数、排队中的充电桩数
+ * - 充电枪状态：转发与去重/去抖丢弃的StatusNotification数
+ * - 集群：会话目录查询来源、租约续期数、节点间转发指令的成功/失败数
+ */
+@Slf4j
+@Component
+public class ProtocolMetrics extends BusinessMetrics {
+
+    // 注意：registerMetrics 在父类构造器中执行，以下字段不能带初始化表达式，否则会被覆盖
+
+    // 消息队列
+    private AtomicLong mailboxDepth;
+    private Timer mailboxWaitTimer;
+    private Counter mailboxRejectedCounter;
+
+    // 消息处理
+    private Timer messageProcessingTimer;
+
+    // 出站发送
+    private AtomicLong outboundBufferedSize;
+    private Counter outboundFramesCounter;
+    private Counter outboundBatchCounter;
+    private Counter outboundOverflowCounter;
+    private Counter slowConsumerClosedCounter;
+
+    // 服务端下发Call
+    private AtomicLong pendingCalls;
+    private Map<String, Timer> callLatencyTimers;
+
+    // 计量采样
+    private AtomicLong telemetryBuffered;
+    private Counter telemetryWrittenCounter;
+    private Counter telemetryRejectedCounter;
+    private Counter telemetryDroppedCounter;
+    private Timer telemetryFlushTimer;
+
+    // 协议事件发布
+    private AtomicLong eventQueueDepth;
+    private AtomicLong eventSpillDepth;
+    private Counter eventPublishedCounter;
+    private Counter eventRetriedCounter;
+    private Counter eventDroppedCounter;
+    private Timer eventConfirmTimer;
+
+    // 心跳合并
+    private AtomicLong trackedChargers;
+    private Counter heartbeatReceivedCounter;
+    private Counter lastSeenEntriesCounter;
+    private Counter connectivityTransitionCounter;
+
+    // idTag授权
+    private Counter authorizationHitCounter;
+    private Counter authorizationMissCounter;
+    private Counter authorizationErrorCounter;
+    private Counter localListPushedCounter;
+
+    // 限流
+    private Counter chargerLimitedCounter;
+    private Counter tenantLimitedCounter;
+    private Counter shedCounter;
+
+    // 接入准入
+    private AtomicLong admissionQueued;
+    private Counter connectionAdmittedCounter;
+    private Counter connectionRejectedCounter;
+    private Counter bootAcceptedCounter;
+    private Counter bootPendingCounter;
+
+    // 充电枪状态
+    private Counter statusForwardedCounter;
+    private Counter statusSuppressedCounter;
+
+    // 集群
+    private Counter directoryNearCacheCounter;
+    private Counter directoryRedisCounter;
+    private Counter leasesRenewedCounter;
+    private Counter commandForwardedCounter;
+    private Counter commandForwardFailedCounter;
+    private Counter commandReceivedCounter;
+
+    public ProtocolMetrics(MeterRegistry meterRegistry) {
+        super(meterRegistry);
+    }
+
+    @Override
+    protected void registerMetrics() {
+        mailboxDepth = new AtomicLong();
+        createGauge(
+            "evcs.ocpp.mailbox.depth",
+            "Total number of OCPP messages waiting in charger mailboxes",
+            mailboxDepth
+        );
+        mailboxWaitTimer = createTimer(
+            "evcs.ocpp.mailbox.wait",
+            "Time OCPP messages spend queued in charger mailboxes"
+        );
+        mailboxRejectedCounter = createCounter(
+            "evcs.ocpp.mailbox.rejected",
+            "Number of OCPP calls rejected because the charger mailbox was full"
+        );
+        messageProcessingTimer = createTimer(
+            "evcs.ocpp.message.processing",
+            "Time spent processing an inbound OCPP message"
+        );
+
+        outboundBufferedSize = new AtomicLong();
+        createGauge(
+            "evcs.ocpp.outbound.buffered",
+            "Total size of OCPP frames waiting in outbound send queues",
+            outboundBufferedSize
+        );
+        outboundFramesCounter = createCounter(
+            "evcs.ocpp.outbound.frames",
+            "Number of OCPP frames written to chargers"
+        );
+        outboundBatchCounter = createCounter(
+            "evcs.ocpp.outbound.batches",
+            "Number of outbound flush passes (frames/batches gives the coalescing ratio)"
+        );
+        outboundOverflowCounter = createCounter(
+            "evcs.ocpp.outbound.overflow",
+            "Number of frames rejected because the outbound buffer limit was exceeded"
+        );
+        slowConsumerClosedCounter = createCounter(
+            "evcs.ocpp.outbound.slow.consumer.closed",
+            "Number of charger connections closed as slow consumers"
+        );
+
+        pendingCalls = new AtomicLong();
+        createGauge(
+            "evcs.ocpp.call.pending",
+            "Number of server-initiated OCPP calls awaiting a response",
+            pendingCalls
+        );
+        callLatencyTimers = new ConcurrentHashMap<>();
+
+        telemetryBuffered = new AtomicLong();
+        createGauge(
+            "evcs.ocpp.telemetry.buffered",
+            "Number of meter value samples waiting to be flushed",
+            telemetryBuffered
+        );
+        telemetryWrittenCounter = createCounter(
+            "evcs.ocpp.telemetry.written",
+            "Number of meter value samples written to the telemetry table"
+        );
+        telemetryRejectedCounter = createCounter(
+            "evcs.ocpp.telemetry.rejected",
+            "Number of sampled values rejected for unknown measurand or non-numeric value"
+        );
+        telemetryDroppedCounter = createCounter(
+            "evcs.ocpp.telemetry.dropped",
+            "Number of meter value samples dropped because the buffer was full or the write failed"
+        );
+        telemetryFlushTimer = createTimer(
+            "evcs.ocpp.telemetry.flush",
+            "Time spent flushing buffered meter value samples"
+        );
+
+        eventQueueDepth = new AtomicLong();
+        createGauge(
+            "evcs.protocol.event.queue.depth",
+            "Number of protocol events waiting to be published",
+            eventQueueDepth
+        );
+        eventSpillDepth = new AtomicLong();
+        createGauge(
+            "evcs.protocol.event.spill.depth",
+            "Number of protocol events held locally while the broker is unavailable",
+            eventSpillDepth
+        );
+        eventPublishedCounter = createCounter(
+            "evcs.protocol.event.published",
+            "Number of protocol events confirmed by the broker"
+        );
+        eventRetriedCounter = createCounter(
+            "evcs.protocol.event.retried",
+            "Number of protocol event publish retries"
+        );
+        eventDroppedCounter = createCounter(
+            "evcs.protocol.event.dropped",
+            "Number of protocol events dropped (spill buffer full or unroutable)"
+        );
+        eventConfirmTimer = Timer.builder("evcs.protocol.event.confirm.latency")
+            .description("Latency between publishing a protocol event batch and its broker confirm")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+
+        trackedChargers = new AtomicLong();
+        createGauge(
+            "evcs.protocol.heartbeat.tracked",
+            "Number of chargers tracked by the heartbeat coalescer",
+            trackedChargers
+        );
+        heartbeatReceivedCounter = createCounter(
+            "evcs.protocol.heartbeat.received",
+            "Number of heartbeats merged into last-seen snapshots"
+        );
+        lastSeenEntriesCounter = createCounter(
+            "evcs.protocol.heartbeat.snapshot.entries",
+            "Number of charger entries published in last-seen snapshots"
+        );
+        connectivityTransitionCounter = createCounter(
+            "evcs.protocol.connectivity.transitions",
+            "Number of charger online/offline transitions published"
+        );
+
+        authorizationHitCounter = createCounter(
+            "evcs.ocpp.authorization.lookups",
+            "Number of idTag authorizations by cache result",
+            "result", "hit"
+        );
+        authorizationMissCounter = createCounter(
+            "evcs.ocpp.authorization.lookups",
+            "Number of idTag authorizations by cache result",
+            "result", "miss"
+        );
+        authorizationErrorCounter = createCounter(
+            "evcs.ocpp.authorization.lookups",
+            "Number of idTag authorizations by cache result",
+            "result", "error"
+        );
+        localListPushedCounter = createCounter(
+            "evcs.ocpp.local_list.pushed",
+            "Number of local authorization lists sent to chargers"
+        );
+
+        chargerLimitedCounter = createCounter(
+            "evcs.protocol.rate_limited",
+            "Number of inbound messages rejected by rate limiting or overload shedding",
+            "reason", "charger"
+        );
+        tenantLimitedCounter = createCounter(
+            "evcs.protocol.rate_limited",
+            "Number of inbound messages rejected by rate limiting or overload shedding",
+            "reason", "tenant"
+        );
+        shedCounter = createCounter(
+            "evcs.protocol.rate_limited",
+            "Number of inbound messages rejected by rate limiting or overload shedding",
+            "reason", "shed"
+        );
+
+        admissionQueued = new AtomicLong();
+        createGauge(
+            "evcs.ocpp.admission.queued",
+            "Number of chargers answered Pending and waiting to retry BootNotification",
+            admissionQueued
+        );
+        connectionAdmittedCounter = createCounter(
+            "evcs.ocpp.admission.connections",
+            "Number of WebSocket handshakes by admission result",
+            "result", "admitted"
+        );
+        connectionRejectedCounter = createCounter(
+            "evcs.ocpp.admission.connections",
+            "Number of WebSocket handshakes by admission result",
+            "result", "rejected"
+        );
+        bootAcceptedCounter = createCounter(
+            "evcs.ocpp.admission.boots",
+            "Number of BootNotifications by admission result",
+            "result", "accepted"
+        );
+        bootPendingCounter = createCounter(
+            "evcs.ocpp.admission.boots",
+            "Number of BootNotifications by admission result",
+            "result", "pending"
+        );
+
+        statusForwardedCounter = createCounter(
+            "evcs.ocpp.status.notifications",
+            "Number of connector status notifications by outcome",
+            "result", "forwarded"
+        );
+        statusSuppressedCounter = createCounter(
+            "evcs.ocpp.status.notifications",
+            "Number of connector status notifications by outcome",
+            "result", "suppressed"
+        );
+
+        directoryNearCacheCounter = createCounter(
+            "evcs.ocpp.cluster.lookups",
+            "Number of charger session directory lookups by source",
+            "source", "near_cache"
+        );
+        directoryRedisCounter = createCounter(
+            "evcs.ocpp.cluster.lookups",
+            "Number of charger session directory lookups by source",
+            "source", "redis"
+        );
+        leasesRenewedCounter = createCounter(
+            "evcs.ocpp.cluster.leases.renewed",
+            "Number of charger session leases renewed by this node"
+        );
+        commandForwardedCounter = createCounter(
+            "evcs.ocpp.cluster.forwarded",
+            "Number of commands forwarded to the node owning the charger session by outcome",
+            "result", "success"
+        );
+        commandForwardFailedCounter = createCounter(
+            "evcs.ocpp.cluster.forwarded",
+            "Number of commands forwarded to the node owning the charger session by outcome",
+            "result", "failure"
+        );
+        commandReceivedCounter = createCounter(
+            "evcs.ocpp.cluster.received",
+            "Number of commands received from other nodes"
+        );
+
+        log.info("Protocol metrics registered successfully");
+    }
+
+    /**
+     * 消息入队
+     */
+    public void recordMailboxEnqueued() {
+        mailboxDepth.incrementAndGet();
+    }
+
+    /**
+     * 消息出队
+     *
+     * @param waitNanos 排队时长
+     */
+    public void recordMailboxDequeued(long waitNanos) {
+        mailboxDepth.decrementAndGet();
+        mailboxWaitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 队满拒绝
+     */
+    public void recordMailboxRejected() {
+        incrementCounter(mailboxRejectedCounter);
+    }
+
+    /**
+     * 消息处理耗时
+     */
+    public void recordMessageProcessing(long durationNanos) {
+        messageProcessingTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 出站帧入队
+     */
+    public void recordOutboundEnqueued(int size) {
+        outboundBufferedSize.addAndGet(size);
+    }
+
+    /**
+     * 出站帧写出或丢弃
+     */
+    public void recordOutboundDequeued(int size) {
+        outboundBufferedSize.addAndGet(-size);
+    }
+
+    /**
+     * 一轮排空写出的帧数
+     */
+    public void recordOutboundBatch(int frames) {
+        incrementCounter(outboundFramesCounter, frames);
+        incrementCounter(outboundBatchCounter);
+    }
+
+    /**
+     * 出站缓冲溢出
+     */
+    public void recordOutboundOverflow() {
+        incrementCounter(outboundOverflowCounter);
+    }
+
+    /**
+     * 慢消费者被关闭
+     */
+    public void recordSlowConsumerClosed() {
+        incrementCounter(slowConsumerClosedCounter);
+    }
+
+    /**
+     * 下发Call登记
+     */
+    public void recordCallRegistered() {
+        pendingCalls.incrementAndGet();
+    }
+
+    /**
+     * 下发Call结束（应答、错误、超时或取消）
+     *
+     * @param action  OCPP action
+     * @param outcome result / error / timeout / cancelled
+     */
+    public void recordCallCompleted(String action, String outcome, long latencyNanos) {
+        pendingCalls.decrementAndGet();
+        callLatencyTimers.computeIfAbsent(action + '|' + outcome, key -> Timer.builder("evcs.ocpp.call.latency")
+                .description("Latency between sending a server-initiated OCPP call and its completion")
+                .tag("action", action)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry))
+            .record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 计量采样入缓冲
+     *
+     * @param accepted 进入缓冲的采样数
+     * @param rejected 计量项不识别或非数值的采样数
+     * @param dropped  缓冲已满丢弃的采样数
+     */
+    public void recordTelemetrySamples(int accepted, int rejected, int dropped) {
+        telemetryBuffered.addAndGet(accepted);
+        if (rejected > 0) {
+            incrementCounter(telemetryRejectedCounter, rejected);
+        }
+        if (dropped > 0) {
+            incrementCounter(telemetryDroppedCounter, dropped);
+        }
+    }
+
+    /**
+     * 计量采样批量刷写
+     *
+     * @param written 写入成功的采样数
+     * @param failed  写入失败丢弃的采样数
+     */
+    public void recordTelemetryFlush(int written, int failed, long durationNanos) {
+        telemetryBuffered.addAndGet(-(written + failed));
+        incrementCounter(telemetryWrittenCounter, written);
+        if (failed > 0) {
+            incrementCounter(telemetryDroppedCounter, failed);
+        }
+        telemetryFlushTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 协议事件入队（负数表示出队）
+     */
+    public void recordEventQueued(int delta) {
+        eventQueueDepth.addAndGet(delta);
+    }
+
+    /**
+     * 协议事件进入溢出缓冲（负数表示取出）
+     */
+    public void recordEventSpilled(int delta) {
+        eventSpillDepth.addAndGet(delta);
+    }
+
+    /**
+     * 一批协议事件得到确认
+     */
+    public void recordEventsPublished(int events, long confirmNanos) {
+        incrementCounter(eventPublishedCounter, events);
+        eventConfirmTimer.record(confirmNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 协议事件重试
+     */
+    public void recordEventsRetried(int events) {
+        incrementCounter(eventRetriedCounter, events);
+    }
+
+    /**
+     * 协议事件丢弃
+     */
+    public void recordEventsDropped(int events) {
+        incrementCounter(eventDroppedCounter, events);
+    }
+
+    /**
+     * 心跳合并
+     */
+    public void recordHeartbeatCoalesced() {
+        incrementCounter(heartbeatReceivedCounter);
+    }
+
+    /**
+     * 发布最后在线时间快照
+     *
+     * @param entries 快照包含的充电桩数
+     * @param tracked 当前跟踪的充电桩数
+     */
+    public void recordLastSeenSnapshot(int entries, int tracked) {
+        incrementCounter(lastSeenEntriesCounter, entries);
+        trackedChargers.set(tracked);
+    }
+
+    /**
+     * 上线/离线转换
+     */
+    public void recordConnectivityTransition() {
+        incrementCounter(connectivityTransitionCounter);
+    }
+
+    /**
+     * idTag授权缓存命中
+     */
+    public void recordAuthorizationHit() {
+        incrementCounter(authorizationHitCounter);
+    }
+
+    /**
+     * idTag授权缓存未命中，回源查询
+     */
+    public void recordAuthorizationMiss() {
+        incrementCounter(authorizationMissCounter);
+    }
+
+    /**
+     * idTag授权回源失败
+     */
+    public void recordAuthorizationError() {
+        incrementCounter(authorizationErrorCounter);
+    }
+
+    /**
+     * 向充电桩同步本地授权列表
+     */
+    public void recordLocalListPushed() {
+        incrementCounter(localListPushedCounter);
+    }
+
+    /**
+     * 充电桩消息超出速率
+     */
+    public void recordChargerLimited() {
+        incrementCounter(chargerLimitedCounter);
+    }
+
+    /**
+     * 租户消息超出速率
+     */
+    public void recordTenantLimited() {
+        incrementCounter(tenantLimitedCounter);
+    }
+
+    /**
+     * 节点过载丢弃消息
+     */
+    public void recordShed() {
+        incrementCounter(shedCounter);
+    }
+
+    /**
+     * 握手被接受
+     */
+    public void recordConnectionAdmitted() {
+        incrementCounter(connectionAdmittedCounter);
+    }
+
+    /**
+     * 握手超出速率被拒绝
+     */
+    public void recordConnectionRejected() {
+        incrementCounter(connectionRejectedCounter);
+    }
+
+    /**
+     * BootNotification被接受
+     */
+    public void recordBootAccepted() {
+        incrementCounter(bootAcceptedCounter);
+    }
+
+    /**
+     * BootNotification应答Pending
+     */
+    public void recordBootPending() {
+        incrementCounter(bootPendingCounter);
+    }
+
+    /**
+     * 排队（Pending）充电桩数变化
+     */
+    public void recordAdmissionQueued(int delta) {
+        admissionQueued.addAndGet(delta);
+    }
+
+    /**
+     * 充电枪状态变化已转发
+     */
+    public void recordStatusForwarded() {
+        incrementCounter(statusForwardedCounter);
+    }
+
+    /**
+     * 重复或跳变回原值的充电枪状态被丢弃
+     */
+    public void recordStatusSuppressed() {
+        incrementCounter(statusSuppressedCounter);
+    }
+
+    /**
+     * 会话目录查询命中本地缓存
+     */
+    public void recordDirectoryNearCacheHit() {
+        incrementCounter(directoryNearCacheCounter);
+    }
+
+    /**
+     * 会话目录查询回源Redis
+     */
+    public void recordDirectoryRedisLookup() {
+        incrementCounter(directoryRedisCounter);
+    }
+
+    /**
+     * 批量续期会话租约
+     */
+    public void recordLeasesRenewed(long leases) {
+        incrementCounter(leasesRenewedCounter, leases);
+    }
+
+    /**
+     * 转发指令得到目标节点应答
+     */
+    public void recordCommandForwarded() {
+        incrementCounter(commandForwardedCounter);
+    }
+
+    /**
+     * 转发指令失败（目标节点不可达、超时或充电桩已不在该节点）
+     */
+    public void recordCommandForwardFailed() {
+        incrementCounter(commandForwardFailedCounter);
+    }
+
+    /**
+     * 收到其他节点转发的指令
+     */
+    public void recordCommandReceived() {
+        incrementCounter(commandReceivedCounter);
+    }
+
+    /**
+     * 当前待应答的下发Call数
+     */
+    public long getPendingCalls() {
+        return pendingCalls.get();
+    }
+
+    /**
+     * 当前排队消息总数
+     */
+    public long getMailboxDepth() {
+        return mailboxDepth.get();
+    }
+
+    /**
+     * 当前协议事件发布队列深度
+     */
+    public long getEventQueueDepth() {
+        return eventQueueDepth.get();
+    }
+}
@@ -0,0 +1,50 @@
+package com.evcs.protocol.mq;
+
+import com.evcs.protocol.config.RabbitMQConfig;
+import com.evcs.protocol.dto.ChargerChange;
+import com.evcs.protocol.service.ChargerDirectory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.ExchangeTypes;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.Exchange;
+import org.springframework.amqp.rabbit.annotation.Queue;
+import org.springframework.amqp.rabbit.annotation.QueueBinding;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * 接收充电站服务广播的充电桩档案变更
+ * 每个协议节点以匿名临时队列订阅，收到后失效本节点的充电桩目录；节点离线期间的通知由目录定期重载兜底
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "spring.rabbitmq.enabled", havingValue = "true", matchIfMissing = true)
+public class ChargerChangeListener {
+
+    private final ChargerDirectory chargerDirectory;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public ChargerChangeListener(ChargerDirectory chargerDirectory) {
+        this.chargerDirectory = chargerDirectory;
+    }
+
+    @RabbitListener(bindings = @QueueBinding(
+            value = @Queue,
+            exchange = @Exchange(value = RabbitMQConfig.CHARGER_CHANGE_EXCHANGE, type = ExchangeTypes.FANOUT)),
+            ackMode = "AUTO")
+    public void onChargerChange(Message message) {
+        ChargerChange change;
+        try {
+            change = objectMapper.readValue(message.getBody(), ChargerChange.class);
+        } catch (IOException e) {
+            log.warn("Discarding malformed charger change: {}", e.getMessage());
+            return;
+        }
+        log.debug("Invalidating charger directory entry: id={}, code={}", change.chargerId(), change.chargerCode());
+        chargerDirectory.invalidate(change.chargerId(), change.chargerCode());
+    }
+}
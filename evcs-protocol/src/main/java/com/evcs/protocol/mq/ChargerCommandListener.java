@@ -0,0 +1,78 @@
+package com.evcs.protocol.mq;
+
+import com.evcs.protocol.cluster.NodeCommand;
+import com.evcs.protocol.config.RabbitMQConfig;
+import com.evcs.protocol.service.impl.OCPPProtocolServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 接收业务服务下发的充电桩指令
+ * 充电桩连接在其他节点时由协议服务按会话目录转发；等待充电桩应答期间不占用消费线程，完成后按reply-to应答并确认消息
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "spring.rabbitmq.enabled", havingValue = "true", matchIfMissing = true)
+public class ChargerCommandListener {
+
+    private static final String STATUS_ACCEPTED = "Accepted";
+    private static final String STATUS_REJECTED = "Rejected";
+
+    private final OCPPProtocolServiceImpl protocolService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public ChargerCommandListener(OCPPProtocolServiceImpl protocolService) {
+        this.protocolService = protocolService;
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.CHARGER_COMMAND_QUEUE)
+    public CompletableFuture<Message> onCommand(Message request) {
+        NodeCommand command;
+        try {
+            command = objectMapper.readValue(request.getBody(), NodeCommand.class);
+        } catch (IOException e) {
+            log.error("Discarding malformed charger command: {}", e.getMessage());
+            return CompletableFuture.completedFuture(toMessage(NodeCommand.Reply.failed("Malformed charger command")));
+        }
+        if (!NodeCommand.START_CHARGING.equals(command.type())) {
+            return CompletableFuture.completedFuture(
+                    toMessage(NodeCommand.Reply.failed("Unsupported charger command " + command.type())));
+        }
+        log.debug("Executing {} for charger {}: sessionId={}", command.type(), command.chargerCode(), command.sessionId());
+
+        CompletableFuture<Boolean> ack;
+        try {
+            ack = protocolService.startChargingAsync(command.chargerCode(), command.sessionId(), command.userId());
+        } catch (RuntimeException e) {
+            ack = CompletableFuture.failedFuture(e);
+        }
+        return ack.handle((accepted, error) -> toMessage(error == null
+                ? NodeCommand.Reply.of(Boolean.TRUE.equals(accepted) ? STATUS_ACCEPTED : STATUS_REJECTED)
+                : NodeCommand.Reply.failed(unwrap(error).getMessage())));
+    }
+
+    private Message toMessage(NodeCommand.Reply reply) {
+        try {
+            return MessageBuilder.withBody(objectMapper.writeValueAsBytes(reply))
+                    .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
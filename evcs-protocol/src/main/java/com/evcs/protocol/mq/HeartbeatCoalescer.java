@@ -0,0 +1,232 @@
+package com.evcs.protocol.mq;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.event.ConnectivityEvent;
+import com.evcs.protocol.event.LastSeenSnapshotEvent;
+import com.evcs.protocol.event.ProtocolEvent;
+import com.evcs.protocol.metrics.ProtocolMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 心跳合并
+ * 心跳只更新充电桩的最后在线时间，每个合并窗口把窗口内有心跳的充电桩汇总成一条
+ * {@link LastSeenSnapshotEvent} 发布；只有首次心跳（上线）和超时/断开（离线）
+ * 才单独发布 {@link ConnectivityEvent}
+ */
+@Slf4j
+@Component
+public class HeartbeatCoalescer {
+
+    private final ProtocolEventSender eventSender;
+    private final ProtocolMetrics protocolMetrics;
+    private final long offlineTimeoutMillis;
+    private final int snapshotMaxEntries;
+    private final long coalesceWindowMillis;
+
+    private final Map<Long, LastSeen> chargers = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("protocol-heartbeat-coalescer").daemon().factory());
+
+    public HeartbeatCoalescer(ProtocolEventSender eventSender,
+                              ProtocolMetrics protocolMetrics,
+                              ProtocolProperties protocolProperties) {
+        this.eventSender = eventSender;
+        this.protocolMetrics = protocolMetrics;
+        ProtocolProperties.EventPublishConfig config = protocolProperties.getEventPublish();
+        this.offlineTimeoutMillis = config.getOfflineTimeout();
+        this.snapshotMaxEntries = Math.max(1, config.getSnapshotMaxEntries());
+        this.coalesceWindowMillis = Math.max(100, config.getHeartbeatCoalesceWindow());
+    }
+
+    /**
+     * 启动按合并窗口的定时汇总
+     */
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, coalesceWindowMillis, coalesceWindowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 记录一次心跳，充电桩由离线变为在线时立即发布上线事件
+     */
+    public void record(Long chargerId, Long tenantId, String protocolType, LocalDateTime heartbeatTime) {
+        if (chargerId == null) {
+            return;
+        }
+        long seenAt = heartbeatTime == null
+                ? System.currentTimeMillis()
+                : heartbeatTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        boolean[] cameOnline = new boolean[1];
+        LastSeen entry = chargers.compute(chargerId, (id, current) -> {
+            if (current == null) {
+                cameOnline[0] = true;
+                return new LastSeen(tenantId, protocolType, seenAt);
+            }
+            current.lastSeenMillis = Math.max(current.lastSeenMillis, seenAt);
+            current.dirty = true;
+            return current;
+        });
+        protocolMetrics.recordHeartbeatCoalesced();
+        if (cameOnline[0]) {
+            publishConnectivity(chargerId, entry, true);
+        }
+    }
+
+    /**
+     * 连接断开时立即标记离线
+     */
+    public void markOffline(Long chargerId) {
+        if (chargerId == null) {
+            return;
+        }
+        LastSeen removed = chargers.remove(chargerId);
+        if (removed != null) {
+            publishConnectivity(chargerId, removed, false);
+        }
+    }
+
+    /**
+     * 是否在线（有未超时的心跳）
+     */
+    public boolean isOnline(Long chargerId) {
+        return chargerId != null && chargers.containsKey(chargerId);
+    }
+
+    /**
+     * 发布本窗口的最后在线时间快照并检查离线
+     *
+     * @return 快照包含的充电桩数
+     */
+    public int flush() {
+        long now = System.currentTimeMillis();
+        long[] chargerIds = new long[Math.min(snapshotMaxEntries, Math.max(16, chargers.size()))];
+        long[] tenantIds = new long[chargerIds.length];
+        long[] lastSeen = new long[chargerIds.length];
+        int size = 0;
+        int total = 0;
+
+        for (Map.Entry<Long, LastSeen> e : chargers.entrySet()) {
+            Long chargerId = e.getKey();
+            LastSeen entry = e.getValue();
+            if (offlineTimeoutMillis > 0 && now - entry.lastSeenMillis > offlineTimeoutMillis) {
+                // 与心跳的compute在同一个键上串行，判定和移除之间不会插入新的心跳
+                boolean[] expired = new boolean[1];
+                chargers.computeIfPresent(chargerId, (id, current) -> {
+                    if (current == entry && now - current.lastSeenMillis > offlineTimeoutMillis) {
+                        expired[0] = true;
+                        return null;
+                    }
+                    return current;
+                });
+                if (expired[0]) {
+                    publishConnectivity(chargerId, entry, false);
+                    continue;
+                }
+            }
+            if (!entry.dirty) {
+                continue;
+            }
+            entry.dirty = false;
+            chargerIds[size] = chargerId;
+            tenantIds[size] = entry.tenantId == null ? 0L : entry.tenantId;
+            lastSeen[size] = entry.lastSeenMillis;
+            size++;
+            if (size == chargerIds.length) {
+                publishSnapshot(chargerIds, tenantIds, lastSeen, size);
+                total += size;
+                size = 0;
+            }
+        }
+        if (size > 0) {
+            publishSnapshot(chargerIds, tenantIds, lastSeen, size);
+            total += size;
+        }
+        protocolMetrics.recordLastSeenSnapshot(total, chargers.size());
+        return total;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(10, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Failed to publish last-seen snapshot", e);
+        }
+    }
+
+    private void publishSnapshot(long[] chargerIds, long[] tenantIds, long[] lastSeen, int size) {
+        LastSeenSnapshotEvent event = LastSeenSnapshotEvent.builder()
+            .eventId(UUID.randomUUID().toString())
+            .eventType(ProtocolEvent.EventType.LAST_SEEN)
+            .eventTime(LocalDateTime.now())
+            .chargerIds(Arrays.copyOf(chargerIds, size))
+            .tenantIds(Arrays.copyOf(tenantIds, size))
+            .lastSeen(Arrays.copyOf(lastSeen, size))
+            .build();
+        eventSender.send(event);
+        log.debug("Published last-seen snapshot with {} chargers", size);
+    }
+
+    private void publishConnectivity(Long chargerId, LastSeen entry, boolean online) {
+        ConnectivityEvent event = ConnectivityEvent.builder()
+            .eventId(UUID.randomUUID().toString())
+            .chargerId(chargerId)
+            .tenantId(entry.tenantId)
+            .eventType(ProtocolEvent.EventType.CONNECTIVITY)
+            .eventTime(LocalDateTime.now())
+            .protocolType(entry.protocolType)
+            .online(online)
+            .lastSeenTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(entry.lastSeenMillis), ZoneId.systemDefault()))
+            .build();
+        eventSender.send(event);
+        protocolMetrics.recordConnectivityTransition();
+        log.info("Charger {} is now {}", chargerId, online ? "online" : "offline");
+    }
+
+    /**
+     * 单个充电桩的最后在线记录
+     */
+    private static final class LastSeen {
+        private final Long tenantId;
+        private final String protocolType;
+        private volatile long lastSeenMillis;
+
+        /**
+         * 上次快照后是否有新心跳
+         */
+        private volatile boolean dirty = true;
+
+        private LastSeen(Long tenantId, String protocolType, long lastSeenMillis) {
+            this.tenantId = tenantId;
+            this.protocolType = protocolType;
+            this.lastSeenMillis = lastSeenMillis;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.evcs.protocol.mq;
+
+import com.evcs.protocol.config.RabbitMQConfig;
+import com.evcs.protocol.dto.IdTagRevocation;
+import com.evcs.protocol.event.IdTagRevokedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.ExchangeTypes;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.Exchange;
+import org.springframework.amqp.rabbit.annotation.Queue;
+import org.springframework.amqp.rabbit.annotation.QueueBinding;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * 接收认证服务广播的idTag授权撤销
+ * 每个协议节点以匿名临时队列订阅，收到后在本节点发布 {@link IdTagRevokedEvent}，
+ * 由授权缓存和本地授权列表同步各自处理；节点离线期间的通知由缓存TTL兜底
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "spring.rabbitmq.enabled", havingValue = "true", matchIfMissing = true)
+public class IdTagRevocationListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public IdTagRevocationListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @RabbitListener(bindings = @QueueBinding(
+            value = @Queue,
+            exchange = @Exchange(value = RabbitMQConfig.IDTAG_REVOCATION_EXCHANGE, type = ExchangeTypes.FANOUT)),
+            ackMode = "AUTO")
+    public void onIdTagRevocation(Message message) {
+        IdTagRevocation revocation;
+        try {
+            revocation = objectMapper.readValue(message.getBody(), IdTagRevocation.class);
+        } catch (IOException e) {
+            log.warn("Discarding malformed idTag revocation: {}", e.getMessage());
+            return;
+        }
+        if (revocation.tenantId() == null) {
+            log.warn("Discarding idTag revocation without tenant: idTag={}", revocation.idTag());
+            return;
+        }
+        eventPublisher.publishEvent(new IdTagRevokedEvent(this, revocation.tenantId(), revocation.idTag()));
+    }
+}
@@ -0,0 +1,476 @@
+package com.evcs.protocol.mq;
+
+import com.evcs.protocol.event.ConnectivityEvent;
+import com.evcs.protocol.event.HeartbeatEvent;
+import com.evcs.protocol.event.LastSeenSnapshotEvent;
+import com.evcs.protocol.event.ProtocolEvent;
+import com.evcs.protocol.event.StartEvent;
+import com.evcs.protocol.event.StatusEvent;
+import com.evcs.protocol.event.StopEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * 协议事件二进制编解码
+ * 格式：版本号(1字节) + 事件类型标签(1字节) + 字段存在位图(varint) + 按固定顺序排列的非空字段。
+ * 整数为zigzag varint，时间为epoch毫秒（LocalDateTime按UTC折算，往返不依赖时区，精度截断到毫秒），
+ * 枚举写序号，UUID形式的eventId写16字节，常见协议类型写字典编号，long数组按相邻差值编码。
+ * 新增字段只能追加在各类型字段的末尾，并且EventType只能在末尾追加枚举值；不兼容的改动须提升版本号
+ */
+public final class ProtocolEventCodec {
+
+    /**
+     * 二进制事件的消息内容类型
+     */
+    public static final String CONTENT_TYPE = "application/x-evcs-protocol-event";
+
+    public static final int VERSION = 1;
+
+    private static final int TAG_HEARTBEAT = 1;
+    private static final int TAG_STATUS = 2;
+    private static final int TAG_START = 3;
+    private static final int TAG_STOP = 4;
+    private static final int TAG_CONNECTIVITY = 5;
+    private static final int TAG_LAST_SEEN = 6;
+
+    /**
+     * 协议类型字典，编号0表示后面跟字符串
+     */
+    private static final String[] PROTOCOL_TYPES = {null, "OCPP", "CloudCharge"};
+
+    private static final ProtocolEvent.EventType[] EVENT_TYPES = ProtocolEvent.EventType.values();
+
+    private ProtocolEventCodec() {
+    }
+
+    /**
+     * 是否支持该事件类型，不支持的事件仍按JSON发送
+     */
+    public static boolean supports(ProtocolEvent event) {
+        return tagOf(event) != 0;
+    }
+
+    public static byte[] encode(ProtocolEvent event) {
+        int tag = tagOf(event);
+        if (tag == 0) {
+            throw new IllegalArgumentException("Unsupported protocol event: " + event.getClass().getName());
+        }
+        Writer writer = new Writer();
+        writer.eventId(event.getEventId());
+        writer.writeLong(event.getChargerId());
+        writer.writeLong(event.getTenantId());
+        writer.writeInt(event.getEventType() == null ? null : event.getEventType().ordinal());
+        writer.writeTime(event.getEventTime());
+        writer.protocolType(event.getProtocolType());
+
+        switch (event) {
+            case HeartbeatEvent e -> writer.writeTime(e.getLastHeartbeatTime());
+            case StatusEvent e -> {
+                writer.writeInt(e.getOldStatus());
+                writer.writeInt(e.getNewStatus());
+                writer.writeString(e.getStatusDesc());
+            }
+            case StartEvent e -> {
+                writer.writeString(e.getSessionId());
+                writer.writeLong(e.getUserId());
+                writer.writeString(e.getOrderNo());
+                writer.writeDouble(e.getInitialEnergy());
+                writer.writeBoolean(e.getSuccess());
+                writer.writeString(e.getMessage());
+            }
+            case StopEvent e -> {
+                writer.writeString(e.getSessionId());
+                writer.writeString(e.getOrderNo());
+                writer.writeDouble(e.getEnergy());
+                writer.writeLong(e.getDuration());
+                writer.writeString(e.getReason());
+                writer.writeBoolean(e.getSuccess());
+                writer.writeString(e.getMessage());
+            }
+            case ConnectivityEvent e -> {
+                writer.writeBoolean(e.getOnline());
+                writer.writeTime(e.getLastSeenTime());
+            }
+            case LastSeenSnapshotEvent e -> {
+                writer.writeLongs(e.getChargerIds());
+                writer.writeLongs(e.getTenantIds());
+                writer.writeLongs(e.getLastSeen());
+            }
+            default -> throw new IllegalStateException();
+        }
+        return writer.toBytes(tag);
+    }
+
+    /**
+     * @throws IllegalArgumentException 版本不支持或数据损坏
+     */
+    public static ProtocolEvent decode(byte[] data) {
+        try {
+            return read(new Reader(data));
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated protocol event payload", e);
+        }
+    }
+
+    private static ProtocolEvent read(Reader reader) {
+        int version = reader.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported protocol event codec version: " + version);
+        }
+        int tag = reader.readByte();
+        reader.presence = reader.readVarLong();
+
+        ProtocolEvent.ProtocolEventBuilder<?, ?> builder = switch (tag) {
+            case TAG_HEARTBEAT -> HeartbeatEvent.builder();
+            case TAG_STATUS -> StatusEvent.builder();
+            case TAG_START -> StartEvent.builder();
+            case TAG_STOP -> StopEvent.builder();
+            case TAG_CONNECTIVITY -> ConnectivityEvent.builder();
+            case TAG_LAST_SEEN -> LastSeenSnapshotEvent.builder();
+            default -> throw new IllegalArgumentException("Unknown protocol event tag: " + tag);
+        };
+        builder.eventId(reader.eventId())
+                .chargerId(reader.readLong())
+                .tenantId(reader.readLong());
+        Integer ordinal = reader.readInt();
+        if (ordinal != null) {
+            if (ordinal < 0 || ordinal >= EVENT_TYPES.length) {
+                throw new IllegalArgumentException("Unknown event type ordinal: " + ordinal);
+            }
+            builder.eventType(EVENT_TYPES[ordinal]);
+        }
+        builder.eventTime(reader.readTime())
+                .protocolType(reader.protocolType());
+
+        switch (builder) {
+            case HeartbeatEvent.HeartbeatEventBuilder<?, ?> b -> b.lastHeartbeatTime(reader.readTime());
+            case StatusEvent.StatusEventBuilder<?, ?> b -> b
+                    .oldStatus(reader.readInt())
+                    .newStatus(reader.readInt())
+                    .statusDesc(reader.readString());
+            case StartEvent.StartEventBuilder<?, ?> b -> b
+                    .sessionId(reader.readString())
+                    .userId(reader.readLong())
+                    .orderNo(reader.readString())
+                    .initialEnergy(reader.readDouble())
+                    .success(reader.readBoolean())
+                    .message(reader.readString());
+            case StopEvent.StopEventBuilder<?, ?> b -> b
+                    .sessionId(reader.readString())
+                    .orderNo(reader.readString())
+                    .energy(reader.readDouble())
+                    .duration(reader.readLong())
+                    .reason(reader.readString())
+                    .success(reader.readBoolean())
+                    .message(reader.readString());
+            case ConnectivityEvent.ConnectivityEventBuilder<?, ?> b -> b
+                    .online(reader.readBoolean())
+                    .lastSeenTime(reader.readTime());
+            case LastSeenSnapshotEvent.LastSeenSnapshotEventBuilder<?, ?> b -> b
+                    .chargerIds(reader.readLongs())
+                    .tenantIds(reader.readLongs())
+                    .lastSeen(reader.readLongs());
+            default -> throw new IllegalStateException();
+        }
+        return builder.build();
+    }
+
+    private static int tagOf(ProtocolEvent event) {
+        return switch (event) {
+            case HeartbeatEvent e -> TAG_HEARTBEAT;
+            case StatusEvent e -> TAG_STATUS;
+            case StartEvent e -> TAG_START;
+            case StopEvent e -> TAG_STOP;
+            case ConnectivityEvent e -> TAG_CONNECTIVITY;
+            case LastSeenSnapshotEvent e -> TAG_LAST_SEEN;
+            default -> 0;
+        };
+    }
+
+    /**
+     * 字段写入，每个字段占用位图中的一位，空值只占这一位
+     */
+    private static final class Writer {
+
+        private byte[] buffer = new byte[64];
+        private int position;
+        private long presence;
+        private int field;
+
+        private boolean present(Object value) {
+            if (field >= Long.SIZE) {
+                throw new IllegalStateException("Too many fields for presence bitmap");
+            }
+            if (value != null) {
+                presence |= 1L << field;
+            }
+            field++;
+            return value != null;
+        }
+
+        /**
+         * 占两位：UUID形式 / 任意字符串
+         */
+        void eventId(String eventId) {
+            UUID uuid = parseCanonicalUuid(eventId);
+            if (present(uuid)) {
+                ensure(16);
+                putLong(uuid.getMostSignificantBits());
+                putLong(uuid.getLeastSignificantBits());
+                field++;
+                return;
+            }
+            writeString(eventId);
+        }
+
+        void protocolType(String protocolType) {
+            if (!present(protocolType)) {
+                return;
+            }
+            for (int i = 1; i < PROTOCOL_TYPES.length; i++) {
+                if (PROTOCOL_TYPES[i].equals(protocolType)) {
+                    writeVarLong(i);
+                    return;
+                }
+            }
+            writeVarLong(0);
+            writeUtf8(protocolType);
+        }
+
+        void writeLong(Long value) {
+            if (present(value)) {
+                writeVarLong(zigzag(value));
+            }
+        }
+
+        void writeInt(Integer value) {
+            if (present(value)) {
+                writeVarLong(zigzag(value));
+            }
+        }
+
+        void writeDouble(Double value) {
+            if (present(value)) {
+                ensure(8);
+                putLong(Double.doubleToRawLongBits(value));
+            }
+        }
+
+        void writeBoolean(Boolean value) {
+            if (present(value)) {
+                ensure(1);
+                buffer[position++] = (byte) (value ? 1 : 0);
+            }
+        }
+
+        void writeString(String value) {
+            if (present(value)) {
+                writeUtf8(value);
+            }
+        }
+
+        void writeTime(LocalDateTime value) {
+            if (present(value)) {
+                writeVarLong(zigzag(value.toInstant(ZoneOffset.UTC).toEpochMilli()));
+            }
+        }
+
+        void writeLongs(long[] values) {
+            if (!present(values)) {
+                return;
+            }
+            writeVarLong(values.length);
+            long previous = 0;
+            for (long value : values) {
+                writeVarLong(zigzag(value - previous));
+                previous = value;
+            }
+        }
+
+        private void writeUtf8(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void putLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void ensure(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+
+        byte[] toBytes(int tag) {
+            byte[] body = buffer;
+            int bodyLength = position;
+            buffer = new byte[12];
+            position = 0;
+            buffer[position++] = (byte) VERSION;
+            buffer[position++] = (byte) tag;
+            writeVarLong(presence);
+            byte[] result = Arrays.copyOf(buffer, position + bodyLength);
+            System.arraycopy(body, 0, result, position, bodyLength);
+            return result;
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] data;
+        private int position;
+        private long presence;
+        private int field;
+
+        private Reader(byte[] data) {
+            this.data = data;
+        }
+
+        private boolean present() {
+            return (presence & (1L << field++)) != 0;
+        }
+
+        String eventId() {
+            if (present()) {
+                field++;
+                return new UUID(getLong(), getLong()).toString();
+            }
+            return readString();
+        }
+
+        String protocolType() {
+            if (!present()) {
+                return null;
+            }
+            int code = (int) readVarLong();
+            if (code == 0) {
+                return readUtf8();
+            }
+            if (code >= PROTOCOL_TYPES.length) {
+                throw new IllegalArgumentException("Unknown protocol type code: " + code);
+            }
+            return PROTOCOL_TYPES[code];
+        }
+
+        Long readLong() {
+            return present() ? unzigzag(readVarLong()) : null;
+        }
+
+        Integer readInt() {
+            return present() ? (int) unzigzag(readVarLong()) : null;
+        }
+
+        Double readDouble() {
+            return present() ? Double.longBitsToDouble(getLong()) : null;
+        }
+
+        Boolean readBoolean() {
+            return present() ? data[position++] != 0 : null;
+        }
+
+        String readString() {
+            return present() ? readUtf8() : null;
+        }
+
+        LocalDateTime readTime() {
+            if (!present()) {
+                return null;
+            }
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(unzigzag(readVarLong())), ZoneOffset.UTC);
+        }
+
+        long[] readLongs() {
+            if (!present()) {
+                return null;
+            }
+            int length = (int) readVarLong();
+            if (length < 0 || length > data.length - position) {
+                throw new IllegalArgumentException("Invalid array length: " + length);
+            }
+            long[] values = new long[length];
+            long previous = 0;
+            for (int i = 0; i < length; i++) {
+                previous += unzigzag(readVarLong());
+                values[i] = previous;
+            }
+            return values;
+        }
+
+        int readByte() {
+            return data[position++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        private String readUtf8() {
+            int length = (int) readVarLong();
+            if (length < 0 || length > data.length - position) {
+                throw new IllegalArgumentException("Invalid string length: " + length);
+            }
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private long getLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (data[position++] & 0xFF);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * 只接受标准小写形式，保证解码后与原字符串完全一致
+     */
+    private static UUID parseCanonicalUuid(String value) {
+        if (value == null || value.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(value);
+            return uuid.toString().equals(value) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
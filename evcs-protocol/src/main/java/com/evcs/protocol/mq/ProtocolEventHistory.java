@@ -0,0 +1,143 @@
+package com.evcs.protocol.mq;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.event.ProtocolEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+
+/**
+ * 协议事件历史（调试用）
+ * 固定容量的无锁环形缓冲：写入只有一次序号自增和一次数组写，不做裁剪；
+ * 每种事件类型另有一个同容量的环，按类型查询时只扫描该类型的事件。
+ * 查询从最新的事件向前扫描，凑够条数即停止，不复制整个历史
+ */
+@Component
+public class ProtocolEventHistory {
+
+    private final int capacity;
+    private final Ring all;
+    private final Map<ProtocolEvent.EventType, Ring> byType = new EnumMap<>(ProtocolEvent.EventType.class);
+
+    @Autowired
+    public ProtocolEventHistory(ProtocolProperties protocolProperties) {
+        this(protocolProperties.getEventPublish().getHistoryCapacity());
+    }
+
+    /**
+     * @param capacity 容量，向上取整到2的幂
+     */
+    public ProtocolEventHistory(int capacity) {
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.all = new Ring(this.capacity);
+        for (ProtocolEvent.EventType type : ProtocolEvent.EventType.values()) {
+            byType.put(type, new Ring(this.capacity));
+        }
+    }
+
+    /**
+     * 记录事件，覆盖最早的记录
+     */
+    public void record(ProtocolEvent event) {
+        all.add(event);
+        if (event.getEventType() != null) {
+            byType.get(event.getEventType()).add(event);
+        }
+    }
+
+    /**
+     * 按条件查询最近的事件，条件为空表示不过滤
+     *
+     * @return 最新的在前
+     */
+    public List<ProtocolEvent> query(Long chargerId, Long tenantId, ProtocolEvent.EventType eventType, int limit) {
+        int max = Math.max(0, Math.min(limit, capacity));
+        List<ProtocolEvent> result = new ArrayList<>(Math.min(max, 64));
+        if (max == 0) {
+            return result;
+        }
+        Ring ring = eventType == null ? all : byType.get(eventType);
+        ring.forEachNewest(event -> {
+            if ((chargerId == null || chargerId.equals(event.getChargerId()))
+                    && (tenantId == null || tenantId.equals(event.getTenantId()))) {
+                result.add(event);
+            }
+            return result.size() < max;
+        });
+        return result;
+    }
+
+    /**
+     * 统计满足条件的事件数
+     */
+    public long count(Predicate<ProtocolEvent> filter) {
+        long[] count = new long[1];
+        all.forEachNewest(event -> {
+            if (filter.test(event)) {
+                count[0]++;
+            }
+            return true;
+        });
+        return count[0];
+    }
+
+    /**
+     * 累计记录的事件数（含已覆盖的）
+     */
+    public long getRecordedCount() {
+        return all.sequence.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 单个环形缓冲
+     * 每个槽位保存写入时的序号，读取时序号不符说明已被覆盖或尚未写完，直接跳过。
+     * 写入方在取号后、落槽前被整整一圈的写入超越时，较新的记录可能被较旧的覆盖，调试用途可以接受
+     */
+    private static final class Ring {
+
+        private final int mask;
+        private final AtomicReferenceArray<Slot> slots;
+        private final AtomicLong sequence = new AtomicLong();
+
+        private Ring(int capacity) {
+            this.mask = capacity - 1;
+            this.slots = new AtomicReferenceArray<>(capacity);
+        }
+
+        private void add(ProtocolEvent event) {
+            long seq = sequence.getAndIncrement();
+            slots.set((int) (seq & mask), new Slot(seq, event));
+        }
+
+        /**
+         * 从最新向最早遍历，visitor返回false时停止
+         */
+        private void forEachNewest(Predicate<ProtocolEvent> visitor) {
+            long head = sequence.get();
+            long oldest = Math.max(0, head - slots.length());
+            for (long seq = head - 1; seq >= oldest; seq--) {
+                Slot slot = slots.get((int) (seq & mask));
+                if (slot == null || slot.sequence != seq) {
+                    continue;
+                }
+                if (!visitor.test(slot.event)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private record Slot(long sequence, ProtocolEvent event) {
+    }
+}
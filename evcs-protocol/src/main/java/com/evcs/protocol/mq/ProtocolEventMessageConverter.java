@@ -0,0 +1,48 @@
+package com.evcs.protocol.mq;
+
+import com.evcs.protocol.event.ProtocolEvent;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+/**
+ * 协议事件消息转换器
+ * 按消息的content-type选择编解码：{@link ProtocolEventCodec#CONTENT_TYPE} 走二进制，其余交给JSON转换器。
+ * 消费端总是同时支持两种格式；发布端只有开启二进制格式时才对支持的事件使用二进制，
+ * 因此应先升级所有消费端，再切换发布端
+ */
+public class ProtocolEventMessageConverter implements MessageConverter {
+
+    private final MessageConverter jsonConverter;
+    private final boolean binaryEnabled;
+
+    public ProtocolEventMessageConverter(MessageConverter jsonConverter, boolean binaryEnabled) {
+        this.jsonConverter = jsonConverter;
+        this.binaryEnabled = binaryEnabled;
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) throws MessageConversionException {
+        if (binaryEnabled && object instanceof ProtocolEvent event && ProtocolEventCodec.supports(event)) {
+            byte[] body = ProtocolEventCodec.encode(event);
+            messageProperties.setContentType(ProtocolEventCodec.CONTENT_TYPE);
+            messageProperties.setContentLength(body.length);
+            return new Message(body, messageProperties);
+        }
+        return jsonConverter.toMessage(object, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) throws MessageConversionException {
+        String contentType = message.getMessageProperties().getContentType();
+        if (contentType != null && contentType.startsWith(ProtocolEventCodec.CONTENT_TYPE)) {
+            try {
+                return ProtocolEventCodec.decode(message.getBody());
+            } catch (IllegalArgumentException e) {
+                throw new MessageConversionException("Failed to decode binary protocol event", e);
+            }
+        }
+        return jsonConverter.fromMessage(message);
+    }
+}
@@ -1,35 +1,42 @@
 package com.evcs.protocol.mq;
 
-import com.evcs.protocol.config.RabbitMQConfig;
 import com.evcs.protocol.event.*;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 /**
  * 协议事件发布者
- * 负责将协议事件发送到RabbitMQ
- * 在测试环境中，如果RabbitTemplate不可用，会记录日志但不抛出异常
+ * 负责构建协议事件并提交给 {@link ProtocolEventSender} 异步发送到RabbitMQ，
+ * 发布不阻塞协议处理线程，代理故障也不会传播到调用方
+ * 在测试环境中，如果发送器不可用，只记录事件历史
  */
 @Slf4j
 @Service
 public class ProtocolEventPublisher {
 
     @Autowired(required = false)
-    private RabbitTemplate rabbitTemplate;
+    private ProtocolEventSender eventSender;
 
-    // In-memory bounded history of recent protocol events. This is intended for debugging
-    // and test inspection only and is not a substitute for persistent storage or audit logs.
-    private final java.util.concurrent.ConcurrentLinkedDeque<
-        ProtocolEvent
-    > eventHistory = new java.util.concurrent.ConcurrentLinkedDeque<>();
-    private static final int MAX_HISTORY_SIZE = 100;
+    @Autowired(required = false)
+    private HeartbeatCoalescer heartbeatCoalescer;
+
+    private static final int DEFAULT_HISTORY_CAPACITY = 128;
+
+    /**
+     * 最近协议事件的内存历史，仅用于调试和测试检查，不能替代持久化存储或审计日志
+     * 容器中注入按配置容量创建的实例，直接实例化时使用默认容量
+     */
+    @Autowired
+    private ProtocolEventHistory eventHistory = new ProtocolEventHistory(DEFAULT_HISTORY_CAPACITY);
 
     /**
      * 发布心跳事件
+     * 心跳合并启用时不单独发送，只在上线/离线时发布事件
      */
     public HeartbeatEvent publishHeartbeat(
         Long chargerId,
@@ -37,7 +44,170 @@ public class ProtocolEventPublisher {
         String protocolType,
         LocalDateTime heartbeatTime
     ) {
-        HeartbeatEvent event = HeartbeatEvent.builder()
+        HeartbeatEvent event = heartbeatEvent(chargerId, tenantId, protocolType, heartbeatTime);
+
+        if (heartbeatCoalescer == null) {
+            publishEvent(event);
+            return event;
+        }
+        // 心跳只更新最后在线时间，按窗口合并成快照发布
+        recordHistory(event);
+        heartbeatCoalescer.record(chargerId, tenantId, protocolType, heartbeatTime);
+        return event;
+    }
+
+    /**
+     * 发布状态变更事件
+     */
+    public StatusEvent publishStatusChange(
+        Long chargerId,
+        Long tenantId,
+        String protocolType,
+        Integer oldStatus,
+        Integer newStatus,
+        String statusDesc
+    ) {
+        StatusEvent event = statusEvent(chargerId, tenantId, protocolType, oldStatus, newStatus, statusDesc);
+        publishEvent(event);
+        return event;
+    }
+
+    /**
+     * 发布开始充电事件
+     */
+    public StartEvent publishChargingStart(
+        Long chargerId,
+        Long tenantId,
+        String protocolType,
+        String sessionId,
+        Long userId,
+        String orderNo,
+        Double initialEnergy,
+        Boolean success,
+        String message
+    ) {
+        StartEvent event = startEvent(chargerId, tenantId, protocolType, sessionId, userId, orderNo,
+            initialEnergy, success, message);
+        publishEvent(event);
+        return event;
+    }
+
+    /**
+     * 发布停止充电事件
+     */
+    public StopEvent publishChargingStop(
+        Long chargerId,
+        Long tenantId,
+        String protocolType,
+        String sessionId,
+        String orderNo,
+        Double energy,
+        Long duration,
+        String reason,
+        Boolean success,
+        String message
+    ) {
+        StopEvent event = stopEvent(chargerId, tenantId, protocolType, sessionId, orderNo, energy, duration,
+            reason, success, message);
+        publishEvent(event);
+        return event;
+    }
+
+    /**
+     * 开始一个批次：批次内的事件先在本地收集，{@link Batch#publish()} 时一次性提交，
+     * 由发送器在同一通道上连续发送并统一等待确认
+     */
+    public Batch newBatch() {
+        return new Batch();
+    }
+
+    /**
+     * 获取最近的事件历史（用于调试/测试）
+     * 返回的是事件列表的快照，最新的在前；修改返回列表不会影响内部缓冲。
+     */
+    public java.util.List<ProtocolEvent> getEventHistory() {
+        return eventHistory.query(null, null, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 按充电桩、租户和事件类型查询最近的事件，条件为空表示不过滤
+     *
+     * @return 最新的在前，最多limit条
+     */
+    public java.util.List<ProtocolEvent> getEventHistory(
+        Long chargerId,
+        Long tenantId,
+        ProtocolEvent.EventType eventType,
+        int limit
+    ) {
+        return eventHistory.query(chargerId, tenantId, eventType, limit);
+    }
+
+    /**
+     * 事件历史
+     */
+    public ProtocolEventHistory getHistory() {
+        return eventHistory;
+    }
+
+    /**
+     * 提交事件异步发布到RabbitMQ
+     */
+    private void publishEvent(ProtocolEvent event) {
+        recordHistory(event);
+
+        if (eventSender == null) {
+            log.debug(
+                "Protocol event sender is not available (likely in test environment). Event will not be published: type={}, chargerId={}",
+                event.getEventType(),
+                event.getChargerId()
+            );
+            return;
+        }
+
+        if (!eventSender.send(event)) {
+            log.debug(
+                "Protocol event not accepted for publishing: eventId={}, type={}",
+                event.getEventId(),
+                event.getEventType()
+            );
+        }
+    }
+
+    /**
+     * 批量提交事件
+     */
+    private void publishEvents(List<ProtocolEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        events.forEach(this::recordHistory);
+
+        if (eventSender == null) {
+            log.debug(
+                "Protocol event sender is not available (likely in test environment). {} events will not be published",
+                events.size()
+            );
+            return;
+        }
+
+        int accepted = eventSender.sendAll(events);
+        if (accepted < events.size()) {
+            log.debug(
+                "{} of {} protocol events not accepted for publishing",
+                events.size() - accepted,
+                events.size()
+            );
+        }
+    }
+
+    private static HeartbeatEvent heartbeatEvent(
+        Long chargerId,
+        Long tenantId,
+        String protocolType,
+        LocalDateTime heartbeatTime
+    ) {
+        return HeartbeatEvent.builder()
             .eventId(UUID.randomUUID().toString())
             .chargerId(chargerId)
             .tenantId(tenantId)
@@ -46,15 +216,9 @@ public class ProtocolEventPublisher {
             .protocolType(protocolType)
             .lastHeartbeatTime(heartbeatTime)
             .build();
-
-        publishEvent(event);
-        return event;
     }
 
-    /**
-     * 发布状态变更事件
-     */
-    public StatusEvent publishStatusChange(
+    private static StatusEvent statusEvent(
         Long chargerId,
         Long tenantId,
         String protocolType,
@@ -62,7 +226,7 @@ public class ProtocolEventPublisher {
         Integer newStatus,
         String statusDesc
     ) {
-        StatusEvent event = StatusEvent.builder()
+        return StatusEvent.builder()
             .eventId(UUID.randomUUID().toString())
             .chargerId(chargerId)
             .tenantId(tenantId)
@@ -73,15 +237,9 @@ public class ProtocolEventPublisher {
             .newStatus(newStatus)
             .statusDesc(statusDesc)
             .build();
-
-        publishEvent(event);
-        return event;
     }
 
-    /**
-     * 发布开始充电事件
-     */
-    public StartEvent publishChargingStart(
+    private static StartEvent startEvent(
         Long chargerId,
         Long tenantId,
         String protocolType,
@@ -92,7 +250,7 @@ public class ProtocolEventPublisher {
         Boolean success,
         String message
     ) {
-        StartEvent event = StartEvent.builder()
+        return StartEvent.builder()
             .eventId(UUID.randomUUID().toString())
             .chargerId(chargerId)
             .tenantId(tenantId)
@@ -106,15 +264,9 @@ public class ProtocolEventPublisher {
             .success(success)
             .message(message)
             .build();
-
-        publishEvent(event);
-        return event;
     }
 
-    /**
-     * 发布停止充电事件
-     */
-    public StopEvent publishChargingStop(
+    private static StopEvent stopEvent(
         Long chargerId,
         Long tenantId,
         String protocolType,
@@ -126,7 +278,7 @@ public class ProtocolEventPublisher {
         Boolean success,
         String message
     ) {
-        StopEvent event = StopEvent.builder()
+        return StopEvent.builder()
             .eventId(UUID.randomUUID().toString())
             .chargerId(chargerId)
             .tenantId(tenantId)
@@ -141,29 +293,81 @@ public class ProtocolEventPublisher {
             .success(success)
             .message(message)
             .build();
-
-        publishEvent(event);
-        return event;
     }
 
     /**
-     * 获取最近的事件历史（用于调试/测试）
-     * 返回的是事件列表的快照；修改返回列表不会影响内部缓冲。
+     * 事件批次，非线程安全，由单个请求线程构建后发布一次
+     * 心跳在启用合并时与单条发布一样只更新快照，不进入批次
      */
-    public java.util.List<ProtocolEvent> getEventHistory() {
-        return new java.util.ArrayList<>(eventHistory);
+    public final class Batch {
+
+        private final List<ProtocolEvent> events = new ArrayList<>();
+        private boolean published;
+
+        private Batch() {
+        }
+
+        public HeartbeatEvent heartbeat(Long chargerId, Long tenantId, String protocolType, LocalDateTime heartbeatTime) {
+            HeartbeatEvent event = heartbeatEvent(chargerId, tenantId, protocolType, heartbeatTime);
+            if (heartbeatCoalescer == null) {
+                events.add(event);
+            } else {
+                recordHistory(event);
+                heartbeatCoalescer.record(chargerId, tenantId, protocolType, heartbeatTime);
+            }
+            return event;
+        }
+
+        public StatusEvent statusChange(Long chargerId, Long tenantId, String protocolType,
+                                        Integer oldStatus, Integer newStatus, String statusDesc) {
+            StatusEvent event = statusEvent(chargerId, tenantId, protocolType, oldStatus, newStatus, statusDesc);
+            events.add(event);
+            return event;
+        }
+
+        public StartEvent chargingStart(Long chargerId, Long tenantId, String protocolType, String sessionId,
+                                        Long userId, String orderNo, Double initialEnergy, Boolean success,
+                                        String message) {
+            StartEvent event = startEvent(chargerId, tenantId, protocolType, sessionId, userId, orderNo,
+                initialEnergy, success, message);
+            events.add(event);
+            return event;
+        }
+
+        public StopEvent chargingStop(Long chargerId, Long tenantId, String protocolType, String sessionId,
+                                      String orderNo, Double energy, Long duration, String reason, Boolean success,
+                                      String message) {
+            StopEvent event = stopEvent(chargerId, tenantId, protocolType, sessionId, orderNo, energy, duration,
+                reason, success, message);
+            events.add(event);
+            return event;
+        }
+
+        /**
+         * 批次中待发布的事件数（不含被合并的心跳）
+         */
+        public int size() {
+            return events.size();
+        }
+
+        /**
+         * 一次性提交批次中的事件
+         */
+        public void publish() {
+            if (published) {
+                throw new IllegalStateException("Batch already published");
+            }
+            published = true;
+            publishEvents(events);
+        }
     }
 
     /**
-     * 发布事件到RabbitMQ
+     * 记录到内存中的事件历史
      */
-    private void publishEvent(ProtocolEvent event) {
-        // Record the event in in-memory bounded history for debugging/tests.
+    private void recordHistory(ProtocolEvent event) {
         try {
-            eventHistory.addFirst(event);
-            while (eventHistory.size() > MAX_HISTORY_SIZE) {
-                eventHistory.pollLast();
-            }
+            eventHistory.record(event);
         } catch (Exception ex) {
             // History recording must never prevent event publishing.
             log.warn(
@@ -171,44 +375,5 @@ public class ProtocolEventPublisher {
                 ex.getMessage()
             );
         }
-
-        if (rabbitTemplate == null) {
-            log.warn(
-                "RabbitTemplate is not available (likely in test environment). Event will not be published: type={}, chargerId={}",
-                event.getEventType(),
-                event.getChargerId()
-            );
-            return;
-        }
-
-        try {
-            String routingKey = event.getRoutingKey();
-            log.info(
-                "Publishing protocol event: type={}, chargerId={}, routingKey={}",
-                event.getEventType(),
-                event.getChargerId(),
-                routingKey
-            );
-
-            rabbitTemplate.convertAndSend(
-                RabbitMQConfig.PROTOCOL_EXCHANGE,
-                routingKey,
-                event
-            );
-
-            log.debug(
-                "Event published successfully: eventId={}",
-                event.getEventId()
-            );
-        } catch (Exception e) {
-            log.error(
-                "Failed to publish event: eventId={}, type={}, chargerId={}",
-                event.getEventId(),
-                event.getEventType(),
-                event.getChargerId(),
-                e
-            );
-            throw new RuntimeException("Failed to publish protocol event", e);
-        }
     }
 }
@@ -0,0 +1,406 @@
+package com.evcs.protocol.mq;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.config.RabbitMQConfig;
+import com.evcs.protocol.event.ProtocolEvent;
+import com.evcs.protocol.metrics.ProtocolMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 协议事件异步发布
+ * 调用方只负责入队；发布线程按批次在同一通道上发送并等待关联确认，
+ * 未确认的事件按重试配置退避重发，重试耗尽后视为代理不可用，事件转入本地溢出缓冲，
+ * 此后按最大重试间隔用溢出缓冲中的一批试探，恢复后按原顺序补发。
+ * 连接工厂未开启发布确认时，发送成功即视为已确认
+ */
+@Slf4j
+@Component
+public class ProtocolEventSender {
+
+    private static final long IDLE_WAIT_MILLIS = 100;
+
+    private final RabbitTemplate rabbitTemplate;
+    private final ProtocolMetrics protocolMetrics;
+    private final ProtocolProperties.EventPublishConfig config;
+    private final ProtocolProperties.RetryConfig retry;
+    private final boolean confirmsEnabled;
+
+    private final Queue<ProtocolEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueSize = new AtomicInteger();
+
+    /**
+     * 溢出缓冲，按发布顺序排列，访问时以自身加锁
+     */
+    private final Deque<ProtocolEvent> spill = new ArrayDeque<>();
+
+    private final Semaphore signal = new Semaphore(0);
+    private final List<Thread> publishers = new ArrayList<>();
+    private final AtomicLong nextProbeNanos = new AtomicLong();
+
+    private volatile boolean running = true;
+    private volatile boolean brokerAvailable = true;
+
+    public ProtocolEventSender(@Nullable RabbitTemplate rabbitTemplate,
+                               ProtocolMetrics protocolMetrics,
+                               ProtocolProperties protocolProperties) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.protocolMetrics = protocolMetrics;
+        this.config = protocolProperties.getEventPublish();
+        this.retry = protocolProperties.getRetry();
+
+        if (rabbitTemplate == null) {
+            this.confirmsEnabled = false;
+            log.warn("RabbitTemplate is not available (likely in test environment), protocol events will not be published");
+            return;
+        }
+        this.confirmsEnabled = rabbitTemplate.getConnectionFactory() != null
+                && rabbitTemplate.getConnectionFactory().isPublisherConfirms();
+        if (!confirmsEnabled) {
+            log.warn("Publisher confirms are not enabled, protocol events are published without broker acknowledgement");
+        }
+    }
+
+    /**
+     * 启动发布线程，未配置RabbitTemplate时不启动
+     */
+    @PostConstruct
+    public void start() {
+        if (rabbitTemplate == null) {
+            return;
+        }
+        for (int i = 0; i < Math.max(1, config.getPublisherThreads()); i++) {
+            publishers.add(Thread.ofVirtual().name("protocol-event-publisher-" + i).start(this::runPublisher));
+        }
+    }
+
+    /**
+     * 提交事件，不阻塞调用线程
+     *
+     * @return 是否被接收（进入发布队列或溢出缓冲）
+     */
+    public boolean send(ProtocolEvent event) {
+        if (rabbitTemplate == null || !running) {
+            return false;
+        }
+        if (!offer(event)) {
+            spill(List.of(event), false);
+            return true;
+        }
+        signal.release();
+        return true;
+    }
+
+    /**
+     * 批量提交事件，一次预留队列容量并只唤醒一次发布线程，使同一批事件尽量在同一个发布批次中发送
+     * 队列容量不足的部分转入溢出缓冲
+     *
+     * @return 被接收的事件数
+     */
+    public int sendAll(List<ProtocolEvent> events) {
+        if (rabbitTemplate == null || !running || events.isEmpty()) {
+            return 0;
+        }
+        int capacity = Math.max(1, config.getQueueCapacity());
+        int reserved;
+        while (true) {
+            int current = queueSize.get();
+            reserved = Math.min(events.size(), Math.max(0, capacity - current));
+            if (reserved == 0 || queueSize.compareAndSet(current, current + reserved)) {
+                break;
+            }
+        }
+        if (reserved > 0) {
+            queue.addAll(events.subList(0, reserved));
+            protocolMetrics.recordEventQueued(reserved);
+            signal.release();
+        }
+        if (reserved < events.size()) {
+            spill(events.subList(reserved, events.size()), false);
+        }
+        return events.size();
+    }
+
+    /**
+     * 发布队列中的事件数
+     */
+    public int getQueueSize() {
+        return queueSize.get();
+    }
+
+    /**
+     * 溢出缓冲中的事件数
+     */
+    public int getSpillSize() {
+        synchronized (spill) {
+            return spill.size();
+        }
+    }
+
+    public boolean isBrokerAvailable() {
+        return brokerAvailable;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        signal.release(publishers.size());
+        for (Thread publisher : publishers) {
+            try {
+                if (!publisher.join(Duration.ofSeconds(10))) {
+                    publisher.interrupt();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        int remaining = getSpillSize() + queueSize.get();
+        if (remaining > 0) {
+            log.warn("Protocol event sender stopped with {} unpublished events", remaining);
+        }
+    }
+
+    private boolean offer(ProtocolEvent event) {
+        int capacity = Math.max(1, config.getQueueCapacity());
+        while (true) {
+            int current = queueSize.get();
+            if (current >= capacity) {
+                return false;
+            }
+            if (queueSize.compareAndSet(current, current + 1)) {
+                break;
+            }
+        }
+        queue.add(event);
+        protocolMetrics.recordEventQueued(1);
+        return true;
+    }
+
+    private void runPublisher() {
+        int batchSize = Math.max(1, config.getBatchSize());
+        List<ProtocolEvent> batch = new ArrayList<>(batchSize);
+        while (true) {
+            if (brokerAvailable) {
+                pollQueue(batch, batchSize);
+                if (batch.isEmpty()) {
+                    pollSpill(batch, batchSize);
+                }
+            } else {
+                // 代理不可用：新事件直接转入溢出缓冲，到达试探时间的线程取一批重发
+                pollQueue(batch, Integer.MAX_VALUE);
+                if (!batch.isEmpty()) {
+                    spill(batch, false);
+                    batch.clear();
+                }
+                long probeAt = nextProbeNanos.get();
+                if (running && System.nanoTime() - probeAt >= 0
+                        && nextProbeNanos.compareAndSet(probeAt, System.nanoTime() + maxBackoffNanos())) {
+                    pollSpill(batch, batchSize);
+                }
+            }
+
+            if (batch.isEmpty()) {
+                if (!running) {
+                    return;
+                }
+                awaitSignal();
+                continue;
+            }
+            publishWithRetry(batch);
+            batch.clear();
+        }
+    }
+
+    private void publishWithRetry(List<ProtocolEvent> batch) {
+        List<ProtocolEvent> failed = publishBatch(batch);
+        int attempt = 1;
+        while (!failed.isEmpty() && retry.isEnabled() && attempt < retry.getMaxAttempts() && running) {
+            try {
+                Thread.sleep(TimeUnit.NANOSECONDS.toMillis(backoffNanos(attempt)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            protocolMetrics.recordEventsRetried(failed.size());
+            failed = publishBatch(failed);
+            attempt++;
+        }
+
+        if (failed.isEmpty()) {
+            if (!brokerAvailable) {
+                brokerAvailable = true;
+                log.info("Broker is available again, replaying {} spilled protocol events", getSpillSize());
+            }
+            return;
+        }
+        if (brokerAvailable) {
+            brokerAvailable = false;
+            nextProbeNanos.set(System.nanoTime() + maxBackoffNanos());
+            log.warn("Broker unavailable after {} attempts, spilling protocol events locally", attempt);
+        }
+        // 放回队首，恢复后保持原有顺序
+        spill(failed, true);
+    }
+
+    /**
+     * 在同一通道上发送一批事件并等待确认
+     *
+     * @return 未确认的事件
+     */
+    private List<ProtocolEvent> publishBatch(List<ProtocolEvent> batch) {
+        List<CorrelationData> correlations = new ArrayList<>(batch.size());
+        long sentAt = System.nanoTime();
+        try {
+            rabbitTemplate.invoke(operations -> {
+                for (ProtocolEvent pending : batch) {
+                    CorrelationData correlation = new CorrelationData(pending.getEventId());
+                    operations.convertAndSend(RabbitMQConfig.PROTOCOL_EXCHANGE,
+                            pending.getRoutingKey(), pending, correlation);
+                    correlations.add(correlation);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.debug("Failed to publish {} protocol events: {}", batch.size(), e.getMessage());
+            return new ArrayList<>(batch);
+        }
+
+        if (!confirmsEnabled) {
+            protocolMetrics.recordEventsPublished(batch.size(), System.nanoTime() - sentAt);
+            return List.of();
+        }
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[correlations.size()];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = correlations.get(i).getFuture();
+        }
+        try {
+            CompletableFuture.allOf(futures).get(config.getConfirmTimeout(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            log.debug("Protocol event confirms incomplete: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long confirmNanos = System.nanoTime() - sentAt;
+
+        List<ProtocolEvent> failed = new ArrayList<>();
+        int confirmed = 0;
+        int unroutable = 0;
+        for (int i = 0; i < correlations.size(); i++) {
+            CorrelationData correlation = correlations.get(i);
+            CorrelationData.Confirm confirm = correlation.getFuture().getNow(null);
+            if (confirm == null || !confirm.isAck()) {
+                failed.add(batch.get(i));
+            } else if (correlation.getReturned() != null) {
+                // 无法路由的事件重发结果相同，直接丢弃
+                unroutable++;
+            } else {
+                confirmed++;
+            }
+        }
+        if (confirmed > 0) {
+            protocolMetrics.recordEventsPublished(confirmed, confirmNanos);
+        }
+        if (unroutable > 0) {
+            protocolMetrics.recordEventsDropped(unroutable);
+            log.warn("Dropped {} unroutable protocol events", unroutable);
+        }
+        return failed;
+    }
+
+    private void pollQueue(List<ProtocolEvent> batch, int limit) {
+        ProtocolEvent pending;
+        int polled = 0;
+        while (polled < limit && (pending = queue.poll()) != null) {
+            queueSize.decrementAndGet();
+            batch.add(pending);
+            polled++;
+        }
+        if (polled > 0) {
+            protocolMetrics.recordEventQueued(-polled);
+        }
+    }
+
+    private void pollSpill(List<ProtocolEvent> batch, int limit) {
+        int polled = 0;
+        synchronized (spill) {
+            ProtocolEvent pending;
+            while (polled < limit && (pending = spill.pollFirst()) != null) {
+                batch.add(pending);
+                polled++;
+            }
+        }
+        if (polled > 0) {
+            protocolMetrics.recordEventSpilled(-polled);
+        }
+    }
+
+    /**
+     * 转入溢出缓冲，超过容量时丢弃最早的事件
+     *
+     * @param head 是否放回队首
+     */
+    private void spill(List<ProtocolEvent> events, boolean head) {
+        int capacity = Math.max(1, config.getSpillCapacity());
+        int dropped = 0;
+        synchronized (spill) {
+            if (head) {
+                for (int i = events.size() - 1; i >= 0; i--) {
+                    spill.addFirst(events.get(i));
+                }
+            } else {
+                spill.addAll(events);
+            }
+            while (spill.size() > capacity) {
+                spill.pollFirst();
+                dropped++;
+            }
+        }
+        protocolMetrics.recordEventSpilled(events.size() - dropped);
+        if (dropped > 0) {
+            protocolMetrics.recordEventsDropped(dropped);
+            log.warn("Protocol event spill buffer full, dropped {} oldest events", dropped);
+        }
+    }
+
+    private void awaitSignal() {
+        try {
+            if (signal.tryAcquire(IDLE_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                signal.drainPermits();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private long backoffNanos(int attempt) {
+        double delay = retry.getDelay() * Math.pow(retry.getMultiplier(), attempt - 1);
+        return TimeUnit.MILLISECONDS.toNanos((long) Math.min(delay, retry.getMaxDelay()));
+    }
+
+    private long maxBackoffNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(retry.getMaxDelay());
+    }
+}
@@ -0,0 +1,196 @@
+package com.evcs.protocol.service;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.dto.ChargerIdentity;
+import com.evcs.protocol.event.ChargerChangedEvent;
+import com.evcs.protocol.mapper.ChargerDirectoryMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 充电桩目录
+ * 启动时从 charger 表批量加载 chargerCode → (chargerId, stationId, tenantId)，
+ * 未命中时按编码单条回源。充电站服务广播的档案变更通知到达后失效对应条目，
+ * 并按 evcs.protocol.ocpp.charger-directory-reload-interval 定期全量重载，兜底节点断开MQ期间错过的通知。
+ * 同一编码在多个租户下存在时无法识别，解析结果为空
+ */
+@Slf4j
+@Component
+public class ChargerDirectory {
+
+    /**
+     * 编码在多个租户下重复的占位
+     */
+    private static final ChargerIdentity AMBIGUOUS = new ChargerIdentity();
+
+    private final ChargerDirectoryMapper chargerDirectoryMapper;
+
+    /**
+     * 定期全量重载间隔（秒），0表示不重载
+     */
+    private final int reloadIntervalSeconds;
+
+    private final ScheduledExecutorService reloadExecutor =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("charger-directory-reload").daemon().factory());
+
+    private volatile Index index = new Index();
+
+    public ChargerDirectory(ChargerDirectoryMapper chargerDirectoryMapper) {
+        this.chargerDirectoryMapper = chargerDirectoryMapper;
+        this.reloadIntervalSeconds = 0;
+    }
+
+    @Autowired
+    public ChargerDirectory(ChargerDirectoryMapper chargerDirectoryMapper, ProtocolProperties protocolProperties) {
+        this.chargerDirectoryMapper = chargerDirectoryMapper;
+        this.reloadIntervalSeconds = Math.max(0, protocolProperties.getOcpp().getChargerDirectoryReloadInterval());
+    }
+
+    /**
+     * 按编码解析充电桩身份
+     *
+     * @return 未登记或编码不唯一时返回null
+     */
+    public ChargerIdentity resolve(String chargerCode) {
+        if (chargerCode == null) {
+            return null;
+        }
+        Index current = index;
+        ChargerIdentity identity = current.byCode.get(chargerCode);
+        if (identity == null) {
+            identity = loadByCode(current, chargerCode);
+        }
+        return identity == AMBIGUOUS ? null : identity;
+    }
+
+    /**
+     * 按ID查询充电桩身份
+     *
+     * @return 未登记时返回null
+     */
+    public ChargerIdentity findById(Long chargerId) {
+        if (chargerId == null) {
+            return null;
+        }
+        Index current = index;
+        ChargerIdentity identity = current.byId.get(chargerId);
+        if (identity != null) {
+            return identity;
+        }
+        try {
+            identity = chargerDirectoryMapper.selectIdentityById(chargerId);
+        } catch (Exception e) {
+            log.warn("Failed to load charger identity by id {}: {}", chargerId, e.getMessage());
+            return null;
+        }
+        if (identity != null) {
+            current.byId.put(chargerId, identity);
+        }
+        return identity;
+    }
+
+    /**
+     * 失效充电桩条目，下次解析时回源
+     */
+    public void invalidate(Long chargerId, String chargerCode) {
+        Index current = index;
+        if (chargerId != null) {
+            ChargerIdentity removed = current.byId.remove(chargerId);
+            if (removed != null) {
+                current.byCode.remove(removed.getChargerCode());
+            }
+        }
+        if (chargerCode != null) {
+            current.byCode.remove(chargerCode);
+        }
+    }
+
+    /**
+     * 全量重新加载
+     */
+    public void reload() {
+        List<ChargerIdentity> identities = chargerDirectoryMapper.selectAllIdentities();
+        Index loaded = new Index();
+        for (ChargerIdentity identity : identities) {
+            loaded.byId.put(identity.getChargerId(), identity);
+            loaded.byCode.merge(identity.getChargerCode(), identity, (a, b) -> AMBIGUOUS);
+        }
+        index = loaded;
+        log.info("Charger directory loaded: {} chargers", identities.size());
+    }
+
+    /**
+     * 已缓存的编码数
+     */
+    public int size() {
+        return index.byCode.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        // 不阻塞启动，加载完成前的解析按编码单条回源
+        Thread.ofVirtual().name("charger-directory-loader").start(this::reloadQuietly);
+        if (reloadIntervalSeconds > 0) {
+            reloadExecutor.scheduleWithFixedDelay(this::reloadQuietly,
+                    reloadIntervalSeconds, reloadIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reloadExecutor.shutdownNow();
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("Failed to load charger directory, falling back to on-demand lookup: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChargerChanged(ChargerChangedEvent event) {
+        log.debug("Invalidating charger directory entry: id={}, code={}", event.getChargerId(), event.getChargerCode());
+        invalidate(event.getChargerId(), event.getChargerCode());
+    }
+
+    private ChargerIdentity loadByCode(Index current, String chargerCode) {
+        List<ChargerIdentity> identities;
+        try {
+            identities = chargerDirectoryMapper.selectIdentitiesByCode(chargerCode);
+        } catch (Exception e) {
+            log.warn("Failed to load charger identity for {}: {}", chargerCode, e.getMessage());
+            return null;
+        }
+        if (identities.isEmpty()) {
+            return null;
+        }
+        if (identities.size() > 1) {
+            log.warn("Charger code {} is registered under {} tenants, cannot resolve identity", chargerCode, identities.size());
+            current.byCode.put(chargerCode, AMBIGUOUS);
+            return AMBIGUOUS;
+        }
+        ChargerIdentity identity = identities.get(0);
+        current.byId.put(identity.getChargerId(), identity);
+        current.byCode.put(chargerCode, identity);
+        return identity;
+    }
+
+    private static final class Index {
+        private final Map<String, ChargerIdentity> byCode = new ConcurrentHashMap<>();
+        private final Map<Long, ChargerIdentity> byId = new ConcurrentHashMap<>();
+    }
+}
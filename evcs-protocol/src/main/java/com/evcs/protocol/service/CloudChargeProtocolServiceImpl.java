@@ -2,6 +2,7 @@ package com.evcs.protocol.service;
 
 import com.evcs.protocol.api.ICloudChargeProtocolService;
 import com.evcs.protocol.api.ProtocolEventListener;
+import com.evcs.protocol.dto.ChargerIdentity;
 import com.evcs.protocol.mq.ProtocolEventPublisher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,6 +15,7 @@ import java.time.LocalDateTime;
 @RequiredArgsConstructor
 public class CloudChargeProtocolServiceImpl implements ICloudChargeProtocolService {
     private final ProtocolEventPublisher eventPublisher;
+    private final ChargerDirectory chargerDirectory;
     private volatile ProtocolEventListener listener;
 
     @Override
@@ -31,7 +33,7 @@ public class CloudChargeProtocolServiceImpl implements ICloudChargeProtocolServi
         
         // 发布到RabbitMQ
         try {
-            eventPublisher.publishChargingStart(chargerId, 1L, "CloudCharge", sessionId, userId,
+            eventPublisher.publishChargingStart(chargerId, tenantOf(chargerId), "CloudCharge", sessionId, userId,
                     null, 0.0, true, "OK");
         } catch (Exception e) {
             log.warn("Failed to publish charging start event to MQ", e);
@@ -49,7 +51,7 @@ public class CloudChargeProtocolServiceImpl implements ICloudChargeProtocolServi
         
         // 发布到RabbitMQ
         try {
-            eventPublisher.publishChargingStop(chargerId, 1L, "CloudCharge", null, null,
+            eventPublisher.publishChargingStop(chargerId, tenantOf(chargerId), "CloudCharge", null, null,
                     0.0, 0L, "Manual stop", true, "OK");
         } catch (Exception e) {
             log.warn("Failed to publish charging stop event to MQ", e);
@@ -68,7 +70,7 @@ public class CloudChargeProtocolServiceImpl implements ICloudChargeProtocolServi
         
         // 发布到RabbitMQ
         try {
-            eventPublisher.publishHeartbeat(chargerId, 1L, "CloudCharge", now);
+            eventPublisher.publishHeartbeat(chargerId, tenantOf(chargerId), "CloudCharge", now);
         } catch (Exception e) {
             log.warn("Failed to publish heartbeat event to MQ", e);
         }
@@ -85,7 +87,7 @@ public class CloudChargeProtocolServiceImpl implements ICloudChargeProtocolServi
         
         // 发布到RabbitMQ
         try {
-            eventPublisher.publishStatusChange(chargerId, 1L, "CloudCharge", null, status, "Status updated");
+            eventPublisher.publishStatusChange(chargerId, tenantOf(chargerId), "CloudCharge", null, status, "Status updated");
         } catch (Exception e) {
             log.warn("Failed to publish status event to MQ", e);
         }
@@ -97,4 +99,12 @@ public class CloudChargeProtocolServiceImpl implements ICloudChargeProtocolServi
     public void setEventListener(ProtocolEventListener listener) {
         this.listener = listener;
     }
+
+    /**
+     * 充电桩所属租户，未登记时为null
+     */
+    private Long tenantOf(Long chargerId) {
+        ChargerIdentity identity = chargerDirectory.findById(chargerId);
+        return identity != null ? identity.getTenantId() : null;
+    }
 }
@@ -1,29 +1,65 @@
 package com.evcs.protocol.service;
 
 import com.evcs.protocol.config.ProtocolProperties;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Map;
+import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 云快充协议签名验证器
+ * HMAC计算复用按密钥缓存的Mac实例并以恒定时间比较；时间戳窗口内重复的请求ID由内存防重放缓存拒绝
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class CloudChargeSignatureValidator {
 
     private final ProtocolProperties protocolProperties;
+    private final HmacSignatureEngine signatureEngine = new HmacSignatureEngine();
+    private final RequestNonceCache nonceCache;
+
+    public CloudChargeSignatureValidator(ProtocolProperties protocolProperties) {
+        this.protocolProperties = protocolProperties;
+        ProtocolProperties.CloudChargeConfig config = protocolProperties.getCloudCharge();
+        // 时间戳允许前后偏差，请求ID需保留整个窗口宽度
+        this.nonceCache = new RequestNonceCache(
+                TimeUnit.SECONDS.toMillis(2L * config.getTimestampToleranceSeconds()),
+                config.getNonceCacheMaxEntries());
+    }
+
+    /**
+     * 请求校验结果
+     */
+    public enum Verification {
+        VALID,
+        INVALID_SIGNATURE,
+        EXPIRED,
+        REPLAYED
+    }
+
+    /**
+     * 完整校验请求：时间戳窗口 → 签名 → 请求ID防重放
+     * 只有签名通过的请求才登记请求ID，伪造请求无法占用缓存
+     */
+    public Verification verify(CloudChargeRequest request) {
+        if (request == null || !validateTimestamp(request.getTimestamp())) {
+            return Verification.EXPIRED;
+        }
+        if (!validateSignature(request)) {
+            return Verification.INVALID_SIGNATURE;
+        }
+        if (protocolProperties.getCloudCharge().isReplayProtectionEnabled()
+                && !nonceCache.register(request.getDeviceCode() + ':' + request.getRequestId())) {
+            log.warn("Replayed request rejected: {} from device {}", request.getRequestId(), request.getDeviceCode());
+            return Verification.REPLAYED;
+        }
+        return Verification.VALID;
+    }
 
     /**
      * 验证云快充请求签名
@@ -42,12 +78,8 @@ public class CloudChargeSignatureValidator {
             String signString = buildSignString(request);
             log.debug("Sign string: {}", signString);
 
-            // 计算期望的签名
-            String expectedSignature = calculateSignature(signString);
-            log.debug("Expected signature: {}, Actual signature: {}", expectedSignature, request.getSignature());
-
-            // 验证签名
-            boolean isValid = expectedSignature.equals(request.getSignature());
+            // 恒定时间比较，避免按前缀逐字节泄露签名
+            boolean isValid = signatureEngine.verifyHex(resolveSecret(request), signString, request.getSignature());
 
             if (!isValid) {
                 log.warn("Signature validation failed for request: {}", request.getRequestId());
@@ -65,7 +97,7 @@ public class CloudChargeSignatureValidator {
      * 构建签名字符串
      */
     private String buildSignString(CloudChargeRequest request) {
-        StringBuilder sb = new StringBuilder();
+        StringBuilder sb = new StringBuilder(128);
 
         // 按照云快充协议规范构建签名字符串
         sb.append("requestId=").append(request.getRequestId())
@@ -81,12 +113,14 @@ public class CloudChargeSignatureValidator {
             sb.append("&action=").append(request.getAction());
         }
 
-        // 添加业务数据（按字母顺序排序）
-        if (request.getData() != null && !request.getData().isEmpty()) {
-            Map<String, Object> sortedData = new TreeMap<>(request.getData());
+        // 添加业务数据（按字母顺序排序），已按自然顺序排序的Map不再复制
+        Map<String, Object> data = request.getData();
+        if (data != null && !data.isEmpty()) {
+            Map<String, Object> sortedData = data instanceof SortedMap<String, Object> sorted && sorted.comparator() == null
+                    ? data : new TreeMap<>(data);
             sortedData.forEach((key, value) -> {
                 if (value != null) {
-                    sb.append("&").append(key).append("=").append(value.toString());
+                    sb.append('&').append(key).append('=').append(value);
                 }
             });
         }
@@ -95,44 +129,31 @@ public class CloudChargeSignatureValidator {
     }
 
     /**
-     * 计算HMAC-SHA256签名
+     * 签名密钥：指定厂商时使用厂商密钥，否则使用应用密钥
      */
-    private String calculateSignature(String signString) {
-        String appSecret = protocolProperties.getCloudCharge().getAppSecret();
-        if (appSecret == null) {
-            throw new IllegalStateException("CloudCharge app secret is not configured");
-        }
-
-        String algorithm = protocolProperties.getCloudCharge().getSignAlgorithm();
+    private String resolveSecret(CloudChargeRequest request) {
+        ProtocolProperties.CloudChargeConfig config = protocolProperties.getCloudCharge();
         // Only support HMAC-SHA256 for security reasons
-        if ("HMAC-SHA256".equals(algorithm.toUpperCase())) {
-            return calculateHmacSha256(appSecret, signString);
-        } else {
-            throw new IllegalArgumentException("Unsupported signature algorithm: " + algorithm +
+        if (!"HMAC-SHA256".equalsIgnoreCase(config.getSignAlgorithm())) {
+            throw new IllegalArgumentException("Unsupported signature algorithm: " + config.getSignAlgorithm() +
                 ". Only HMAC-SHA256 is supported for security reasons.");
         }
-    }
 
-    /**
-     * 使用标准Java加密API计算HMAC-SHA256签名
-     */
-    private String calculateHmacSha256(String appSecret, String signString) {
-        try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secretKeySpec = new SecretKeySpec(appSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-            mac.init(secretKeySpec);
-            byte[] hmacBytes = mac.doFinal(signString.getBytes(StandardCharsets.UTF_8));
-
-            // Convert to hexadecimal string
-            StringBuilder sb = new StringBuilder(hmacBytes.length * 2);
-            for (byte b : hmacBytes) {
-                sb.append(String.format("%02x", b));
+        String secret;
+        if (request.getVendor() != null) {
+            ProtocolProperties.VendorConfig vendor = config.getVendors() != null
+                    ? config.getVendors().get(request.getVendor()) : null;
+            if (vendor == null || !vendor.isEnabled()) {
+                throw new IllegalStateException("Unknown or disabled CloudCharge vendor: " + request.getVendor());
             }
-            return sb.toString();
-        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-            log.error("Error calculating HMAC-SHA256 signature", e);
-            throw new RuntimeException("Failed to calculate signature", e);
+            secret = vendor.getSecret();
+        } else {
+            secret = config.getAppSecret();
+        }
+        if (secret == null) {
+            throw new IllegalStateException("CloudCharge app secret is not configured");
         }
+        return secret;
     }
 
     /**
@@ -140,22 +161,23 @@ public class CloudChargeSignatureValidator {
      */
     public String generateSignature(CloudChargeRequest request) {
         String signString = buildSignString(request);
-        return calculateSignature(signString);
+        return signatureEngine.signHex(resolveSecret(request), signString);
     }
 
     /**
      * 验证时间戳是否在有效范围内（防止重放攻击）
      */
     public boolean validateTimestamp(String timestamp) {
+        if (timestamp == null) {
+            return false;
+        }
         try {
             LocalDateTime requestTime = LocalDateTime.parse(timestamp, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
             LocalDateTime now = LocalDateTime.now();
 
-            // 允许5分钟的时间差
-            LocalDateTime minTime = now.minusMinutes(5);
-            LocalDateTime maxTime = now.plusMinutes(5);
-
-            return requestTime.isAfter(minTime) && requestTime.isBefore(maxTime);
+            // 默认允许5分钟的时间差
+            long tolerance = protocolProperties.getCloudCharge().getTimestampToleranceSeconds();
+            return requestTime.isAfter(now.minusSeconds(tolerance)) && requestTime.isBefore(now.plusSeconds(tolerance));
 
         } catch (Exception e) {
             log.error("Error validating timestamp: {}", timestamp, e);
@@ -174,6 +196,7 @@ public class CloudChargeSignatureValidator {
         private String deviceCode;
         private String sessionId;
         private String action;
+        private String vendor;
         private Map<String, Object> data;
 
         // Getters and Setters
@@ -191,6 +214,8 @@ public class CloudChargeSignatureValidator {
         public void setSessionId(String sessionId) { this.sessionId = sessionId; }
         public String getAction() { return action; }
         public void setAction(String action) { this.action = action; }
+        public String getVendor() { return vendor; }
+        public void setVendor(String vendor) { this.vendor = vendor; }
         public Map<String, Object> getData() { return data; }
         public void setData(Map<String, Object> data) { this.data = data; }
 
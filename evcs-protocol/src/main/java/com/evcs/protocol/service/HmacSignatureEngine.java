@@ -0,0 +1,122 @@
+package com.evcs.protocol.service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HMAC-SHA256签名引擎
+ * 按密钥缓存已初始化的Mac实例：首次使用时初始化原型，之后从空闲队列借用，不够时克隆原型，
+ * 避免每个请求 Mac.getInstance + init 的提供者查找和密钥展开。
+ * 请求可能运行在虚拟线程上，ThreadLocal缓存命中率低，因此用按密钥的无锁空闲队列代替
+ */
+public class HmacSignatureEngine {
+
+    public static final String ALGORITHM = "HmacSHA256";
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    /**
+     * 每个密钥保留的空闲Mac上限，超过的直接丢弃
+     */
+    private static final int MAX_IDLE_PER_KEY = 64;
+
+    private final Map<String, MacPool> pools = new ConcurrentHashMap<>();
+
+    /**
+     * 计算签名
+     */
+    public byte[] sign(String secret, String content) {
+        MacPool pool = pools.computeIfAbsent(secret, MacPool::new);
+        Mac mac = pool.borrow();
+        try {
+            return mac.doFinal(content.getBytes(StandardCharsets.UTF_8));
+        } finally {
+            pool.release(mac);
+        }
+    }
+
+    /**
+     * 计算签名并输出小写十六进制
+     */
+    public String signHex(String secret, String content) {
+        return HEX.formatHex(sign(secret, content));
+    }
+
+    /**
+     * 以恒定时间比较十六进制签名（大小写不敏感），格式不合法的签名直接判定失败
+     */
+    public boolean verifyHex(String secret, String content, String signatureHex) {
+        if (signatureHex == null || signatureHex.length() != macLength(secret) * 2) {
+            return false;
+        }
+        byte[] provided;
+        try {
+            provided = HEX.parseHex(signatureHex);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return MessageDigest.isEqual(sign(secret, content), provided);
+    }
+
+    private int macLength(String secret) {
+        return pools.computeIfAbsent(secret, MacPool::new).macLength;
+    }
+
+    /**
+     * 单个密钥的Mac池
+     */
+    private static final class MacPool {
+
+        private final Mac prototype;
+        private final int macLength;
+        private final ConcurrentLinkedQueue<Mac> idle = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger idleCount = new AtomicInteger();
+
+        private MacPool(String secret) {
+            this.prototype = newMac(secret);
+            this.macLength = prototype.getMacLength();
+        }
+
+        private Mac borrow() {
+            Mac mac = idle.poll();
+            if (mac != null) {
+                idleCount.decrementAndGet();
+                return mac;
+            }
+            try {
+                return (Mac) prototype.clone();
+            } catch (CloneNotSupportedException e) {
+                throw new IllegalStateException("HMAC provider does not support cloning", e);
+            }
+        }
+
+        private void release(Mac mac) {
+            int count;
+            do {
+                count = idleCount.get();
+                if (count >= MAX_IDLE_PER_KEY) {
+                    return;
+                }
+            } while (!idleCount.compareAndSet(count, count + 1));
+            idle.offer(mac);
+        }
+
+        private static Mac newMac(String secret) {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Failed to initialize " + ALGORITHM, e);
+            }
+        }
+    }
+}
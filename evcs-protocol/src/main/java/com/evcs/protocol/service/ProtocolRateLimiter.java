@@ -0,0 +1,116 @@
+package com.evcs.protocol.service;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.metrics.ProtocolMetrics;
+import com.evcs.protocol.util.TokenBucketLimiter;
+import org.springframework.stereotype.Component;
+
+/**
+ * 协议入口限流与过载保护
+ * 按充电桩编码、按租户各维护一组令牌桶，OCPP WebSocket与云快充HTTP入口共用；
+ * 节点待处理消息（邮箱积压+事件发布队列）超过阈值时按优先级丢弃：先丢心跳，再丢状态和计量，
+ * 交易类消息（上线、授权、开始/结束交易）既不限流也不丢弃，避免计费数据丢失
+ */
+@Component
+public class ProtocolRateLimiter {
+
+    /**
+     * 消息优先级
+     */
+    public enum MessagePriority {
+        /**
+         * 上线、授权、开始/结束交易
+         */
+        TRANSACTION,
+        /**
+         * 状态、计量等
+         */
+        TELEMETRY,
+        /**
+         * 心跳
+         */
+        HEARTBEAT;
+
+        /**
+         * 按OCPP action划分优先级
+         */
+        public static MessagePriority of(String action) {
+            if (action == null) {
+                return TELEMETRY;
+            }
+            return switch (action) {
+                case "Heartbeat" -> HEARTBEAT;
+                case "BootNotification", "Authorize", "StartTransaction", "StopTransaction" -> TRANSACTION;
+                default -> TELEMETRY;
+            };
+        }
+    }
+
+    /**
+     * 准入结果
+     */
+    public enum Decision {
+        ALLOWED,
+        CHARGER_LIMITED,
+        TENANT_LIMITED,
+        SHED;
+
+        public boolean isAllowed() {
+            return this == ALLOWED;
+        }
+    }
+
+    private final ProtocolMetrics protocolMetrics;
+    private final boolean enabled;
+    private final long heartbeatShedThreshold;
+    private final long telemetryShedThreshold;
+    private final TokenBucketLimiter<String> chargerLimiter;
+    private final TokenBucketLimiter<Long> tenantLimiter;
+
+    public ProtocolRateLimiter(ProtocolMetrics protocolMetrics, ProtocolProperties protocolProperties) {
+        ProtocolProperties.RateLimitConfig config = protocolProperties.getRateLimit();
+        this.protocolMetrics = protocolMetrics;
+        this.enabled = config.isEnabled();
+        this.heartbeatShedThreshold = config.getHeartbeatShedThreshold();
+        this.telemetryShedThreshold = config.getTelemetryShedThreshold();
+        int maxKeys = Math.max(16, config.getMaxTrackedKeys());
+        this.chargerLimiter = new TokenBucketLimiter<>(
+                config.getChargerPermitsPerSecond(), config.getChargerBurst(), maxKeys);
+        this.tenantLimiter = new TokenBucketLimiter<>(
+                config.getTenantPermitsPerSecond(), config.getTenantBurst(), maxKeys);
+    }
+
+    /**
+     * 判断一条入站消息是否放行
+     *
+     * @param chargerCode 充电桩编码
+     * @param tenantId    充电桩所属租户，未识别的充电桩为空，只按充电桩限流
+     */
+    public Decision admit(String chargerCode, Long tenantId, MessagePriority priority) {
+        if (!enabled || priority == MessagePriority.TRANSACTION) {
+            return Decision.ALLOWED;
+        }
+        if (isOverloaded(priority)) {
+            protocolMetrics.recordShed();
+            return Decision.SHED;
+        }
+        if (chargerCode != null && !chargerLimiter.tryAcquire(chargerCode)) {
+            protocolMetrics.recordChargerLimited();
+            return Decision.CHARGER_LIMITED;
+        }
+        if (tenantId != null && !tenantLimiter.tryAcquire(tenantId)) {
+            protocolMetrics.recordTenantLimited();
+            return Decision.TENANT_LIMITED;
+        }
+        return Decision.ALLOWED;
+    }
+
+    private boolean isOverloaded(MessagePriority priority) {
+        long threshold = priority == MessagePriority.HEARTBEAT ? heartbeatShedThreshold : telemetryShedThreshold;
+        if (threshold <= 0) {
+            return false;
+        }
+        long pending = protocolMetrics.getMailboxDepth() + protocolMetrics.getEventQueueDepth();
+        return pending >= threshold;
+    }
+}
@@ -0,0 +1,145 @@
+package com.evcs.protocol.service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 请求防重放缓存（按时间分桶）
+ * 已见过的请求标识存入并发Map保证原子判重，同时按到达时间归入固定宽度的时间桶；
+ * 时间推进时整桶过期删除，不需要逐条扫描。总条数有上限，超过时提前淘汰最旧的桶
+ */
+public class RequestNonceCache {
+
+    private static final int BUCKETS = 16;
+
+    private final long retentionMillis;
+    private final long bucketMillis;
+    private final int maxEntries;
+
+    /**
+     * 请求标识 → 所在时间桶序号
+     */
+    private final Map<String, Long> seen = new ConcurrentHashMap<>();
+    private final Bucket[] buckets = new Bucket[BUCKETS + 1];
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * 已完成过期处理的最旧桶序号
+     */
+    private final AtomicLong expiredThrough = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * @param retentionMillis 保留时长，应覆盖时间戳校验允许的整个窗口
+     * @param maxEntries      最大条数
+     */
+    public RequestNonceCache(long retentionMillis, int maxEntries) {
+        if (retentionMillis <= 0 || maxEntries <= 0) {
+            throw new IllegalArgumentException("retentionMillis and maxEntries must be positive");
+        }
+        this.retentionMillis = retentionMillis;
+        this.bucketMillis = Math.max(1, (retentionMillis + BUCKETS - 1) / BUCKETS);
+        this.maxEntries = maxEntries;
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    /**
+     * 登记请求标识
+     *
+     * @return 首次出现返回true，保留期内重复出现返回false
+     */
+    public boolean register(String key) {
+        return register(key, System.currentTimeMillis());
+    }
+
+    boolean register(String key, long nowMillis) {
+        long bucketIndex = Math.floorDiv(nowMillis, bucketMillis);
+        expire(bucketIndex);
+
+        Long previous = seen.putIfAbsent(key, bucketIndex);
+        if (previous != null) {
+            if (bucketIndex - previous <= BUCKETS) {
+                return false;
+            }
+            // 所在桶已超出保留期但尚未清理，视为新请求
+            if (!seen.replace(key, previous, bucketIndex)) {
+                return false;
+            }
+            bucketOf(bucketIndex).add(key, bucketIndex);
+            return true;
+        }
+        bucketOf(bucketIndex).add(key, bucketIndex);
+        if (size.incrementAndGet() > maxEntries) {
+            evictOldest(bucketIndex);
+        }
+        return true;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public long getRetentionMillis() {
+        return retentionMillis;
+    }
+
+    /**
+     * 清理已超出保留期的桶
+     */
+    private void expire(long currentBucket) {
+        long oldestLive = currentBucket - BUCKETS;
+        long done = expiredThrough.get();
+        if (done >= oldestLive - 1 || !expiredThrough.compareAndSet(done, oldestLive - 1)) {
+            return;
+        }
+        long from = done == Long.MIN_VALUE ? oldestLive - BUCKETS - 1 : done + 1;
+        for (long index = Math.max(from, oldestLive - BUCKETS - 1); index < oldestLive; index++) {
+            bucketOf(index).drain(index);
+        }
+    }
+
+    /**
+     * 超出上限时从最旧的桶开始淘汰，直到回到上限以内
+     */
+    private void evictOldest(long currentBucket) {
+        for (long index = currentBucket - BUCKETS; index < currentBucket && size.get() > maxEntries; index++) {
+            bucketOf(index).drain(index);
+        }
+    }
+
+    private Bucket bucketOf(long bucketIndex) {
+        return buckets[(int) Math.floorMod(bucketIndex, (long) buckets.length)];
+    }
+
+    /**
+     * 时间桶：记录落入该时间段的请求标识，槽位复用时按桶序号区分
+     */
+    private final class Bucket {
+
+        private final ConcurrentLinkedQueue<Entry> keys = new ConcurrentLinkedQueue<>();
+
+        private void add(String key, long bucketIndex) {
+            keys.offer(new Entry(key, bucketIndex));
+        }
+
+        private void drain(long bucketIndex) {
+            for (Iterator<Entry> it = keys.iterator(); it.hasNext(); ) {
+                Entry entry = it.next();
+                if (entry.bucketIndex <= bucketIndex) {
+                    it.remove();
+                    if (seen.remove(entry.key, entry.bucketIndex)) {
+                        size.decrementAndGet();
+                    }
+                }
+            }
+        }
+    }
+
+    private record Entry(String key, long bucketIndex) {
+    }
+}
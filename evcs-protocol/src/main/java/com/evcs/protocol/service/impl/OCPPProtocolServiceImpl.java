@@ -1,38 +1,68 @@
 package com.evcs.protocol.service.impl;
 
+import com.evcs.protocol.api.IOCPPProtocolService;
 import com.evcs.protocol.api.ProtocolEventListener;
+import com.evcs.protocol.cluster.ChargerSessionDirectory;
+import com.evcs.protocol.cluster.NodeCommand;
+import com.evcs.protocol.cluster.NodeCommandForwarder;
 import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.dto.ChargerIdentity;
 import com.evcs.protocol.dto.ProtocolRequest;
 import com.evcs.protocol.dto.ProtocolResponse;
+import com.evcs.protocol.dto.ocpp.OCPPCallResultMessage;
 import com.evcs.protocol.enums.ProtocolType;
 import com.evcs.protocol.mq.ProtocolEventPublisher;
+import com.evcs.protocol.service.ChargerDirectory;
+import com.evcs.protocol.transaction.OCPPTransactionRegistry;
+import com.evcs.protocol.websocket.OCPPPendingCallRegistry;
 import com.evcs.protocol.websocket.OCPPSessionManager;
 import com.evcs.protocol.websocket.OCPPWebSocketSession;
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.core.JsonGenerator;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * OCPP协议服务完整实现
+ * 多节点部署时充电桩可能连接在其他节点上，远程启停和下发指令按会话目录转发到充电桩所在节点执行
  */
 @Slf4j
 @Service
-public class OCPPProtocolServiceImpl extends BaseProtocolService {
+public class OCPPProtocolServiceImpl extends BaseProtocolService implements IOCPPProtocolService {
+
+    private static final String STATUS_ACCEPTED = "Accepted";
 
     private final ProtocolEventPublisher eventPublisher;
     private final OCPPSessionManager sessionManager;
+    private final OCPPPendingCallRegistry pendingCallRegistry;
+    private final ChargerDirectory chargerDirectory;
+    private final OCPPTransactionRegistry transactionRegistry;
+    private final ChargerSessionDirectory sessionDirectory;
+    private final ObjectProvider<NodeCommandForwarder> commandForwarder;
 
     public OCPPProtocolServiceImpl(ProtocolProperties protocolProperties,
                                   ProtocolEventPublisher eventPublisher,
-                                  OCPPSessionManager sessionManager) {
+                                  OCPPSessionManager sessionManager,
+                                  OCPPPendingCallRegistry pendingCallRegistry,
+                                  ChargerDirectory chargerDirectory,
+                                  OCPPTransactionRegistry transactionRegistry,
+                                  ChargerSessionDirectory sessionDirectory,
+                                  ObjectProvider<NodeCommandForwarder> commandForwarder) {
         super(protocolProperties);
         this.eventPublisher = eventPublisher;
         this.sessionManager = sessionManager;
+        this.pendingCallRegistry = pendingCallRegistry;
+        this.chargerDirectory = chargerDirectory;
+        this.transactionRegistry = transactionRegistry;
+        this.sessionDirectory = sessionDirectory;
+        this.commandForwarder = commandForwarder;
     }
 
     @Override
@@ -248,33 +278,29 @@ public class OCPPProtocolServiceImpl extends BaseProtocolService {
         }
 
         try {
-            OCPPWebSocketSession session = sessionManager.getSession(deviceCode);
-            if (session != null && session.isActive()) {
-                // 发送RemoteStartTransaction请求
-                boolean sent = sendRemoteStartTransaction(session, sessionId, request.getUserId());
-
-                if (sent) {
-                    // 发布充电开始事件
-                    eventPublisher.publishChargingStart(
-                        request.getChargerId(),
-                        request.getTenantId(),
-                        "OCPP",
-                        sessionId,
-                        request.getUserId(),
-                        null,
-                        0.0,
-                        true,
-                        "Charging start command sent via OCPP"
-                    );
-
-                    log.info("OCPP start charging command sent to charger {}: sessionId={}", deviceCode, sessionId);
-                    return true;
-                } else {
-                    log.warn("Failed to send OCPP start charging command to charger: {}", deviceCode);
-                    return false;
-                }
+            // 发送RemoteStartTransaction请求（充电桩在其他节点时转发），充电桩应答通过监听器异步回调
+            CompletableFuture<Boolean> ack = startChargingAsync(deviceCode, sessionId, request.getUserId());
+            boolean sent = !ack.isCompletedExceptionally();
+            ack.whenComplete((accepted, error) -> notifyStartAck(request.getChargerId(), sessionId, accepted, error));
+
+            if (sent) {
+                // 发布充电开始事件
+                eventPublisher.publishChargingStart(
+                    request.getChargerId(),
+                    request.getTenantId(),
+                    "OCPP",
+                    sessionId,
+                    request.getUserId(),
+                    null,
+                    0.0,
+                    true,
+                    "Charging start command sent via OCPP"
+                );
+
+                log.info("OCPP start charging command sent to charger {}: sessionId={}", deviceCode, sessionId);
+                return true;
             } else {
-                log.warn("OCPP session not found for start charging: {}", deviceCode);
+                log.warn("Failed to send OCPP start charging command to charger: {}", deviceCode);
                 return false;
             }
         } catch (Exception e) {
@@ -294,34 +320,30 @@ public class OCPPProtocolServiceImpl extends BaseProtocolService {
         }
 
         try {
-            OCPPWebSocketSession session = sessionManager.getSession(deviceCode);
-            if (session != null && session.isActive()) {
-                // 发送RemoteStopTransaction请求
-                boolean sent = sendRemoteStopTransaction(session, sessionId);
-
-                if (sent) {
-                    // 发布充电停止事件
-                    eventPublisher.publishChargingStop(
-                        request.getChargerId(),
-                        request.getTenantId(),
-                        "OCPP",
-                        sessionId,
-                        null,
-                        0.0,
-                        0L,
-                        "Remote stop command via OCPP",
-                        true,
-                        "Charging stop command sent via OCPP"
-                    );
-
-                    log.info("OCPP stop charging command sent to charger {}: sessionId={}", deviceCode, sessionId);
-                    return true;
-                } else {
-                    log.warn("Failed to send OCPP stop charging command to charger: {}", deviceCode);
-                    return false;
-                }
+            // 发送RemoteStopTransaction请求（充电桩在其他节点时转发），充电桩应答通过监听器异步回调
+            CompletableFuture<Boolean> ack = stopChargingAsync(deviceCode, sessionId);
+            boolean sent = !ack.isCompletedExceptionally();
+            ack.whenComplete((accepted, error) -> notifyStopAck(request.getChargerId(), accepted, error));
+
+            if (sent) {
+                // 发布充电停止事件
+                eventPublisher.publishChargingStop(
+                    request.getChargerId(),
+                    request.getTenantId(),
+                    "OCPP",
+                    sessionId,
+                    null,
+                    0.0,
+                    0L,
+                    "Remote stop command via OCPP",
+                    true,
+                    "Charging stop command sent via OCPP"
+                );
+
+                log.info("OCPP stop charging command sent to charger {}: sessionId={}", deviceCode, sessionId);
+                return true;
             } else {
-                log.warn("OCPP session not found for stop charging: {}", deviceCode);
+                log.warn("Failed to send OCPP stop charging command to charger: {}", deviceCode);
                 return false;
             }
         } catch (Exception e) {
@@ -330,6 +352,17 @@ public class OCPPProtocolServiceImpl extends BaseProtocolService {
         }
     }
 
+    /**
+     * OCPP的启停应答由充电桩回复RemoteStart/RemoteStopTransaction后异步通知，这里不再提前回调
+     */
+    @Override
+    protected void onChargingStarted(ProtocolRequest request) {
+    }
+
+    @Override
+    protected void onChargingStopped(ProtocolRequest request) {
+    }
+
     // ========== OCPP特定方法 ==========
 
     /**
@@ -337,11 +370,7 @@ public class OCPPProtocolServiceImpl extends BaseProtocolService {
      */
     public OCPPConnectionStatistics getConnectionStatistics() {
         var summary = sessionManager.getStatisticsSummary();
-        var sessions = sessionManager.getAllSessions();
-
-        int authenticatedCount = (int) sessions.stream()
-                .filter(session -> session.getStatus() == OCPPWebSocketSession.SessionStatus.AUTHENTICATED)
-                .count();
+        int authenticatedCount = (int) sessionManager.getSessionCount(OCPPWebSocketSession.SessionStatus.AUTHENTICATED);
 
         return new OCPPConnectionStatistics(
             summary.getTotalSessions(),
@@ -355,9 +384,13 @@ public class OCPPProtocolServiceImpl extends BaseProtocolService {
      * 获取在线充电站列表
      */
     public java.util.List<String> getOnlineChargers() {
-        return sessionManager.getActiveChargerCodes().stream()
-                .filter(sessionManager::isChargerOnline)
-                .collect(java.util.stream.Collectors.toList());
+        java.util.List<String> onlineChargers = new java.util.ArrayList<>(sessionManager.getActiveSessionCount());
+        sessionManager.forEachSession(session -> {
+            if (session.isActive()) {
+                onlineChargers.add(session.getChargerCode());
+            }
+        });
+        return onlineChargers;
     }
 
     /**
@@ -367,96 +400,311 @@ public class OCPPProtocolServiceImpl extends BaseProtocolService {
         return sessionManager.isChargerOnline(chargerCode);
     }
 
+    // ========== 服务端下发指令 ==========
+
     /**
-     * 发送BootNotification请求
+     * 下发RemoteStartTransaction
+     *
+     * @return 充电桩应答的状态（Accepted/Rejected）
      */
-    private void sendBootNotificationRequest(OCPPWebSocketSession session) {
-        try {
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("chargePointVendor", "EVCS Manager");
-            payload.put("chargePointModel", "OCPP-1.6");
-            payload.put("firmwareVersion", "1.0.0");
+    public CompletableFuture<String> remoteStartTransaction(String chargerCode, Integer connectorId, String idTag) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        if (connectorId != null) {
+            payload.put("connectorId", connectorId);
+        }
+        payload.put("idTag", idTag);
+        return sendCommand(chargerCode, "RemoteStartTransaction", payload);
+    }
 
-            String message = buildOCPPMessage("Call", UUID.randomUUID().toString(), "BootNotification", payload);
-            session.getWebSocketSession().sendMessage(new org.springframework.web.socket.TextMessage(message));
+    /**
+     * 下发RemoteStopTransaction
+     */
+    public CompletableFuture<String> remoteStopTransaction(String chargerCode, int transactionId) {
+        return sendCommand(chargerCode, "RemoteStopTransaction", Map.of("transactionId", transactionId));
+    }
 
-        } catch (Exception e) {
-            log.error("Error sending BootNotification request to charger: {}", session.getChargerCode(), e);
-        }
+    /**
+     * 下发Reset
+     *
+     * @param type Hard/Soft
+     */
+    public CompletableFuture<String> reset(String chargerCode, String type) {
+        return sendCommand(chargerCode, "Reset", Map.of("type", type));
     }
 
     /**
-     * 发送RemoteStartTransaction请求
+     * 下发ChangeConfiguration
+     *
+     * @return Accepted/Rejected/RebootRequired/NotSupported
      */
-    private boolean sendRemoteStartTransaction(OCPPWebSocketSession session, String sessionId, Long userId) {
-        try {
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("connectorId", 1);
-            payload.put("idTag", userId != null ? "USER_" + userId : "DEFAULT_TAG");
+    public CompletableFuture<String> changeConfiguration(String chargerCode, String key, String value) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("key", key);
+        payload.put("value", value);
+        return sendCommand(chargerCode, "ChangeConfiguration", payload);
+    }
 
-            String message = buildOCPPMessage("Call", UUID.randomUUID().toString(), "RemoteStartTransaction", payload);
-            session.getWebSocketSession().sendMessage(new org.springframework.web.socket.TextMessage(message));
+    // ========== IOCPPProtocolService ==========
 
-            return true;
-        } catch (Exception e) {
-            log.error("Error sending RemoteStartTransaction to charger: {}", session.getChargerCode(), e);
+    @Override
+    public boolean connect(String chargerCode) {
+        return connect(chargerCode, ProtocolType.OCPP);
+    }
+
+    @Override
+    public void disconnect(String chargerCode) {
+        disconnect(chargerCode, ProtocolType.OCPP);
+    }
+
+    @Override
+    public boolean sendHeartbeat(Long chargerId) {
+        log.debug("OCPP heartbeat is initiated by the charger, ignoring request for chargerId={}", chargerId);
+        return false;
+    }
+
+    @Override
+    public boolean updateStatus(Long chargerId, Integer status) {
+        log.debug("OCPP status is reported by the charger, ignoring request for chargerId={}", chargerId);
+        return false;
+    }
+
+    @Override
+    public boolean startCharging(Long chargerId, String sessionId, Long userId) {
+        ChargerIdentity identity = chargerDirectory.findById(chargerId);
+        if (identity == null) {
+            log.warn("Charger not found for OCPP start charging: chargerId={}", chargerId);
+            return false;
+        }
+        CompletableFuture<Boolean> ack = startChargingAsync(identity.getChargerCode(), sessionId, userId);
+        ack.whenComplete((accepted, error) -> notifyStartAck(chargerId, sessionId, accepted, error));
+        return !ack.isCompletedExceptionally();
+    }
+
+    @Override
+    public boolean stopCharging(Long chargerId) {
+        ChargerIdentity identity = chargerDirectory.findById(chargerId);
+        if (identity == null) {
+            log.warn("Charger not found for OCPP stop charging: chargerId={}", chargerId);
             return false;
         }
+        CompletableFuture<Boolean> ack = stopChargingAsync(identity.getChargerCode(), null);
+        ack.whenComplete((accepted, error) -> notifyStopAck(chargerId, accepted, error));
+        return !ack.isCompletedExceptionally();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> startChargingAsync(String chargerCode, String sessionId, Long userId) {
+        OCPPWebSocketSession session = sessionManager.getSession(chargerCode);
+        if (session != null && session.isActive()) {
+            log.info("Sending RemoteStartTransaction to charger {}: sessionId={}", chargerCode, sessionId);
+            return sendRemoteStartTransaction(session, sessionId, userId);
+        }
+        CompletableFuture<NodeCommand.Reply> forwarded = forward(NodeCommand.startCharging(chargerCode, sessionId, userId));
+        if (forwarded != null) {
+            return replyStatus(forwarded).thenApply(STATUS_ACCEPTED::equals);
+        }
+        return notConnected(chargerCode);
+    }
+
+    /**
+     * 停止充电桩上进行中的交易
+     *
+     * @param sessionId 充电会话ID，为空或找不到对应交易时停止充电桩上最近的进行中交易
+     */
+    private CompletableFuture<Boolean> stopChargingAsync(String chargerCode, String sessionId) {
+        OCPPWebSocketSession session = sessionManager.getSession(chargerCode);
+        if (session != null && session.isActive()) {
+            return sendRemoteStopTransaction(session, findActiveTransactionId(chargerCode, sessionId));
+        }
+        CompletableFuture<NodeCommand.Reply> forwarded = forward(NodeCommand.stopCharging(chargerCode, sessionId));
+        if (forwarded != null) {
+            return replyStatus(forwarded).thenApply(STATUS_ACCEPTED::equals);
+        }
+        return notConnected(chargerCode);
+    }
+
+    /**
+     * 执行其他节点转发来的指令，只在本节点的会话上执行，不再继续转发
+     *
+     * @return 总是正常结束，失败原因放在应答中
+     */
+    public CompletableFuture<NodeCommand.Reply> executeForwarded(NodeCommand command) {
+        String chargerCode = command.chargerCode();
+        OCPPWebSocketSession session = sessionManager.getSession(chargerCode);
+        if (session == null || !session.isActive()) {
+            return CompletableFuture.completedFuture(NodeCommand.Reply.notConnected(
+                    "Charger " + chargerCode + " is not connected to node " + sessionDirectory.getNodeId()));
+        }
+        CompletableFuture<String> status = switch (command.type()) {
+            case NodeCommand.START_CHARGING -> sendRemoteStartTransaction(session, command.sessionId(), command.userId())
+                    .thenApply(OCPPProtocolServiceImpl::statusOf);
+            case NodeCommand.STOP_CHARGING -> sendRemoteStopTransaction(
+                    session, findActiveTransactionId(chargerCode, command.sessionId()))
+                    .thenApply(OCPPProtocolServiceImpl::statusOf);
+            case NodeCommand.CALL -> sendCall(session, command.action(), command.payload());
+            default -> CompletableFuture.failedFuture(
+                    new IllegalArgumentException("Unsupported node command " + command.type()));
+        };
+        return status.handle((result, error) -> error == null
+                ? NodeCommand.Reply.of(result)
+                : NodeCommand.Reply.failed(Objects.requireNonNullElse(ackMessage(null, error), "Command failed")));
+    }
+
+    /**
+     * 发送RemoteStartTransaction请求，充电桩随后上报的StartTransaction按idTag关联到该会话
+     */
+    private CompletableFuture<Boolean> sendRemoteStartTransaction(OCPPWebSocketSession session, String sessionId, Long userId) {
+        String idTag = userId != null ? "USER_" + userId : "DEFAULT_TAG";
+        String chargerCode = session.getChargerCode();
+        transactionRegistry.expectStart(chargerCode, idTag, sessionId);
+        CompletableFuture<Boolean> ack = pendingCallRegistry.sendCall(session, "RemoteStartTransaction", g -> {
+            g.writeNumberField("connectorId", 1);
+            g.writeStringField("idTag", idTag);
+        }).thenApply(OCPPProtocolServiceImpl::isAccepted);
+        ack.whenComplete((accepted, error) -> {
+            if (!Boolean.TRUE.equals(accepted)) {
+                transactionRegistry.cancelExpectedStart(chargerCode, idTag, sessionId);
+            }
+        });
+        return ack;
     }
 
     /**
      * 发送RemoteStopTransaction请求
+     *
+     * @param transactionId 要停止的交易，为空表示充电桩上没有进行中的交易
      */
-    private boolean sendRemoteStopTransaction(OCPPWebSocketSession session, String sessionId) {
-        try {
-            Map<String, Object> payload = new HashMap<>();
-            // 这里应该从sessionId中提取transactionId
-            payload.put("transactionId", 1); // 临时使用固定值
+    private CompletableFuture<Boolean> sendRemoteStopTransaction(OCPPWebSocketSession session, Integer transactionId) {
+        if (transactionId == null) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("No active transaction on charger " + session.getChargerCode()));
+        }
+        return pendingCallRegistry.sendCall(session, "RemoteStopTransaction", g -> g.writeNumberField("transactionId", transactionId))
+                .thenApply(OCPPProtocolServiceImpl::isAccepted);
+    }
 
-            String message = buildOCPPMessage("Call", UUID.randomUUID().toString(), "RemoteStopTransaction", payload);
-            session.getWebSocketSession().sendMessage(new org.springframework.web.socket.TextMessage(message));
+    /**
+     * 发送BootNotification请求
+     */
+    private void sendBootNotificationRequest(OCPPWebSocketSession session) {
+        pendingCallRegistry.sendCall(session, "BootNotification", g -> {
+            g.writeStringField("chargePointVendor", "EVCS Manager");
+            g.writeStringField("chargePointModel", "OCPP-1.6");
+            g.writeStringField("firmwareVersion", "1.0.0");
+        }).whenComplete((result, error) -> {
+            if (error != null) {
+                log.warn("BootNotification request to charger {} failed: {}", session.getChargerCode(), error.getMessage());
+            }
+        });
+    }
 
-            return true;
-        } catch (Exception e) {
-            log.error("Error sending RemoteStopTransaction to charger: {}", session.getChargerCode(), e);
-            return false;
+    /**
+     * 下发指令，充电桩连接在其他节点时转发
+     *
+     * @param payload 请求字段，取值为字符串、数值或布尔，可随转发序列化
+     */
+    private CompletableFuture<String> sendCommand(String chargerCode, String action, Map<String, Object> payload) {
+        OCPPWebSocketSession session = sessionManager.getSession(chargerCode);
+        if (session != null && session.isActive()) {
+            return sendCall(session, action, payload);
         }
+        CompletableFuture<NodeCommand.Reply> forwarded = forward(NodeCommand.call(chargerCode, action, payload));
+        if (forwarded != null) {
+            return replyStatus(forwarded);
+        }
+        return notConnected(chargerCode);
+    }
+
+    private CompletableFuture<String> sendCall(OCPPWebSocketSession session, String action, Map<String, Object> payload) {
+        return pendingCallRegistry.sendCall(session, action, g -> writeFields(g, payload))
+                .thenApply(result -> result.getPayloadField("status", String.class));
     }
 
     /**
-     * 构建OCPP消息
+     * 按会话目录转发到充电桩所在节点
+     *
+     * @return 目标节点的应答；未启用集群或充电桩不在任何节点上时返回null
      */
-    private String buildOCPPMessage(String messageType, String messageId, String action, Map<String, Object> payload) {
-        try {
-            int typeId;
-            switch (messageType) {
-                case "Call":
-                    typeId = 2;
-                    break;
-                case "CallResult":
-                    typeId = 3;
-                    break;
-                case "CallError":
-                    typeId = 4;
-                    break;
-                default:
-                    throw new IllegalArgumentException("Unknown message type: " + messageType);
+    private CompletableFuture<NodeCommand.Reply> forward(NodeCommand command) {
+        NodeCommandForwarder forwarder = commandForwarder.getIfAvailable();
+        if (forwarder == null) {
+            return null;
+        }
+        String nodeId = sessionDirectory.lookup(command.chargerCode());
+        if (nodeId == null) {
+            return null;
+        }
+        return forwarder.forward(nodeId, command);
+    }
+
+    private Integer findActiveTransactionId(String chargerCode, String sessionId) {
+        Integer transactionId = sessionId != null ? transactionRegistry.findActiveTransactionId(sessionId) : null;
+        if (transactionId == null) {
+            transactionId = transactionRegistry.findLatestActiveTransactionId(chargerCode);
+        }
+        return transactionId;
+    }
+
+    private static <T> CompletableFuture<T> notConnected(String chargerCode) {
+        return CompletableFuture.failedFuture(new IllegalStateException("Charger " + chargerCode + " is not connected"));
+    }
+
+    private static CompletableFuture<String> replyStatus(CompletableFuture<NodeCommand.Reply> forwarded) {
+        return forwarded.thenApply(reply -> {
+            if (reply.error() != null) {
+                throw new CompletionException(new IllegalStateException(reply.error()));
             }
+            return reply.status();
+        });
+    }
 
-            Object[] messageArray;
-            if ("Call".equals(messageType)) {
-                messageArray = new Object[]{typeId, messageId, action, payload};
-            } else {
-                messageArray = new Object[]{typeId, messageId, payload};
+    private static String statusOf(Boolean accepted) {
+        return Boolean.TRUE.equals(accepted) ? STATUS_ACCEPTED : "Rejected";
+    }
+
+    private static void writeFields(JsonGenerator g, Map<String, Object> payload) throws IOException {
+        if (payload == null) {
+            return;
+        }
+        for (Map.Entry<String, Object> field : payload.entrySet()) {
+            Object value = field.getValue();
+            if (value instanceof Integer || value instanceof Long) {
+                g.writeNumberField(field.getKey(), ((Number) value).longValue());
+            } else if (value instanceof Number number) {
+                g.writeNumberField(field.getKey(), number.doubleValue());
+            } else if (value instanceof Boolean bool) {
+                g.writeBooleanField(field.getKey(), bool);
+            } else if (value != null) {
+                g.writeStringField(field.getKey(), value.toString());
             }
+        }
+    }
+
+    private static boolean isAccepted(OCPPCallResultMessage result) {
+        return result != null && STATUS_ACCEPTED.equals(result.getPayloadField("status", String.class));
+    }
 
-            com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            return mapper.writeValueAsString(messageArray);
+    private void notifyStartAck(Long chargerId, String sessionId, Boolean accepted, Throwable error) {
+        ProtocolEventListener listener = eventListener;
+        if (listener != null) {
+            listener.onStartAck(chargerId, sessionId, Boolean.TRUE.equals(accepted), ackMessage(accepted, error));
+        }
+    }
 
-        } catch (Exception e) {
-            log.error("Error building OCPP message", e);
-            return null;
+    private void notifyStopAck(Long chargerId, Boolean accepted, Throwable error) {
+        ProtocolEventListener listener = eventListener;
+        if (listener != null) {
+            listener.onStopAck(chargerId, Boolean.TRUE.equals(accepted), ackMessage(accepted, error));
+        }
+    }
+
+    private static String ackMessage(Boolean accepted, Throwable error) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            return cause.getMessage();
         }
+        return Boolean.TRUE.equals(accepted) ? STATUS_ACCEPTED : "Rejected";
     }
 
     /**
@@ -0,0 +1,97 @@
+package com.evcs.protocol.telemetry;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * OCPP 1.6 计量项
+ * 入库前统一换算到基本单位（Wh、W、var、A、V、℃、%），缓冲中只保存枚举序号
+ */
+public enum Measurand {
+
+    ENERGY_ACTIVE_EXPORT_REGISTER("Energy.Active.Export.Register", "Wh"),
+    ENERGY_ACTIVE_IMPORT_REGISTER("Energy.Active.Import.Register", "Wh"),
+    ENERGY_REACTIVE_EXPORT_REGISTER("Energy.Reactive.Export.Register", "varh"),
+    ENERGY_REACTIVE_IMPORT_REGISTER("Energy.Reactive.Import.Register", "varh"),
+    ENERGY_ACTIVE_EXPORT_INTERVAL("Energy.Active.Export.Interval", "Wh"),
+    ENERGY_ACTIVE_IMPORT_INTERVAL("Energy.Active.Import.Interval", "Wh"),
+    ENERGY_REACTIVE_EXPORT_INTERVAL("Energy.Reactive.Export.Interval", "varh"),
+    ENERGY_REACTIVE_IMPORT_INTERVAL("Energy.Reactive.Import.Interval", "varh"),
+    POWER_ACTIVE_EXPORT("Power.Active.Export", "W"),
+    POWER_ACTIVE_IMPORT("Power.Active.Import", "W"),
+    POWER_OFFERED("Power.Offered", "W"),
+    POWER_REACTIVE_EXPORT("Power.Reactive.Export", "var"),
+    POWER_REACTIVE_IMPORT("Power.Reactive.Import", "var"),
+    POWER_FACTOR("Power.Factor", null),
+    CURRENT_IMPORT("Current.Import", "A"),
+    CURRENT_EXPORT("Current.Export", "A"),
+    CURRENT_OFFERED("Current.Offered", "A"),
+    VOLTAGE("Voltage", "V"),
+    FREQUENCY("Frequency", null),
+    TEMPERATURE("Temperature", "Celsius"),
+    SOC("SoC", "Percent"),
+    RPM("RPM", null);
+
+    /**
+     * 未携带measurand时的默认值
+     */
+    public static final Measurand DEFAULT = ENERGY_ACTIVE_IMPORT_REGISTER;
+
+    private static final Measurand[] VALUES = values();
+    private static final Map<String, Measurand> BY_NAME = new HashMap<>();
+
+    static {
+        for (Measurand measurand : VALUES) {
+            BY_NAME.put(measurand.ocppName, measurand);
+        }
+    }
+
+    private final String ocppName;
+    private final String unit;
+
+    Measurand(String ocppName, String unit) {
+        this.ocppName = ocppName;
+        this.unit = unit;
+    }
+
+    public String getOcppName() {
+        return ocppName;
+    }
+
+    /**
+     * 换算后的基本单位
+     */
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * 按OCPP名称解析，null视为默认计量项
+     *
+     * @return 不识别时返回null
+     */
+    public static Measurand of(String ocppName) {
+        return ocppName == null ? DEFAULT : BY_NAME.get(ocppName);
+    }
+
+    static Measurand ofOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * 换算到基本单位
+     *
+     * @param unit 报文中的unit，null表示已是默认单位
+     */
+    public static double normalize(double value, String unit) {
+        if (unit == null) {
+            return value;
+        }
+        return switch (unit) {
+            case "kWh", "kvarh", "kW", "kvar", "kVA" -> value * 1000;
+            case "K" -> value - 273.15;
+            case "Fahrenheit" -> (value - 32) * 5 / 9;
+            default -> value;
+        };
+    }
+}
@@ -0,0 +1,162 @@
+package com.evcs.protocol.telemetry;
+
+import com.evcs.protocol.dto.ChargerRealtimeSnapshot;
+import com.evcs.protocol.dto.ChargerTelemetry;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 单个充电桩的列式采样缓冲
+ * 每一列是一个基本类型数组，追加采样不产生对象；计量项和相位以编码保存。
+ * 同时记录各计量项在本周期内的最新值，刷写时合并成一次实时数据更新
+ */
+final class MeterSampleBuffer {
+
+    static final int NO_TRANSACTION = -1;
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    /**
+     * 相位编码表，下标0表示未携带相位
+     */
+    private static final String[] PHASES = {
+            null, "L1", "L2", "L3", "N", "L1-N", "L2-N", "L3-N", "L1-L2", "L2-L3", "L3-L1"
+    };
+
+    private final long chargerId;
+    private final Long tenantId;
+
+    private int size;
+    private int[] connectorIds = new int[INITIAL_CAPACITY];
+    private int[] transactionIds = new int[INITIAL_CAPACITY];
+    private long[] sampledAt = new long[INITIAL_CAPACITY];
+    private byte[] measurands = new byte[INITIAL_CAPACITY];
+    private byte[] phases = new byte[INITIAL_CAPACITY];
+    private double[] values = new double[INITIAL_CAPACITY];
+
+    private final long[] latestAt = new long[Measurand.values().length];
+    private final double[] latestValues = new double[Measurand.values().length];
+
+    /**
+     * 空闲回收后不再接受写入，写入方需重新获取缓冲
+     */
+    private boolean retired;
+
+    MeterSampleBuffer(long chargerId, Long tenantId) {
+        this.chargerId = chargerId;
+        this.tenantId = tenantId;
+        Arrays.fill(latestAt, Long.MIN_VALUE);
+    }
+
+    long chargerId() {
+        return chargerId;
+    }
+
+    /**
+     * 追加一条采样
+     *
+     * @return 缓冲已回收时返回false
+     */
+    synchronized boolean append(int connectorId, int transactionId, long sampledAtMillis,
+                                Measurand measurand, byte phase, double value) {
+        if (retired) {
+            return false;
+        }
+        if (size == values.length) {
+            grow();
+        }
+        connectorIds[size] = connectorId;
+        transactionIds[size] = transactionId;
+        sampledAt[size] = sampledAtMillis;
+        measurands[size] = (byte) measurand.ordinal();
+        phases[size] = phase;
+        values[size] = value;
+        size++;
+
+        // 三相分别上报时以L1作为实时值的代表
+        if (phase == 0 || phase == 1 || phase == 5) {
+            int index = measurand.ordinal();
+            if (sampledAtMillis >= latestAt[index]) {
+                latestAt[index] = sampledAtMillis;
+                latestValues[index] = value;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 取出全部采样并清空，空缓冲直接回收
+     *
+     * @param rows      采样行输出
+     * @param snapshots 实时数据最新值输出
+     * @return 取出的采样数
+     */
+    synchronized int drainTo(List<ChargerTelemetry> rows, List<ChargerRealtimeSnapshot> snapshots) {
+        if (size == 0) {
+            retired = true;
+            return 0;
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        for (int i = 0; i < size; i++) {
+            Measurand measurand = Measurand.ofOrdinal(measurands[i]);
+            rows.add(new ChargerTelemetry(
+                    tenantId,
+                    chargerId,
+                    connectorIds[i],
+                    transactionIds[i] == NO_TRANSACTION ? null : transactionIds[i],
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(sampledAt[i]), zone),
+                    measurand.getOcppName(),
+                    PHASES[phases[i]],
+                    values[i],
+                    measurand.getUnit()));
+        }
+
+        Double power = latest(Measurand.POWER_ACTIVE_IMPORT);
+        Double voltage = latest(Measurand.VOLTAGE);
+        Double current = latest(Measurand.CURRENT_IMPORT);
+        Double temperature = latest(Measurand.TEMPERATURE);
+        if (power != null || voltage != null || current != null || temperature != null) {
+            snapshots.add(new ChargerRealtimeSnapshot(
+                    chargerId, power == null ? null : power / 1000, voltage, current, temperature));
+        }
+
+        int drained = size;
+        size = 0;
+        Arrays.fill(latestAt, Long.MIN_VALUE);
+        return drained;
+    }
+
+    /**
+     * 相位编码，不识别的相位按未携带处理
+     */
+    static byte phaseCode(String phase) {
+        if (phase == null) {
+            return 0;
+        }
+        for (int i = 1; i < PHASES.length; i++) {
+            if (PHASES[i].equals(phase)) {
+                return (byte) i;
+            }
+        }
+        return 0;
+    }
+
+    private Double latest(Measurand measurand) {
+        int index = measurand.ordinal();
+        return latestAt[index] == Long.MIN_VALUE ? null : latestValues[index];
+    }
+
+    private void grow() {
+        int capacity = values.length << 1;
+        connectorIds = Arrays.copyOf(connectorIds, capacity);
+        transactionIds = Arrays.copyOf(transactionIds, capacity);
+        sampledAt = Arrays.copyOf(sampledAt, capacity);
+        measurands = Arrays.copyOf(measurands, capacity);
+        phases = Arrays.copyOf(phases, capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+}
@@ -0,0 +1,242 @@
+package com.evcs.protocol.telemetry;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.dto.ChargerRealtimeSnapshot;
+import com.evcs.protocol.dto.ChargerTelemetry;
+import com.evcs.protocol.dto.ocpp.OCPPActionPayload;
+import com.evcs.protocol.mapper.ChargerTelemetryMapper;
+import com.evcs.protocol.metrics.ProtocolMetrics;
+import com.evcs.protocol.websocket.OCPPWebSocketSession;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MeterValues 采样入库
+ * 采样先按充电桩写入列式缓冲，按时间间隔或缓冲量批量刷写到 charger_telemetry，
+ * 同一周期内对 charger 实时数据的多次更新合并为每桩一次（取最新值）。
+ * 数据库不可用时缓冲达到上限后丢弃新采样，不阻塞消息处理
+ */
+@Slf4j
+@Component
+public class MeterValuesIngestor {
+
+    /**
+     * 单条INSERT的最大行数
+     */
+    static final int INSERT_CHUNK_SIZE = 1000;
+
+    private final ChargerTelemetryMapper telemetryMapper;
+    private final ProtocolMetrics protocolMetrics;
+    private final int batchSize;
+    private final int bufferLimit;
+    private final long flushIntervalMillis;
+
+    private final Map<Long, MeterSampleBuffer> buffers = new ConcurrentHashMap<>();
+    private final AtomicInteger bufferedSamples = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final ScheduledExecutorService flushExecutor =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("ocpp-telemetry-flush").daemon().factory());
+
+    public MeterValuesIngestor(ChargerTelemetryMapper telemetryMapper,
+                               ProtocolMetrics protocolMetrics,
+                               ProtocolProperties protocolProperties) {
+        this.telemetryMapper = telemetryMapper;
+        this.protocolMetrics = protocolMetrics;
+        ProtocolProperties.OCPPConfig config = protocolProperties.getOcpp();
+        this.batchSize = Math.max(1, config.getTelemetryBatchSize());
+        this.bufferLimit = Math.max(batchSize, config.getTelemetryBufferLimit());
+        this.flushIntervalMillis = Math.max(100, config.getTelemetryFlushInterval());
+    }
+
+    /**
+     * 启动定时刷写
+     */
+    @PostConstruct
+    public void start() {
+        flushExecutor.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 缓冲一组MeterValue，未识别的充电桩、不识别的计量项和非数值采样被丢弃
+     *
+     * @param connectorId   连接器ID，为空时记为0（整桩）
+     * @param transactionId 交易ID，可为空
+     */
+    public void ingest(OCPPWebSocketSession session, Integer connectorId, Integer transactionId,
+                       List<OCPPActionPayload.MeterValue> meterValues) {
+        Long chargerId = session.getChargerId();
+        if (chargerId == null) {
+            log.debug("Charger {} is not registered, skipping meter values", session.getChargerCode());
+            return;
+        }
+        if (meterValues == null || meterValues.isEmpty()) {
+            return;
+        }
+
+        int connector = connectorId == null ? 0 : connectorId;
+        int transaction = transactionId == null ? MeterSampleBuffer.NO_TRANSACTION : transactionId;
+        MeterSampleBuffer buffer = buffer(chargerId, session.getTenantId());
+        int accepted = 0;
+        int rejected = 0;
+        int dropped = 0;
+
+        for (OCPPActionPayload.MeterValue meterValue : meterValues) {
+            if (meterValue.sampledValue() == null) {
+                continue;
+            }
+            long sampledAt = parseTimestamp(meterValue.timestamp());
+            for (OCPPActionPayload.SampledValue sampledValue : meterValue.sampledValue()) {
+                Measurand measurand = Measurand.of(sampledValue.measurand());
+                double value;
+                try {
+                    if (measurand == null || sampledValue.value() == null) {
+                        rejected++;
+                        continue;
+                    }
+                    value = Measurand.normalize(Double.parseDouble(sampledValue.value()), sampledValue.unit());
+                } catch (NumberFormatException e) {
+                    rejected++;
+                    continue;
+                }
+
+                if (bufferedSamples.incrementAndGet() > bufferLimit) {
+                    bufferedSamples.decrementAndGet();
+                    dropped++;
+                    continue;
+                }
+                byte phase = MeterSampleBuffer.phaseCode(sampledValue.phase());
+                while (!buffer.append(connector, transaction, sampledAt, measurand, phase, value)) {
+                    // 缓冲在刷写时被回收，重新获取
+                    buffers.remove(chargerId, buffer);
+                    buffer = buffer(chargerId, session.getTenantId());
+                }
+                accepted++;
+            }
+        }
+
+        protocolMetrics.recordTelemetrySamples(accepted, rejected, dropped);
+        if (dropped > 0) {
+            log.warn("Telemetry buffer full, dropped {} samples from charger {}", dropped, session.getChargerCode());
+        }
+        if (bufferedSamples.get() >= batchSize) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * 立即刷写全部缓冲
+     *
+     * @return 写入的采样数
+     */
+    public synchronized int flush() {
+        flushRequested.set(false);
+        List<ChargerTelemetry> rows = new ArrayList<>(Math.max(16, bufferedSamples.get()));
+        List<ChargerRealtimeSnapshot> snapshots = new ArrayList<>();
+        for (MeterSampleBuffer buffer : buffers.values()) {
+            if (buffer.drainTo(rows, snapshots) == 0) {
+                // 一个周期内没有新采样的充电桩释放缓冲
+                buffers.remove(buffer.chargerId(), buffer);
+            }
+        }
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        bufferedSamples.addAndGet(-rows.size());
+
+        long start = System.nanoTime();
+        int written = 0;
+        for (int from = 0; from < rows.size(); from += INSERT_CHUNK_SIZE) {
+            List<ChargerTelemetry> chunk = rows.subList(from, Math.min(rows.size(), from + INSERT_CHUNK_SIZE));
+            try {
+                telemetryMapper.insertBatch(chunk);
+                written += chunk.size();
+            } catch (Exception e) {
+                log.error("Failed to write {} telemetry samples", chunk.size(), e);
+            }
+        }
+        if (!snapshots.isEmpty()) {
+            try {
+                telemetryMapper.updateRealtimeBatch(snapshots);
+            } catch (Exception e) {
+                log.error("Failed to update realtime data for {} chargers", snapshots.size(), e);
+            }
+        }
+
+        protocolMetrics.recordTelemetryFlush(written, rows.size() - written, System.nanoTime() - start);
+        log.debug("Flushed {} telemetry samples from {} chargers", written, snapshots.size());
+        return written;
+    }
+
+    /**
+     * 当前缓冲的采样数
+     */
+    public int getBufferedSamples() {
+        return bufferedSamples.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        try {
+            if (!flushExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                flushExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            flushExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+    }
+
+    private MeterSampleBuffer buffer(Long chargerId, Long tenantId) {
+        return buffers.computeIfAbsent(chargerId, id -> new MeterSampleBuffer(id, tenantId));
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            try {
+                flushExecutor.execute(this::flushQuietly);
+            } catch (RuntimeException e) {
+                flushRequested.set(false);
+                log.debug("Telemetry flush rejected: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Telemetry flush failed", e);
+        }
+    }
+
+    /**
+     * 解析采样时间，缺失或格式错误时使用接收时间
+     */
+    private static long parseTimestamp(String timestamp) {
+        if (timestamp != null) {
+            try {
+                return OffsetDateTime.parse(timestamp).toInstant().toEpochMilli();
+            } catch (DateTimeParseException e) {
+                log.debug("Invalid meter value timestamp: {}", timestamp);
+            }
+        }
+        return System.currentTimeMillis();
+    }
+}
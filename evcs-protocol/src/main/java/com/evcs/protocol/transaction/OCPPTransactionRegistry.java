@@ -0,0 +1,246 @@
+package com.evcs.protocol.transaction;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.dto.OCPPTransaction;
+import com.evcs.protocol.mapper.OCPPTransactionMapper;
+import com.evcs.protocol.websocket.OCPPWebSocketSession;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * OCPP交易登记
+ * StartTransaction时分配交易ID，并把 transactionId 与平台充电会话关联：
+ * 平台下发RemoteStartTransaction前登记期望的 充电桩+idTag → 会话，充电桩随后上报的StartTransaction据此匹配。
+ * 本节点进行中的交易保存在内存中供StopTransaction和RemoteStopTransaction查找，
+ * 交易记录异步批量写入 ocpp_transaction，内存未命中（节点重启、充电桩重连到其他节点）时再查库
+ */
+@Slf4j
+@Component
+public class OCPPTransactionRegistry {
+
+    /**
+     * 单条INSERT的最大行数
+     */
+    static final int UPSERT_CHUNK_SIZE = 500;
+
+    private final TransactionIdAllocator idAllocator;
+    private final OCPPTransactionMapper transactionMapper;
+    private final long flushIntervalMillis;
+
+    private final Map<Integer, OCPPTransaction> active = new ConcurrentHashMap<>();
+    private final Map<String, Integer> activeBySession = new ConcurrentHashMap<>();
+    private final Map<String, Integer> latestByCharger = new ConcurrentHashMap<>();
+
+    /**
+     * 充电桩编码|idTag → 等待充电桩发起交易的会话ID
+     */
+    private final Map<String, String> expectedStarts = new ConcurrentHashMap<>();
+
+    /**
+     * 待写库的交易（每个交易只保留最新状态）
+     */
+    private final Map<Integer, OCPPTransaction> dirty = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService flushExecutor =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("ocpp-transaction-flush").daemon().factory());
+
+    public OCPPTransactionRegistry(TransactionIdAllocator idAllocator,
+                                   OCPPTransactionMapper transactionMapper,
+                                   ProtocolProperties protocolProperties) {
+        this.idAllocator = idAllocator;
+        this.transactionMapper = transactionMapper;
+        this.flushIntervalMillis = Math.max(100, protocolProperties.getOcpp().getTransactionFlushInterval());
+    }
+
+    /**
+     * 启动交易记录的定时写库
+     */
+    @PostConstruct
+    public void scheduleFlush() {
+        flushExecutor.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 登记即将由RemoteStartTransaction发起的会话
+     */
+    public void expectStart(String chargerCode, String idTag, String sessionId) {
+        expectedStarts.put(startKey(chargerCode, idTag), sessionId);
+    }
+
+    /**
+     * 充电桩拒绝或未应答RemoteStartTransaction时撤销登记
+     */
+    public void cancelExpectedStart(String chargerCode, String idTag, String sessionId) {
+        expectedStarts.remove(startKey(chargerCode, idTag), sessionId);
+    }
+
+    /**
+     * 开始交易并分配交易ID
+     *
+     * @throws IllegalStateException 无法分配交易ID
+     */
+    public OCPPTransaction start(OCPPWebSocketSession session, Integer connectorId, String idTag, Integer meterStart) {
+        int transactionId = idAllocator.next();
+        String chargerCode = session.getChargerCode();
+        String sessionId = idTag != null ? expectedStarts.remove(startKey(chargerCode, idTag)) : null;
+        if (sessionId == null) {
+            // 充电桩本地刷卡等非平台发起的交易
+            sessionId = "TXN_" + transactionId;
+        }
+
+        OCPPTransaction transaction = new OCPPTransaction(transactionId, session.getTenantId(), session.getChargerId(),
+                chargerCode, connectorId == null ? 0 : connectorId, idTag, sessionId, meterStart, null,
+                LocalDateTime.now(), null);
+        active.put(transactionId, transaction);
+        activeBySession.put(sessionId, transactionId);
+        latestByCharger.put(chargerCode, transactionId);
+        markDirty(transaction);
+        return transaction;
+    }
+
+    /**
+     * 结束交易
+     *
+     * @return 结束后的交易，未知的交易ID返回null
+     */
+    public OCPPTransaction stop(Integer transactionId, Integer meterStop) {
+        if (transactionId == null) {
+            return null;
+        }
+        OCPPTransaction started = active.remove(transactionId);
+        if (started != null) {
+            activeBySession.remove(started.getSessionId(), transactionId);
+            latestByCharger.remove(started.getChargerCode(), transactionId);
+        } else {
+            started = loadQuietly(() -> transactionMapper.selectById(transactionId));
+            if (started == null || !started.isActive()) {
+                return started;
+            }
+        }
+
+        // 写库可能正在读取原对象，结束状态使用新对象
+        OCPPTransaction stopped = new OCPPTransaction(started.getTransactionId(), started.getTenantId(),
+                started.getChargerId(), started.getChargerCode(), started.getConnectorId(), started.getIdTag(),
+                started.getSessionId(), started.getMeterStart(), meterStop, started.getStartedAt(), LocalDateTime.now());
+        markDirty(stopped);
+        return stopped;
+    }
+
+    /**
+     * 查找会话对应的进行中交易ID
+     */
+    public Integer findActiveTransactionId(String sessionId) {
+        if (sessionId == null) {
+            return null;
+        }
+        Integer transactionId = activeBySession.get(sessionId);
+        if (transactionId != null) {
+            return transactionId;
+        }
+        OCPPTransaction transaction = loadQuietly(() -> transactionMapper.selectActiveBySession(sessionId));
+        return transaction != null ? transaction.getTransactionId() : null;
+    }
+
+    /**
+     * 查找充电桩最近开始的进行中交易ID
+     */
+    public Integer findLatestActiveTransactionId(String chargerCode) {
+        Integer transactionId = latestByCharger.get(chargerCode);
+        if (transactionId != null) {
+            return transactionId;
+        }
+        OCPPTransaction transaction = loadQuietly(() -> transactionMapper.selectLatestActiveByCharger(chargerCode));
+        return transaction != null ? transaction.getTransactionId() : null;
+    }
+
+    /**
+     * 本节点进行中的交易数
+     */
+    public int getActiveCount() {
+        return active.size();
+    }
+
+    /**
+     * 立即写入待写库的交易，失败的交易留待下次重试
+     *
+     * @return 写入的交易数
+     */
+    public synchronized int flush() {
+        if (dirty.isEmpty()) {
+            return 0;
+        }
+        List<OCPPTransaction> rows = new ArrayList<>(dirty.values());
+        int written = 0;
+        for (int from = 0; from < rows.size(); from += UPSERT_CHUNK_SIZE) {
+            List<OCPPTransaction> chunk = rows.subList(from, Math.min(rows.size(), from + UPSERT_CHUNK_SIZE));
+            try {
+                transactionMapper.upsertBatch(chunk);
+                for (OCPPTransaction row : chunk) {
+                    // 写库期间交易状态又变化的保留，下次写入
+                    dirty.remove(row.getTransactionId(), row);
+                }
+                written += chunk.size();
+            } catch (Exception e) {
+                log.error("Failed to write {} OCPP transactions", chunk.size(), e);
+            }
+        }
+        log.debug("Flushed {} OCPP transactions", written);
+        return written;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        try {
+            if (!flushExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                flushExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            flushExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+    }
+
+    /**
+     * 未识别的充电桩没有租户，交易只保存在内存中
+     */
+    private void markDirty(OCPPTransaction transaction) {
+        if (transaction.getChargerId() != null && transaction.getTenantId() != null) {
+            dirty.put(transaction.getTransactionId(), transaction);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("OCPP transaction flush failed", e);
+        }
+    }
+
+    private static OCPPTransaction loadQuietly(Supplier<OCPPTransaction> query) {
+        try {
+            return query.get();
+        } catch (Exception e) {
+            log.warn("Failed to load OCPP transaction: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String startKey(String chargerCode, String idTag) {
+        return chargerCode + '|' + idTag;
+    }
+}
@@ -0,0 +1,176 @@
+package com.evcs.protocol.transaction;
+
+import com.evcs.protocol.mapper.OCPPTransactionMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * OCPP交易ID分配器
+ * 从数据库序列按段租用ID（序列步长即段大小），段内用原子自增无锁发放，集群内各节点租到的段互不重叠。
+ * 当前段用掉3/4时后台预取下一段，正常情况下发放ID不访问数据库。
+ * ID范围为 1..Integer.MAX_VALUE，符合OCPP 1.6 transactionId 的整型要求，序列到顶后循环
+ */
+@Slf4j
+@Component
+public class TransactionIdAllocator {
+
+    /**
+     * 一段已租用的ID（首尾均包含）
+     */
+    public record IdBlock(int first, int last) {
+
+        public IdBlock {
+            if (first <= 0 || last < first) {
+                throw new IllegalArgumentException("Invalid transaction id block: " + first + ".." + last);
+            }
+        }
+    }
+
+    private final Supplier<IdBlock> leaser;
+    private final AtomicReference<Range> current = new AtomicReference<>(Range.EXHAUSTED);
+    private final AtomicReference<CompletableFuture<Range>> pending = new AtomicReference<>();
+
+    private final ExecutorService leaseExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ocpp-transaction-id-", 0).factory());
+
+    @Autowired
+    public TransactionIdAllocator(OCPPTransactionMapper transactionMapper) {
+        this(() -> leaseFromSequence(transactionMapper));
+    }
+
+    /**
+     * @param leaser 租用一段新ID，可能访问数据库，只在后台线程或当前段耗尽时调用
+     */
+    public TransactionIdAllocator(Supplier<IdBlock> leaser) {
+        this.leaser = leaser;
+    }
+
+    /**
+     * 分配一个交易ID
+     *
+     * @throws IllegalStateException 当前段已耗尽且无法租用新段
+     */
+    public int next() {
+        while (true) {
+            Range range = current.get();
+            int id = range.take();
+            if (id > 0) {
+                if (id == range.prefetchAt) {
+                    prefetch();
+                }
+                return id;
+            }
+            advance(range);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        leaseExecutor.shutdownNow();
+    }
+
+    /**
+     * 当前段耗尽，等待预取的段并切换；并发耗尽的线程共享同一次租用
+     */
+    private void advance(Range exhausted) {
+        if (current.get() != exhausted) {
+            return;
+        }
+        CompletableFuture<Range> refill = prefetch();
+        Range next;
+        try {
+            next = refill.join();
+        } catch (CompletionException e) {
+            pending.compareAndSet(refill, null);
+            throw new IllegalStateException("Failed to lease transaction id block", e.getCause());
+        }
+        if (current.compareAndSet(exhausted, next)) {
+            pending.compareAndSet(refill, null);
+        }
+    }
+
+    /**
+     * 发起下一段的租用，已有进行中或已完成未使用的租用时直接返回它
+     */
+    private CompletableFuture<Range> prefetch() {
+        while (true) {
+            CompletableFuture<Range> existing = pending.get();
+            if (existing != null) {
+                return existing;
+            }
+            CompletableFuture<Range> created = new CompletableFuture<>();
+            if (pending.compareAndSet(null, created)) {
+                try {
+                    leaseExecutor.execute(() -> lease(created));
+                } catch (RuntimeException e) {
+                    created.completeExceptionally(e);
+                }
+                return created;
+            }
+        }
+    }
+
+    private void lease(CompletableFuture<Range> target) {
+        try {
+            IdBlock block = leaser.get();
+            log.debug("Leased transaction id block {}..{}", block.first(), block.last());
+            target.complete(new Range(block));
+        } catch (Exception e) {
+            log.error("Failed to lease transaction id block", e);
+            target.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 从序列租用一段：nextval为段首，序列步长为段大小，超出整型上限的部分截掉
+     */
+    private static IdBlock leaseFromSequence(OCPPTransactionMapper transactionMapper) {
+        long first = transactionMapper.nextBlockStart();
+        long size = Math.max(1, transactionMapper.selectBlockSize());
+        long last = Math.min(Integer.MAX_VALUE, first + size - 1);
+        return new IdBlock((int) first, (int) last);
+    }
+
+    /**
+     * 正在发放的一段ID
+     */
+    private static final class Range {
+
+        private static final Range EXHAUSTED = new Range();
+
+        private final AtomicLong cursor;
+        private final long last;
+        private final int prefetchAt;
+
+        private Range(IdBlock block) {
+            this.cursor = new AtomicLong(block.first());
+            this.last = block.last();
+            long size = (long) block.last() - block.first() + 1;
+            this.prefetchAt = (int) (block.first() + size * 3 / 4);
+        }
+
+        private Range() {
+            this.cursor = new AtomicLong(1);
+            this.last = 0;
+            this.prefetchAt = 0;
+        }
+
+        /**
+         * @return 分配的ID，段已耗尽返回0
+         */
+        private int take() {
+            long id = cursor.getAndIncrement();
+            return id <= last ? (int) id : 0;
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.evcs.protocol.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 哈希时间轮
+ * 基于 System.nanoTime 的单调截止时间，新增/取消为 O(1)，每个tick只处理到期槽位中的任务
+ * 精度为一个tick，适用于大量连接的超时检测
+ */
+@Slf4j
+public final class HashedTimingWheel {
+
+    private static final int STATE_INIT = 0;
+    private static final int STATE_STARTED = 1;
+    private static final int STATE_STOPPED = 2;
+
+    /**
+     * 到期任务
+     */
+    @FunctionalInterface
+    public interface TimerTask {
+        void run(Timeout timeout);
+    }
+
+    private final long tickNanos;
+    private final Bucket[] buckets;
+    private final int mask;
+    private final Executor taskExecutor;
+    private final Thread worker;
+
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger state = new AtomicInteger(STATE_INIT);
+
+    /**
+     * 已调度未到期的任务数
+     */
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private volatile long startNanos;
+    private long tick;
+
+    /**
+     * @param name          工作线程名
+     * @param tickDuration  tick时长
+     * @param unit          时间单位
+     * @param ticksPerWheel 槽位数，向上取2的幂
+     * @param taskExecutor  到期任务执行器，为null时在工作线程内直接执行
+     */
+    public HashedTimingWheel(String name, long tickDuration, TimeUnit unit, int ticksPerWheel, Executor taskExecutor) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration must be greater than 0");
+        }
+        if (ticksPerWheel <= 0 || ticksPerWheel > (1 << 20)) {
+            throw new IllegalArgumentException("ticksPerWheel must be in (0, 2^20]");
+        }
+        int size = 1;
+        while (size < ticksPerWheel) {
+            size <<= 1;
+        }
+        this.buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.taskExecutor = taskExecutor;
+        this.worker = new Thread(this::runWorker, name);
+        this.worker.setDaemon(true);
+    }
+
+    /**
+     * 新增定时任务，首次调用时启动工作线程
+     */
+    public Timeout newTimeout(TimerTask task, long delay, TimeUnit unit) {
+        if (task == null) {
+            throw new IllegalArgumentException("task must not be null");
+        }
+        start();
+        long deadline = System.nanoTime() + Math.max(unit.toNanos(delay), 0) - startNanos;
+        Timeout timeout = new Timeout(this, task, deadline);
+        pendingCount.incrementAndGet();
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * 已调度未到期的任务数
+     */
+    public int pendingTimeouts() {
+        return pendingCount.get();
+    }
+
+    private void start() {
+        if (state.get() == STATE_INIT && state.compareAndSet(STATE_INIT, STATE_STARTED)) {
+            long now = System.nanoTime();
+            // 0 作为未启动标记
+            startNanos = now == 0 ? 1 : now;
+            worker.start();
+        } else if (state.get() == STATE_STOPPED) {
+            throw new IllegalStateException("Timing wheel already stopped");
+        }
+        while (startNanos == 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * 停止时间轮，未到期任务不再执行
+     */
+    public void stop() {
+        if (state.getAndSet(STATE_STOPPED) == STATE_STARTED) {
+            worker.interrupt();
+            try {
+                worker.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void runWorker() {
+        while (state.get() == STATE_STARTED) {
+            if (!waitForNextTick()) {
+                continue;
+            }
+            processCancelled();
+            transferPending();
+            buckets[(int) (tick & mask)].expire();
+            tick++;
+        }
+    }
+
+    /**
+     * 等待下一个tick，时间轮已停止时返回false
+     */
+    private boolean waitForNextTick() {
+        long nextTickDeadline = tickNanos * (tick + 1);
+        while (true) {
+            long sleepNanos = nextTickDeadline - (System.nanoTime() - startNanos);
+            if (sleepNanos <= 0) {
+                return true;
+            }
+            LockSupport.parkNanos(this, sleepNanos);
+            if (state.get() != STATE_STARTED) {
+                return false;
+            }
+        }
+    }
+
+    private void transferPending() {
+        // 单个tick最多转移10万个，避免新增风暴拖慢到期处理
+        for (int i = 0; i < 100_000; i++) {
+            Timeout timeout = pendingTimeouts.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            long calculated = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (calculated - tick) / buckets.length;
+            long ticks = Math.max(calculated, tick);
+            buckets[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void processCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void execute(Timeout timeout) {
+        pendingCount.decrementAndGet();
+        if (taskExecutor == null) {
+            timeout.runTask();
+            return;
+        }
+        try {
+            taskExecutor.execute(timeout::runTask);
+        } catch (RuntimeException e) {
+            log.warn("Timer task rejected by executor, running inline", e);
+            timeout.runTask();
+        }
+    }
+
+    /**
+     * 定时任务句柄
+     */
+    public static final class Timeout {
+
+        private static final int ST_INIT = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+
+        /**
+         * 每个连接至少持有一个句柄，状态直接存为int字段，不再单独分配AtomicInteger
+         */
+        private static final VarHandle STATE;
+
+        static {
+            try {
+                STATE = MethodHandles.lookup().findVarHandle(Timeout.class, "state", int.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final HashedTimingWheel wheel;
+        private final TimerTask task;
+        private final long deadline;
+        private volatile int state = ST_INIT;
+
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout prev;
+
+        private Timeout(HashedTimingWheel wheel, TimerTask task, long deadline) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 取消任务，返回是否由本次调用取消
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, ST_INIT, ST_CANCELLED)) {
+                return false;
+            }
+            wheel.pendingCount.decrementAndGet();
+            wheel.cancelledTimeouts.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state == ST_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == ST_EXPIRED;
+        }
+
+        private void expire() {
+            if (STATE.compareAndSet(this, ST_INIT, ST_EXPIRED)) {
+                wheel.execute(this);
+            }
+        }
+
+        private void runTask() {
+            try {
+                task.run(this);
+            } catch (Throwable t) {
+                log.warn("Timer task threw an exception", t);
+            }
+        }
+    }
+
+    /**
+     * 槽位：仅由工作线程访问的双向链表
+     */
+    private static final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    timeout.expire();
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
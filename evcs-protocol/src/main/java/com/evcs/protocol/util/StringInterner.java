@@ -0,0 +1,44 @@
+package com.evcs.protocol.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 有界字符串驻留表
+ * 充电桩上报的厂商、型号等取值在大量会话间高度重复，按内容共享同一实例；
+ * 表满后不再收录新值、直接返回原字符串，充电桩上报的任意取值不会无限撑大驻留表
+ */
+public final class StringInterner {
+
+    private final Map<String, String> table = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    public StringInterner(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * 返回与参数内容相同的共享实例
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String canonical = table.get(value);
+        if (canonical != null) {
+            return canonical;
+        }
+        if (table.size() >= maxEntries) {
+            return value;
+        }
+        canonical = table.putIfAbsent(value, value);
+        return canonical != null ? canonical : value;
+    }
+
+    public int size() {
+        return table.size();
+    }
+}
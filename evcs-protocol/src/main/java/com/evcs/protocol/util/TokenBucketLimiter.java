@@ -0,0 +1,102 @@
+package com.evcs.protocol.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按键限流的令牌桶
+ * 采用GCRA（理论到达时间）等价形式：每个键只保存一个long，表示桶再次装满的时刻，
+ * 取令牌为一次CAS，不需要锁和后台补充线程。桶已装满的键与从未出现过的键等价，
+ * 键数超过上限时可无损清除
+ */
+public final class TokenBucketLimiter<K> {
+
+    private final long intervalNanos;
+    private final long capacityNanos;
+    private final int maxKeys;
+
+    private final Map<K, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    /**
+     * @param permitsPerSecond 稳态速率
+     * @param burst            桶容量（允许的突发数）
+     * @param maxKeys          跟踪的键数上限，超过时清除已装满的桶
+     */
+    public TokenBucketLimiter(double permitsPerSecond, int burst, int maxKeys) {
+        if (permitsPerSecond <= 0 || burst <= 0 || maxKeys <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond, burst and maxKeys must be positive");
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / permitsPerSecond));
+        this.capacityNanos = intervalNanos * burst;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * 尝试取一个令牌
+     */
+    public boolean tryAcquire(K key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    public boolean tryAcquire(K key, long nowNanos) {
+        Bucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket.acquire(nowNanos);
+        }
+        bucket = buckets.computeIfAbsent(key, k -> new Bucket(nowNanos));
+        boolean acquired = bucket.acquire(nowNanos);
+        if (buckets.size() > maxKeys) {
+            sweep(nowNanos);
+        }
+        return acquired;
+    }
+
+    /**
+     * 跟踪的键数
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * 清除已装满的桶
+     */
+    private void sweep(long nowNanos) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            buckets.values().removeIf(bucket -> bucket.fullAt.get() - nowNanos <= 0);
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    /**
+     * 单个键的桶：值为桶再次装满的时刻（理论到达时间）
+     */
+    private final class Bucket {
+
+        private final AtomicLong fullAt;
+
+        private Bucket(long nowNanos) {
+            this.fullAt = new AtomicLong(nowNanos);
+        }
+
+        private boolean acquire(long nowNanos) {
+            while (true) {
+                long full = fullAt.get();
+                long next = (full - nowNanos < 0 ? nowNanos : full) + intervalNanos;
+                if (next - nowNanos > capacityNanos) {
+                    return false;
+                }
+                if (fullAt.compareAndSet(full, next)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.evcs.protocol.websocket;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.metrics.ProtocolMetrics;
+import com.evcs.protocol.util.TokenBucketLimiter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 充电桩接入准入控制
+ * 网络抖动或节点重启后大量充电桩同时重连并发送BootNotification，上线处理（身份解析、授权预热、本地列表同步）
+ * 集中打到数据库。这里按节点限制两级速率：
+ * - 握手：超出速率的连接直接以1013（Try Again Later）关闭，不进入会话登记
+ * - BootNotification：超出速率时应答Pending并给出随机重试间隔，充电桩按间隔重发，重连高峰被摊平到整个区间
+ * 接受时下发的心跳间隔叠加随机抖动，避免同一批上线的充电桩心跳始终对齐
+ */
+@Slf4j
+@Component
+public class ConnectionAdmissionController {
+
+    public static final String ACCEPTED = "Accepted";
+    public static final String PENDING = "Pending";
+
+    /**
+     * 节点级令牌桶只有一个键
+     */
+    private static final String NODE = "node";
+
+    /**
+     * BootNotification准入结果
+     *
+     * @param status   Accepted / Pending
+     * @param interval Accepted时为心跳间隔，Pending时为BootNotification重试间隔（秒）
+     */
+    public record BootAdmission(String status, int interval) {
+
+        public boolean isAccepted() {
+            return ACCEPTED.equals(status);
+        }
+    }
+
+    private final ProtocolMetrics protocolMetrics;
+    private final boolean enabled;
+    private final int heartbeatInterval;
+    private final double heartbeatJitter;
+    private final int pendingRetryMin;
+    private final int pendingRetryMax;
+    private final long pendingStaleNanos;
+    private final TokenBucketLimiter<String> handshakeLimiter;
+    private final TokenBucketLimiter<String> bootLimiter;
+    private final LongSupplier nanoClock;
+
+    /**
+     * 处于Pending的充电桩 → 最近一次应答Pending的时间
+     */
+    private final Map<String, Long> lastPendingAt = new ConcurrentHashMap<>();
+    private final AtomicLong lastPurgeNanos;
+
+    @Autowired
+    public ConnectionAdmissionController(ProtocolMetrics protocolMetrics, ProtocolProperties protocolProperties) {
+        this(protocolMetrics, protocolProperties, System::nanoTime);
+    }
+
+    ConnectionAdmissionController(ProtocolMetrics protocolMetrics,
+                                  ProtocolProperties protocolProperties,
+                                  LongSupplier nanoClock) {
+        ProtocolProperties.OCPPConfig config = protocolProperties.getOcpp();
+        this.protocolMetrics = protocolMetrics;
+        this.enabled = config.isAdmissionEnabled();
+        this.heartbeatInterval = Math.max(1, config.getHeartbeatInterval());
+        this.heartbeatJitter = Math.min(0.5, Math.max(0, config.getHeartbeatJitter()));
+        this.pendingRetryMin = Math.max(1, config.getPendingRetryMin());
+        this.pendingRetryMax = Math.max(pendingRetryMin, config.getPendingRetryMax());
+        // 超过三个重试间隔仍未重发的充电桩视为已离开
+        this.pendingStaleNanos = TimeUnit.SECONDS.toNanos(pendingRetryMax * 3L);
+        this.handshakeLimiter = new TokenBucketLimiter<>(
+                config.getHandshakeRatePerSecond(), config.getHandshakeBurst(), 1);
+        this.bootLimiter = new TokenBucketLimiter<>(
+                config.getBootRatePerSecond(), config.getBootBurst(), 1);
+        this.nanoClock = nanoClock;
+        this.lastPurgeNanos = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /**
+     * 握手准入
+     *
+     * @return 是否接受该连接
+     */
+    public boolean admitHandshake(String chargerCode) {
+        if (!enabled || handshakeLimiter.tryAcquire(NODE, nanoClock.getAsLong())) {
+            protocolMetrics.recordConnectionAdmitted();
+            return true;
+        }
+        protocolMetrics.recordConnectionRejected();
+        log.debug("Handshake rate exceeded, rejecting charger {}", chargerCode);
+        return false;
+    }
+
+    /**
+     * BootNotification准入
+     */
+    public BootAdmission admitBoot(String chargerCode) {
+        long now = nanoClock.getAsLong();
+        if (enabled && !bootLimiter.tryAcquire(NODE, now)) {
+            if (lastPendingAt.put(chargerCode, now) == null) {
+                protocolMetrics.recordAdmissionQueued(1);
+            }
+            purgeStale(now);
+            protocolMetrics.recordBootPending();
+            return new BootAdmission(PENDING, randomBetween(pendingRetryMin, pendingRetryMax));
+        }
+        release(chargerCode);
+        protocolMetrics.recordBootAccepted();
+        return new BootAdmission(ACCEPTED, jitteredHeartbeatInterval());
+    }
+
+    /**
+     * 连接断开或被接受时移出排队
+     */
+    public void release(String chargerCode) {
+        if (chargerCode != null && lastPendingAt.remove(chargerCode) != null) {
+            protocolMetrics.recordAdmissionQueued(-1);
+        }
+    }
+
+    /**
+     * 当前处于Pending的充电桩数
+     */
+    public int getQueuedCount() {
+        return lastPendingAt.size();
+    }
+
+    /**
+     * 心跳间隔在基准值上下按比例随机抖动
+     */
+    int jitteredHeartbeatInterval() {
+        int spread = (int) (heartbeatInterval * heartbeatJitter);
+        return Math.max(1, randomBetween(heartbeatInterval - spread, heartbeatInterval + spread));
+    }
+
+    /**
+     * 清理长时间未重发BootNotification的排队记录，每个最大重试间隔最多执行一次
+     */
+    private void purgeStale(long now) {
+        long last = lastPurgeNanos.get();
+        if (now - last < TimeUnit.SECONDS.toNanos(pendingRetryMax) || !lastPurgeNanos.compareAndSet(last, now)) {
+            return;
+        }
+        lastPendingAt.forEach((chargerCode, pendingAt) -> {
+            if (now - pendingAt > pendingStaleNanos && lastPendingAt.remove(chargerCode, pendingAt)) {
+                protocolMetrics.recordAdmissionQueued(-1);
+            }
+        });
+    }
+
+    private static int randomBetween(int min, int max) {
+        return min >= max ? min : ThreadLocalRandom.current().nextInt(min, max + 1);
+    }
+}
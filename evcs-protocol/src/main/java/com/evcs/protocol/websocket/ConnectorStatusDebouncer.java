@@ -0,0 +1,193 @@
+package com.evcs.protocol.websocket;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.metrics.ProtocolMetrics;
+import com.evcs.protocol.util.HashedTimingWheel;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * 充电枪状态去抖
+ * 会话上按充电枪记录最近上报的状态和最近一次转发的状态：与已转发状态相同的上报直接丢弃；
+ * 状态变化后等待一个去抖窗口，窗口内的反复跳变只在窗口结束时按最终状态转发一次，跳回原状态则不转发。
+ * 连接断开后按充电桩编码保留状态一段时间，充电桩重启重连后重复上报的相同状态同样被丢弃
+ */
+@Slf4j
+@Component
+public class ConnectorStatusDebouncer {
+
+    private static final int UNKNOWN = Integer.MIN_VALUE;
+
+    private final ProtocolMetrics protocolMetrics;
+    private final long windowMillis;
+    private final long retentionNanos;
+
+    /**
+     * 已断开充电桩的状态，重连后由新会话接续
+     */
+    private final Map<String, Retained> retained = new ConcurrentHashMap<>();
+    private final AtomicLong lastPurgeNanos = new AtomicLong(System.nanoTime());
+
+    /**
+     * 转发回调可能访问数据库，在虚拟线程上执行，不占用时间轮工作线程
+     */
+    private final ExecutorService forwardExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ocpp-status-", 0).factory());
+
+    /**
+     * 去抖时间轮：50ms一格，256格一圈
+     */
+    private final HashedTimingWheel timingWheel =
+            new HashedTimingWheel("ocpp-status-debounce", 50, TimeUnit.MILLISECONDS, 256, forwardExecutor);
+
+    public ConnectorStatusDebouncer(ProtocolMetrics protocolMetrics, ProtocolProperties protocolProperties) {
+        ProtocolProperties.OCPPConfig config = protocolProperties.getOcpp();
+        this.protocolMetrics = protocolMetrics;
+        this.windowMillis = Math.max(0, config.getStatusDebounceWindow());
+        this.retentionNanos = TimeUnit.SECONDS.toNanos(Math.max(0, config.getStatusRetention()));
+    }
+
+    /**
+     * 提交一次充电枪状态上报
+     *
+     * @param forward 状态需要转发时回调，参数为转发的状态码
+     */
+    public void submit(OCPPWebSocketSession session, int connectorId, int status, IntConsumer forward) {
+        Slot slot = session.connectorStatuses(this).slot(connectorId);
+        boolean forwardNow = false;
+        synchronized (slot) {
+            slot.latest = status;
+            if (slot.pending == null) {
+                if (status == slot.forwarded) {
+                    protocolMetrics.recordStatusSuppressed();
+                    return;
+                }
+                if (windowMillis == 0) {
+                    slot.forwarded = status;
+                    forwardNow = true;
+                } else {
+                    slot.pending = timingWheel.newTimeout(timeout -> settle(slot, forward), windowMillis, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+        if (forwardNow) {
+            protocolMetrics.recordStatusForwarded();
+            forward.accept(status);
+        }
+    }
+
+    /**
+     * 连接断开时保留会话上的充电枪状态
+     */
+    public void retain(OCPPWebSocketSession session) {
+        ConnectorStatuses statuses = session.peekConnectorStatuses();
+        if (statuses == null || retentionNanos == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        retained.put(session.getChargerCode(), new Retained(statuses, now));
+        purgeExpired(now);
+    }
+
+    /**
+     * 保留中的已断开充电桩数
+     */
+    public int getRetainedCount() {
+        return retained.size();
+    }
+
+    /**
+     * 为会话创建充电枪状态表，保留期内重连的充电桩接续断开前的状态
+     */
+    ConnectorStatuses newConnectorStatuses(OCPPWebSocketSession session) {
+        Retained previous = retained.remove(session.getChargerCode());
+        if (previous != null && System.nanoTime() - previous.retainedAt() < retentionNanos) {
+            return previous.statuses();
+        }
+        return new ConnectorStatuses();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timingWheel.stop();
+        forwardExecutor.shutdown();
+    }
+
+    /**
+     * 去抖窗口结束，按最终状态转发
+     */
+    private void settle(Slot slot, IntConsumer forward) {
+        int status;
+        synchronized (slot) {
+            slot.pending = null;
+            if (slot.latest == slot.forwarded) {
+                protocolMetrics.recordStatusSuppressed();
+                return;
+            }
+            status = slot.latest;
+            slot.forwarded = status;
+        }
+        protocolMetrics.recordStatusForwarded();
+        try {
+            forward.accept(status);
+        } catch (Exception e) {
+            log.error("Error forwarding connector status {}", status, e);
+        }
+    }
+
+    /**
+     * 清理超过保留期的记录，每个保留期最多执行一次
+     */
+    private void purgeExpired(long now) {
+        long last = lastPurgeNanos.get();
+        if (now - last < retentionNanos || !lastPurgeNanos.compareAndSet(last, now)) {
+            return;
+        }
+        retained.values().removeIf(entry -> now - entry.retainedAt() >= retentionNanos);
+    }
+
+    /**
+     * 单个充电桩各充电枪的状态
+     */
+    static final class ConnectorStatuses {
+
+        private final Map<Integer, Slot> slots = new ConcurrentHashMap<>(4);
+
+        Slot slot(int connectorId) {
+            return slots.computeIfAbsent(connectorId, id -> new Slot());
+        }
+    }
+
+    /**
+     * 单个充电枪的状态，读写在自身锁内进行
+     */
+    static final class Slot {
+
+        /**
+         * 最近一次转发的状态
+         */
+        private int forwarded = UNKNOWN;
+
+        /**
+         * 最近一次上报的状态
+         */
+        private int latest = UNKNOWN;
+
+        /**
+         * 去抖窗口内的待转发任务
+         */
+        private HashedTimingWheel.Timeout pending;
+    }
+
+    private record Retained(ConnectorStatuses statuses, long retainedAt) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.evcs.protocol.websocket;
+
+import com.evcs.protocol.dto.ocpp.OCPPErrorCode;
+import lombok.Getter;
+
+/**
+ * 充电桩对服务端下发Call回复了CallError
+ */
+@Getter
+public class OCPPCallException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String action;
+    private final OCPPErrorCode errorCode;
+    private final String errorDescription;
+
+    public OCPPCallException(String action, OCPPErrorCode errorCode, String errorDescription) {
+        super(action + " failed: " + (errorCode != null ? errorCode.getCode() : "unknown")
+                + (errorDescription != null && !errorDescription.isEmpty() ? " - " + errorDescription : ""));
+        this.action = action;
+        this.errorCode = errorCode;
+        this.errorDescription = errorDescription;
+    }
+}
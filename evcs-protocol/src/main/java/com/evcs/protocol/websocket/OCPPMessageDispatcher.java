@@ -0,0 +1,231 @@
+package com.evcs.protocol.websocket;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.dto.ocpp.OCPPCallMessage;
+import com.evcs.protocol.dto.ocpp.OCPPErrorCode;
+import com.evcs.protocol.dto.ocpp.OCPPFrameEncoder;
+import com.evcs.protocol.dto.ocpp.OCPPMessage;
+import com.evcs.protocol.enums.OCPPMessageType;
+import com.evcs.protocol.metrics.ProtocolMetrics;
+import com.evcs.protocol.mq.HeartbeatCoalescer;
+import com.evcs.protocol.service.ProtocolRateLimiter;
+import com.evcs.protocol.service.ProtocolRateLimiter.Decision;
+import com.evcs.protocol.service.ProtocolRateLimiter.MessagePriority;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * OCPP消息分发器
+ * 容器WebSocket线程只负责解码和入队，业务处理在每个充电桩独立的串行邮箱中执行：
+ * 同一充电桩的消息严格按到达顺序处理，不同充电桩之间互不阻塞，邮箱在虚拟线程上排空。
+ * 入队前按充电桩/租户限流，节点过载时心跳不入队，只记录在线并直接应答；
+ * CallResult/CallError只有对应服务端待应答请求时免于限流，其余应答同样消耗充电桩令牌
+ */
+@Slf4j
+@Component
+public class OCPPMessageDispatcher {
+
+    private static final String BUSY_DESCRIPTION = "Busy";
+    private static final String RATE_LIMITED_DESCRIPTION = "RateLimited";
+
+    /**
+     * CallResult/CallError可越过邮箱容量的余量：Call积压时服务端请求的应答仍能入队，
+     * 同时限制充电桩用应答帧无限灌满邮箱
+     */
+    static final int RESPONSE_HEADROOM = 8;
+
+    private final OCPPMessageProcessor messageProcessor;
+    private final OCPPFrameEncoder frameEncoder;
+    private final ProtocolMetrics protocolMetrics;
+    private final ProtocolRateLimiter rateLimiter;
+    private final HeartbeatCoalescer heartbeatCoalescer;
+    private final OCPPPendingCallRegistry pendingCallRegistry;
+    private final int mailboxCapacity;
+
+    private final ExecutorService mailboxExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ocpp-mailbox-", 0).factory());
+
+    public OCPPMessageDispatcher(OCPPMessageProcessor messageProcessor,
+                                 OCPPFrameEncoder frameEncoder,
+                                 ProtocolMetrics protocolMetrics,
+                                 ProtocolRateLimiter rateLimiter,
+                                 HeartbeatCoalescer heartbeatCoalescer,
+                                 OCPPPendingCallRegistry pendingCallRegistry,
+                                 ProtocolProperties protocolProperties) {
+        this.messageProcessor = messageProcessor;
+        this.frameEncoder = frameEncoder;
+        this.protocolMetrics = protocolMetrics;
+        this.rateLimiter = rateLimiter;
+        this.heartbeatCoalescer = heartbeatCoalescer;
+        this.pendingCallRegistry = pendingCallRegistry;
+        this.mailboxCapacity = Math.max(1, protocolProperties.getOcpp().getMailboxCapacity());
+    }
+
+    /**
+     * 投递消息到充电桩邮箱
+     * Call超出限流时回复RateLimited、队满时回复Busy；CallResult/CallError在邮箱容量之外另有少量余量，
+     * 未对应待应答请求且超出限流、或超出余量时直接丢弃（应答帧不能再用CallError回复）
+     *
+     * @return 是否入队成功
+     */
+    public boolean dispatch(OCPPWebSocketSession session, OCPPMessage message) {
+        boolean isCall = message.getMessageType() == OCPPMessageType.CALL;
+        if (isCall) {
+            if (message instanceof OCPPCallMessage call && !admit(session, call)) {
+                return false;
+            }
+        } else if (!admitResponse(session, message)) {
+            return false;
+        }
+        Mailbox mailbox = session.mailbox(this);
+        if (!mailbox.offer(message, isCall ? mailboxCapacity : mailboxCapacity + RESPONSE_HEADROOM)) {
+            protocolMetrics.recordMailboxRejected();
+            if (isCall) {
+                log.warn("Mailbox full for charger {}, rejecting message {}", session.getChargerCode(), message.getMessageId());
+                session.sendText(frameEncoder.encodeCallError(message.getMessageId(), OCPPErrorCode.GENERIC_ERROR, BUSY_DESCRIPTION));
+            } else {
+                log.warn("Mailbox full for charger {}, dropping response {}", session.getChargerCode(), message.getMessageId());
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 限流与过载判断，拒绝时已直接应答
+     */
+    private boolean admit(OCPPWebSocketSession session, OCPPCallMessage call) {
+        MessagePriority priority = MessagePriority.of(call.getAction());
+        Decision decision = rateLimiter.admit(session.getChargerCode(), session.getTenantId(), priority);
+        if (decision.isAllowed()) {
+            return true;
+        }
+        if (decision == Decision.SHED && priority == MessagePriority.HEARTBEAT) {
+            // 过载时心跳不进入业务处理，仍需应答并记录在线，否则充电桩会判定连接失效并重连，加重过载
+            session.updateLastActiveTime();
+            heartbeatCoalescer.record(session.getChargerId(), session.getTenantId(), "OCPP", LocalDateTime.now());
+            session.sendText(frameEncoder.encodeHeartbeatResult(call.getMessageId()));
+            return false;
+        }
+        log.debug("Rejecting {} from charger {}: {}", call.getAction(), session.getChargerCode(), decision);
+        String description = decision == Decision.SHED ? BUSY_DESCRIPTION : RATE_LIMITED_DESCRIPTION;
+        session.sendText(frameEncoder.encodeCallError(call.getMessageId(), OCPPErrorCode.GENERIC_ERROR, description));
+        return false;
+    }
+
+    /**
+     * 应答帧的限流：对应服务端待应答请求的放行，其余（迟到、重复或伪造的应答）与Call一样消耗令牌，超限时丢弃
+     */
+    private boolean admitResponse(OCPPWebSocketSession session, OCPPMessage message) {
+        if (pendingCallRegistry.isPending(session, message.getMessageId())) {
+            return true;
+        }
+        Decision decision = rateLimiter.admit(session.getChargerCode(), session.getTenantId(), MessagePriority.TELEMETRY);
+        if (decision.isAllowed()) {
+            return true;
+        }
+        log.debug("Dropping unsolicited response {} from charger {}: {}",
+                message.getMessageId(), session.getChargerCode(), decision);
+        return false;
+    }
+
+    Mailbox newMailbox(OCPPWebSocketSession session) {
+        return new Mailbox(session);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        mailboxExecutor.shutdown();
+        try {
+            if (!mailboxExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                mailboxExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            mailboxExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 充电桩串行邮箱
+     * 同一时刻最多一个虚拟线程在排空，保证处理顺序与入队顺序一致
+     */
+    final class Mailbox {
+
+        private final OCPPWebSocketSession session;
+        private final Queue<Envelope> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Mailbox(OCPPWebSocketSession session) {
+            this.session = session;
+        }
+
+        boolean offer(OCPPMessage message, int capacity) {
+            while (true) {
+                int current = size.get();
+                if (current >= capacity) {
+                    return false;
+                }
+                if (size.compareAndSet(current, current + 1)) {
+                    break;
+                }
+            }
+            queue.add(new Envelope(message, System.nanoTime()));
+            protocolMetrics.recordMailboxEnqueued();
+            scheduleDrain();
+            return true;
+        }
+
+        int size() {
+            return size.get();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    mailboxExecutor.execute(this::drain);
+                } catch (RuntimeException e) {
+                    draining.set(false);
+                    log.error("Failed to schedule mailbox drain for charger: {}", session.getChargerCode(), e);
+                }
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Envelope envelope;
+                while ((envelope = queue.poll()) != null) {
+                    size.decrementAndGet();
+                    long start = System.nanoTime();
+                    protocolMetrics.recordMailboxDequeued(start - envelope.enqueueNanos());
+                    try {
+                        messageProcessor.processMessage(session, envelope.message());
+                    } catch (Exception e) {
+                        log.error("Error processing message from charger: {}", session.getChargerCode(), e);
+                    } finally {
+                        protocolMetrics.recordMessageProcessing(System.nanoTime() - start);
+                    }
+                }
+                draining.set(false);
+                // 释放标记后再次检查，避免与并发入队之间丢失唤醒
+                if (queue.isEmpty() || !draining.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private record Envelope(OCPPMessage message, long enqueueNanos) {
+    }
+}
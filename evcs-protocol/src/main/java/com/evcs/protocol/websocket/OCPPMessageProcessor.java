@@ -1,18 +1,28 @@
 package com.evcs.protocol.websocket;
 
+import com.evcs.common.tenant.TenantContext;
 import com.evcs.protocol.api.ProtocolEventListener;
+import com.evcs.protocol.auth.IdTagAuthorizationCache;
+import com.evcs.protocol.auth.LocalAuthorizationListSync;
+import com.evcs.protocol.dto.OCPPTransaction;
+import com.evcs.protocol.dto.ocpp.OCPPActionPayload;
 import com.evcs.protocol.dto.ocpp.OCPPMessage;
+import com.evcs.protocol.dto.ocpp.OCPPCallErrorMessage;
 import com.evcs.protocol.dto.ocpp.OCPPCallMessage;
-import com.evcs.protocol.dto.ocpp.OCPPBootNotificationRequest;
-import com.evcs.protocol.dto.ocpp.OCPPMessageParser;
+import com.evcs.protocol.dto.ocpp.OCPPCallResultMessage;
+import com.evcs.protocol.dto.ocpp.OCPPFrameDecoder;
+import com.evcs.protocol.dto.ocpp.OCPPFrameEncoder;
 import com.evcs.protocol.dto.ocpp.OCPPErrorCode;
+import com.evcs.protocol.mq.HeartbeatCoalescer;
+import com.evcs.protocol.service.ChargerDirectory;
+import com.evcs.protocol.telemetry.MeterValuesIngestor;
+import com.evcs.protocol.transaction.OCPPTransactionRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.function.LongConsumer;
 
 /**
  * OCPP消息处理器
@@ -24,7 +34,17 @@ import java.util.Map;
 public class OCPPMessageProcessor {
 
     private final ProtocolEventListener eventListener;
-    private final OCPPMessageParser messageParser;
+    private final OCPPFrameDecoder frameDecoder;
+    private final OCPPFrameEncoder frameEncoder;
+    private final OCPPPendingCallRegistry pendingCallRegistry;
+    private final ChargerDirectory chargerDirectory;
+    private final MeterValuesIngestor meterValuesIngestor;
+    private final HeartbeatCoalescer heartbeatCoalescer;
+    private final OCPPTransactionRegistry transactionRegistry;
+    private final IdTagAuthorizationCache authorizationCache;
+    private final LocalAuthorizationListSync localListSync;
+    private final ConnectionAdmissionController admissionController;
+    private final ConnectorStatusDebouncer statusDebouncer;
 
     /**
      * 处理OCPP消息（从JSON字符串）
@@ -32,9 +52,9 @@ public class OCPPMessageProcessor {
     public void processMessage(OCPPWebSocketSession session, String jsonMessage) {
         log.debug("Processing OCPP message from charger {}: {}", session.getChargerCode(), jsonMessage);
 
-        OCPPMessage message = messageParser.parse(jsonMessage);
+        OCPPMessage message = frameDecoder.decode(jsonMessage);
         if (message == null) {
-            log.warn("Failed to parse OCPP message from charger {}: {}", session.getChargerCode(), jsonMessage);
+            // 解码器已记录原因
             return;
         }
 
@@ -82,31 +102,38 @@ public class OCPPMessageProcessor {
 
         OCPPCallMessage callMessage = (OCPPCallMessage) message;
         String action = callMessage.getAction();
-        Map<String, Object> payload = callMessage.getPayload();
+        OCPPActionPayload payload = callMessage.getTypedPayload();
 
         log.debug("Processing OCPP Call message from charger {}: action={}", session.getChargerCode(), action);
 
+        if (payload == null) {
+            log.warn("Unsupported action from charger {}: {}", session.getChargerCode(), action);
+            sendErrorResponse(session, callMessage, "NotSupported", "Action not supported: " + action);
+            return;
+        }
+
+        // 载荷类型由解码器按action绑定，此处按action分派即可安全转换
         switch (action) {
             case "BootNotification":
-                processBootNotification(session, callMessage, payload);
+                processBootNotification(session, callMessage, (OCPPActionPayload.BootNotification) payload);
                 break;
             case "Heartbeat":
-                processHeartbeat(session, callMessage, payload);
+                processHeartbeat(session, callMessage);
                 break;
             case "StatusNotification":
-                processStatusNotification(session, callMessage, payload);
+                processStatusNotification(session, callMessage, (OCPPActionPayload.StatusNotification) payload);
                 break;
             case "Authorize":
-                processAuthorize(session, callMessage, payload);
+                processAuthorize(session, callMessage, (OCPPActionPayload.Authorize) payload);
                 break;
             case "StartTransaction":
-                processStartTransaction(session, callMessage, payload);
+                processStartTransaction(session, callMessage, (OCPPActionPayload.StartTransaction) payload);
                 break;
             case "StopTransaction":
-                processStopTransaction(session, callMessage, payload);
+                processStopTransaction(session, callMessage, (OCPPActionPayload.StopTransaction) payload);
                 break;
             case "MeterValues":
-                processMeterValues(session, callMessage, payload);
+                processMeterValues(session, callMessage, (OCPPActionPayload.MeterValues) payload);
                 break;
             default:
                 log.warn("Unsupported action from charger {}: {}", session.getChargerCode(), action);
@@ -119,8 +146,9 @@ public class OCPPMessageProcessor {
      */
     private void processCallResultMessage(OCPPWebSocketSession session, OCPPMessage message) {
         log.debug("Processing OCPP CallResult message from charger: {}", session.getChargerCode());
-        // 这里处理响应消息
-        // 可以根据messageId匹配之前发送的请求
+        if (!(message instanceof OCPPCallResultMessage result) || !pendingCallRegistry.complete(session, result)) {
+            log.debug("Unsolicited CallResult {} from charger {}", message.getMessageId(), session.getChargerCode());
+        }
     }
 
     /**
@@ -128,41 +156,52 @@ public class OCPPMessageProcessor {
      */
     private void processCallErrorMessage(OCPPWebSocketSession session, OCPPMessage message) {
         log.warn("Received OCPP CallError from charger {}: {}", session.getChargerCode(), message);
-        // 这里处理错误消息
+        if (message instanceof OCPPCallErrorMessage error) {
+            pendingCallRegistry.fail(session, error);
+        }
     }
 
     /**
      * 处理BootNotification消息
      */
-    private void processBootNotification(OCPPWebSocketSession session, OCPPCallMessage message, Map<String, Object> payload) {
+    private void processBootNotification(OCPPWebSocketSession session, OCPPCallMessage message,
+                                         OCPPActionPayload.BootNotification payload) {
         try {
-            // 创建BootNotification请求对象
-            OCPPBootNotificationRequest bootRequest = new OCPPBootNotificationRequest();
-            bootRequest.setChargePointVendor((String) payload.get("chargePointVendor"));
-            bootRequest.setChargePointModel((String) payload.get("chargePointModel"));
-            bootRequest.setChargePointSerialNumber((String) payload.get("chargePointSerialNumber"));
-            bootRequest.setFirmwareVersion((String) payload.get("firmwareVersion"));
-
             log.info("Received BootNotification from charger {}: vendor={}, model={}",
-                    session.getChargerCode(), bootRequest.getChargePointVendor(), bootRequest.getChargePointModel());
+                    session.getChargerCode(), payload.chargePointVendor(), payload.chargePointModel());
 
             // 验证并设置充电站信息
-            if (bootRequest.isValid()) {
+            if (payload.isValid()) {
+                // 超出节点上线速率时应答Pending，充电桩按随机间隔重发，上线处理不触及数据库
+                ConnectionAdmissionController.BootAdmission admission =
+                        admissionController.admitBoot(session.getChargerCode());
+                if (!admission.isAccepted()) {
+                    log.debug("BootNotification from charger {} pending, retry in {}s",
+                            session.getChargerCode(), admission.interval());
+                    sendBootNotificationResponse(session, message, admission.status(), admission.interval());
+                    return;
+                }
+
+                if (session.getChargerIdentity() == null) {
+                    // 握手时尚未登记的充电桩，BootNotification时再解析一次
+                    session.setChargerIdentity(chargerDirectory.resolve(session.getChargerCode()));
+                }
                 session.setStatus(OCPPWebSocketSession.SessionStatus.AUTHENTICATED);
-                session.setAttribute("vendor", bootRequest.getChargePointVendor());
-                session.setAttribute("model", bootRequest.getChargePointModel());
-                session.setAttribute("serialNumber", bootRequest.getChargePointSerialNumber());
+                // 厂商、型号在大量充电桩间重复，共享同一字符串实例
+                session.setAttribute("vendor", OCPPWebSocketSession.intern(payload.chargePointVendor()));
+                session.setAttribute("model", OCPPWebSocketSession.intern(payload.chargePointModel()));
+                session.setAttribute("serialNumber", payload.chargePointSerialNumber());
 
                 // 发送接受响应
-                sendBootNotificationResponse(session, message, "Accepted", 300);
+                sendBootNotificationResponse(session, message, admission.status(), admission.interval());
+
+                // 预热租户的授权缓存，同步本地授权列表
+                authorizationCache.warmUpAsync(session.getTenantId());
+                localListSync.syncIfOutdated(session);
 
                 // 触发事件
-                if (eventListener != null) {
-                    eventListener.onHeartbeat(
-                            Long.valueOf(session.getChargerCode().replaceAll("[^0-9]", "")),
-                            LocalDateTime.now()
-                    );
-                }
+                recordHeartbeat(session);
+                notifyListener(session, chargerId -> eventListener.onHeartbeat(chargerId, LocalDateTime.now()));
 
             } else {
                 sendBootNotificationResponse(session, message, "Rejected", null);
@@ -178,54 +217,40 @@ public class OCPPMessageProcessor {
     /**
      * 处理Heartbeat消息
      */
-    private void processHeartbeat(OCPPWebSocketSession session, OCPPCallMessage message, Map<String, Object> payload) {
+    private void processHeartbeat(OCPPWebSocketSession session, OCPPCallMessage message) {
         log.debug("Received heartbeat from charger: {}", session.getChargerCode());
 
         // 更新心跳信息
         session.updateLastActiveTime();
 
         // 发送当前时间响应
-        Map<String, Object> responsePayload = new HashMap<>();
-        responsePayload.put("currentTime", LocalDateTime.now().toString());
-
-        sendResponse(session, message, responsePayload);
+        sendFrame(session, frameEncoder.encodeHeartbeatResult(message.getMessageId()));
 
         // 触发心跳事件
-        if (eventListener != null) {
-            try {
-                Long chargerId = Long.valueOf(session.getChargerCode().replaceAll("[^0-9]", ""));
-                eventListener.onHeartbeat(chargerId, LocalDateTime.now());
-            } catch (Exception e) {
-                log.debug("Error triggering heartbeat event", e);
-            }
-        }
+        recordHeartbeat(session);
+        notifyListener(session, chargerId -> eventListener.onHeartbeat(chargerId, LocalDateTime.now()));
     }
 
     /**
      * 处理StatusNotification消息
      */
-    private void processStatusNotification(OCPPWebSocketSession session, OCPPCallMessage message, Map<String, Object> payload) {
+    private void processStatusNotification(OCPPWebSocketSession session, OCPPCallMessage message,
+                                           OCPPActionPayload.StatusNotification payload) {
         try {
-            Integer connectorId = (Integer) payload.get("connectorId");
-            String status = (String) payload.get("status");
-            String errorCode = (String) payload.get("errorCode");
+            Integer connectorId = payload.connectorId();
+            String status = payload.status();
+            String errorCode = payload.errorCode();
 
             log.info("Received StatusNotification from charger {}: connectorId={}, status={}, errorCode={}",
                     session.getChargerCode(), connectorId, status, errorCode);
 
             // 发送接受响应
-            Map<String, Object> responsePayload = new HashMap<>();
-            sendResponse(session, message, responsePayload);
-
-            // 触发状态变更事件
-            if (eventListener != null && connectorId != null && status != null) {
-                try {
-                    Long chargerId = Long.valueOf(session.getChargerCode().replaceAll("[^0-9]", ""));
-                    Integer statusCode = parseStatus(status);
-                    eventListener.onStatusChange(chargerId, statusCode);
-                } catch (Exception e) {
-                    log.debug("Error triggering status change event", e);
-                }
+            sendFrame(session, frameEncoder.encodeEmptyResult(message.getMessageId()));
+
+            // 触发状态变更事件：只转发变化，去抖窗口内的跳变按最终状态转发
+            if (connectorId != null && status != null) {
+                statusDebouncer.submit(session, connectorId, parseStatus(status), statusCode ->
+                        notifyListener(session, chargerId -> eventListener.onStatusChange(chargerId, statusCode)));
             }
 
         } catch (Exception e) {
@@ -237,22 +262,17 @@ public class OCPPMessageProcessor {
     /**
      * 处理Authorize消息
      */
-    private void processAuthorize(OCPPWebSocketSession session, OCPPCallMessage message, Map<String, Object> payload) {
+    private void processAuthorize(OCPPWebSocketSession session, OCPPCallMessage message,
+                                  OCPPActionPayload.Authorize payload) {
         try {
-            String idTag = (String) payload.get("idTag");
+            String idTag = payload.idTag();
 
             log.info("Received Authorize from charger {}: idTag={}", session.getChargerCode(), idTag);
 
-            // 简单的授权逻辑（实际应该调用授权服务）
-            boolean authorized = idTag != null && !idTag.trim().isEmpty();
+            IdTagAuthorizationCache.IdTagInfo idTagInfo = authorizationCache.authorize(session.getTenantId(), idTag);
 
-            Map<String, Object> responsePayload = new HashMap<>();
-            responsePayload.put("idTagInfo", Map.of(
-                "status", authorized ? "Accepted" : "Rejected",
-                "expiryDate", LocalDateTime.now().plusDays(365).toString()
-            ));
-
-            sendResponse(session, message, responsePayload);
+            sendFrame(session, frameEncoder.encodeIdTagInfoResult(message.getMessageId(), null,
+                    idTagInfo.status(), expiryDate(idTagInfo)));
 
         } catch (Exception e) {
             log.error("Error processing Authorize from charger: {}", session.getChargerCode(), e);
@@ -263,37 +283,38 @@ public class OCPPMessageProcessor {
     /**
      * 处理StartTransaction消息
      */
-    private void processStartTransaction(OCPPWebSocketSession session, OCPPCallMessage message, Map<String, Object> payload) {
+    private void processStartTransaction(OCPPWebSocketSession session, OCPPCallMessage message,
+                                         OCPPActionPayload.StartTransaction payload) {
         try {
-            Integer connectorId = (Integer) payload.get("connectorId");
-            String idTag = (String) payload.get("idTag");
-            Integer meterStart = (Integer) payload.get("meterStart");
+            Integer connectorId = payload.connectorId();
+            String idTag = payload.idTag();
+            Integer meterStart = payload.meterStart();
             // timestamp is available in payload but not currently used
 
             log.info("Received StartTransaction from charger {}: connectorId={}, idTag={}, meterStart={}",
                     session.getChargerCode(), connectorId, idTag, meterStart);
 
-            // 生成事务ID
-            int transactionId = generateTransactionId();
-
-            Map<String, Object> responsePayload = new HashMap<>();
-            responsePayload.put("transactionId", transactionId);
-            responsePayload.put("idTagInfo", Map.of(
-                "status", "Accepted",
-                "expiryDate", LocalDateTime.now().plusDays(365).toString()
-            ));
+            // 分配交易ID并关联充电会话
+            OCPPTransaction transaction;
+            try {
+                transaction = transactionRegistry.start(session, connectorId, idTag, meterStart);
+            } catch (IllegalStateException e) {
+                log.error("Failed to allocate transaction id for charger: {}", session.getChargerCode(), e);
+                sendErrorResponse(session, message, "InternalError", "Transaction id unavailable");
+                return;
+            }
+            int transactionId = transaction.getTransactionId();
 
-            sendResponse(session, message, responsePayload);
+            // 授权未通过时仍需返回交易ID，由充电桩结束交易
+            IdTagAuthorizationCache.IdTagInfo idTagInfo = authorizationCache.authorize(session.getTenantId(), idTag);
+            sendFrame(session, frameEncoder.encodeIdTagInfoResult(message.getMessageId(), transactionId,
+                    idTagInfo.status(), expiryDate(idTagInfo)));
 
             // 触发充电开始事件
-            if (eventListener != null) {
-                try {
-                    Long chargerId = Long.valueOf(session.getChargerCode().replaceAll("[^0-9]", ""));
-                    eventListener.onStartAck(chargerId, "TXN_" + transactionId, true, "Transaction started");
-                } catch (Exception e) {
-                    log.debug("Error triggering start transaction event", e);
-                }
-            }
+            String sessionId = transaction.getSessionId();
+            boolean accepted = idTagInfo.isAccepted();
+            notifyListener(session, chargerId -> eventListener.onStartAck(chargerId, sessionId, accepted,
+                    accepted ? "Transaction started" : "IdTag " + idTagInfo.status()));
 
         } catch (Exception e) {
             log.error("Error processing StartTransaction from charger: {}", session.getChargerCode(), e);
@@ -304,32 +325,32 @@ public class OCPPMessageProcessor {
     /**
      * 处理StopTransaction消息
      */
-    private void processStopTransaction(OCPPWebSocketSession session, OCPPCallMessage message, Map<String, Object> payload) {
+    private void processStopTransaction(OCPPWebSocketSession session, OCPPCallMessage message,
+                                        OCPPActionPayload.StopTransaction payload) {
         try {
-            Integer transactionId = (Integer) payload.get("transactionId");
-            String idTag = (String) payload.get("idTag");
-            Integer meterStop = (Integer) payload.get("meterStop");
+            Integer transactionId = payload.transactionId();
+            String idTag = payload.idTag();
+            Integer meterStop = payload.meterStop();
             // timestamp is available in payload but not currently used
 
             log.info("Received StopTransaction from charger {}: transactionId={}, idTag={}, meterStop={}",
                     session.getChargerCode(), transactionId, idTag, meterStop);
 
-            Map<String, Object> responsePayload = new HashMap<>();
-            responsePayload.put("idTagInfo", Map.of(
-                "status", "Accepted"
-            ));
+            sendFrame(session, frameEncoder.encodeIdTagInfoResult(message.getMessageId(), null, "Accepted", null));
+
+            OCPPTransaction transaction = transactionRegistry.stop(transactionId, meterStop);
+            if (transaction == null) {
+                log.warn("Unknown transaction {} stopped by charger {}", transactionId, session.getChargerCode());
+            } else {
+                log.info("Transaction {} of session {} stopped by charger {}",
+                        transactionId, transaction.getSessionId(), session.getChargerCode());
+            }
 
-            sendResponse(session, message, responsePayload);
+            // 交易期间的计量数据随StopTransaction一并上报
+            meterValuesIngestor.ingest(session, null, transactionId, payload.transactionData());
 
             // 触发充电停止事件
-            if (eventListener != null) {
-                try {
-                    Long chargerId = Long.valueOf(session.getChargerCode().replaceAll("[^0-9]", ""));
-                    eventListener.onStopAck(chargerId, true, "Transaction stopped");
-                } catch (Exception e) {
-                    log.debug("Error triggering stop transaction event", e);
-                }
-            }
+            notifyListener(session, chargerId -> eventListener.onStopAck(chargerId, true, "Transaction stopped"));
 
         } catch (Exception e) {
             log.error("Error processing StopTransaction from charger: {}", session.getChargerCode(), e);
@@ -340,17 +361,19 @@ public class OCPPMessageProcessor {
     /**
      * 处理MeterValues消息
      */
-    private void processMeterValues(OCPPWebSocketSession session, OCPPCallMessage message, Map<String, Object> payload) {
+    private void processMeterValues(OCPPWebSocketSession session, OCPPCallMessage message,
+                                    OCPPActionPayload.MeterValues payload) {
         try {
-            Integer connectorId = (Integer) payload.get("connectorId");
-            Integer transactionId = (Integer) payload.get("transactionId");
+            Integer connectorId = payload.connectorId();
+            Integer transactionId = payload.transactionId();
 
-            log.debug("Received MeterValues from charger {}: connectorId={}, transactionId={}",
-                    session.getChargerCode(), connectorId, transactionId);
+            log.debug("Received MeterValues from charger {}: connectorId={}, transactionId={}, samples={}",
+                    session.getChargerCode(), connectorId, transactionId, payload.meterValue().size());
 
             // 发送接受响应
-            Map<String, Object> responsePayload = new HashMap<>();
-            sendResponse(session, message, responsePayload);
+            sendFrame(session, frameEncoder.encodeEmptyResult(message.getMessageId()));
+
+            meterValuesIngestor.ingest(session, connectorId, transactionId, payload.meterValue());
 
         } catch (Exception e) {
             log.error("Error processing MeterValues from charger: {}", session.getChargerCode(), e);
@@ -360,6 +383,35 @@ public class OCPPMessageProcessor {
 
     // ========== 辅助方法 ==========
 
+    /**
+     * 更新最后在线时间，未识别的充电桩不记录
+     */
+    private void recordHeartbeat(OCPPWebSocketSession session) {
+        heartbeatCoalescer.record(session.getChargerId(), session.getTenantId(), "OCPP", LocalDateTime.now());
+    }
+
+    /**
+     * 在充电桩所属租户上下文中回调事件监听器，未识别的充电桩不回调
+     */
+    private void notifyListener(OCPPWebSocketSession session, LongConsumer notification) {
+        if (eventListener == null) {
+            return;
+        }
+        Long chargerId = session.getChargerId();
+        if (chargerId == null) {
+            log.debug("Charger {} is not registered, skipping protocol event", session.getChargerCode());
+            return;
+        }
+        TenantContext.setCurrentTenantId(session.getTenantId());
+        try {
+            notification.accept(chargerId);
+        } catch (Exception e) {
+            log.debug("Error triggering protocol event for charger: {}", session.getChargerCode(), e);
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
     /**
      * 解析状态
      */
@@ -377,75 +429,37 @@ public class OCPPMessageProcessor {
         }
     }
 
-    /**
-     * 生成事务ID
-     */
-    private int generateTransactionId() {
-        return (int) (System.currentTimeMillis() % 1000000);
+    private static String expiryDate(IdTagAuthorizationCache.IdTagInfo idTagInfo) {
+        return idTagInfo.expiryDate() != null ? idTagInfo.expiryDate().toString() : null;
     }
 
     /**
-     * 发送响应
+     * 发送已编码的帧
      */
-    private void sendResponse(OCPPWebSocketSession session, OCPPMessage requestMessage, Map<String, Object> payload) {
-        try {
-            String responseMessage = messageParser.createCallResultMessage(requestMessage.getMessageId(), payload);
-            session.getWebSocketSession().sendMessage(
-                new org.springframework.web.socket.TextMessage(
-                    java.util.Objects.requireNonNull(responseMessage, "responseMessage must not be null")
-                )
-            );
-        } catch (Exception e) {
-            log.error("Error sending response to charger: {}", session.getChargerCode(), e);
-        }
+    private void sendFrame(OCPPWebSocketSession session, String frame) {
+        session.sendText(frame);
     }
 
     /**
      * 发送BootNotification响应
      */
     private void sendBootNotificationResponse(OCPPWebSocketSession session, OCPPMessage requestMessage, String status, Integer interval) {
-        try {
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("status", status);
-            payload.put("currentTime", LocalDateTime.now().toString());
-            if (interval != null) {
-                payload.put("interval", interval);
-                session.setHeartbeatInterval(interval);
-            }
-
-            String responseMessage = messageParser.createCallResultMessage(requestMessage.getMessageId(), payload);
-            session.getWebSocketSession().sendMessage(
-                new org.springframework.web.socket.TextMessage(
-                    java.util.Objects.requireNonNull(responseMessage, "responseMessage must not be null")
-                )
-            );
-
-        } catch (Exception e) {
-            log.error("Error sending BootNotification response to charger: {}", session.getChargerCode(), e);
+        if (interval != null) {
+            session.setHeartbeatInterval(interval);
         }
+        sendFrame(session, frameEncoder.encodeBootNotificationResult(requestMessage.getMessageId(), status, interval));
     }
 
     /**
      * 发送错误响应
      */
     private void sendErrorResponse(OCPPWebSocketSession session, OCPPMessage requestMessage, String errorCode, String errorDescription) {
+        OCPPErrorCode ocppErrorCode;
         try {
-            OCPPErrorCode ocppErrorCode;
-            try {
-                ocppErrorCode = OCPPErrorCode.fromCode(errorCode);
-            } catch (IllegalArgumentException e) {
-                ocppErrorCode = OCPPErrorCode.GENERIC_ERROR;
-            }
-
-            String errorMessage = messageParser.createCallErrorMessage(
-                requestMessage.getMessageId(), ocppErrorCode, errorDescription, null);
-            session.getWebSocketSession().sendMessage(
-                new org.springframework.web.socket.TextMessage(
-                    java.util.Objects.requireNonNull(errorMessage, "errorMessage must not be null")
-                )
-            );
-        } catch (Exception e) {
-            log.error("Error sending error response to charger: {}", session.getChargerCode(), e);
+            ocppErrorCode = OCPPErrorCode.fromCode(errorCode);
+        } catch (IllegalArgumentException e) {
+            ocppErrorCode = OCPPErrorCode.GENERIC_ERROR;
         }
+        sendFrame(session, frameEncoder.encodeCallError(requestMessage.getMessageId(), ocppErrorCode, errorDescription));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,257 @@
+package com.evcs.protocol.websocket;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.metrics.ProtocolMetrics;
+import com.evcs.protocol.util.HashedTimingWheel;
+import com.evcs.protocol.websocket.netty.NettyWebSocketSession;
+import jakarta.annotation.PreDestroy;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.Session;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * OCPP出站发送器
+ * 为每个会话维护一个非阻塞发送队列：调用方只负责入队，由虚拟线程串行写出，
+ * 写出线程一次排空队列中积压的所有帧并合并写出（Netty通道只flush一次，容器会话启用JSR-356批量发送）。
+ * 缓冲超过上限或单批发送超时的会话视为慢消费者并关闭；发送超时由时间轮看门狗检测，不依赖后续入队
+ */
+@Slf4j
+@Component
+public class OCPPOutboundSender {
+
+    private final ProtocolMetrics protocolMetrics;
+    private final long sendTimeLimitNanos;
+    private final int bufferSizeLimit;
+
+    private final ExecutorService writerExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ocpp-writer-", 0).factory());
+
+    /**
+     * 发送超时看门狗：100ms一格，512格一圈；到期任务只标记关闭，直接在时间轮线程执行
+     */
+    private final HashedTimingWheel sendWatchdog =
+            new HashedTimingWheel("ocpp-send-watchdog", 100, TimeUnit.MILLISECONDS, 512, null);
+
+    public OCPPOutboundSender(ProtocolMetrics protocolMetrics, ProtocolProperties protocolProperties) {
+        this.protocolMetrics = protocolMetrics;
+        this.sendTimeLimitNanos = TimeUnit.MILLISECONDS.toNanos(protocolProperties.getOcpp().getSendTimeLimit());
+        this.bufferSizeLimit = protocolProperties.getOcpp().getSendBufferSizeLimit();
+    }
+
+    /**
+     * 为会话挂载发送队列
+     */
+    public void attach(OCPPWebSocketSession session) {
+        session.attachSendQueue(new SendQueue(session));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendWatchdog.stop();
+        writerExecutor.shutdown();
+        try {
+            if (!writerExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                writerExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            writerExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 单个会话的发送队列
+     */
+    final class SendQueue {
+
+        private final OCPPWebSocketSession session;
+        private final Queue<String> frames = new ConcurrentLinkedQueue<>();
+
+        /**
+         * 已入队未写出的字符数（OCPP帧基本为ASCII，近似字节数）
+         */
+        private final AtomicInteger bufferedSize = new AtomicInteger();
+        private final AtomicBoolean flushing = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        /**
+         * 当前发送开始时间，0表示没有进行中的发送
+         */
+        private volatile long sendStartNanos;
+
+        SendQueue(OCPPWebSocketSession session) {
+            this.session = session;
+        }
+
+        /**
+         * 入队一帧，不阻塞调用线程
+         *
+         * @return 是否入队成功
+         */
+        boolean enqueue(String frame) {
+            if (closed.get()) {
+                return false;
+            }
+
+            long started = sendStartNanos;
+            if (started != 0 && System.nanoTime() - started > sendTimeLimitNanos) {
+                closeSlowConsumer("send time limit exceeded");
+                return false;
+            }
+
+            int buffered = bufferedSize.addAndGet(frame.length());
+            if (buffered > bufferSizeLimit) {
+                bufferedSize.addAndGet(-frame.length());
+                protocolMetrics.recordOutboundOverflow();
+                closeSlowConsumer("send buffer size limit exceeded: " + buffered);
+                return false;
+            }
+
+            frames.add(frame);
+            protocolMetrics.recordOutboundEnqueued(frame.length());
+            scheduleFlush();
+            return true;
+        }
+
+        int bufferedSize() {
+            return bufferedSize.get();
+        }
+
+        private void scheduleFlush() {
+            if (flushing.compareAndSet(false, true)) {
+                try {
+                    writerExecutor.execute(this::flush);
+                } catch (RuntimeException e) {
+                    flushing.set(false);
+                    log.error("Failed to schedule outbound flush for charger: {}", session.getChargerCode(), e);
+                }
+            }
+        }
+
+        /**
+         * 排空队列：同一轮内取出积压的全部帧，合并为一批写出
+         */
+        private void flush() {
+            WebSocketSession webSocketSession = session.getWebSocketSession();
+            List<String> batch = new ArrayList<>();
+            while (true) {
+                String frame;
+                while (!closed.get() && (frame = frames.poll()) != null) {
+                    batch.add(frame);
+                }
+                if (!batch.isEmpty()) {
+                    writeBatch(webSocketSession, batch);
+                    batch.clear();
+                }
+                flushing.set(false);
+                // 释放标记后再次检查，避免与并发入队之间丢失唤醒
+                if (closed.get() || frames.isEmpty() || !flushing.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+
+        private void writeBatch(WebSocketSession webSocketSession, List<String> batch) {
+            long started = System.nanoTime();
+            sendStartNanos = started;
+            HashedTimingWheel.Timeout watchdog = sendWatchdog.newTimeout(
+                    expired -> checkSendTime(started), sendTimeLimitNanos, TimeUnit.NANOSECONDS);
+            int size = 0;
+            try {
+                for (String frame : batch) {
+                    size += frame.length();
+                }
+                if (webSocketSession.isOpen()) {
+                    send(webSocketSession, batch);
+                    protocolMetrics.recordOutboundBatch(batch.size());
+                } else {
+                    log.debug("WebSocket session closed, dropping {} frames for charger: {}",
+                            batch.size(), session.getChargerCode());
+                }
+            } catch (Exception e) {
+                log.error("Error sending {} frames to charger: {}", batch.size(), session.getChargerCode(), e);
+            } finally {
+                watchdog.cancel();
+                sendStartNanos = 0;
+                bufferedSize.addAndGet(-size);
+                protocolMetrics.recordOutboundDequeued(size);
+            }
+        }
+
+        private void send(WebSocketSession webSocketSession, List<String> batch) throws IOException {
+            if (batch.size() > 1) {
+                if (webSocketSession instanceof NettyWebSocketSession nettySession) {
+                    nettySession.sendTextBatch(batch);
+                    return;
+                }
+                if (webSocketSession instanceof NativeWebSocketSession nativeSession
+                        && nativeSession.getNativeSession() instanceof Session containerSession) {
+                    RemoteEndpoint.Basic remote = containerSession.getBasicRemote();
+                    remote.setBatchingAllowed(true);
+                    try {
+                        for (String frame : batch) {
+                            remote.sendText(frame);
+                        }
+                        remote.flushBatch();
+                    } finally {
+                        remote.setBatchingAllowed(false);
+                    }
+                    return;
+                }
+            }
+            for (String frame : batch) {
+                webSocketSession.sendMessage(new TextMessage(frame));
+            }
+        }
+
+        /**
+         * 看门狗到期：同一批仍未写完则关闭连接，阻塞的写出随连接关闭而失败返回
+         */
+        private void checkSendTime(long started) {
+            if (sendStartNanos == started) {
+                closeSlowConsumer("send time limit exceeded");
+            }
+        }
+
+        /**
+         * 关闭慢消费者：丢弃积压帧并异步关闭连接，由 afterConnectionClosed 移除会话
+         */
+        private void closeSlowConsumer(String reason) {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            log.warn("Closing slow consumer charger {}: {}", session.getChargerCode(), reason);
+            protocolMetrics.recordSlowConsumerClosed();
+
+            String frame;
+            while ((frame = frames.poll()) != null) {
+                bufferedSize.addAndGet(-frame.length());
+                protocolMetrics.recordOutboundDequeued(frame.length());
+            }
+
+            writerExecutor.execute(() -> {
+                try {
+                    session.getWebSocketSession().close(CloseStatus.SESSION_NOT_RELIABLE);
+                } catch (Exception e) {
+                    log.debug("Error closing slow consumer charger: {}", session.getChargerCode(), e);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.evcs.protocol.websocket;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.dto.ocpp.OCPPCallErrorMessage;
+import com.evcs.protocol.dto.ocpp.OCPPCallResultMessage;
+import com.evcs.protocol.dto.ocpp.OCPPFrameEncoder;
+import com.evcs.protocol.metrics.ProtocolMetrics;
+import com.evcs.protocol.util.HashedTimingWheel;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 服务端下发Call的待应答登记表
+ * 按messageId关联充电桩返回的CallResult/CallError，未按时应答的请求由时间轮批量超时，
+ * 调用方拿到的是 CompletableFuture，不阻塞任何线程
+ */
+@Slf4j
+@Component
+public class OCPPPendingCallRegistry {
+
+    private static final String OUTCOME_RESULT = "result";
+    private static final String OUTCOME_ERROR = "error";
+    private static final String OUTCOME_TIMEOUT = "timeout";
+    private static final String OUTCOME_CANCELLED = "cancelled";
+
+    private final OCPPFrameEncoder frameEncoder;
+    private final ProtocolMetrics protocolMetrics;
+    private final long timeoutMillis;
+
+    private final Map<String, PendingCall> pendingCalls = new ConcurrentHashMap<>();
+
+    /**
+     * 回调在虚拟线程上完成，避免调用方的后续逻辑占用时间轮工作线程
+     */
+    private final ExecutorService completionExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ocpp-call-", 0).factory());
+
+    private final HashedTimingWheel timingWheel =
+            new HashedTimingWheel("ocpp-call-timer", 100, TimeUnit.MILLISECONDS, 512, completionExecutor);
+
+    public OCPPPendingCallRegistry(OCPPFrameEncoder frameEncoder,
+                                   ProtocolMetrics protocolMetrics,
+                                   ProtocolProperties protocolProperties) {
+        this.frameEncoder = frameEncoder;
+        this.protocolMetrics = protocolMetrics;
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(Math.max(1, protocolProperties.getOcpp().getMessageTimeout()));
+    }
+
+    /**
+     * 向充电桩下发Call
+     *
+     * @param payloadWriter 写入载荷字段，为null时发送空对象
+     * @return 充电桩应答；CallError 以 {@link OCPPCallException} 结束，超时以 {@link TimeoutException} 结束。
+     *         CallResult 在该充电桩的邮箱线程上完成，较重的后续处理请使用 *Async 回调
+     */
+    public CompletableFuture<OCPPCallResultMessage> sendCall(OCPPWebSocketSession session, String action,
+                                                             OCPPFrameEncoder.PayloadWriter payloadWriter) {
+        String messageId = UUID.randomUUID().toString();
+        String frame;
+        try {
+            frame = frameEncoder.encodeCall(messageId, action, payloadWriter);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        PendingCall call = register(session, messageId, action);
+        if (!session.sendText(frame)) {
+            if (pendingCalls.remove(messageId, call)) {
+                call.finish(OUTCOME_CANCELLED, null,
+                        new IllegalStateException("Charger " + session.getChargerCode() + " is not connected"));
+            }
+        }
+        return call.future;
+    }
+
+    /**
+     * 登记一个已分配messageId的待应答请求
+     */
+    PendingCall register(OCPPWebSocketSession session, String messageId, String action) {
+        PendingCall call = new PendingCall(session, messageId, action);
+        if (pendingCalls.putIfAbsent(messageId, call) != null) {
+            throw new IllegalStateException("Duplicate OCPP message id: " + messageId);
+        }
+        protocolMetrics.recordCallRegistered();
+        call.timeout = timingWheel.newTimeout(t -> expire(call), timeoutMillis, TimeUnit.MILLISECONDS);
+        return call;
+    }
+
+    /**
+     * 该会话是否有以此messageId下发、尚未应答的请求
+     */
+    public boolean isPending(OCPPWebSocketSession session, String messageId) {
+        if (messageId == null) {
+            return false;
+        }
+        PendingCall call = pendingCalls.get(messageId);
+        return call != null && call.session == session;
+    }
+
+    /**
+     * 用CallResult完成对应请求
+     *
+     * @return 是否匹配到待应答请求
+     */
+    public boolean complete(OCPPWebSocketSession session, OCPPCallResultMessage message) {
+        PendingCall call = take(session, message.getMessageId());
+        if (call == null) {
+            return false;
+        }
+        call.finish(OUTCOME_RESULT, message, null);
+        return true;
+    }
+
+    /**
+     * 用CallError完成对应请求
+     *
+     * @return 是否匹配到待应答请求
+     */
+    public boolean fail(OCPPWebSocketSession session, OCPPCallErrorMessage message) {
+        PendingCall call = take(session, message.getMessageId());
+        if (call == null) {
+            return false;
+        }
+        call.finish(OUTCOME_ERROR, null,
+                new OCPPCallException(call.action, message.getErrorCode(), message.getErrorDescription()));
+        return true;
+    }
+
+    /**
+     * 连接断开时结束该会话的全部待应答请求
+     */
+    public void cancelAll(OCPPWebSocketSession session) {
+        pendingCalls.values().removeIf(call -> {
+            if (call.session != session) {
+                return false;
+            }
+            call.finish(OUTCOME_CANCELLED, null,
+                    new CancellationException("Charger " + session.getChargerCode() + " disconnected"));
+            return true;
+        });
+    }
+
+    /**
+     * 待应答请求数
+     */
+    public int getPendingCount() {
+        return pendingCalls.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timingWheel.stop();
+        pendingCalls.values().removeIf(call -> {
+            call.finish(OUTCOME_CANCELLED, null, new CancellationException("Protocol service shutting down"));
+            return true;
+        });
+        completionExecutor.shutdown();
+        try {
+            if (!completionExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                completionExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            completionExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 取出待应答请求，应答必须来自发出请求的同一会话
+     */
+    private PendingCall take(OCPPWebSocketSession session, String messageId) {
+        if (messageId == null) {
+            return null;
+        }
+        PendingCall call = pendingCalls.get(messageId);
+        if (call == null) {
+            log.debug("No pending call for message {} from charger {}", messageId, session.getChargerCode());
+            return null;
+        }
+        if (call.session != session) {
+            log.warn("Charger {} answered message {} that was sent to charger {}",
+                    session.getChargerCode(), messageId, call.session.getChargerCode());
+            return null;
+        }
+        return pendingCalls.remove(messageId, call) ? call : null;
+    }
+
+    private void expire(PendingCall call) {
+        if (pendingCalls.remove(call.messageId, call)) {
+            log.warn("OCPP {} to charger {} timed out after {} ms", call.action, call.session.getChargerCode(), timeoutMillis);
+            call.finish(OUTCOME_TIMEOUT, null, new TimeoutException(
+                    call.action + " to charger " + call.session.getChargerCode() + " timed out after " + timeoutMillis + " ms"));
+        }
+    }
+
+    /**
+     * 待应答请求
+     */
+    final class PendingCall {
+
+        private final OCPPWebSocketSession session;
+        private final String messageId;
+        private final String action;
+        private final long sentNanos = System.nanoTime();
+        private final CompletableFuture<OCPPCallResultMessage> future = new CompletableFuture<>();
+
+        private volatile HashedTimingWheel.Timeout timeout;
+
+        PendingCall(OCPPWebSocketSession session, String messageId, String action) {
+            this.session = session;
+            this.messageId = messageId;
+            this.action = action;
+        }
+
+        /**
+         * 只由成功从登记表移除本请求的线程调用，保证每个请求只结束一次
+         */
+        private void finish(String outcome, OCPPCallResultMessage result, Throwable error) {
+            HashedTimingWheel.Timeout t = timeout;
+            if (t != null && !OUTCOME_TIMEOUT.equals(outcome)) {
+                t.cancel();
+            }
+            protocolMetrics.recordCallCompleted(action, outcome, System.nanoTime() - sentNanos);
+            if (error == null) {
+                future.complete(result);
+            } else {
+                future.completeExceptionally(error);
+            }
+        }
+    }
+}
@@ -1,50 +1,134 @@
 package com.evcs.protocol.websocket;
 
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.util.HashedTimingWheel;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 /**
  * OCPP会话管理器
  * 负责管理所有OCPP WebSocket会话的生命周期
+ * 会话按充电站编码分片存放，容量取自 evcs.protocol.ocpp.max-connections，
+ * 统计信息由计数器直接给出，不再遍历全部会话
+ * 心跳超时与空闲清理由时间轮驱动：入站消息只刷新单调时间戳，到期时才检查对应会话
+ * 分片是唯一的会话登记表，不再按WebSocket会话ID另建索引
+ * 会话无论因断开、超时还是被重连替换而移出分片，都会通知会话移除监听器，由监听器完成按会话的清理
  */
 @Slf4j
 @Component
 public class OCPPSessionManager {
 
     /**
-     * 活跃会话映射 (chargerCode -> session)
+     * 未注入配置时的默认最大会话数
      */
-    private final ConcurrentHashMap<String, OCPPWebSocketSession> activeSessions = new ConcurrentHashMap<>();
+    private static final int DEFAULT_MAX_SESSIONS = 1000;
 
     /**
-     * WebSocket会话映射 (sessionId -> session)
+     * 未设置心跳间隔的会话空闲超时
      */
-    private final ConcurrentHashMap<String, OCPPWebSocketSession> sessionMap = new ConcurrentHashMap<>();
+    private static final long IDLE_TIMEOUT_NANOS = TimeUnit.MINUTES.toNanos(30);
 
     /**
-     * 定时任务执行器
+     * 允许错过的心跳周期数，超过后断开连接
      */
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+    private static final int HEARTBEAT_MISS_LIMIT = 3;
+
+    /**
+     * 分页查询单页上限
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * 活跃会话分片 (chargerCode -> session)
+     */
+    private final List<ConcurrentHashMap<String, OCPPWebSocketSession>> shards;
+
+    private final int shardMask;
+
+    /**
+     * 当前会话数（容量控制用，避免跨分片求size）
+     */
+    private final AtomicInteger sessionCount = new AtomicInteger();
+
+    /**
+     * 当前会话累计消息数
+     */
+    private final LongAdder totalMessages = new LongAdder();
+
+    /**
+     * 各状态会话数
+     */
+    private final StatusCounters statusCounters = new StatusCounters();
+
+    /**
+     * 超时处理执行器（关闭连接可能阻塞，不占用时间轮线程）
+     */
+    private final ExecutorService expiryExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * 会话超时时间轮：100ms一格，512格一圈
+     */
+    private final HashedTimingWheel timingWheel =
+            new HashedTimingWheel("ocpp-session-timer", 100, TimeUnit.MILLISECONDS, 512, expiryExecutor);
+
+    /**
+     * 会话移除监听器
+     */
+    private final List<Consumer<OCPPWebSocketSession>> removalListeners = new CopyOnWriteArrayList<>();
 
     /**
      * 最大会话数
      */
-    private static final int MAX_SESSIONS = 1000;
+    private final int maxSessions;
 
     public OCPPSessionManager() {
-        // 启动会话清理任务
-        startSessionCleanupTask();
-        // 启动心跳检测任务
-        startHeartbeatCheckTask();
+        this(DEFAULT_MAX_SESSIONS);
+    }
+
+    @Autowired
+    public OCPPSessionManager(ProtocolProperties protocolProperties) {
+        this(protocolProperties.getOcpp().getMaxConnections());
+    }
+
+    OCPPSessionManager(int maxSessions) {
+        this.maxSessions = maxSessions > 0 ? maxSessions : DEFAULT_MAX_SESSIONS;
+
+        int shardCount = shardCountFor(Runtime.getRuntime().availableProcessors());
+        int shardCapacity = Math.max(16, this.maxSessions / shardCount);
+        List<ConcurrentHashMap<String, OCPPWebSocketSession>> shardList = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shardList.add(new ConcurrentHashMap<>(shardCapacity));
+        }
+        this.shards = List.copyOf(shardList);
+        this.shardMask = shardCount - 1;
+
+        log.info("OCPP session manager initialized: maxSessions={}, shards={}", this.maxSessions, shardCount);
+    }
+
+    /**
+     * 分片数取CPU数4倍向上取2的幂，范围[16, 256]
+     */
+    private static int shardCountFor(int processors) {
+        int target = Math.min(256, Math.max(16, processors * 4));
+        return Integer.highestOneBit(target - 1) << 1;
+    }
+
+    private ConcurrentHashMap<String, OCPPWebSocketSession> shardOf(String chargerCode) {
+        int h = chargerCode.hashCode();
+        return shards.get((h ^ (h >>> 16)) & shardMask);
     }
 
     /**
@@ -56,94 +140,218 @@ public class OCPPSessionManager {
             return false;
         }
 
-        if (activeSessions.size() >= MAX_SESSIONS) {
-            log.warn("Maximum session limit reached: {}", MAX_SESSIONS);
+        String chargerCode = session.getChargerCode();
+        ConcurrentHashMap<String, OCPPWebSocketSession> shard = shardOf(chargerCode);
+
+        // 同一充电站重连时替换旧会话，不额外占用容量
+        boolean replacing = shard.containsKey(chargerCode);
+        if (!replacing && !tryReserveSlot()) {
+            log.warn("Maximum session limit reached: {}", maxSessions);
             return false;
         }
 
-        String chargerCode = session.getChargerCode();
-        String sessionId = session.getSessionId();
+        session.setStatus(OCPPWebSocketSession.SessionStatus.CONNECTED);
+        session.bindStatusCounters(statusCounters);
+        SessionExpiry expiry = new SessionExpiry(session);
+        if (session.bindExpiry(expiry)) {
+            expiry.schedule();
+        }
 
-        // 检查是否已存在会话
-        OCPPWebSocketSession existingSession = activeSessions.get(chargerCode);
-        if (existingSession != null && existingSession.isActive()) {
-            log.warn("Session already exists for charger: {}, closing old session", chargerCode);
-            removeSession(chargerCode);
+        OCPPWebSocketSession previous = shard.put(chargerCode, session);
+        if (previous == null && replacing) {
+            // 旧会话在检查之后已被移除，补占容量
+            sessionCount.incrementAndGet();
+        } else if (previous != null && !replacing) {
+            // 并发添加同一充电站，释放多占的容量
+            sessionCount.decrementAndGet();
         }
 
-        activeSessions.put(chargerCode, session);
-        if (sessionId != null) {
-            sessionMap.put(sessionId, session);
+        if (previous != null && previous != session) {
+            log.warn("Session already exists for charger: {}, closing old session", chargerCode);
+            detach(previous);
         }
 
-        session.setStatus(OCPPWebSocketSession.SessionStatus.CONNECTED);
-        log.info("Session added: charger={}, sessionId={}, totalSessions={}",
-                chargerCode, sessionId, activeSessions.size());
+        log.debug("Session added: charger={}, sessionId={}, totalSessions={}",
+                chargerCode, session.getSessionId(), sessionCount.get());
 
         return true;
     }
 
+    /**
+     * 注册会话移除监听器
+     * 监听器收到的是被移出分片的会话实例；被重连替换时分片中已是新会话，
+     * 按充电站编码登记的状态应交由新会话继续持有
+     */
+    public void addRemovalListener(Consumer<OCPPWebSocketSession> listener) {
+        removalListeners.add(listener);
+    }
+
+    private boolean tryReserveSlot() {
+        while (true) {
+            int current = sessionCount.get();
+            if (current >= maxSessions) {
+                return false;
+            }
+            if (sessionCount.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
     /**
      * 移除会话
      */
     public boolean removeSession(String chargerCode) {
-        OCPPWebSocketSession session = activeSessions.remove(chargerCode);
+        OCPPWebSocketSession session = shardOf(chargerCode).remove(chargerCode);
         if (session != null) {
-            String sessionId = session.getSessionId();
-            if (sessionId != null) {
-                sessionMap.remove(sessionId);
-            }
+            sessionCount.decrementAndGet();
+            detach(session);
 
-            session.setStatus(OCPPWebSocketSession.SessionStatus.DISCONNECTED);
-            session.close();
-
-            log.info("Session removed: charger={}, sessionId={}, totalSessions={}",
-                    chargerCode, sessionId, activeSessions.size());
+            log.debug("Session removed: charger={}, sessionId={}, totalSessions={}",
+                    chargerCode, session.getSessionId(), sessionCount.get());
             return true;
         }
         return false;
     }
 
+    /**
+     * 释放已从分片中移除的会话
+     */
+    private void detach(OCPPWebSocketSession session) {
+        SessionExpiry expiry = session.unbindExpiry();
+        if (expiry != null) {
+            expiry.cancel();
+        }
+        session.unbindStatusCounters();
+        totalMessages.add(-session.getMessageCount());
+
+        session.setStatus(OCPPWebSocketSession.SessionStatus.DISCONNECTED);
+        session.close();
+
+        for (Consumer<OCPPWebSocketSession> listener : removalListeners) {
+            try {
+                listener.accept(session);
+            } catch (Exception e) {
+                log.error("Error in session removal listener for charger: {}", session.getChargerCode(), e);
+            }
+        }
+    }
+
     /**
      * 根据充电站编码获取会话
      */
     public OCPPWebSocketSession getSession(String chargerCode) {
-        return activeSessions.get(chargerCode);
+        return shardOf(chargerCode).get(chargerCode);
     }
 
     /**
      * 根据WebSocket会话ID获取会话
+     * 遍历全部分片查找，仅供诊断使用；消息处理路径按充电站编码查找
      */
     public OCPPWebSocketSession getSessionByWebSocketId(String webSocketSessionId) {
-        return sessionMap.get(webSocketSessionId);
+        if (webSocketSessionId == null) {
+            return null;
+        }
+        for (ConcurrentHashMap<String, OCPPWebSocketSession> shard : shards) {
+            for (OCPPWebSocketSession session : shard.values()) {
+                if (webSocketSessionId.equals(session.getSessionId())) {
+                    return session;
+                }
+            }
+        }
+        return null;
     }
 
     /**
-     * 获取所有活跃会话
+     * 获取所有活跃会话（全量拷贝，大规模部署下请使用 {@link #getSessions(int, int)}）
      */
     public Collection<OCPPWebSocketSession> getAllSessions() {
-        return new ArrayList<>(activeSessions.values());
+        List<OCPPWebSocketSession> sessions = new ArrayList<>(sessionCount.get());
+        forEachSession(sessions::add);
+        return sessions;
+    }
+
+    /**
+     * 分页获取会话
+     * 按分片顺序遍历，整片跳过offset之前的分片，不复制全量会话
+     *
+     * @param offset 起始位置
+     * @param limit  单页数量，最大 {@link #MAX_PAGE_SIZE}
+     */
+    public List<OCPPWebSocketSession> getSessions(int offset, int limit) {
+        int pageSize = Math.min(Math.max(limit, 0), MAX_PAGE_SIZE);
+        List<OCPPWebSocketSession> page = new ArrayList<>(pageSize);
+        if (pageSize == 0) {
+            return page;
+        }
+
+        int skip = Math.max(offset, 0);
+        for (ConcurrentHashMap<String, OCPPWebSocketSession> shard : shards) {
+            int shardSize = shard.size();
+            if (skip >= shardSize) {
+                skip -= shardSize;
+                continue;
+            }
+            for (OCPPWebSocketSession session : shard.values()) {
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                page.add(session);
+                if (page.size() == pageSize) {
+                    return page;
+                }
+            }
+        }
+        return page;
+    }
+
+    /**
+     * 遍历所有会话（弱一致，不复制）
+     */
+    public void forEachSession(Consumer<OCPPWebSocketSession> action) {
+        for (ConcurrentHashMap<String, OCPPWebSocketSession> shard : shards) {
+            shard.values().forEach(action);
+        }
     }
 
     /**
      * 获取所有活跃充电站编码
      */
     public Set<String> getActiveChargerCodes() {
-        return new HashSet<>(activeSessions.keySet());
+        Set<String> chargerCodes = new HashSet<>(Math.max(16, sessionCount.get() * 4 / 3 + 1));
+        for (ConcurrentHashMap<String, OCPPWebSocketSession> shard : shards) {
+            chargerCodes.addAll(shard.keySet());
+        }
+        return chargerCodes;
     }
 
     /**
      * 获取活跃会话数量
      */
     public int getActiveSessionCount() {
-        return activeSessions.size();
+        return sessionCount.get();
+    }
+
+    /**
+     * 获取最大会话数
+     */
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    /**
+     * 获取指定状态的会话数量
+     */
+    public long getSessionCount(OCPPWebSocketSession.SessionStatus status) {
+        return statusCounters.get(status);
     }
 
     /**
      * 检查充电站是否在线
      */
     public boolean isChargerOnline(String chargerCode) {
-        OCPPWebSocketSession session = activeSessions.get(chargerCode);
+        OCPPWebSocketSession session = getSession(chargerCode);
         return session != null && session.isActive();
     }
 
@@ -151,10 +359,11 @@ public class OCPPSessionManager {
      * 更新会话活跃时间
      */
     public void updateSessionActivity(String chargerCode) {
-        OCPPWebSocketSession session = activeSessions.get(chargerCode);
+        OCPPWebSocketSession session = getSession(chargerCode);
         if (session != null) {
             session.updateLastActiveTime();
             session.incrementMessageCount();
+            totalMessages.increment();
         }
     }
 
@@ -162,140 +371,208 @@ public class OCPPSessionManager {
      * 获取会话统计信息
      */
     public List<OCPPWebSocketSession.SessionStatistics> getSessionStatistics() {
-        return activeSessions.values().stream()
-                .map(OCPPWebSocketSession::getStatistics)
-                .collect(Collectors.toList());
+        List<OCPPWebSocketSession.SessionStatistics> statistics = new ArrayList<>(sessionCount.get());
+        forEachSession(session -> statistics.add(session.getStatistics()));
+        return statistics;
     }
 
     /**
-     * 获取会话统计摘要
+     * 分页获取会话统计信息
      */
-    public SessionStatisticsSummary getStatisticsSummary() {
-        int totalSessions = activeSessions.size();
-        long activeSessionCount = activeSessions.values().stream()
-                .mapToLong(session -> session.isActive() ? 1 : 0)
-                .sum();
-        long totalMessages = activeSessions.values().stream()
-                .mapToLong(OCPPWebSocketSession::getMessageCount)
-                .sum();
-
-        Map<OCPPWebSocketSession.SessionStatus, Long> statusCounts = activeSessions.values().stream()
-                .collect(Collectors.groupingBy(
-                        OCPPWebSocketSession::getStatus,
-                        Collectors.counting()
-                ));
-
-        return new SessionStatisticsSummary(totalSessions, activeSessionCount, totalMessages, statusCounts);
+    public List<OCPPWebSocketSession.SessionStatistics> getSessionStatistics(int offset, int limit) {
+        List<OCPPWebSocketSession> sessions = getSessions(offset, limit);
+        List<OCPPWebSocketSession.SessionStatistics> statistics = new ArrayList<>(sessions.size());
+        for (OCPPWebSocketSession session : sessions) {
+            statistics.add(session.getStatistics());
+        }
+        return statistics;
     }
 
     /**
-     * 启动会话清理任务
+     * 获取会话统计摘要（O(1)，取自计数器）
      */
-    private void startSessionCleanupTask() {
-        scheduler.scheduleAtFixedRate(() -> {
-            try {
-                cleanupInactiveSessions();
-            } catch (Exception e) {
-                log.error("Error in session cleanup task", e);
-            }
-        }, 5, 5, TimeUnit.MINUTES); // 每5分钟执行一次
-    }
+    public SessionStatisticsSummary getStatisticsSummary() {
+        Map<OCPPWebSocketSession.SessionStatus, Long> statusCounts = statusCounters.snapshot();
+        long activeSessionCount = statusCounts.getOrDefault(OCPPWebSocketSession.SessionStatus.CONNECTED, 0L)
+                + statusCounts.getOrDefault(OCPPWebSocketSession.SessionStatus.AUTHENTICATED, 0L);
 
-    /**
-     * 启动心跳检测任务
-     */
-    private void startHeartbeatCheckTask() {
-        scheduler.scheduleAtFixedRate(() -> {
-            try {
-                checkHeartbeats();
-            } catch (Exception e) {
-                log.error("Error in heartbeat check task", e);
-            }
-        }, 1, 1, TimeUnit.MINUTES); // 每分钟执行一次
+        return new SessionStatisticsSummary(sessionCount.get(), activeSessionCount, totalMessages.sum(), statusCounts);
     }
 
     /**
-     * 清理非活跃会话
+     * 会话超时检测
+     * 入站消息只刷新会话的单调时间戳；到期时若截止时间已被推后则按剩余时长重新入轮，
+     * 否则判定超时并断开。每个会话每个超时周期最多被检查一次
      */
-    private void cleanupInactiveSessions() {
-        LocalDateTime cutoffTime = LocalDateTime.now().minusMinutes(30); // 30分钟未活跃的会话
+    final class SessionExpiry implements HashedTimingWheel.TimerTask {
 
-        List<String> inactiveChargers = activeSessions.entrySet().stream()
-                .filter(entry -> {
-                    OCPPWebSocketSession session = entry.getValue();
-                    return !session.isActive() || session.getLastActiveTime().isBefore(cutoffTime);
-                })
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
+        private final OCPPWebSocketSession session;
+        private HashedTimingWheel.Timeout timeout;
 
-        for (String chargerCode : inactiveChargers) {
-            log.info("Cleaning up inactive session: {}", chargerCode);
-            removeSession(chargerCode);
+        SessionExpiry(OCPPWebSocketSession session) {
+            this.session = session;
         }
 
-        if (!inactiveChargers.isEmpty()) {
-            log.info("Session cleanup completed: removed {} inactive sessions", inactiveChargers.size());
+        synchronized void schedule() {
+            long delay = session.expiryDeadlineNanos(IDLE_TIMEOUT_NANOS, HEARTBEAT_MISS_LIMIT) - System.nanoTime();
+            timeout = timingWheel.newTimeout(this, delay, TimeUnit.NANOSECONDS);
         }
-    }
 
-    /**
-     * 检查心跳
-     */
-    private void checkHeartbeats() {
-        List<String> missedHeartbeatChargers = activeSessions.values().stream()
-                .filter(OCPPWebSocketSession::needsHeartbeat)
-                .map(OCPPWebSocketSession::getChargerCode)
-                .collect(Collectors.toList());
+        /**
+         * 超时时长变化（如BootNotification下发心跳间隔）时重新调度
+         */
+        synchronized void reschedule() {
+            cancel();
+            schedule();
+        }
 
-        for (String chargerCode : missedHeartbeatChargers) {
-            OCPPWebSocketSession session = activeSessions.get(chargerCode);
-            if (session != null) {
-                long idleTime = session.getIdleTimeSeconds();
-                log.warn("Charger {} missed heartbeat, idle time: {}s", chargerCode, idleTime);
+        synchronized void cancel() {
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        }
 
-                // 如果超过3个心跳周期未响应，断开连接
-                if (idleTime > (session.getHeartbeatInterval() * 3)) {
-                    log.error("Charger {} heartbeat timeout, disconnecting", chargerCode);
-                    session.setStatus(OCPPWebSocketSession.SessionStatus.ERROR);
-                    removeSession(chargerCode);
+        @Override
+        public void run(HashedTimingWheel.Timeout expired) {
+            String chargerCode = session.getChargerCode();
+            synchronized (this) {
+                // 已被重新调度的旧句柄或已移除的会话直接忽略
+                if (expired != timeout || getSession(chargerCode) != session) {
+                    return;
                 }
+                long remaining = session.expiryDeadlineNanos(IDLE_TIMEOUT_NANOS, HEARTBEAT_MISS_LIMIT) - System.nanoTime();
+                if (remaining > 0 && session.isActive()) {
+                    schedule();
+                    return;
+                }
+            }
+
+            long idleTime = session.getIdleTimeSeconds();
+            Integer heartbeatInterval = session.getHeartbeatInterval();
+            if (heartbeatInterval != null && heartbeatInterval > 0 && session.isActive()) {
+                log.error("Charger {} heartbeat timeout, idle time: {}s, disconnecting", chargerCode, idleTime);
+                session.setStatus(OCPPWebSocketSession.SessionStatus.ERROR);
+            } else {
+                log.info("Cleaning up inactive session: {}, idle time: {}s", chargerCode, idleTime);
             }
+            removeSession(session);
+        }
+    }
+
+    /**
+     * 仅当分片中仍是该会话时移除，避免误删重连后的新会话
+     */
+    public boolean removeSession(OCPPWebSocketSession session) {
+        String chargerCode = session.getChargerCode();
+        if (shardOf(chargerCode).remove(chargerCode, session)) {
+            sessionCount.decrementAndGet();
+            detach(session);
+
+            log.debug("Session removed: charger={}, sessionId={}, totalSessions={}",
+                    chargerCode, session.getSessionId(), sessionCount.get());
+            return true;
         }
+        return false;
+    }
+
+    /**
+     * 获取待检测超时的会话数
+     */
+    public int getPendingExpiryCount() {
+        return timingWheel.pendingTimeouts();
     }
 
     /**
      * 关闭所有会话
      */
     public void shutdown() {
-        log.info("Shutting down session manager, closing {} sessions", activeSessions.size());
+        log.info("Shutting down session manager, closing {} sessions", sessionCount.get());
 
         // 关闭所有会话
-        activeSessions.values().forEach(session -> {
-            try {
-                session.close();
-            } catch (Exception e) {
-                log.error("Error closing session for charger: {}", session.getChargerCode(), e);
-            }
-        });
-
-        // 清空映射
-        activeSessions.clear();
-        sessionMap.clear();
+        for (ConcurrentHashMap<String, OCPPWebSocketSession> shard : shards) {
+            shard.values().forEach(session -> {
+                try {
+                    session.unbindExpiry();
+                    session.unbindStatusCounters();
+                    session.close();
+                } catch (Exception e) {
+                    log.error("Error closing session for charger: {}", session.getChargerCode(), e);
+                }
+            });
+            // 清空映射
+            shard.clear();
+        }
+        sessionCount.set(0);
+        totalMessages.reset();
 
-        // 关闭调度器
-        scheduler.shutdown();
+        // 停止时间轮
+        timingWheel.stop();
+        expiryExecutor.shutdown();
         try {
-            if (!scheduler.awaitTermination(10, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
+            if (!expiryExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                expiryExecutor.shutdownNow();
             }
         } catch (InterruptedException e) {
-            scheduler.shutdownNow();
+            expiryExecutor.shutdownNow();
             Thread.currentThread().interrupt();
         }
 
         log.info("Session manager shutdown completed");
     }
 
+    /**
+     * 各会话状态计数器
+     */
+    static final class StatusCounters {
+
+        private static final OCPPWebSocketSession.SessionStatus[] STATUSES =
+                OCPPWebSocketSession.SessionStatus.values();
+
+        private final LongAdder[] counters = new LongAdder[STATUSES.length];
+
+        StatusCounters() {
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] = new LongAdder();
+            }
+        }
+
+        void increment(OCPPWebSocketSession.SessionStatus status) {
+            if (status != null) {
+                counters[status.ordinal()].increment();
+            }
+        }
+
+        void decrement(OCPPWebSocketSession.SessionStatus status) {
+            if (status != null) {
+                counters[status.ordinal()].decrement();
+            }
+        }
+
+        void transition(OCPPWebSocketSession.SessionStatus from, OCPPWebSocketSession.SessionStatus to) {
+            decrement(from);
+            increment(to);
+        }
+
+        long get(OCPPWebSocketSession.SessionStatus status) {
+            return counters[status.ordinal()].sum();
+        }
+
+        /**
+         * 非零状态计数快照
+         */
+        Map<OCPPWebSocketSession.SessionStatus, Long> snapshot() {
+            Map<OCPPWebSocketSession.SessionStatus, Long> snapshot =
+                    new EnumMap<>(OCPPWebSocketSession.SessionStatus.class);
+            for (OCPPWebSocketSession.SessionStatus status : STATUSES) {
+                long count = counters[status.ordinal()].sum();
+                if (count > 0) {
+                    snapshot.put(status, count);
+                }
+            }
+            return snapshot;
+        }
+    }
+
     /**
      * 会话统计摘要
      */
@@ -1,15 +1,18 @@
 package com.evcs.protocol.websocket;
 
+import com.evcs.protocol.cluster.ChargerSessionDirectory;
+import com.evcs.protocol.dto.ocpp.OCPPErrorCode;
+import com.evcs.protocol.dto.ocpp.OCPPFrameDecoder;
+import com.evcs.protocol.dto.ocpp.OCPPFrameEncoder;
 import com.evcs.protocol.dto.ocpp.OCPPMessage;
-import com.evcs.protocol.enums.OCPPMessageType;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.evcs.protocol.mq.HeartbeatCoalescer;
+import com.evcs.protocol.service.ChargerDirectory;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
 
-import java.time.LocalDateTime;
-import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -22,8 +25,24 @@ import java.util.UUID;
 public class OCPPWebSocketHandler implements WebSocketHandler {
 
     private final OCPPSessionManager sessionManager;
-    private final OCPPMessageProcessor messageProcessor;
-    private final ObjectMapper objectMapper;
+    private final OCPPMessageDispatcher messageDispatcher;
+    private final OCPPFrameDecoder frameDecoder;
+    private final OCPPFrameEncoder frameEncoder;
+    private final OCPPOutboundSender outboundSender;
+    private final OCPPPendingCallRegistry pendingCallRegistry;
+    private final ChargerDirectory chargerDirectory;
+    private final HeartbeatCoalescer heartbeatCoalescer;
+    private final ConnectionAdmissionController admissionController;
+    private final ConnectorStatusDebouncer statusDebouncer;
+    private final ChargerSessionDirectory sessionDirectory;
+
+    /**
+     * 会话的清理统一在会话移出管理器时执行，连接关闭、超时断开和重连替换都经过这里
+     */
+    @PostConstruct
+    public void registerSessionCleanup() {
+        sessionManager.addRemovalListener(this::cleanupSession);
+    }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
@@ -33,13 +52,24 @@ public class OCPPWebSocketHandler implements WebSocketHandler {
             session.close();
             return;
         }
+        if (!admissionController.admitHandshake(chargerCode)) {
+            // 重连高峰时在解析身份、登记会话之前拒绝，充电桩稍后按自身退避策略重连
+            session.close(CloseStatus.SERVICE_OVERLOAD);
+            return;
+        }
 
         OCPPWebSocketSession ocppSession = new OCPPWebSocketSession(session, chargerCode);
+        ocppSession.setChargerIdentity(chargerDirectory.resolve(chargerCode));
+        if (ocppSession.getChargerIdentity() == null) {
+            log.warn("Charger {} is not registered, protocol events will not be routed", chargerCode);
+        }
+        outboundSender.attach(ocppSession);
         boolean added = sessionManager.addSession(ocppSession);
 
         if (added) {
             log.info("OCPP WebSocket connection established: charger={}, sessionId={}, remoteAddress={}",
                     chargerCode, session.getId(), ocppSession.getRemoteAddress());
+            sessionDirectory.register(chargerCode);
 
             // 发送欢迎消息
             sendWelcomeMessage(ocppSession);
@@ -71,11 +101,12 @@ public class OCPPWebSocketHandler implements WebSocketHandler {
             String messageText = message.getPayload().toString();
             log.debug("Received OCPP message from charger {}: {}", chargerCode, messageText);
 
-            OCPPMessage ocppMessage = parseMessage(messageText);
+            OCPPMessage ocppMessage = frameDecoder.decode(messageText);
             if (ocppMessage != null) {
-                messageProcessor.processMessage(ocppSession, ocppMessage);
+                // 业务处理交给充电桩邮箱，不占用容器线程
+                messageDispatcher.dispatch(ocppSession, ocppMessage);
             } else {
-                log.error("Failed to parse OCPP message from charger {}: {}", chargerCode, messageText);
+                // 解码器已记录原因
                 sendErrorMessage(ocppSession, "FormationViolation", "Invalid message format");
             }
 
@@ -105,8 +136,30 @@ public class OCPPWebSocketHandler implements WebSocketHandler {
                 chargerCode, session.getId(), closeStatus.getCode(), closeStatus.getReason());
 
         if (chargerCode != null) {
-            sessionManager.removeSession(chargerCode);
+            OCPPWebSocketSession ocppSession = sessionManager.getSession(chargerCode);
+            // 只移除本连接对应的会话：被准入拒绝的连接或已被重连替换的旧连接不影响当前会话
+            if (ocppSession != null && ocppSession.getWebSocketSession() == session) {
+                sessionManager.removeSession(ocppSession);
+            }
+        }
+    }
+
+    /**
+     * 清理已移出管理器的会话
+     */
+    private void cleanupSession(OCPPWebSocketSession ocppSession) {
+        // 连接已断开，不再等待充电桩应答
+        pendingCallRegistry.cancelAll(ocppSession);
+        statusDebouncer.retain(ocppSession);
+
+        // 被同一充电桩的新连接替换时，在线状态、排队记录和会话目录归新会话所有
+        String chargerCode = ocppSession.getChargerCode();
+        if (sessionManager.getSession(chargerCode) != null) {
+            return;
         }
+        heartbeatCoalescer.markOffline(ocppSession.getChargerId());
+        admissionController.release(chargerCode);
+        sessionDirectory.unregister(chargerCode);
     }
 
     @Override
@@ -150,127 +203,17 @@ public class OCPPWebSocketHandler implements WebSocketHandler {
         return null;
     }
 
-    /**
-     * 解析OCPP消息
-     */
-    private OCPPMessage parseMessage(String messageText) {
-        try {
-            // OCPP消息是JSON数组格式: [messageTypeId, messageId, action, payload] 或 [messageTypeId, messageId, payload]
-            Object jsonValue = objectMapper.readValue(messageText, Object.class);
-
-            if (jsonValue instanceof java.util.List) {
-                @SuppressWarnings("unchecked")
-                java.util.List<Object> messageArray = (java.util.List<Object>) jsonValue;
-
-                if (messageArray.size() >= 2) {
-                    Integer messageTypeId = (Integer) messageArray.get(0);
-                    String messageId = messageArray.get(1).toString();
-
-                    OCPPMessageType messageType = OCPPMessageType.fromTypeId(messageTypeId);
-
-                    switch (messageType) {
-                        case CALL:
-                            if (messageArray.size() >= 4) {
-                                String action = messageArray.get(2).toString();
-                                @SuppressWarnings("unchecked")
-                                Map<String, Object> payload = (Map<String, Object>) messageArray.get(3);
-                                return createCallMessage(messageId, action, payload);
-                            }
-                            break;
-
-                        case CALL_RESULT:
-                            if (messageArray.size() >= 3) {
-                                @SuppressWarnings("unchecked")
-                                Map<String, Object> payload = (Map<String, Object>) messageArray.get(2);
-                                return createCallResultMessage(messageId, payload);
-                            }
-                            break;
-
-                        case CALL_ERROR:
-                            if (messageArray.size() >= 5) {
-                                String errorCode = messageArray.get(2).toString();
-                                String errorDescription = messageArray.get(3).toString();
-                                @SuppressWarnings("unchecked")
-                                Map<String, Object> errorDetails = (Map<String, Object>) messageArray.get(4);
-                                return createCallErrorMessage(messageId, errorCode, errorDescription, errorDetails);
-                            }
-                            break;
-                    }
-                }
-            }
-
-        } catch (Exception e) {
-            log.error("Error parsing OCPP message: {}", messageText, e);
-        }
-
-        return null;
-    }
-
-    /**
-     * 创建Call消息
-     */
-    private OCPPMessage createCallMessage(String messageId, String action, Map<String, Object> payload) {
-        // 这里应该创建具体的OCPP消息子类
-        // 暂时返回基础消息类
-        OCPPMessage message = new OCPPMessage() {
-            @Override
-            public boolean isValid() {
-                return true;
-            }
-        };
-        message.setMessageType(OCPPMessageType.CALL);
-        message.setMessageId(messageId);
-        return message;
-    }
-
-    /**
-     * 创建CallResult消息
-     */
-    private OCPPMessage createCallResultMessage(String messageId, Map<String, Object> payload) {
-        OCPPMessage message = new OCPPMessage() {
-            @Override
-            public boolean isValid() {
-                return true;
-            }
-        };
-        message.setMessageType(OCPPMessageType.CALL_RESULT);
-        message.setMessageId(messageId);
-        return message;
-    }
-
-    /**
-     * 创建CallError消息
-     */
-    private OCPPMessage createCallErrorMessage(String messageId, String errorCode, String errorDescription, Map<String, Object> errorDetails) {
-        OCPPMessage message = new OCPPMessage() {
-            @Override
-            public boolean isValid() {
-                return true;
-            }
-        };
-        message.setMessageType(OCPPMessageType.CALL_ERROR);
-        message.setMessageId(messageId);
-        return message;
-    }
-
     /**
      * 发送欢迎消息
      */
     private void sendWelcomeMessage(OCPPWebSocketSession session) {
         try {
-            Map<String, Object> welcomePayload = Map.of(
-                "message", "Welcome to OCPP Server",
-                "timestamp", LocalDateTime.now().toString(),
-                "serverVersion", "1.0"
-            );
-
-            String welcomeMessage = buildJsonMessage(OCPPMessageType.CALL_RESULT,
-                    UUID.randomUUID().toString(), welcomePayload);
-
-            // Welcome message should never be null, but check for safety
-            if (welcomeMessage != null) {
-                session.getWebSocketSession().sendMessage(new TextMessage(welcomeMessage));
-            }
+            String welcomeMessage = frameEncoder.encodeCallResult(UUID.randomUUID().toString(), g -> {
+                g.writeStringField("message", "Welcome to OCPP Server");
+                g.writeStringField("timestamp", frameEncoder.currentTime());
+                g.writeStringField("serverVersion", "1.0");
+            });
+            session.sendText(welcomeMessage);
             log.debug("Welcome message sent to charger: {}", session.getChargerCode());
 
         } catch (Exception e) {
@@ -284,44 +227,12 @@ public class OCPPWebSocketHandler implements WebSocketHandler {
     private void sendErrorMessage(OCPPWebSocketSession session, String errorCode, String errorDescription) {
         try {
             String messageId = UUID.randomUUID().toString();
-            String errorMessage = buildErrorMessage(messageId, errorCode, errorDescription, null);
-
-            // Error message should never be null, but check for safety
-            if (errorMessage != null) {
-                session.getWebSocketSession().sendMessage(new TextMessage(errorMessage));
-            }
+            String errorMessage = frameEncoder.encodeCallError(messageId, OCPPErrorCode.fromCode(errorCode), errorDescription);
+            session.sendText(errorMessage);
             log.debug("Error message sent to charger {}: {}", session.getChargerCode(), errorCode);
 
         } catch (Exception e) {
             log.error("Error sending error message to charger: {}", session.getChargerCode(), e);
         }
     }
-
-    /**
-     * 构建JSON消息
-     */
-    private String buildJsonMessage(OCPPMessageType messageType, String messageId, Object payload) throws Exception {
-        Object[] messageArray;
-        switch (messageType) {
-            case CALL:
-                // [2, messageId, action, payload]
-                messageArray = new Object[]{messageType.getTypeId(), messageId, "", payload};
-                break;
-            case CALL_RESULT:
-                // [3, messageId, payload]
-                messageArray = new Object[]{messageType.getTypeId(), messageId, payload};
-                break;
-            default:
-                throw new IllegalArgumentException("Unsupported message type: " + messageType);
-        }
-        return objectMapper.writeValueAsString(messageArray);
-    }
-
-    /**
-     * 构建错误消息
-     */
-    private String buildErrorMessage(String messageId, String errorCode, String errorDescription, Map<String, Object> errorDetails) throws Exception {
-        Object[] messageArray = {OCPPMessageType.CALL_ERROR.getTypeId(), messageId, errorCode, errorDescription, errorDetails != null ? errorDetails : Map.of()};
-        return objectMapper.writeValueAsString(messageArray);
-    }
-}
\ No newline at end of file
+}
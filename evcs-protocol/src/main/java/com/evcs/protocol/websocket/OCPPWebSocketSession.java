@@ -1,60 +1,135 @@
 package com.evcs.protocol.websocket;
 
+import com.evcs.protocol.dto.ChargerIdentity;
+import com.evcs.protocol.util.StringInterner;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
 
 /**
  * OCPP WebSocket会话管理
  * 封装WebSocket会话和相关的OCPP协议信息
+ * 单节点承载的连接数受每会话内存限制，会话状态按紧凑布局存放：
+ * - 时间戳为基本类型long（System.nanoTime），展示时按进程内固定的偏移换算为日历时间
+ * - 活跃时间与消息计数经VarHandle更新，不再为每个会话分配AtomicLong和LocalDateTime
+ * - 扩展属性存放在按需创建的键值数组中，没有属性的会话不占用额外对象
+ * - 厂商、型号等在充电桩间重复的协议字符串共享驻留实例
+ * 邮箱、发送队列、充电枪状态表均在首次使用时创建，空闲会话只有会话本身和超时句柄
  */
 @Slf4j
-@Data
 public class OCPPWebSocketSession {
 
+    private static final VarHandle LAST_ACTIVE_NANOS;
+    private static final VarHandle MESSAGE_COUNT;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            LAST_ACTIVE_NANOS = lookup.findVarHandle(OCPPWebSocketSession.class, "lastActiveNanos", long.class);
+            MESSAGE_COUNT = lookup.findVarHandle(OCPPWebSocketSession.class, "messageCount", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * 纪元纳秒与System.nanoTime的差值，用于把会话时间戳换算为日历时间
+     */
+    private static final long EPOCH_OFFSET_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - System.nanoTime();
+
+    /**
+     * 协议字符串驻留表
+     */
+    private static final StringInterner PROTOCOL_STRINGS = new StringInterner(4096);
+
     /**
      * WebSocket会话
      */
-    private WebSocketSession webSocketSession;
+    @Getter
+    private final WebSocketSession webSocketSession;
 
     /**
      * 充电站标识
      */
-    private String chargerCode;
+    @Getter
+    private final String chargerCode;
 
     /**
-     * 会话创建时间
+     * 充电桩身份，握手或BootNotification时由充电桩目录解析，未登记的充电桩为null
      */
-    private LocalDateTime createTime;
+    @Getter
+    @Setter
+    private volatile ChargerIdentity chargerIdentity;
 
     /**
-     * 最后活跃时间
+     * 会话创建时间（System.nanoTime）
      */
-    private LocalDateTime lastActiveTime;
+    private final long createNanos;
 
     /**
-     * 心跳间隔（秒）
+     * 最后活跃时间（System.nanoTime，超时判断使用），经 {@link #LAST_ACTIVE_NANOS} 读写
      */
-    private Integer heartbeatInterval;
+    @SuppressWarnings("unused")
+    private long lastActiveNanos;
 
     /**
-     * 消息计数器
+     * 心跳间隔（秒），0表示未设置
      */
-    private final AtomicLong messageCount = new AtomicLong(0);
+    private int heartbeatInterval;
+
+    /**
+     * 消息计数，经 {@link #MESSAGE_COUNT} 读写
+     */
+    @SuppressWarnings("unused")
+    private long messageCount;
 
     /**
      * 会话状态
      */
+    @Getter
     private SessionStatus status = SessionStatus.CONNECTING;
 
     /**
-     * 扩展属性
+     * 会话管理器的状态计数器，会话登记期间由管理器绑定
+     */
+    private OCPPSessionManager.StatusCounters statusCounters;
+
+    /**
+     * 会话超时检测句柄，会话登记期间由管理器绑定
+     */
+    private volatile OCPPSessionManager.SessionExpiry expiry;
+
+    /**
+     * 入站消息串行邮箱，首次投递时创建
      */
-    private final ConcurrentHashMap<String, Object> attributes = new ConcurrentHashMap<>();
+    private volatile OCPPMessageDispatcher.Mailbox mailbox;
+
+    /**
+     * 出站发送队列，未挂载时同步发送
+     */
+    private volatile OCPPOutboundSender.SendQueue sendQueue;
+
+    /**
+     * 各充电枪最近上报/转发的状态，首次StatusNotification时创建
+     */
+    private volatile ConnectorStatusDebouncer.ConnectorStatuses connectorStatuses;
+
+    /**
+     * 扩展属性，按 [key0, value0, key1, value1, ...] 存放，首次设置时创建。
+     * 属性只在BootNotification等低频场景写入：写入时在会话锁内复制出新数组，读取无锁
+     */
+    private volatile Object[] attributes;
 
     /**
      * 会话状态枚举
@@ -70,29 +145,213 @@ public class OCPPWebSocketSession {
     public OCPPWebSocketSession(WebSocketSession webSocketSession, String chargerCode) {
         this.webSocketSession = webSocketSession;
         this.chargerCode = chargerCode;
-        this.createTime = LocalDateTime.now();
-        this.lastActiveTime = LocalDateTime.now();
+        this.createNanos = System.nanoTime();
+        LAST_ACTIVE_NANOS.setRelease(this, createNanos);
+    }
+
+    /**
+     * 驻留在充电桩间重复的协议字符串（厂商、型号等）
+     */
+    public static String intern(String value) {
+        return PROTOCOL_STRINGS.intern(value);
+    }
+
+    /**
+     * 心跳间隔（秒），未设置时为null
+     */
+    public Integer getHeartbeatInterval() {
+        int interval = heartbeatInterval;
+        return interval > 0 ? interval : null;
+    }
+
+    /**
+     * 设置心跳间隔，超时时长随之变化时重新调度超时检测
+     */
+    public void setHeartbeatInterval(Integer heartbeatInterval) {
+        this.heartbeatInterval = heartbeatInterval != null && heartbeatInterval > 0 ? heartbeatInterval : 0;
+        OCPPSessionManager.SessionExpiry current = expiry;
+        if (current != null) {
+            current.reschedule();
+        }
+    }
+
+    synchronized boolean bindExpiry(OCPPSessionManager.SessionExpiry expiry) {
+        if (this.expiry != null) {
+            return false;
+        }
+        this.expiry = expiry;
+        return true;
+    }
+
+    synchronized OCPPSessionManager.SessionExpiry unbindExpiry() {
+        OCPPSessionManager.SessionExpiry current = expiry;
+        expiry = null;
+        return current;
+    }
+
+    /**
+     * 设置会话状态，同步更新已绑定的状态计数器
+     */
+    public synchronized void setStatus(SessionStatus status) {
+        SessionStatus previous = this.status;
+        this.status = status;
+        if (statusCounters != null && previous != status) {
+            statusCounters.transition(previous, status);
+        }
+    }
+
+    /**
+     * 绑定状态计数器并计入当前状态
+     */
+    synchronized void bindStatusCounters(OCPPSessionManager.StatusCounters counters) {
+        if (statusCounters == null) {
+            this.statusCounters = counters;
+            counters.increment(status);
+        }
+    }
+
+    /**
+     * 解绑状态计数器并扣除当前状态
+     */
+    synchronized void unbindStatusCounters() {
+        if (statusCounters != null) {
+            statusCounters.decrement(status);
+            statusCounters = null;
+        }
+    }
+
+    /**
+     * 获取邮箱，不存在时由分发器创建
+     */
+    OCPPMessageDispatcher.Mailbox mailbox(OCPPMessageDispatcher dispatcher) {
+        OCPPMessageDispatcher.Mailbox current = mailbox;
+        if (current == null) {
+            synchronized (this) {
+                current = mailbox;
+                if (current == null) {
+                    current = dispatcher.newMailbox(this);
+                    mailbox = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 获取充电枪状态表，不存在时由去抖器创建
+     */
+    ConnectorStatusDebouncer.ConnectorStatuses connectorStatuses(ConnectorStatusDebouncer debouncer) {
+        ConnectorStatusDebouncer.ConnectorStatuses current = connectorStatuses;
+        if (current == null) {
+            synchronized (this) {
+                current = connectorStatuses;
+                if (current == null) {
+                    current = debouncer.newConnectorStatuses(this);
+                    connectorStatuses = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    ConnectorStatusDebouncer.ConnectorStatuses peekConnectorStatuses() {
+        return connectorStatuses;
+    }
+
+    void attachSendQueue(OCPPOutboundSender.SendQueue sendQueue) {
+        this.sendQueue = sendQueue;
+    }
+
+    /**
+     * 获取出站缓冲中未写出的字符数
+     */
+    public int getPendingSendSize() {
+        OCPPOutboundSender.SendQueue current = sendQueue;
+        return current != null ? current.bufferedSize() : 0;
+    }
+
+    /**
+     * 发送文本帧
+     * 应答可能来自邮箱虚拟线程、容器线程和下行指令线程，底层WebSocketSession不允许并发发送：
+     * 挂载了发送队列时只入队不阻塞，否则在会话上同步发送
+     *
+     * @return 是否入队或发送成功
+     */
+    public boolean sendText(String frame) {
+        if (webSocketSession == null || !webSocketSession.isOpen()) {
+            log.debug("WebSocket session not open, dropping frame for charger: {}", chargerCode);
+            return false;
+        }
+        OCPPOutboundSender.SendQueue current = sendQueue;
+        if (current != null) {
+            return current.enqueue(frame);
+        }
+        try {
+            synchronized (webSocketSession) {
+                webSocketSession.sendMessage(new TextMessage(frame));
+            }
+            return true;
+        } catch (Exception e) {
+            log.error("Error sending message to charger: {}", chargerCode, e);
+            return false;
+        }
     }
 
     /**
      * 更新活跃时间
+     * 每条入站消息都会调用，只需保证超时检测线程最终可见，使用release写代替volatile写
      */
     public void updateLastActiveTime() {
-        this.lastActiveTime = LocalDateTime.now();
+        LAST_ACTIVE_NANOS.setRelease(this, System.nanoTime());
+    }
+
+    /**
+     * 最后活跃时间（System.nanoTime）
+     */
+    public long getLastActiveNanos() {
+        return (long) LAST_ACTIVE_NANOS.getAcquire(this);
+    }
+
+    /**
+     * 会话创建时间
+     */
+    public LocalDateTime getCreateTime() {
+        return toDateTime(createNanos);
+    }
+
+    /**
+     * 最后活跃时间
+     */
+    public LocalDateTime getLastActiveTime() {
+        return toDateTime(getLastActiveNanos());
+    }
+
+    /**
+     * 超时截止时间（System.nanoTime）
+     *
+     * @param idleTimeoutNanos 未设置心跳间隔时的空闲超时
+     * @param heartbeatMissLimit 允许错过的心跳周期数
+     */
+    long expiryDeadlineNanos(long idleTimeoutNanos, int heartbeatMissLimit) {
+        int interval = heartbeatInterval;
+        long timeoutNanos = interval > 0
+                ? TimeUnit.SECONDS.toNanos((long) interval * heartbeatMissLimit)
+                : idleTimeoutNanos;
+        return getLastActiveNanos() + timeoutNanos;
     }
 
     /**
      * 增加消息计数
      */
     public long incrementMessageCount() {
-        return messageCount.incrementAndGet();
+        return (long) MESSAGE_COUNT.getAndAdd(this, 1L) + 1;
     }
 
     /**
      * 获取消息计数
      */
     public long getMessageCount() {
-        return messageCount.get();
+        return (long) MESSAGE_COUNT.getVolatile(this);
     }
 
     /**
@@ -107,12 +366,12 @@ public class OCPPWebSocketSession {
      * 检查是否需要心跳
      */
     public boolean needsHeartbeat() {
-        if (heartbeatInterval == null || heartbeatInterval <= 0) {
+        int interval = heartbeatInterval;
+        if (interval <= 0) {
             return false;
         }
 
-        LocalDateTime nextHeartbeatTime = lastActiveTime.plusSeconds(heartbeatInterval);
-        return LocalDateTime.now().isAfter(nextHeartbeatTime);
+        return System.nanoTime() - getLastActiveNanos() > TimeUnit.SECONDS.toNanos(interval);
     }
 
     /**
@@ -122,6 +381,22 @@ public class OCPPWebSocketSession {
         return webSocketSession != null ? webSocketSession.getId() : null;
     }
 
+    /**
+     * 充电桩ID，未识别时为null
+     */
+    public Long getChargerId() {
+        ChargerIdentity identity = chargerIdentity;
+        return identity != null ? identity.getChargerId() : null;
+    }
+
+    /**
+     * 所属租户ID，未识别时为null
+     */
+    public Long getTenantId() {
+        ChargerIdentity identity = chargerIdentity;
+        return identity != null ? identity.getTenantId() : null;
+    }
+
     /**
      * 获取远程地址
      */
@@ -137,10 +412,27 @@ public class OCPPWebSocketSession {
      * 设置属性
      */
     public void setAttribute(String key, Object value) {
-        if (value != null) {
-            attributes.put(key, value);
-        } else {
-            attributes.remove(key);
+        if (value == null) {
+            removeAttribute(key);
+            return;
+        }
+        synchronized (this) {
+            Object[] current = attributes;
+            int index = indexOfAttribute(current, key);
+            Object[] updated;
+            if (index >= 0) {
+                updated = current.clone();
+            } else {
+                int length = current != null ? current.length : 0;
+                updated = new Object[length + 2];
+                if (current != null) {
+                    System.arraycopy(current, 0, updated, 0, length);
+                }
+                index = length;
+                updated[index] = key;
+            }
+            updated[index + 1] = value;
+            attributes = updated;
         }
     }
 
@@ -149,7 +441,9 @@ public class OCPPWebSocketSession {
      */
     @SuppressWarnings("unchecked")
     public <T> T getAttribute(String key, Class<T> type) {
-        Object value = attributes.get(key);
+        Object[] current = attributes;
+        int index = indexOfAttribute(current, key);
+        Object value = index >= 0 ? current[index + 1] : null;
         if (value != null && type.isInstance(value)) {
             return (T) value;
         }
@@ -169,35 +463,67 @@ public class OCPPWebSocketSession {
      * 移除属性
      */
     public void removeAttribute(String key) {
-        attributes.remove(key);
+        synchronized (this) {
+            Object[] current = attributes;
+            int index = indexOfAttribute(current, key);
+            if (index < 0) {
+                return;
+            }
+            if (current.length == 2) {
+                attributes = null;
+                return;
+            }
+            Object[] updated = new Object[current.length - 2];
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 2, updated, index, current.length - index - 2);
+            attributes = updated;
+        }
     }
 
     /**
      * 检查属性是否存在
      */
     public boolean hasAttribute(String key) {
-        return attributes.containsKey(key);
+        return indexOfAttribute(attributes, key) >= 0;
     }
 
     /**
      * 清除所有属性
      */
     public void clearAttributes() {
-        attributes.clear();
+        attributes = null;
+    }
+
+    /**
+     * 属性键所在下标，不存在时返回-1
+     */
+    private static int indexOfAttribute(Object[] attributes, String key) {
+        if (attributes != null) {
+            for (int i = 0; i < attributes.length; i += 2) {
+                if (attributes[i].equals(key)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
     }
 
     /**
      * 获取会话运行时长（秒）
      */
     public long getUptimeSeconds() {
-        return java.time.Duration.between(createTime, LocalDateTime.now()).getSeconds();
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - createNanos);
     }
 
     /**
      * 获取空闲时长（秒）
      */
     public long getIdleTimeSeconds() {
-        return java.time.Duration.between(lastActiveTime, LocalDateTime.now()).getSeconds();
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - getLastActiveNanos());
+    }
+
+    private static LocalDateTime toDateTime(long nanoTime) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(0, nanoTime + EPOCH_OFFSET_NANOS), ZoneId.systemDefault());
     }
 
     /**
@@ -212,7 +538,7 @@ public class OCPPWebSocketSession {
         } catch (Exception e) {
             log.error("Error closing WebSocket session for charger: {}", chargerCode, e);
         } finally {
-            status = SessionStatus.DISCONNECTED;
+            setStatus(SessionStatus.DISCONNECTED);
         }
     }
 
@@ -232,8 +558,8 @@ public class OCPPWebSocketSession {
             chargerCode,
             getSessionId(),
             status,
-            createTime,
-            lastActiveTime,
+            getCreateTime(),
+            getLastActiveTime(),
             getMessageCount(),
             getUptimeSeconds(),
             getIdleTimeSeconds(),
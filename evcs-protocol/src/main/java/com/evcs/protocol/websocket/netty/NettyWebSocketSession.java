@@ -0,0 +1,202 @@
+package com.evcs.protocol.websocket.netty;
+
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Netty通道上的WebSocket会话
+ * 实现Spring的 {@link WebSocketSession}，使独立传输下的连接可以直接交给
+ * {@link com.evcs.protocol.websocket.OCPPWebSocketHandler} 和会话管理器处理。
+ * 文本帧写入池化直接缓冲区；非I/O线程发送时等待写出完成，由出站发送器的超时检测兜底。
+ * 出站发送器排空的一批文本帧经 {@link #sendTextBatch(List)} 逐帧写入、只flush一次
+ */
+public class NettyWebSocketSession implements WebSocketSession {
+
+    private final Channel channel;
+    private final URI uri;
+    private final HttpHeaders handshakeHeaders;
+    private final String acceptedProtocol;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+    private volatile int textMessageSizeLimit;
+    private volatile int binaryMessageSizeLimit;
+
+    public NettyWebSocketSession(Channel channel, URI uri, HttpHeaders handshakeHeaders,
+                                 String acceptedProtocol, int messageSizeLimit) {
+        this.channel = channel;
+        this.uri = uri;
+        this.handshakeHeaders = HttpHeaders.readOnlyHttpHeaders(handshakeHeaders);
+        this.acceptedProtocol = acceptedProtocol;
+        this.textMessageSizeLimit = messageSizeLimit;
+        this.binaryMessageSizeLimit = messageSizeLimit;
+    }
+
+    @Override
+    public String getId() {
+        return channel.id().asLongText();
+    }
+
+    @Override
+    public URI getUri() {
+        return uri;
+    }
+
+    @Override
+    public HttpHeaders getHandshakeHeaders() {
+        return handshakeHeaders;
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public Principal getPrincipal() {
+        return null;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return (InetSocketAddress) channel.localAddress();
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return (InetSocketAddress) channel.remoteAddress();
+    }
+
+    @Override
+    public String getAcceptedProtocol() {
+        return acceptedProtocol;
+    }
+
+    @Override
+    public void setTextMessageSizeLimit(int messageSizeLimit) {
+        this.textMessageSizeLimit = messageSizeLimit;
+    }
+
+    @Override
+    public int getTextMessageSizeLimit() {
+        return textMessageSizeLimit;
+    }
+
+    @Override
+    public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+        this.binaryMessageSizeLimit = messageSizeLimit;
+    }
+
+    @Override
+    public int getBinaryMessageSizeLimit() {
+        return binaryMessageSizeLimit;
+    }
+
+    @Override
+    public List<WebSocketExtension> getExtensions() {
+        return List.of();
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (!channel.isActive()) {
+            throw new IOException("WebSocket channel is closed: " + channel);
+        }
+        Object frame;
+        if (message instanceof TextMessage text) {
+            frame = new TextWebSocketFrame(ByteBufUtil.writeUtf8(channel.alloc(), text.getPayload()));
+        } else if (message instanceof PingMessage ping) {
+            frame = new PingWebSocketFrame(Unpooled.wrappedBuffer(ping.getPayload()));
+        } else if (message instanceof PongMessage pong) {
+            frame = new PongWebSocketFrame(Unpooled.wrappedBuffer(pong.getPayload()));
+        } else {
+            throw new IOException("Unsupported WebSocket message type: " + message.getClass().getSimpleName());
+        }
+
+        ChannelFuture future = channel.writeAndFlush(frame);
+        if (channel.eventLoop().inEventLoop()) {
+            // I/O线程上不能等待，写出失败交给通道异常处理
+            future.addListener(ChannelFutureListener.FIRE_EXCEPTION_ON_FAILURE);
+            return;
+        }
+        future.awaitUninterruptibly();
+        if (!future.isSuccess()) {
+            throw new IOException("Failed to write WebSocket frame", future.cause());
+        }
+    }
+
+    /**
+     * 批量发送文本帧：逐帧写入通道，最后一次flush
+     */
+    public void sendTextBatch(List<String> payloads) throws IOException {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        if (!channel.isActive()) {
+            throw new IOException("WebSocket channel is closed: " + channel);
+        }
+        List<ChannelFuture> futures = new ArrayList<>(payloads.size());
+        for (String payload : payloads) {
+            futures.add(channel.write(new TextWebSocketFrame(ByteBufUtil.writeUtf8(channel.alloc(), payload))));
+        }
+        channel.flush();
+        if (channel.eventLoop().inEventLoop()) {
+            futures.forEach(future -> future.addListener(ChannelFutureListener.FIRE_EXCEPTION_ON_FAILURE));
+            return;
+        }
+        // 同一通道的写出按顺序完成，等待最后一帧即可
+        futures.get(futures.size() - 1).awaitUninterruptibly();
+        for (ChannelFuture future : futures) {
+            if (!future.isSuccess()) {
+                throw new IOException("Failed to write WebSocket frame", future.cause());
+            }
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isActive();
+    }
+
+    @Override
+    public void close() {
+        close(CloseStatus.NORMAL);
+    }
+
+    @Override
+    public void close(CloseStatus status) {
+        if (!channel.isActive()) {
+            return;
+        }
+        channel.writeAndFlush(new CloseWebSocketFrame(status.getCode(), status.getReason()))
+                .addListener(ChannelFutureListener.CLOSE);
+    }
+
+    @Override
+    public String toString() {
+        return "NettyWebSocketSession[id=" + getId() + ", uri=" + uri + "]";
+    }
+}
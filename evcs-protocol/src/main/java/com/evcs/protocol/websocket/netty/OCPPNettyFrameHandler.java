@@ -0,0 +1,141 @@
+package com.evcs.protocol.websocket.netty;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketCloseStatus;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+/**
+ * OCPP Netty帧处理器（每个连接一个实例）
+ * 握手完成后把连接交给 {@link WebSocketHandler}，之后的文本帧在I/O线程上解码并投递到充电桩邮箱。
+ * 建立会话可能需要查库解析充电桩身份，因此放到虚拟线程执行，期间暂停读取，避免消息先于会话到达
+ */
+@Slf4j
+public class OCPPNettyFrameHandler extends SimpleChannelInboundHandler<Object> {
+
+    private final WebSocketHandler webSocketHandler;
+    private final Executor setupExecutor;
+    private final int messageSizeLimit;
+
+    private NettyWebSocketSession session;
+    private CompletableFuture<Void> established;
+    private CloseStatus closeStatus = CloseStatus.NO_STATUS_CODE;
+
+    public OCPPNettyFrameHandler(WebSocketHandler webSocketHandler, Executor setupExecutor, int messageSizeLimit) {
+        this.webSocketHandler = webSocketHandler;
+        this.setupExecutor = setupExecutor;
+        this.messageSizeLimit = messageSizeLimit;
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (!(evt instanceof WebSocketServerProtocolHandler.HandshakeComplete handshake)) {
+            if (evt == WebSocketServerProtocolHandler.ServerHandshakeStateEvent.HANDSHAKE_TIMEOUT) {
+                log.debug("OCPP WebSocket handshake timed out: {}", ctx.channel().remoteAddress());
+            }
+            super.userEventTriggered(ctx, evt);
+            return;
+        }
+
+        URI uri;
+        try {
+            uri = URI.create(handshake.requestUri());
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid OCPP WebSocket request URI: {}", handshake.requestUri());
+            ctx.writeAndFlush(new CloseWebSocketFrame(WebSocketCloseStatus.POLICY_VIOLATION))
+                    .addListener(ChannelFutureListener.CLOSE);
+            return;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        for (Map.Entry<String, String> header : handshake.requestHeaders()) {
+            headers.add(header.getKey(), header.getValue());
+        }
+        session = new NettyWebSocketSession(ctx.channel(), uri, headers, handshake.selectedSubprotocol(), messageSizeLimit);
+
+        ctx.channel().config().setAutoRead(false);
+        established = CompletableFuture.runAsync(() -> {
+            try {
+                webSocketHandler.afterConnectionEstablished(session);
+            } catch (Exception e) {
+                log.error("Error establishing OCPP session: {}", uri, e);
+                session.close(CloseStatus.SERVER_ERROR);
+            } finally {
+                ctx.channel().config().setAutoRead(true);
+            }
+        }, setupExecutor);
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof TextWebSocketFrame frame) {
+            webSocketHandler.handleMessage(session, new TextMessage(frame.text()));
+        } else if (msg instanceof CloseWebSocketFrame frame) {
+            // 记录充电桩给出的关闭原因，回应关闭帧后断开
+            int code = frame.statusCode();
+            closeStatus = code >= 1000 && code <= 4999
+                    ? new CloseStatus(code, frame.reasonText())
+                    : CloseStatus.NO_STATUS_CODE;
+            ctx.writeAndFlush(frame.retainedDuplicate()).addListener(ChannelFutureListener.CLOSE);
+        } else if (msg instanceof BinaryWebSocketFrame) {
+            // OCPP-J 只使用文本帧
+            closeStatus = CloseStatus.NOT_ACCEPTABLE;
+            ctx.writeAndFlush(new CloseWebSocketFrame(WebSocketCloseStatus.INVALID_MESSAGE_TYPE))
+                    .addListener(ChannelFutureListener.CLOSE);
+        } else if (msg instanceof FullHttpRequest) {
+            // 非OCPP路径的普通HTTP请求
+            FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.NOT_FOUND, Unpooled.EMPTY_BUFFER);
+            HttpUtil.setContentLength(response, 0);
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (session != null) {
+            NettyWebSocketSession closed = session;
+            CloseStatus status = closeStatus;
+            // 会话可能仍在建立，等建立完成后再移除，避免移除先于登记
+            established.whenCompleteAsync((ignored, error) -> {
+                try {
+                    webSocketHandler.afterConnectionClosed(closed, status);
+                } catch (Exception e) {
+                    log.error("Error closing OCPP session: {}", closed, e);
+                }
+            }, setupExecutor);
+        }
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        if (session != null) {
+            closeStatus = CloseStatus.SERVER_ERROR;
+            webSocketHandler.handleTransportError(session, cause);
+        } else {
+            log.debug("OCPP transport error before handshake: {}", ctx.channel().remoteAddress(), cause);
+        }
+        ctx.close();
+    }
+}
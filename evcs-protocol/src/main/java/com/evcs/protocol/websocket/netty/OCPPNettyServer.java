@@ -0,0 +1,145 @@
+package com.evcs.protocol.websocket.netty;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.websocket.OCPPWebSocketHandler;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.websocketx.WebSocketFrameAggregator;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolConfig;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import io.netty.handler.codec.http.websocketx.extensions.compression.WebSocketServerCompressionHandler;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 独立OCPP传输
+ * 在 {@code evcs.protocol.ocpp.port} 上启动Netty WebSocket服务，少量I/O线程即可承载大量充电桩长连接。
+ * 协商 {@code ocpp1.6} 子协议和 permessage-deflate 压缩，收发缓冲使用池化直接内存；
+ * 连接建立后与Servlet传输一样交给 {@link OCPPWebSocketHandler}，会话管理和消息处理完全复用
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "evcs.protocol.ocpp.transport", havingValue = "netty")
+public class OCPPNettyServer {
+
+    public static final String SUBPROTOCOL = "ocpp1.6";
+
+    private static final String PATH_PREFIX = "/ocpp";
+
+    private final OCPPWebSocketHandler webSocketHandler;
+    private final ProtocolProperties.OCPPConfig config;
+
+    private final ExecutorService setupExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ocpp-netty-setup-", 0).factory());
+
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private Channel serverChannel;
+
+    public OCPPNettyServer(OCPPWebSocketHandler webSocketHandler, ProtocolProperties protocolProperties) {
+        this.webSocketHandler = webSocketHandler;
+        this.config = protocolProperties.getOcpp();
+    }
+
+    @PostConstruct
+    public void start() throws InterruptedException {
+        ByteBufAllocator allocator = new PooledByteBufAllocator(true);
+        bossGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("ocpp-netty-boss", true));
+        workerGroup = new NioEventLoopGroup(Math.max(0, config.getNettyWorkerThreads()),
+                new DefaultThreadFactory("ocpp-netty-io", true));
+
+        ServerBootstrap bootstrap = new ServerBootstrap()
+                .group(bossGroup, workerGroup)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_BACKLOG, 1024)
+                .option(ChannelOption.ALLOCATOR, allocator)
+                .childOption(ChannelOption.ALLOCATOR, allocator)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childOption(ChannelOption.SO_KEEPALIVE, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel channel) {
+                        initPipeline(channel.pipeline());
+                    }
+                });
+
+        serverChannel = bootstrap.bind(config.getPort()).sync().channel();
+        log.info("OCPP Netty transport listening on port {} (path {}/{chargerCode}, subprotocol {}, compression {}, io threads {})",
+                getBoundPort(), PATH_PREFIX, SUBPROTOCOL,
+                config.isCompressionEnabled() ? "on" : "off",
+                config.getNettyWorkerThreads() > 0 ? config.getNettyWorkerThreads() : "default");
+    }
+
+    /**
+     * 实际监听的端口（配置为0时由系统分配）
+     */
+    public int getBoundPort() {
+        return ((InetSocketAddress) serverChannel.localAddress()).getPort();
+    }
+
+    private void initPipeline(ChannelPipeline pipeline) {
+        int maxFrame = config.getMaxFramePayloadLength();
+        WebSocketServerProtocolConfig protocolConfig = WebSocketServerProtocolConfig.newBuilder()
+                .websocketPath(PATH_PREFIX)
+                .checkStartsWith(true)
+                .subprotocols(SUBPROTOCOL)
+                .allowExtensions(config.isCompressionEnabled())
+                .maxFramePayloadLength(maxFrame)
+                .handshakeTimeoutMillis(config.getHandshakeTimeout())
+                .handleCloseFrames(false)
+                .dropPongFrames(true)
+                .build();
+
+        pipeline.addLast(new HttpServerCodec());
+        pipeline.addLast(new HttpObjectAggregator(8192));
+        if (config.isCompressionEnabled()) {
+            pipeline.addLast(new WebSocketServerCompressionHandler());
+        }
+        pipeline.addLast(new WebSocketServerProtocolHandler(protocolConfig));
+        pipeline.addLast(new WebSocketFrameAggregator(maxFrame));
+        pipeline.addLast(new OCPPNettyFrameHandler(webSocketHandler, setupExecutor, maxFrame));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (serverChannel != null) {
+            serverChannel.close().syncUninterruptibly();
+        }
+        if (bossGroup != null) {
+            bossGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+        if (workerGroup != null) {
+            workerGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+        setupExecutor.shutdown();
+        try {
+            if (!setupExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                setupExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            setupExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        log.info("OCPP Netty transport stopped");
+    }
+}
@@ -1,16 +1,27 @@
 package com.evcs.protocol;
 
+import com.evcs.protocol.cluster.ChargerSessionDirectory;
+import com.evcs.protocol.cluster.NodeCommandForwarder;
 import com.evcs.protocol.config.ProtocolProperties;
 import com.evcs.protocol.dto.ProtocolRequest;
 import com.evcs.protocol.dto.ProtocolResponse;
+import com.evcs.protocol.dto.ocpp.OCPPFrameEncoder;
 import com.evcs.protocol.enums.ProtocolType;
+import com.evcs.protocol.mapper.ChargerDirectoryMapper;
+import com.evcs.protocol.metrics.ProtocolMetrics;
 import com.evcs.protocol.mq.ProtocolEventPublisher;
+import com.evcs.protocol.service.ChargerDirectory;
 import com.evcs.protocol.service.impl.OCPPProtocolServiceImpl;
+import com.evcs.protocol.transaction.OCPPTransactionRegistry;
+import com.evcs.protocol.websocket.OCPPPendingCallRegistry;
 import com.evcs.protocol.websocket.OCPPSessionManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
 
 /**
  * OCPP WebSocket协议测试
@@ -27,8 +38,16 @@ class OCPPWebSocketTest {
         ProtocolProperties properties = new ProtocolProperties();
         OCPPSessionManager sessionManager = new OCPPSessionManager();
         ProtocolEventPublisher eventPublisher = new ProtocolEventPublisher();
-
-        OCPPProtocolServiceImpl ocppService = new OCPPProtocolServiceImpl(properties, eventPublisher, sessionManager) {
+        OCPPPendingCallRegistry pendingCallRegistry = new OCPPPendingCallRegistry(
+                new OCPPFrameEncoder(), new ProtocolMetrics(new SimpleMeterRegistry()), properties);
+        ChargerDirectory chargerDirectory = new ChargerDirectory(mock(ChargerDirectoryMapper.class));
+        OCPPTransactionRegistry transactionRegistry = mock(OCPPTransactionRegistry.class);
+        ChargerSessionDirectory sessionDirectory = mock(ChargerSessionDirectory.class);
+        @SuppressWarnings("unchecked")
+        ObjectProvider<NodeCommandForwarder> commandForwarder = mock(ObjectProvider.class);
+
+        OCPPProtocolServiceImpl ocppService = new OCPPProtocolServiceImpl(properties, eventPublisher, sessionManager, pendingCallRegistry,
+                chargerDirectory, transactionRegistry, sessionDirectory, commandForwarder) {
             @Override
             protected boolean doConnect(String deviceCode, ProtocolType protocolType) {
                 return true;
@@ -126,8 +145,16 @@ class OCPPWebSocketTest {
         ProtocolProperties properties = new ProtocolProperties();
         OCPPSessionManager sessionManager = new OCPPSessionManager();
         ProtocolEventPublisher eventPublisher = new ProtocolEventPublisher();
-
-        OCPPProtocolServiceImpl ocppService = new OCPPProtocolServiceImpl(properties, eventPublisher, sessionManager) {
+        OCPPPendingCallRegistry pendingCallRegistry = new OCPPPendingCallRegistry(
+                new OCPPFrameEncoder(), new ProtocolMetrics(new SimpleMeterRegistry()), properties);
+        ChargerDirectory chargerDirectory = new ChargerDirectory(mock(ChargerDirectoryMapper.class));
+        OCPPTransactionRegistry transactionRegistry = mock(OCPPTransactionRegistry.class);
+        ChargerSessionDirectory sessionDirectory = mock(ChargerSessionDirectory.class);
+        @SuppressWarnings("unchecked")
+        ObjectProvider<NodeCommandForwarder> commandForwarder = mock(ObjectProvider.class);
+
+        OCPPProtocolServiceImpl ocppService = new OCPPProtocolServiceImpl(properties, eventPublisher, sessionManager, pendingCallRegistry,
+                chargerDirectory, transactionRegistry, sessionDirectory, commandForwarder) {
             @Override
             protected boolean doConnect(String deviceCode, ProtocolType protocolType) {
                 return ProtocolType.OCPP.equals(protocolType);
@@ -223,8 +250,16 @@ class OCPPWebSocketTest {
         ProtocolProperties properties = new ProtocolProperties();
         OCPPSessionManager sessionManager = new OCPPSessionManager();
         ProtocolEventPublisher eventPublisher = new ProtocolEventPublisher();
-
-        OCPPProtocolServiceImpl ocppService = new OCPPProtocolServiceImpl(properties, eventPublisher, sessionManager) {
+        OCPPPendingCallRegistry pendingCallRegistry = new OCPPPendingCallRegistry(
+                new OCPPFrameEncoder(), new ProtocolMetrics(new SimpleMeterRegistry()), properties);
+        ChargerDirectory chargerDirectory = new ChargerDirectory(mock(ChargerDirectoryMapper.class));
+        OCPPTransactionRegistry transactionRegistry = mock(OCPPTransactionRegistry.class);
+        ChargerSessionDirectory sessionDirectory = mock(ChargerSessionDirectory.class);
+        @SuppressWarnings("unchecked")
+        ObjectProvider<NodeCommandForwarder> commandForwarder = mock(ObjectProvider.class);
+
+        OCPPProtocolServiceImpl ocppService = new OCPPProtocolServiceImpl(properties, eventPublisher, sessionManager, pendingCallRegistry,
+                chargerDirectory, transactionRegistry, sessionDirectory, commandForwarder) {
             @Override
             protected boolean doConnect(String deviceCode, ProtocolType protocolType) {
                 return false;
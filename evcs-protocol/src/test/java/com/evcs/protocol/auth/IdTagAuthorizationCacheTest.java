@@ -0,0 +1,167 @@
+package com.evcs.protocol.auth;
+
+import com.evcs.protocol.auth.IdTagAuthorizationCache.IdTagInfo;
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.dto.IdTagAuthorization;
+import com.evcs.protocol.event.IdTagRevokedEvent;
+import com.evcs.protocol.mapper.IdTagAuthorizationMapper;
+import com.evcs.protocol.metrics.ProtocolMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * idTag授权缓存测试
+ */
+@DisplayName("idTag授权缓存测试")
+class IdTagAuthorizationCacheTest {
+
+    private static final long TENANT = 100L;
+
+    private IdTagAuthorizationMapper mapper;
+    private IdTagAuthorizationCache cache;
+    private final AtomicLong clock = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        mapper = mock(IdTagAuthorizationMapper.class);
+        ProtocolProperties properties = new ProtocolProperties();
+        properties.getOcpp().setAuthorizationCacheTtl(600);
+        properties.getOcpp().setAuthorizationNegativeTtl(30);
+        cache = new IdTagAuthorizationCache(mapper, new ProtocolMetrics(new SimpleMeterRegistry()), properties, clock::get);
+    }
+
+    private void advanceSeconds(long seconds) {
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    private static IdTagAuthorization card(String idTag, int status, LocalDateTime expireTime) {
+        return new IdTagAuthorization(idTag, TENANT, 7L, status, expireTime);
+    }
+
+    @Test
+    @DisplayName("有效卡片按正向TTL缓存，过期后回源")
+    void testPositiveEntryCached() {
+        // Given
+        when(mapper.selectCard(TENANT, "CARD-1")).thenReturn(card("CARD-1", 1, null));
+
+        // When
+        IdTagInfo first = cache.authorize(TENANT, "CARD-1");
+        advanceSeconds(599);
+        IdTagInfo second = cache.authorize(TENANT, "CARD-1");
+
+        // Then
+        assertTrue(first.isAccepted());
+        assertSame(first, second);
+        verify(mapper, times(1)).selectCard(TENANT, "CARD-1");
+
+        // When - 超过正向TTL
+        advanceSeconds(2);
+        cache.authorize(TENANT, "CARD-1");
+
+        // Then
+        verify(mapper, times(2)).selectCard(TENANT, "CARD-1");
+    }
+
+    @Test
+    @DisplayName("未知、停用、过期的idTag按负向TTL缓存")
+    void testNegativeEntryCached() {
+        // Given
+        when(mapper.selectCard(TENANT, "CARD-B")).thenReturn(card("CARD-B", 0, null));
+        when(mapper.selectCard(TENANT, "CARD-E")).thenReturn(card("CARD-E", 1, LocalDateTime.now().minusDays(1)));
+
+        // When & Then
+        assertEquals(IdTagAuthorizationCache.INVALID, cache.authorize(TENANT, "UNKNOWN").status());
+        assertEquals(IdTagAuthorizationCache.BLOCKED, cache.authorize(TENANT, "CARD-B").status());
+        assertEquals(IdTagAuthorizationCache.EXPIRED, cache.authorize(TENANT, "CARD-E").status());
+        advanceSeconds(29);
+        cache.authorize(TENANT, "UNKNOWN");
+        verify(mapper, times(1)).selectCard(TENANT, "UNKNOWN");
+
+        // When - 超过负向TTL
+        advanceSeconds(2);
+        cache.authorize(TENANT, "UNKNOWN");
+
+        // Then
+        verify(mapper, times(2)).selectCard(TENANT, "UNKNOWN");
+    }
+
+    @Test
+    @DisplayName("平台用户idTag按用户状态校验，未识别的充电桩拒绝")
+    void testUserTagAndUnknownTenant() {
+        // Given
+        when(mapper.selectUser(TENANT, 42L)).thenReturn(new IdTagAuthorization("USER_42", TENANT, 42L, 1, null));
+
+        // When & Then
+        assertTrue(cache.authorize(TENANT, "USER_42").isAccepted());
+        assertEquals(IdTagAuthorizationCache.INVALID, cache.authorize(TENANT, "USER_43").status());
+        assertEquals(IdTagAuthorizationCache.INVALID, cache.authorize(null, "USER_42").status());
+        assertEquals(IdTagAuthorizationCache.INVALID, cache.authorize(TENANT, " ").status());
+        verify(mapper, never()).selectCard(anyLong(), anyString());
+    }
+
+    @Test
+    @DisplayName("预热后不回源，停用事件失效对应条目")
+    void testWarmUpAndRevoke() {
+        // Given
+        when(mapper.selectActiveCards(eq(TENANT), anyInt())).thenReturn(List.of(
+                card("CARD-1", 1, null), card("CARD-2", 1, null)));
+        cache.warmUp(TENANT);
+
+        // When
+        boolean accepted = cache.authorize(TENANT, "CARD-2").isAccepted();
+        when(mapper.selectCard(TENANT, "CARD-2")).thenReturn(card("CARD-2", 0, null));
+        cache.onIdTagRevoked(new IdTagRevokedEvent(this, TENANT, "CARD-2"));
+
+        // Then
+        assertTrue(accepted);
+        assertEquals(IdTagAuthorizationCache.BLOCKED, cache.authorize(TENANT, "CARD-2").status());
+        assertTrue(cache.authorize(TENANT, "CARD-1").isAccepted());
+        verify(mapper, never()).selectCard(TENANT, "CARD-1");
+
+        // When - 失效整个租户
+        cache.invalidate(TENANT, null);
+
+        // Then
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("回源失败时沿用过期条目，没有条目时拒绝")
+    void testStaleEntryOnLoadFailure() {
+        // Given
+        when(mapper.selectCard(TENANT, "CARD-1")).thenReturn(card("CARD-1", 1, null));
+        cache.authorize(TENANT, "CARD-1");
+        advanceSeconds(601);
+        when(mapper.selectCard(eq(TENANT), anyString())).thenThrow(new RuntimeException("connection refused"));
+
+        // When & Then
+        assertTrue(cache.authorize(TENANT, "CARD-1").isAccepted());
+        assertEquals(IdTagAuthorizationCache.INVALID, cache.authorize(TENANT, "CARD-2").status());
+    }
+
+    @Test
+    @DisplayName("关闭校验时接受任意非空idTag")
+    void testDisabled() {
+        // Given
+        ProtocolProperties properties = new ProtocolProperties();
+        properties.getOcpp().setAuthorizationEnabled(false);
+        IdTagAuthorizationCache disabled = new IdTagAuthorizationCache(
+                mapper, new ProtocolMetrics(new SimpleMeterRegistry()), properties, clock::get);
+
+        // When & Then
+        assertTrue(disabled.authorize(null, "ANY").isAccepted());
+        assertFalse(disabled.authorize(null, "").isAccepted());
+        verifyNoInteractions(mapper);
+    }
+}
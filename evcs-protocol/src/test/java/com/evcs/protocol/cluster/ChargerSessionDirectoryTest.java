@@ -0,0 +1,185 @@
+package com.evcs.protocol.cluster;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.metrics.ProtocolMetrics;
+import com.evcs.protocol.websocket.OCPPSessionManager;
+import com.evcs.protocol.websocket.OCPPWebSocketSession;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 充电桩会话目录测试
+ */
+@DisplayName("充电桩会话目录测试")
+class ChargerSessionDirectoryTest {
+
+    private static final String NODE_ID = "node-a";
+
+    private final AtomicLong clock = new AtomicLong();
+    private ProtocolProperties properties;
+    private OCPPSessionManager sessionManager;
+    private StringRedisTemplate redisTemplate;
+    private ValueOperations<String, String> valueOperations;
+    private ChargerSessionDirectory directory;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        properties = new ProtocolProperties();
+        properties.getOcpp().setMaxConnections(2000);
+        ProtocolProperties.ClusterConfig config = properties.getCluster();
+        config.setEnabled(true);
+        config.setNodeId(NODE_ID);
+        config.setLeaseTtl(90);
+        config.setNearCacheTtl(5000);
+        sessionManager = new OCPPSessionManager(properties);
+        redisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (directory != null) {
+            directory.shutdown();
+        }
+        sessionManager.shutdown();
+    }
+
+    private ChargerSessionDirectory newDirectory() {
+        directory = new ChargerSessionDirectory(sessionManager, new ProtocolMetrics(new SimpleMeterRegistry()),
+                properties, redisTemplate, clock::get);
+        return directory;
+    }
+
+    private void connect(String chargerCode) {
+        WebSocketSession webSocketSession = mock(WebSocketSession.class);
+        when(webSocketSession.getId()).thenReturn("ws-" + chargerCode);
+        when(webSocketSession.isOpen()).thenReturn(true);
+        assertTrue(sessionManager.addSession(new OCPPWebSocketSession(webSocketSession, chargerCode)));
+    }
+
+    @Test
+    @DisplayName("查询结果在本地缓存有效期内不回源Redis，不在线的结果同样缓存")
+    void testNearCache() {
+        // Given
+        ChargerSessionDirectory directory = newDirectory();
+        when(valueOperations.get(ChargerSessionDirectory.KEY_PREFIX + "CP001")).thenReturn("node-b");
+
+        // When
+        String first = directory.lookup("CP001");
+        String second = directory.lookup("CP001");
+        assertNull(directory.lookup("CP404"));
+        assertNull(directory.lookup("CP404"));
+
+        // Then
+        assertEquals("node-b", first);
+        assertEquals("node-b", second);
+        verify(valueOperations, times(1)).get(ChargerSessionDirectory.KEY_PREFIX + "CP001");
+        verify(valueOperations, times(1)).get(ChargerSessionDirectory.KEY_PREFIX + "CP404");
+
+        // When - 缓存过期或被清除后回源
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(5000));
+        directory.lookup("CP001");
+        directory.invalidate("CP404");
+        directory.lookup("CP404");
+
+        // Then
+        verify(valueOperations, times(2)).get(ChargerSessionDirectory.KEY_PREFIX + "CP001");
+        verify(valueOperations, times(2)).get(ChargerSessionDirectory.KEY_PREFIX + "CP404");
+    }
+
+    @Test
+    @DisplayName("Redis中遗留的本节点记录不作为转发目标")
+    void testOwnNodeIsNotRoute() {
+        // Given
+        ChargerSessionDirectory directory = newDirectory();
+        when(valueOperations.get(ChargerSessionDirectory.KEY_PREFIX + "CP001")).thenReturn(NODE_ID);
+
+        // When & Then
+        assertNull(directory.lookup("CP001"));
+    }
+
+    @Test
+    @DisplayName("本节点全部在线充电桩的租约分批以流水线续期，每个脚本调用只涉及一个key")
+    @SuppressWarnings("unchecked")
+    void testRenewLeasesInBatches() {
+        // Given
+        for (int i = 0; i < 1200; i++) {
+            connect("CP" + i);
+        }
+        List<byte[][]> evaluated = Collections.synchronizedList(new ArrayList<>());
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisScriptingCommands scriptingCommands = mock(RedisScriptingCommands.class);
+        when(connection.scriptingCommands()).thenReturn(scriptingCommands);
+        when(scriptingCommands.eval(any(byte[].class), eq(ReturnType.INTEGER), eq(1), any(byte[][].class)))
+                .thenAnswer(invocation -> {
+                    Object[] arguments = invocation.getArguments();
+                    byte[][] keysAndArgs = new byte[arguments.length - 3][];
+                    for (int i = 3; i < arguments.length; i++) {
+                        keysAndArgs[i - 3] = (byte[]) arguments[i];
+                    }
+                    evaluated.add(keysAndArgs);
+                    return null;
+                });
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            int before = evaluated.size();
+            ((RedisCallback<Object>) invocation.getArgument(0)).doInRedis(connection);
+            return new ArrayList<Object>(Collections.nCopies(evaluated.size() - before, 1L));
+        });
+        ChargerSessionDirectory directory = newDirectory();
+
+        // When
+        long renewed = directory.renewLeases();
+
+        // Then
+        assertEquals(1200, renewed);
+        verify(redisTemplate, times(3)).executePipelined(any(RedisCallback.class));
+        assertEquals(1200, evaluated.size());
+        for (byte[][] keysAndArgs : evaluated) {
+            assertEquals(3, keysAndArgs.length);
+            assertTrue(new String(keysAndArgs[0], StandardCharsets.UTF_8).startsWith(ChargerSessionDirectory.KEY_PREFIX));
+            assertEquals(NODE_ID, new String(keysAndArgs[1], StandardCharsets.UTF_8));
+            assertEquals("90", new String(keysAndArgs[2], StandardCharsets.UTF_8));
+        }
+        verify(valueOperations, never()).set(anyString(), anyString(), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    @DisplayName("未启用集群时只在本节点查询，不访问Redis")
+    void testDisabled() {
+        // Given
+        properties.getCluster().setEnabled(false);
+        ChargerSessionDirectory directory = newDirectory();
+
+        // When
+        directory.register("CP001");
+        String nodeId = directory.lookup("CP001");
+
+        // Then
+        assertFalse(directory.isEnabled());
+        assertNull(nodeId);
+        verifyNoInteractions(redisTemplate);
+    }
+}
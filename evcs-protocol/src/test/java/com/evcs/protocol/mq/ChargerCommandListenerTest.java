@@ -0,0 +1,83 @@
+package com.evcs.protocol.mq;
+
+import com.evcs.protocol.cluster.NodeCommand;
+import com.evcs.protocol.service.impl.OCPPProtocolServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 充电桩指令监听测试
+ */
+@DisplayName("充电桩指令监听测试")
+class ChargerCommandListenerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private OCPPProtocolServiceImpl protocolService;
+    private ChargerCommandListener listener;
+
+    @BeforeEach
+    void setUp() {
+        protocolService = mock(OCPPProtocolServiceImpl.class);
+        listener = new ChargerCommandListener(protocolService);
+    }
+
+    private Message request(NodeCommand command) throws Exception {
+        return MessageBuilder.withBody(objectMapper.writeValueAsBytes(command)).build();
+    }
+
+    private NodeCommand.Reply reply(CompletableFuture<Message> future) throws Exception {
+        return objectMapper.readValue(future.get(5, TimeUnit.SECONDS).getBody(), NodeCommand.Reply.class);
+    }
+
+    @Test
+    @DisplayName("充电桩应答后才回复远程启动结果")
+    void testStartChargingReplyFollowsChargerAck() throws Exception {
+        // Given
+        CompletableFuture<Boolean> ack = new CompletableFuture<>();
+        when(protocolService.startChargingAsync("CP001", "S1", 7L)).thenReturn(ack);
+
+        // When
+        CompletableFuture<Message> accepted = listener.onCommand(request(NodeCommand.startCharging("CP001", "S1", 7L)));
+
+        // Then
+        assertFalse(accepted.isDone());
+        ack.complete(true);
+        assertEquals("Accepted", reply(accepted).status());
+
+        // When - 拒绝
+        when(protocolService.startChargingAsync("CP001", "S2", 7L)).thenReturn(CompletableFuture.completedFuture(false));
+        assertEquals("Rejected", reply(listener.onCommand(request(NodeCommand.startCharging("CP001", "S2", 7L)))).status());
+    }
+
+    @Test
+    @DisplayName("充电桩不在线或指令非法时在应答中返回原因")
+    void testFailureReply() throws Exception {
+        // Given
+        when(protocolService.startChargingAsync("CP404", "S1", 7L))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Charger CP404 is not connected")));
+
+        // When
+        NodeCommand.Reply offline = reply(listener.onCommand(request(NodeCommand.startCharging("CP404", "S1", 7L))));
+        NodeCommand.Reply malformed = reply(listener.onCommand(
+                MessageBuilder.withBody("not-json".getBytes(StandardCharsets.UTF_8)).build()));
+        NodeCommand.Reply unsupported = reply(listener.onCommand(request(NodeCommand.stopCharging("CP001", "S1"))));
+
+        // Then
+        assertEquals("Charger CP404 is not connected", offline.error());
+        assertNull(offline.status());
+        assertNotNull(malformed.error());
+        assertNotNull(unsupported.error());
+        verify(protocolService, never()).startChargingAsync(eq("CP001"), any(), any());
+    }
+}
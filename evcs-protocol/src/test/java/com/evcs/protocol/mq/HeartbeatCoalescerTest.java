@@ -0,0 +1,129 @@
+package com.evcs.protocol.mq;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.event.ConnectivityEvent;
+import com.evcs.protocol.event.LastSeenSnapshotEvent;
+import com.evcs.protocol.event.ProtocolEvent;
+import com.evcs.protocol.metrics.ProtocolMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 心跳合并测试
+ */
+@DisplayName("心跳合并测试")
+class HeartbeatCoalescerTest {
+
+    private ProtocolEventSender eventSender;
+    private HeartbeatCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        eventSender = mock(ProtocolEventSender.class);
+        ProtocolProperties properties = new ProtocolProperties();
+        properties.getEventPublish().setHeartbeatCoalesceWindow(60_000);
+        properties.getEventPublish().setOfflineTimeout(60_000);
+        properties.getEventPublish().setSnapshotMaxEntries(2);
+        coalescer = new HeartbeatCoalescer(eventSender, new ProtocolMetrics(new SimpleMeterRegistry()), properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        coalescer.shutdown();
+    }
+
+    private List<ProtocolEvent> sentEvents() {
+        ArgumentCaptor<ProtocolEvent> captor = ArgumentCaptor.forClass(ProtocolEvent.class);
+        verify(eventSender, atLeast(0)).send(captor.capture());
+        return captor.getAllValues();
+    }
+
+    @Test
+    @DisplayName("首次心跳发布上线事件，后续心跳只合并不发布")
+    void testOnlineTransitionOnly() {
+        // When
+        for (int i = 0; i < 10; i++) {
+            coalescer.record(1L, 100L, "OCPP", LocalDateTime.now());
+        }
+
+        // Then
+        List<ProtocolEvent> events = sentEvents();
+        assertEquals(1, events.size());
+        ConnectivityEvent online = assertInstanceOf(ConnectivityEvent.class, events.get(0));
+        assertTrue(online.getOnline());
+        assertEquals(1L, online.getChargerId());
+        assertEquals(100L, online.getTenantId());
+        assertEquals("protocol.heartbeat.online", online.getRoutingKey());
+        assertTrue(coalescer.isOnline(1L));
+    }
+
+    @Test
+    @DisplayName("一个窗口内有心跳的充电桩汇总为快照，超过单条上限时拆分")
+    void testSnapshotCoversManyChargers() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        coalescer.record(1L, 100L, "OCPP", now.minusSeconds(2));
+        coalescer.record(1L, 100L, "OCPP", now);
+        coalescer.record(2L, 100L, "OCPP", now);
+        coalescer.record(3L, 200L, "CloudCharge", now);
+        reset(eventSender);
+
+        // When
+        int entries = coalescer.flush();
+
+        // Then
+        assertEquals(3, entries);
+        List<ProtocolEvent> events = sentEvents();
+        assertEquals(2, events.size());
+        LastSeenSnapshotEvent first = assertInstanceOf(LastSeenSnapshotEvent.class, events.get(0));
+        LastSeenSnapshotEvent second = assertInstanceOf(LastSeenSnapshotEvent.class, events.get(1));
+        assertEquals(3, first.getChargerIds().length + second.getChargerIds().length);
+        assertEquals("protocol.heartbeat.snapshot", first.getRoutingKey());
+
+        // 没有新心跳的窗口不发布快照
+        reset(eventSender);
+        assertEquals(0, coalescer.flush());
+        verify(eventSender, never()).send(any());
+    }
+
+    @Test
+    @DisplayName("心跳超时或连接断开时发布离线事件，再次心跳重新上线")
+    void testOfflineTransitions() {
+        // Given
+        coalescer.record(1L, 100L, "OCPP", LocalDateTime.now().minusMinutes(5));
+        coalescer.record(2L, 100L, "OCPP", LocalDateTime.now());
+        reset(eventSender);
+
+        // When
+        coalescer.flush();
+        coalescer.markOffline(2L);
+
+        // Then
+        List<ConnectivityEvent> offline = sentEvents().stream()
+                .filter(ConnectivityEvent.class::isInstance)
+                .map(ConnectivityEvent.class::cast)
+                .toList();
+        assertEquals(2, offline.size());
+        assertTrue(offline.stream().noneMatch(ConnectivityEvent::getOnline));
+        assertFalse(coalescer.isOnline(1L));
+        assertFalse(coalescer.isOnline(2L));
+
+        // When - 离线后再次心跳
+        reset(eventSender);
+        coalescer.record(1L, 100L, "OCPP", LocalDateTime.now());
+
+        // Then
+        ConnectivityEvent online = assertInstanceOf(ConnectivityEvent.class, sentEvents().get(0));
+        assertTrue(online.getOnline());
+    }
+}
@@ -0,0 +1,76 @@
+package com.evcs.protocol.mq;
+
+import com.evcs.protocol.auth.IdTagAuthorizationCache;
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.dto.IdTagAuthorization;
+import com.evcs.protocol.dto.IdTagRevocation;
+import com.evcs.protocol.event.IdTagRevokedEvent;
+import com.evcs.protocol.mapper.IdTagAuthorizationMapper;
+import com.evcs.protocol.metrics.ProtocolMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * idTag授权撤销监听测试
+ */
+@DisplayName("idTag授权撤销监听测试")
+class IdTagRevocationListenerTest {
+
+    private static final long TENANT = 100L;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private IdTagAuthorizationMapper mapper;
+    private IdTagAuthorizationCache cache;
+    private IdTagRevocationListener listener;
+
+    @BeforeEach
+    void setUp() {
+        mapper = mock(IdTagAuthorizationMapper.class);
+        ProtocolProperties properties = new ProtocolProperties();
+        properties.getOcpp().setAuthorizationCacheTtl(600);
+        cache = new IdTagAuthorizationCache(mapper, new ProtocolMetrics(new SimpleMeterRegistry()), properties);
+        listener = new IdTagRevocationListener(event -> cache.onIdTagRevoked((IdTagRevokedEvent) event));
+    }
+
+    @Test
+    @DisplayName("收到用户禁用广播后失效缓存条目，下次授权回源")
+    void testRevocationEvictsCachedEntry() throws Exception {
+        // Given
+        when(mapper.selectUser(TENANT, 42L)).thenReturn(new IdTagAuthorization("USER_42", TENANT, 42L, 1, null));
+        assertTrue(cache.authorize(TENANT, "USER_42").isAccepted());
+        when(mapper.selectUser(TENANT, 42L)).thenReturn(new IdTagAuthorization("USER_42", TENANT, 42L, 0, null));
+
+        // When
+        listener.onIdTagRevocation(MessageBuilder
+                .withBody(objectMapper.writeValueAsBytes(new IdTagRevocation(TENANT, "USER_42"))).build());
+
+        // Then
+        assertEquals(IdTagAuthorizationCache.BLOCKED, cache.authorize(TENANT, "USER_42").status());
+        verify(mapper, times(2)).selectUser(TENANT, 42L);
+    }
+
+    @Test
+    @DisplayName("格式错误或缺少租户的广播被丢弃")
+    void testMalformedRevocationIgnored() throws Exception {
+        // Given
+        when(mapper.selectUser(TENANT, 42L)).thenReturn(new IdTagAuthorization("USER_42", TENANT, 42L, 1, null));
+        cache.authorize(TENANT, "USER_42");
+
+        // When
+        listener.onIdTagRevocation(MessageBuilder.withBody("not-json".getBytes(StandardCharsets.UTF_8)).build());
+        listener.onIdTagRevocation(MessageBuilder
+                .withBody(objectMapper.writeValueAsBytes(new IdTagRevocation(null, "USER_42"))).build());
+
+        // Then
+        assertEquals(1, cache.size());
+    }
+}
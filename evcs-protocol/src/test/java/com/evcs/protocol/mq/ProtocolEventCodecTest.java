@@ -0,0 +1,152 @@
+package com.evcs.protocol.mq;
+
+import com.evcs.protocol.event.ConnectivityEvent;
+import com.evcs.protocol.event.HeartbeatEvent;
+import com.evcs.protocol.event.LastSeenSnapshotEvent;
+import com.evcs.protocol.event.ProtocolEvent;
+import com.evcs.protocol.event.StartEvent;
+import com.evcs.protocol.event.StatusEvent;
+import com.evcs.protocol.event.StopEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 协议事件二进制编解码测试
+ */
+@DisplayName("协议事件二进制编解码测试")
+class ProtocolEventCodecTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2026, 10, 18, 8, 30, 15, 123_000_000);
+
+    private static <T extends ProtocolEvent> T roundTrip(T event) {
+        @SuppressWarnings("unchecked")
+        T decoded = (T) ProtocolEventCodec.decode(ProtocolEventCodec.encode(event));
+        assertEquals(event.getClass(), decoded.getClass());
+        return decoded;
+    }
+
+    @Test
+    @DisplayName("各类事件编码后解码与原事件一致")
+    void testRoundTripAllTypes() {
+        // Given
+        HeartbeatEvent heartbeat = HeartbeatEvent.builder()
+                .eventId(UUID.randomUUID().toString()).chargerId(1001L).tenantId(1L)
+                .eventType(ProtocolEvent.EventType.HEARTBEAT).eventTime(TIME).protocolType("OCPP")
+                .lastHeartbeatTime(TIME.minusSeconds(30))
+                .build();
+        StatusEvent status = StatusEvent.builder()
+                .eventId(UUID.randomUUID().toString()).chargerId(1001L).tenantId(1L)
+                .eventType(ProtocolEvent.EventType.STATUS_CHANGE).eventTime(TIME).protocolType("CloudCharge")
+                .oldStatus(1).newStatus(2).statusDesc("充电中")
+                .build();
+        StartEvent start = StartEvent.builder()
+                .eventId("start-001").chargerId(1001L).tenantId(1L)
+                .eventType(ProtocolEvent.EventType.CHARGING_START).eventTime(TIME).protocolType("OCPP")
+                .sessionId("S1").userId(42L).orderNo("ORD20261018001").initialEnergy(12.5).success(true).message("ok")
+                .build();
+        StopEvent stop = StopEvent.builder()
+                .eventId(UUID.randomUUID().toString()).chargerId(-5L).tenantId(Long.MAX_VALUE)
+                .eventType(ProtocolEvent.EventType.CHARGING_STOP).eventTime(TIME).protocolType("Custom")
+                .sessionId("S1").orderNo("ORD20261018001").energy(30.25).duration(95L).reason("Local").success(false)
+                .build();
+        ConnectivityEvent connectivity = ConnectivityEvent.builder()
+                .eventId(UUID.randomUUID().toString()).chargerId(1001L).tenantId(1L)
+                .eventType(ProtocolEvent.EventType.CONNECTIVITY).eventTime(TIME).protocolType("OCPP")
+                .online(false).lastSeenTime(TIME.minusMinutes(3))
+                .build();
+        LastSeenSnapshotEvent snapshot = LastSeenSnapshotEvent.builder()
+                .eventId(UUID.randomUUID().toString())
+                .eventType(ProtocolEvent.EventType.LAST_SEEN).eventTime(TIME)
+                .chargerIds(new long[]{1001, 1002, 17, Long.MAX_VALUE})
+                .tenantIds(new long[]{1, 1, 2, 0})
+                .lastSeen(new long[]{1_760_000_000_000L, 1_760_000_000_500L, 1_759_999_999_000L, 0})
+                .build();
+
+        // When / Then
+        assertEquals(heartbeat, roundTrip(heartbeat));
+        assertEquals(status, roundTrip(status));
+        assertEquals(start, roundTrip(start));
+        assertEquals(stop, roundTrip(stop));
+        assertEquals(connectivity, roundTrip(connectivity));
+
+        LastSeenSnapshotEvent decoded = roundTrip(snapshot);
+        assertNull(decoded.getChargerId());
+        assertArrayEquals(snapshot.getChargerIds(), decoded.getChargerIds());
+        assertArrayEquals(snapshot.getTenantIds(), decoded.getTenantIds());
+        assertArrayEquals(snapshot.getLastSeen(), decoded.getLastSeen());
+    }
+
+    @Test
+    @DisplayName("空字段只占位图，时间截断到毫秒")
+    void testNullFieldsAndMillisPrecision() {
+        // Given
+        HeartbeatEvent event = HeartbeatEvent.builder()
+                .eventTime(TIME.plusNanos(456_789))
+                .build();
+
+        // When
+        byte[] encoded = ProtocolEventCodec.encode(event);
+        HeartbeatEvent decoded = (HeartbeatEvent) ProtocolEventCodec.decode(encoded);
+
+        // Then
+        assertNull(decoded.getEventId());
+        assertNull(decoded.getChargerId());
+        assertNull(decoded.getEventType());
+        assertNull(decoded.getLastHeartbeatTime());
+        assertEquals(TIME, decoded.getEventTime());
+        assertTrue(encoded.length < 12, "encoded length " + encoded.length);
+    }
+
+    @Test
+    @DisplayName("版本不支持或数据截断时抛出异常")
+    void testRejectsInvalidPayload() {
+        // Given
+        byte[] encoded = ProtocolEventCodec.encode(HeartbeatEvent.builder()
+                .eventId(UUID.randomUUID().toString()).chargerId(1L).protocolType("OCPP").build());
+        byte[] wrongVersion = encoded.clone();
+        wrongVersion[0] = (byte) (ProtocolEventCodec.VERSION + 1);
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> ProtocolEventCodec.decode(wrongVersion));
+        assertThrows(IllegalArgumentException.class,
+                () -> ProtocolEventCodec.decode(Arrays.copyOf(encoded, encoded.length - 3)));
+    }
+
+    @Test
+    @DisplayName("转换器按content-type选择格式，JSON消息照常解析")
+    void testMessageConverterSelectsByContentType() {
+        // Given
+        ProtocolEventMessageConverter binary = new ProtocolEventMessageConverter(new Jackson2JsonMessageConverter(), true);
+        ProtocolEventMessageConverter json = new ProtocolEventMessageConverter(new Jackson2JsonMessageConverter(), false);
+        StatusEvent event = StatusEvent.builder()
+                .eventId(UUID.randomUUID().toString()).chargerId(1001L).tenantId(1L)
+                .eventType(ProtocolEvent.EventType.STATUS_CHANGE).protocolType("OCPP")
+                .oldStatus(1).newStatus(3).statusDesc("Faulted")
+                .build();
+
+        // When
+        Message binaryMessage = binary.toMessage(event, new MessageProperties());
+        Message jsonMessage = json.toMessage(event, new MessageProperties());
+
+        // Then
+        assertEquals(ProtocolEventCodec.CONTENT_TYPE, binaryMessage.getMessageProperties().getContentType());
+        assertEquals(MessageProperties.CONTENT_TYPE_JSON, jsonMessage.getMessageProperties().getContentType());
+        assertTrue(binaryMessage.getBody().length < jsonMessage.getBody().length / 3);
+        assertEquals(event, json.fromMessage(binaryMessage));
+        assertEquals(event, binary.fromMessage(jsonMessage));
+
+        binaryMessage.getMessageProperties().setContentType(ProtocolEventCodec.CONTENT_TYPE);
+        Message corrupt = new Message(new byte[]{99}, binaryMessage.getMessageProperties());
+        assertThrows(MessageConversionException.class, () -> binary.fromMessage(corrupt));
+    }
+}
@@ -0,0 +1,131 @@
+package com.evcs.protocol.mq;
+
+import com.evcs.protocol.event.HeartbeatEvent;
+import com.evcs.protocol.event.ProtocolEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 协议事件历史测试
+ */
+@DisplayName("协议事件历史测试")
+class ProtocolEventHistoryTest {
+
+    private static ProtocolEvent event(String eventId, Long chargerId, Long tenantId, ProtocolEvent.EventType type) {
+        return HeartbeatEvent.builder()
+                .eventId(eventId)
+                .chargerId(chargerId)
+                .tenantId(tenantId)
+                .eventType(type)
+                .eventTime(LocalDateTime.now())
+                .protocolType("OCPP")
+                .build();
+    }
+
+    private static List<String> ids(List<ProtocolEvent> events) {
+        return events.stream().map(ProtocolEvent::getEventId).toList();
+    }
+
+    @Test
+    @DisplayName("容量向上取整到2的幂，写满后覆盖最早的事件")
+    void testCapacityAndOverwrite() {
+        // Given
+        ProtocolEventHistory history = new ProtocolEventHistory(3);
+
+        // When
+        for (int i = 0; i < 6; i++) {
+            history.record(event("e" + i, 1L, 1L, ProtocolEvent.EventType.HEARTBEAT));
+        }
+
+        // Then
+        assertEquals(4, history.getCapacity());
+        assertEquals(6, history.getRecordedCount());
+        assertEquals(List.of("e5", "e4", "e3", "e2"), ids(history.query(null, null, null, 100)));
+    }
+
+    @Test
+    @DisplayName("按充电桩、租户和事件类型过滤，最新的在前并受条数限制")
+    void testQueryFilters() {
+        // Given
+        ProtocolEventHistory history = new ProtocolEventHistory(16);
+        history.record(event("a", 1L, 100L, ProtocolEvent.EventType.HEARTBEAT));
+        history.record(event("b", 2L, 100L, ProtocolEvent.EventType.STATUS_CHANGE));
+        history.record(event("c", 1L, 200L, ProtocolEvent.EventType.STATUS_CHANGE));
+        history.record(event("d", 1L, 100L, ProtocolEvent.EventType.STATUS_CHANGE));
+
+        // When / Then
+        assertEquals(List.of("d", "c", "a"), ids(history.query(1L, null, null, 10)));
+        assertEquals(List.of("d", "b", "a"), ids(history.query(null, 100L, null, 10)));
+        assertEquals(List.of("d", "c", "b"), ids(history.query(null, null, ProtocolEvent.EventType.STATUS_CHANGE, 10)));
+        assertEquals(List.of("d"), ids(history.query(1L, 100L, ProtocolEvent.EventType.STATUS_CHANGE, 10)));
+        assertEquals(List.of("d", "c"), ids(history.query(null, null, null, 2)));
+        assertTrue(history.query(null, null, null, 0).isEmpty());
+        assertEquals(3, history.count(e -> e.getEventType() == ProtocolEvent.EventType.STATUS_CHANGE));
+    }
+
+    @Test
+    @DisplayName("高频事件不会挤掉低频类型的历史")
+    void testPerTypeRetention() {
+        // Given
+        ProtocolEventHistory history = new ProtocolEventHistory(4);
+        history.record(event("status", 1L, 1L, ProtocolEvent.EventType.STATUS_CHANGE));
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            history.record(event("hb" + i, 1L, 1L, ProtocolEvent.EventType.HEARTBEAT));
+        }
+
+        // Then
+        assertTrue(history.query(null, null, null, 100).stream()
+                .noneMatch(e -> e.getEventType() == ProtocolEvent.EventType.STATUS_CHANGE));
+        assertEquals(List.of("status"), ids(history.query(null, null, ProtocolEvent.EventType.STATUS_CHANGE, 10)));
+    }
+
+    @Test
+    @DisplayName("并发写入不丢失计数且查询结果不重复")
+    void testConcurrentRecord() throws Exception {
+        // Given
+        ProtocolEventHistory history = new ProtocolEventHistory(1024);
+        int threads = 8;
+        int perThread = 1000;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    history.record(event(thread + "-" + i, (long) thread, 1L, ProtocolEvent.EventType.HEARTBEAT));
+                    if (i % 100 == 0) {
+                        history.query((long) thread, null, null, 10);
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals((long) threads * perThread, history.getRecordedCount());
+        List<ProtocolEvent> recent = history.query(null, null, null, Integer.MAX_VALUE);
+        // 被整圈超越的写入方可能留下旧序号的槽位，查询时跳过
+        assertTrue(recent.size() > 1024 - threads && recent.size() <= 1024);
+        Set<String> unique = new HashSet<>(ids(recent));
+        assertEquals(recent.size(), unique.size());
+    }
+}
@@ -0,0 +1,220 @@
+package com.evcs.protocol.mq;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.config.RabbitMQConfig;
+import com.evcs.protocol.event.HeartbeatEvent;
+import com.evcs.protocol.event.ProtocolEvent;
+import com.evcs.protocol.metrics.ProtocolMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.net.ConnectException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 协议事件异步发布测试
+ */
+@DisplayName("协议事件异步发布测试")
+class ProtocolEventSenderTest {
+
+    private RabbitTemplate rabbitTemplate;
+    private ProtocolEventSender sender;
+    private SimpleMeterRegistry meterRegistry;
+    private ProtocolMetrics metrics;
+    private final List<String> published = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean brokerDown = new AtomicBoolean();
+    private final AtomicInteger nacksRemaining = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        when(connectionFactory.isPublisherConfirms()).thenReturn(true);
+        rabbitTemplate = mock(RabbitTemplate.class);
+        when(rabbitTemplate.getConnectionFactory()).thenReturn(connectionFactory);
+
+        RabbitOperations operations = mock(RabbitOperations.class);
+        doAnswer(invocation -> {
+            ProtocolEvent event = invocation.getArgument(2);
+            CorrelationData correlation = invocation.getArgument(3);
+            boolean ack = nacksRemaining.getAndUpdate(n -> Math.max(0, n - 1)) == 0;
+            if (ack) {
+                published.add(event.getEventId());
+            }
+            correlation.getFuture().complete(new CorrelationData.Confirm(ack, ack ? null : "nack"));
+            return null;
+        }).when(operations).convertAndSend(eq(RabbitMQConfig.PROTOCOL_EXCHANGE), anyString(), any(Object.class), any(CorrelationData.class));
+        when(rabbitTemplate.invoke(any())).thenAnswer(invocation -> {
+            if (brokerDown.get()) {
+                throw new AmqpConnectException(new ConnectException("Connection refused"));
+            }
+            RabbitOperations.OperationsCallback<?> callback = invocation.getArgument(0);
+            return callback.doInRabbit(operations);
+        });
+
+        ProtocolProperties properties = new ProtocolProperties();
+        properties.getRetry().setMaxAttempts(3);
+        properties.getRetry().setDelay(10);
+        properties.getRetry().setMaxDelay(50);
+        properties.getEventPublish().setPublisherThreads(1);
+        properties.getEventPublish().setConfirmTimeout(200);
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new ProtocolMetrics(meterRegistry);
+        sender = new ProtocolEventSender(rabbitTemplate, metrics, properties);
+        sender.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sender.shutdown();
+    }
+
+    private static HeartbeatEvent heartbeat(String eventId) {
+        return HeartbeatEvent.builder()
+                .eventId(eventId)
+                .chargerId(1L)
+                .tenantId(1L)
+                .eventType(ProtocolEvent.EventType.HEARTBEAT)
+                .eventTime(LocalDateTime.now())
+                .protocolType("OCPP")
+                .lastHeartbeatTime(LocalDateTime.now())
+                .build();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    @DisplayName("事件异步发布并按提交顺序得到确认")
+    void testEventsPublishedInOrder() throws Exception {
+        // When
+        for (int i = 0; i < 10; i++) {
+            assertTrue(sender.send(heartbeat("e" + i)));
+        }
+
+        // Then
+        await(() -> published.size() == 10);
+        assertEquals(List.of("e0", "e1", "e2", "e3", "e4", "e5", "e6", "e7", "e8", "e9"), published);
+        assertEquals(0, sender.getQueueSize());
+    }
+
+    @Test
+    @DisplayName("批量提交的事件在同一通道调用中发布")
+    void testSendAllPublishedTogether() throws Exception {
+        // Given
+        List<ProtocolEvent> events = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            events.add(heartbeat("b" + i));
+        }
+
+        // When
+        assertEquals(20, sender.sendAll(events));
+
+        // Then
+        await(() -> published.size() == 20);
+        assertEquals("b0", published.get(0));
+        assertEquals("b19", published.get(19));
+        // 空闲轮询恰好在入队中途醒来时最多分成两批
+        verify(rabbitTemplate, atMost(2)).invoke(any());
+    }
+
+    @Test
+    @DisplayName("批量提交超出队列容量的部分进入溢出缓冲")
+    void testSendAllOverflowSpills() throws Exception {
+        // Given
+        ProtocolProperties properties = new ProtocolProperties();
+        properties.getEventPublish().setQueueCapacity(5);
+        properties.getEventPublish().setPublisherThreads(1);
+        properties.getRetry().setMaxAttempts(1);
+        properties.getRetry().setMaxDelay(50);
+        brokerDown.set(true);
+        ProtocolEventSender smallSender = new ProtocolEventSender(rabbitTemplate, metrics, properties);
+        smallSender.start();
+        List<ProtocolEvent> events = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            events.add(heartbeat("s" + i));
+        }
+
+        try {
+            // When
+            int accepted = smallSender.sendAll(events);
+
+            // Then
+            assertEquals(8, accepted);
+            await(() -> smallSender.getQueueSize() + smallSender.getSpillSize() == 8 && smallSender.getSpillSize() >= 3);
+        } finally {
+            smallSender.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("未确认的事件退避后重发")
+    void testNackedEventsRetried() throws Exception {
+        // Given
+        nacksRemaining.set(1);
+
+        // When
+        sender.send(heartbeat("e0"));
+
+        // Then
+        await(() -> published.contains("e0"));
+        assertTrue(sender.isBrokerAvailable());
+        assertEquals(1.0, meterRegistry.get("evcs.protocol.event.retried").counter().count());
+    }
+
+    @Test
+    @DisplayName("代理不可用时事件进入溢出缓冲，恢复后补发且调用方不受影响")
+    void testSpillWhileBrokerUnavailable() throws Exception {
+        // Given
+        brokerDown.set(true);
+
+        // When
+        assertTrue(sender.send(heartbeat("e0")));
+        await(() -> !sender.isBrokerAvailable());
+        assertTrue(sender.send(heartbeat("e1")));
+        await(() -> sender.getSpillSize() == 2);
+        brokerDown.set(false);
+
+        // Then
+        await(() -> published.size() == 2);
+        assertEquals(List.of("e0", "e1"), published);
+        await(sender::isBrokerAvailable);
+        assertEquals(0, sender.getSpillSize());
+    }
+
+    @Test
+    @DisplayName("RabbitTemplate不可用时不接收事件")
+    void testNoTemplate() {
+        // Given
+        ProtocolEventSender noop = new ProtocolEventSender(null, metrics, new ProtocolProperties());
+
+        // When / Then
+        assertFalse(noop.send(heartbeat("e0")));
+        noop.shutdown();
+    }
+}
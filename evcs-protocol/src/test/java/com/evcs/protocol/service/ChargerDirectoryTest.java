@@ -0,0 +1,148 @@
+package com.evcs.protocol.service;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.dto.ChargerIdentity;
+import com.evcs.protocol.event.ChargerChangedEvent;
+import com.evcs.protocol.mapper.ChargerDirectoryMapper;
+import com.evcs.protocol.mq.ChargerChangeListener;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 充电桩目录测试
+ */
+@DisplayName("充电桩目录测试")
+class ChargerDirectoryTest {
+
+    private ChargerDirectoryMapper mapper;
+    private ChargerDirectory directory;
+
+    @BeforeEach
+    void setUp() {
+        mapper = mock(ChargerDirectoryMapper.class);
+        directory = new ChargerDirectory(mapper);
+    }
+
+    @Test
+    @DisplayName("批量加载后按编码和ID解析不再回源")
+    void testResolveFromBulkLoad() {
+        // Given
+        when(mapper.selectAllIdentities()).thenReturn(List.of(
+                new ChargerIdentity("CP-A", 11L, 1L, 100L),
+                new ChargerIdentity("CP-B", 12L, 2L, 200L)
+        ));
+
+        // When
+        directory.reload();
+
+        // Then
+        ChargerIdentity identity = directory.resolve("CP-B");
+        assertEquals(12L, identity.getChargerId());
+        assertEquals(2L, identity.getStationId());
+        assertEquals(200L, identity.getTenantId());
+        assertEquals("CP-A", directory.findById(11L).getChargerCode());
+        verify(mapper, never()).selectIdentitiesByCode(anyString());
+        verify(mapper, never()).selectIdentityById(any());
+    }
+
+    @Test
+    @DisplayName("未命中时按编码回源一次并缓存")
+    void testResolveMissLoadsOnce() {
+        // Given
+        when(mapper.selectIdentitiesByCode("CP-C"))
+                .thenReturn(List.of(new ChargerIdentity("CP-C", 13L, 3L, 300L)));
+
+        // When
+        ChargerIdentity first = directory.resolve("CP-C");
+        ChargerIdentity second = directory.resolve("CP-C");
+
+        // Then
+        assertEquals(300L, first.getTenantId());
+        assertSame(first, second);
+        assertEquals(13L, directory.findById(13L).getChargerId());
+        verify(mapper, times(1)).selectIdentitiesByCode("CP-C");
+    }
+
+    @Test
+    @DisplayName("同一编码登记在多个租户下时不解析")
+    void testAmbiguousCode() {
+        // Given
+        when(mapper.selectAllIdentities()).thenReturn(List.of(
+                new ChargerIdentity("CP-DUP", 21L, 1L, 100L),
+                new ChargerIdentity("CP-DUP", 22L, 2L, 200L)
+        ));
+        directory.reload();
+
+        // When & Then
+        assertNull(directory.resolve("CP-DUP"));
+        assertEquals(200L, directory.findById(22L).getTenantId());
+        verify(mapper, never()).selectIdentitiesByCode(anyString());
+    }
+
+    @Test
+    @DisplayName("档案变更事件失效旧编码，下次解析回源")
+    void testInvalidateOnChargerChanged() {
+        // Given
+        when(mapper.selectAllIdentities()).thenReturn(List.of(new ChargerIdentity("CP-OLD", 31L, 1L, 100L)));
+        directory.reload();
+        when(mapper.selectIdentitiesByCode("CP-NEW"))
+                .thenReturn(List.of(new ChargerIdentity("CP-NEW", 31L, 1L, 100L)));
+
+        // When: 编码由 CP-OLD 改为 CP-NEW
+        directory.onChargerChanged(new ChargerChangedEvent(this, 31L, "CP-NEW"));
+
+        // Then
+        when(mapper.selectIdentitiesByCode("CP-OLD")).thenReturn(List.of());
+        assertNull(directory.resolve("CP-OLD"));
+        assertEquals(31L, directory.resolve("CP-NEW").getChargerId());
+    }
+
+    @Test
+    @DisplayName("充电站服务经MQ广播的档案变更失效本节点目录")
+    void testInvalidateOnBroadcastChange() throws Exception {
+        // Given
+        when(mapper.selectAllIdentities()).thenReturn(List.of(new ChargerIdentity("CP-D", 41L, 1L, 100L)));
+        directory.reload();
+        ChargerChangeListener listener = new ChargerChangeListener(directory);
+        byte[] body = new ObjectMapper().writeValueAsBytes(new ChargerChangedEvent(this, 41L, "CP-D").toChange());
+
+        // When: 充电桩被删除
+        listener.onChargerChange(new Message(body, new MessageProperties()));
+
+        // Then
+        when(mapper.selectIdentitiesByCode("CP-D")).thenReturn(List.of());
+        assertNull(directory.resolve("CP-D"));
+        verify(mapper).selectIdentitiesByCode("CP-D");
+    }
+
+    @Test
+    @DisplayName("按配置间隔定期全量重载")
+    void testPeriodicReload() throws Exception {
+        // Given
+        ProtocolProperties properties = new ProtocolProperties();
+        properties.getOcpp().setChargerDirectoryReloadInterval(1);
+        ChargerDirectory reloading = new ChargerDirectory(mapper, properties);
+        when(mapper.selectAllIdentities()).thenReturn(List.of(new ChargerIdentity("CP-E", 51L, 1L, 100L)));
+
+        try {
+            // When
+            reloading.warmUp();
+
+            // Then: 启动加载一次，之后每秒重载
+            verify(mapper, timeout(5000).atLeast(2)).selectAllIdentities();
+            assertEquals(51L, reloading.resolve("CP-E").getChargerId());
+        } finally {
+            reloading.shutdown();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.evcs.protocol.service;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.service.CloudChargeSignatureValidator.CloudChargeRequest;
+import com.evcs.protocol.service.CloudChargeSignatureValidator.Verification;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 云快充签名验证器测试
+ */
+@DisplayName("云快充签名验证器测试")
+class CloudChargeSignatureValidatorTest {
+
+    private static final String APP_SECRET = "app-secret";
+    private static final String VENDOR_SECRET = "vendor-secret";
+
+    private CloudChargeSignatureValidator validator;
+
+    @BeforeEach
+    void setUp() {
+        ProtocolProperties properties = new ProtocolProperties();
+        properties.getCloudCharge().setAppSecret(APP_SECRET);
+        ProtocolProperties.VendorConfig vendor = new ProtocolProperties.VendorConfig();
+        vendor.setSecret(VENDOR_SECRET);
+        ProtocolProperties.VendorConfig disabled = new ProtocolProperties.VendorConfig();
+        disabled.setSecret("disabled-secret");
+        disabled.setEnabled(false);
+        properties.getCloudCharge().setVendors(Map.of("star", vendor, "legacy", disabled));
+        validator = new CloudChargeSignatureValidator(properties);
+    }
+
+    @Test
+    @DisplayName("签名与标准HMAC-SHA256一致，业务数据按键排序")
+    void testSignatureMatchesReferenceHmac() throws Exception {
+        // Given
+        CloudChargeRequest request = request("REQ-1");
+        String signString = "requestId=REQ-1&apiVersion=3.0&timestamp=" + request.getTimestamp()
+                + "&deviceCode=CP001&action=status&connectorId=1&status=2";
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(APP_SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        String expected = HexFormat.of().formatHex(mac.doFinal(signString.getBytes(StandardCharsets.UTF_8)));
+
+        // When
+        String signature = validator.generateSignature(request);
+
+        // Then
+        assertEquals(expected, signature);
+        request.setSignature(signature.toUpperCase());
+        assertTrue(validator.validateSignature(request));
+    }
+
+    @Test
+    @DisplayName("篡改、长度不符或非十六进制的签名验证失败")
+    void testRejectsInvalidSignatures() {
+        // Given
+        CloudChargeRequest request = request("REQ-2");
+        String signature = validator.generateSignature(request);
+
+        // When & Then
+        request.setSignature(signature.substring(0, 63) + (signature.endsWith("0") ? "1" : "0"));
+        assertFalse(validator.validateSignature(request));
+        request.setSignature(signature.substring(2));
+        assertFalse(validator.validateSignature(request));
+        request.setSignature("zz" + signature.substring(2));
+        assertFalse(validator.validateSignature(request));
+        request.setSignature(null);
+        assertFalse(validator.validateSignature(request));
+    }
+
+    @Test
+    @DisplayName("指定厂商时使用厂商密钥，未知或禁用的厂商拒绝")
+    void testVendorSecret() {
+        // Given
+        CloudChargeRequest request = request("REQ-3");
+        request.setVendor("star");
+        String vendorSignature = validator.generateSignature(request);
+        request.setVendor(null);
+        String appSignature = validator.generateSignature(request);
+
+        // Then
+        assertNotEquals(appSignature, vendorSignature);
+        request.setVendor("star");
+        request.setSignature(vendorSignature);
+        assertTrue(validator.validateSignature(request));
+        request.setSignature(appSignature);
+        assertFalse(validator.validateSignature(request));
+        request.setVendor("legacy");
+        assertFalse(validator.validateSignature(request));
+        request.setVendor("unknown");
+        assertFalse(validator.validateSignature(request));
+    }
+
+    @Test
+    @DisplayName("时间窗口内重复的请求ID被拒绝，过期时间戳不登记")
+    void testReplayAndExpiry() {
+        // Given
+        CloudChargeRequest request = request("REQ-4");
+        request.setSignature(validator.generateSignature(request));
+
+        // When & Then
+        assertEquals(Verification.VALID, validator.verify(request));
+        assertEquals(Verification.REPLAYED, validator.verify(request));
+
+        // Given - 签名错误的请求不占用请求ID
+        CloudChargeRequest forged = request("REQ-5");
+        forged.setSignature("00".repeat(32));
+        assertEquals(Verification.INVALID_SIGNATURE, validator.verify(forged));
+        forged.setSignature(validator.generateSignature(forged));
+        assertEquals(Verification.VALID, validator.verify(forged));
+
+        // Given - 过期请求
+        CloudChargeRequest stale = request("REQ-6");
+        stale.setTimestamp(LocalDateTime.now().minusMinutes(10).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        stale.setSignature(validator.generateSignature(stale));
+        assertEquals(Verification.EXPIRED, validator.verify(stale));
+    }
+
+    private static CloudChargeRequest request(String requestId) {
+        CloudChargeRequest request = new CloudChargeRequest();
+        request.setRequestId(requestId);
+        request.setApiVersion("3.0");
+        request.setTimestamp(LocalDateTime.now().withNano(0).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        request.setDeviceCode("CP001");
+        request.setAction("status");
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("status", 2);
+        data.put("connectorId", 1);
+        data.put("ignored", null);
+        request.setData(data);
+        return request;
+    }
+}
@@ -0,0 +1,54 @@
+package com.evcs.protocol.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 防重放缓存测试
+ */
+@DisplayName("防重放缓存测试")
+class RequestNonceCacheTest {
+
+    @Test
+    @DisplayName("保留期内重复拒绝，过期后整桶清理并可再次登记")
+    void testRejectWithinRetentionAndExpire() {
+        // Given
+        RequestNonceCache cache = new RequestNonceCache(16_000, 1000);
+        long now = 1_000_000;
+
+        // When & Then
+        assertTrue(cache.register("CP001:R1", now));
+        assertFalse(cache.register("CP001:R1", now + 1));
+        assertFalse(cache.register("CP001:R1", now + 15_000));
+        assertTrue(cache.register("CP002:R1", now + 15_000));
+        assertEquals(2, cache.size());
+
+        // When - 超过保留期
+        assertTrue(cache.register("CP003:R1", now + 40_000));
+
+        // Then
+        assertEquals(1, cache.size());
+        assertTrue(cache.register("CP001:R1", now + 40_000));
+    }
+
+    @Test
+    @DisplayName("超出上限时淘汰最旧的桶")
+    void testEvictOldestWhenFull() {
+        // Given
+        RequestNonceCache cache = new RequestNonceCache(16_000, 3);
+        long now = 1_000_000;
+        cache.register("A", now);
+        cache.register("B", now + 1_000);
+        cache.register("C", now + 2_000);
+
+        // When
+        cache.register("D", now + 3_000);
+
+        // Then
+        assertEquals(3, cache.size());
+        assertTrue(cache.register("A", now + 3_000));
+        assertFalse(cache.register("D", now + 3_000));
+    }
+}
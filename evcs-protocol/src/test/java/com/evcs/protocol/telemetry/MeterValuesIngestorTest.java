@@ -0,0 +1,213 @@
+package com.evcs.protocol.telemetry;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.dto.ChargerIdentity;
+import com.evcs.protocol.dto.ChargerRealtimeSnapshot;
+import com.evcs.protocol.dto.ChargerTelemetry;
+import com.evcs.protocol.dto.ocpp.OCPPActionPayload;
+import com.evcs.protocol.mapper.ChargerTelemetryMapper;
+import com.evcs.protocol.metrics.ProtocolMetrics;
+import com.evcs.protocol.websocket.OCPPWebSocketSession;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * MeterValues采样入库测试
+ */
+@DisplayName("MeterValues采样入库测试")
+class MeterValuesIngestorTest {
+
+    private ChargerTelemetryMapper mapper;
+    private MeterValuesIngestor ingestor;
+    private final List<ChargerTelemetry> inserted = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        mapper = mock(ChargerTelemetryMapper.class);
+        // 捕获时复制，刷写使用的是同一列表的子视图
+        when(mapper.insertBatch(anyList())).thenAnswer(invocation -> {
+            List<ChargerTelemetry> rows = invocation.getArgument(0);
+            inserted.addAll(rows);
+            return rows.size();
+        });
+
+        ProtocolProperties properties = new ProtocolProperties();
+        properties.getOcpp().setTelemetryFlushInterval(60_000);
+        properties.getOcpp().setTelemetryBatchSize(10_000);
+        properties.getOcpp().setTelemetryBufferLimit(10_000);
+        ingestor = new MeterValuesIngestor(mapper, new ProtocolMetrics(new SimpleMeterRegistry()), properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ingestor.shutdown();
+    }
+
+    private OCPPWebSocketSession registeredSession(String chargerCode, long chargerId, long tenantId) {
+        WebSocketSession webSocketSession = mock(WebSocketSession.class);
+        when(webSocketSession.getId()).thenReturn("ws-" + chargerCode);
+        OCPPWebSocketSession session = new OCPPWebSocketSession(webSocketSession, chargerCode);
+        session.setChargerIdentity(new ChargerIdentity(chargerCode, chargerId, 1L, tenantId));
+        return session;
+    }
+
+    private static OCPPActionPayload.SampledValue sample(String value, String measurand, String phase, String unit) {
+        return new OCPPActionPayload.SampledValue(value, "Sample.Periodic", "Raw", measurand, phase, null, unit);
+    }
+
+    @Test
+    @DisplayName("采样换算单位后批量写入，非数值采样被拒绝")
+    void testSamplesFlushedInBatch() {
+        // Given
+        OCPPWebSocketSession session = registeredSession("CP001", 11L, 100L);
+        List<OCPPActionPayload.MeterValue> meterValues = List.of(
+                new OCPPActionPayload.MeterValue("2026-10-18T08:00:00Z", List.of(
+                        sample("12.5", null, null, "kWh"),
+                        sample("230.1", "Voltage", "L1-N", "V"),
+                        sample("n/a", "Current.Import", null, "A"),
+                        sample("1", "Unknown.Measurand", null, null))));
+
+        // When
+        ingestor.ingest(session, 1, 42, meterValues);
+        int written = ingestor.flush();
+
+        // Then
+        assertEquals(2, written);
+        assertEquals(0, ingestor.getBufferedSamples());
+        verify(mapper, times(1)).insertBatch(anyList());
+
+        ChargerTelemetry energy = inserted.get(0);
+        assertEquals(100L, energy.getTenantId());
+        assertEquals(11L, energy.getChargerId());
+        assertEquals(1, energy.getConnectorId());
+        assertEquals(42, energy.getTransactionId());
+        assertEquals("Energy.Active.Import.Register", energy.getMeasurand());
+        assertEquals(12500.0, energy.getValue(), 1e-9);
+        assertEquals("Wh", energy.getUnit());
+        assertNull(energy.getPhase());
+
+        ChargerTelemetry voltage = inserted.get(1);
+        assertEquals("Voltage", voltage.getMeasurand());
+        assertEquals("L1-N", voltage.getPhase());
+    }
+
+    @Test
+    @DisplayName("同一刷写周期内实时数据按充电桩合并为最新值")
+    void testRealtimeCollapsedToLatest() {
+        // Given
+        OCPPWebSocketSession first = registeredSession("CP001", 11L, 100L);
+        OCPPWebSocketSession second = registeredSession("CP002", 12L, 100L);
+
+        // When - 乱序到达的采样以采样时间判断新旧
+        ingestor.ingest(first, 1, null, List.of(new OCPPActionPayload.MeterValue("2026-10-18T08:00:10Z",
+                List.of(sample("11000", "Power.Active.Import", null, "W")))));
+        ingestor.ingest(first, 1, null, List.of(new OCPPActionPayload.MeterValue("2026-10-18T08:00:00Z",
+                List.of(sample("7", "Power.Active.Import", null, "kW")))));
+        ingestor.ingest(first, 1, null, List.of(new OCPPActionPayload.MeterValue("2026-10-18T08:00:05Z",
+                List.of(sample("35.5", "Temperature", null, "Celsius")))));
+        ingestor.ingest(second, 2, null, List.of(new OCPPActionPayload.MeterValue("2026-10-18T08:00:00Z",
+                List.of(sample("16", "Current.Import", "L1", "A"),
+                        sample("15", "Current.Import", "L2", "A")))));
+        ingestor.flush();
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ChargerRealtimeSnapshot>> captor = ArgumentCaptor.forClass(List.class);
+        verify(mapper, times(1)).updateRealtimeBatch(captor.capture());
+        List<ChargerRealtimeSnapshot> snapshots = captor.getValue();
+        assertEquals(2, snapshots.size());
+
+        ChargerRealtimeSnapshot cp1 = snapshots.stream().filter(s -> s.getChargerId() == 11L).findFirst().orElseThrow();
+        assertEquals(11.0, cp1.getPower(), 1e-9);
+        assertEquals(35.5, cp1.getTemperature(), 1e-9);
+        assertNull(cp1.getVoltage());
+
+        ChargerRealtimeSnapshot cp2 = snapshots.stream().filter(s -> s.getChargerId() == 12L).findFirst().orElseThrow();
+        assertEquals(16.0, cp2.getCurrent(), 1e-9);
+        assertEquals(5, inserted.size());
+    }
+
+    @Test
+    @DisplayName("未识别的充电桩不缓冲采样")
+    void testUnregisteredChargerSkipped() {
+        // Given
+        WebSocketSession webSocketSession = mock(WebSocketSession.class);
+        OCPPWebSocketSession session = new OCPPWebSocketSession(webSocketSession, "UNKNOWN");
+
+        // When
+        ingestor.ingest(session, 1, null, List.of(new OCPPActionPayload.MeterValue("2026-10-18T08:00:00Z",
+                List.of(sample("1", null, null, "Wh")))));
+
+        // Then
+        assertEquals(0, ingestor.getBufferedSamples());
+        assertEquals(0, ingestor.flush());
+        verify(mapper, never()).insertBatch(anyList());
+    }
+
+    @Test
+    @DisplayName("超出单条INSERT行数时分块写入，写入失败的块不影响其余块")
+    void testLargeFlushSplitIntoChunks() {
+        // Given
+        OCPPWebSocketSession session = registeredSession("CP001", 11L, 100L);
+        List<OCPPActionPayload.SampledValue> sampledValues = new ArrayList<>();
+        for (int i = 0; i < MeterValuesIngestor.INSERT_CHUNK_SIZE * 2 + 1; i++) {
+            sampledValues.add(sample(String.valueOf(i), "Energy.Active.Import.Interval", null, "Wh"));
+        }
+        ingestor.ingest(session, 1, 7, List.of(new OCPPActionPayload.MeterValue("2026-10-18T08:00:00Z", sampledValues)));
+        doAnswer(invocation -> {
+            List<ChargerTelemetry> rows = invocation.getArgument(0);
+            inserted.addAll(rows);
+            return rows.size();
+        }).doThrow(new IllegalStateException("connection reset")).doAnswer(invocation -> {
+            List<ChargerTelemetry> rows = invocation.getArgument(0);
+            inserted.addAll(rows);
+            return rows.size();
+        }).when(mapper).insertBatch(anyList());
+
+        // When
+        int written = ingestor.flush();
+
+        // Then
+        verify(mapper, times(3)).insertBatch(anyList());
+        assertEquals(MeterValuesIngestor.INSERT_CHUNK_SIZE + 1, written);
+        assertEquals(0, ingestor.getBufferedSamples());
+        verify(mapper, never()).updateRealtimeBatch(any());
+    }
+
+    @Test
+    @DisplayName("缓冲达到上限后丢弃新采样")
+    void testBufferLimitDropsSamples() {
+        // Given
+        ProtocolProperties properties = new ProtocolProperties();
+        properties.getOcpp().setTelemetryFlushInterval(60_000);
+        properties.getOcpp().setTelemetryBatchSize(1_000);
+        properties.getOcpp().setTelemetryBufferLimit(1_000);
+        ingestor.shutdown();
+        ingestor = new MeterValuesIngestor(mapper, new ProtocolMetrics(new SimpleMeterRegistry()), properties);
+        doThrow(new IllegalStateException("database down")).when(mapper).insertBatch(anyList());
+        OCPPWebSocketSession session = registeredSession("CP001", 11L, 100L);
+        List<OCPPActionPayload.SampledValue> sampledValues = new ArrayList<>();
+        for (int i = 0; i < 1_500; i++) {
+            sampledValues.add(sample("1", "Voltage", null, "V"));
+        }
+
+        // When
+        ingestor.ingest(session, 1, null, List.of(new OCPPActionPayload.MeterValue(null, sampledValues)));
+
+        // Then
+        assertTrue(ingestor.getBufferedSamples() <= 1_000);
+    }
+}
@@ -0,0 +1,151 @@
+package com.evcs.protocol.transaction;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.dto.ChargerIdentity;
+import com.evcs.protocol.dto.OCPPTransaction;
+import com.evcs.protocol.mapper.OCPPTransactionMapper;
+import com.evcs.protocol.transaction.TransactionIdAllocator.IdBlock;
+import com.evcs.protocol.websocket.OCPPWebSocketSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * OCPP交易登记测试
+ */
+@DisplayName("OCPP交易登记测试")
+class OCPPTransactionRegistryTest {
+
+    private OCPPTransactionMapper mapper;
+    private TransactionIdAllocator allocator;
+    private OCPPTransactionRegistry registry;
+    private final List<OCPPTransaction> written = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        mapper = mock(OCPPTransactionMapper.class);
+        when(mapper.upsertBatch(anyList())).thenAnswer(invocation -> {
+            List<OCPPTransaction> rows = invocation.getArgument(0);
+            written.addAll(rows);
+            return rows.size();
+        });
+
+        AtomicLong sequence = new AtomicLong(1);
+        allocator = new TransactionIdAllocator(() -> {
+            int first = (int) sequence.getAndAdd(1000);
+            return new IdBlock(first, first + 999);
+        });
+        ProtocolProperties properties = new ProtocolProperties();
+        properties.getOcpp().setTransactionFlushInterval(60_000);
+        registry = new OCPPTransactionRegistry(allocator, mapper, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.shutdown();
+        allocator.shutdown();
+    }
+
+    private OCPPWebSocketSession registeredSession(String chargerCode, long chargerId, long tenantId) {
+        WebSocketSession webSocketSession = mock(WebSocketSession.class);
+        when(webSocketSession.getId()).thenReturn("ws-" + chargerCode);
+        OCPPWebSocketSession session = new OCPPWebSocketSession(webSocketSession, chargerCode);
+        session.setChargerIdentity(new ChargerIdentity(chargerCode, chargerId, 1L, tenantId));
+        return session;
+    }
+
+    @Test
+    @DisplayName("远程启动的交易关联到会话，本地启动的交易使用TXN_前缀")
+    void testStartMatchesExpectedSession() {
+        // Given
+        OCPPWebSocketSession session = registeredSession("CP001", 11L, 100L);
+        registry.expectStart("CP001", "USER_7", "SESSION-1");
+
+        // When
+        OCPPTransaction remote = registry.start(session, 1, "USER_7", 1200);
+        OCPPTransaction local = registry.start(session, 2, "RFID-1", 0);
+
+        // Then
+        assertEquals("SESSION-1", remote.getSessionId());
+        assertEquals("TXN_" + local.getTransactionId(), local.getSessionId());
+        assertNotEquals(remote.getTransactionId(), local.getTransactionId());
+        assertEquals(remote.getTransactionId(), registry.findActiveTransactionId("SESSION-1"));
+        assertEquals(local.getTransactionId(), registry.findLatestActiveTransactionId("CP001"));
+        verifyNoInteractions(mapper);
+    }
+
+    @Test
+    @DisplayName("同一周期内开始又结束的交易只写入最终状态")
+    void testFlushWritesLatestState() {
+        // Given
+        OCPPWebSocketSession session = registeredSession("CP001", 11L, 100L);
+        OCPPTransaction started = registry.start(session, 1, "USER_7", 1200);
+        OCPPTransaction other = registry.start(session, 2, "USER_8", 0);
+
+        // When
+        OCPPTransaction stopped = registry.stop(started.getTransactionId(), 5600);
+        int count = registry.flush();
+
+        // Then
+        assertEquals(2, count);
+        assertEquals(5600, stopped.getMeterStop());
+        assertFalse(stopped.isActive());
+        OCPPTransaction row = written.stream()
+                .filter(t -> t.getTransactionId().equals(started.getTransactionId()))
+                .findFirst().orElseThrow();
+        assertEquals(5600, row.getMeterStop());
+        assertNotNull(row.getStoppedAt());
+        assertNull(registry.findActiveTransactionId(started.getSessionId()));
+        assertEquals(other.getTransactionId(), registry.findLatestActiveTransactionId("CP001"));
+        assertEquals(0, registry.flush());
+    }
+
+    @Test
+    @DisplayName("内存未命中时按交易ID查库结束交易")
+    void testStopFallsBackToDatabase() {
+        // Given - 其他节点开始的交易
+        OCPPTransaction persisted = new OCPPTransaction(4242, 100L, 11L, "CP001", 1, "USER_7", "SESSION-9",
+                100, null, LocalDateTime.now().minusMinutes(30), null);
+        when(mapper.selectById(4242)).thenReturn(persisted);
+
+        // When
+        OCPPTransaction stopped = registry.stop(4242, 900);
+
+        // Then
+        assertEquals("SESSION-9", stopped.getSessionId());
+        assertEquals(900, stopped.getMeterStop());
+        assertNull(registry.stop(7777, 0));
+        assertEquals(1, registry.flush());
+    }
+
+    @Test
+    @DisplayName("写库失败的交易保留到下次重试，未识别的充电桩不写库")
+    void testFailedFlushRetried() {
+        // Given
+        registry.start(registeredSession("CP001", 11L, 100L), 1, "USER_7", 0);
+        OCPPWebSocketSession unknown = new OCPPWebSocketSession(mock(WebSocketSession.class), "CP404");
+        registry.start(unknown, 1, "RFID-1", 0);
+        doThrow(new RuntimeException("connection refused")).doAnswer(invocation -> {
+            List<OCPPTransaction> rows = invocation.getArgument(0);
+            written.addAll(rows);
+            return rows.size();
+        }).when(mapper).upsertBatch(anyList());
+
+        // When & Then
+        assertEquals(0, registry.flush());
+        assertEquals(1, registry.flush());
+        assertEquals(1, written.size());
+        assertEquals(2, registry.getActiveCount());
+    }
+}
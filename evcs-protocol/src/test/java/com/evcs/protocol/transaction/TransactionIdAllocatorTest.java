@@ -0,0 +1,123 @@
+package com.evcs.protocol.transaction;
+
+import com.evcs.protocol.transaction.TransactionIdAllocator.IdBlock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 交易ID分配器测试
+ */
+@DisplayName("交易ID分配器测试")
+class TransactionIdAllocatorTest {
+
+    private TransactionIdAllocator allocator;
+
+    @AfterEach
+    void tearDown() {
+        if (allocator != null) {
+            allocator.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("按段连续发放，用到3/4时预取下一段")
+    void testSequentialWithinBlockAndPrefetch() throws Exception {
+        // Given - 模拟步长为4的序列
+        AtomicLong sequence = new AtomicLong(1);
+        AtomicInteger leases = new AtomicInteger();
+        allocator = new TransactionIdAllocator(() -> {
+            leases.incrementAndGet();
+            int first = (int) sequence.getAndAdd(4);
+            return new IdBlock(first, first + 3);
+        });
+
+        // When
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ids.add(allocator.next());
+        }
+        waitFor(() -> leases.get() == 2);
+
+        // Then
+        assertEquals(List.of(1, 2, 3, 4), ids);
+        assertEquals(5, allocator.next());
+        assertEquals(2, leases.get());
+    }
+
+    @Test
+    @DisplayName("多线程并发分配的ID全局唯一")
+    void testConcurrentIdsUnique() throws Exception {
+        // Given
+        AtomicLong sequence = new AtomicLong(1);
+        allocator = new TransactionIdAllocator(() -> {
+            int first = (int) sequence.getAndAdd(100);
+            return new IdBlock(first, first + 99);
+        });
+        int threads = 8;
+        int perThread = 5_000;
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(threads);
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    ids.add(allocator.next());
+                }
+                done.countDown();
+            });
+        }
+
+        // Then
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(threads * perThread, ids.size());
+        assertTrue(ids.stream().allMatch(id -> id > 0));
+    }
+
+    @Test
+    @DisplayName("租用失败时抛出异常，恢复后重新租用")
+    void testLeaseFailureRetried() {
+        // Given
+        AtomicBoolean available = new AtomicBoolean(false);
+        allocator = new TransactionIdAllocator(() -> {
+            if (!available.get()) {
+                throw new IllegalStateException("database unavailable");
+            }
+            return new IdBlock(Integer.MAX_VALUE - 1, Integer.MAX_VALUE);
+        });
+
+        // When & Then
+        assertThrows(IllegalStateException.class, allocator::next);
+        available.set(true);
+        assertEquals(Integer.MAX_VALUE - 1, allocator.next());
+        assertEquals(Integer.MAX_VALUE, allocator.next());
+    }
+
+    @Test
+    @DisplayName("非法的ID段被拒绝")
+    void testInvalidBlockRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new IdBlock(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new IdBlock(10, 9));
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
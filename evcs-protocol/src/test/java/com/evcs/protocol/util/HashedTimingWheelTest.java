@@ -0,0 +1,74 @@
+package com.evcs.protocol.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 哈希时间轮测试
+ */
+@DisplayName("哈希时间轮测试")
+class HashedTimingWheelTest {
+
+    private HashedTimingWheel timingWheel;
+
+    @BeforeEach
+    void setUp() {
+        timingWheel = new HashedTimingWheel("test-timer", 10, TimeUnit.MILLISECONDS, 8, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        timingWheel.stop();
+    }
+
+    @Test
+    @DisplayName("到期任务按截止时间执行，超过一圈也能正确计算轮次")
+    void testExpireAfterDeadline() throws Exception {
+        // Given
+        CountDownLatch latch = new CountDownLatch(2);
+        long start = System.nanoTime();
+        long[] elapsed = new long[2];
+
+        // When
+        timingWheel.newTimeout(t -> {
+            elapsed[0] = System.nanoTime() - start;
+            latch.countDown();
+        }, 30, TimeUnit.MILLISECONDS);
+        timingWheel.newTimeout(t -> {
+            elapsed[1] = System.nanoTime() - start;
+            latch.countDown();
+        }, 200, TimeUnit.MILLISECONDS);
+
+        // Then
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertTrue(elapsed[0] >= TimeUnit.MILLISECONDS.toNanos(30));
+        assertTrue(elapsed[1] >= TimeUnit.MILLISECONDS.toNanos(200));
+        assertEquals(0, timingWheel.pendingTimeouts());
+    }
+
+    @Test
+    @DisplayName("取消的任务不再执行")
+    void testCancel() throws Exception {
+        // Given
+        AtomicInteger fired = new AtomicInteger();
+        HashedTimingWheel.Timeout timeout = timingWheel.newTimeout(t -> fired.incrementAndGet(), 50, TimeUnit.MILLISECONDS);
+
+        // When
+        assertTrue(timeout.cancel());
+        Thread.sleep(150);
+
+        // Then
+        assertEquals(0, fired.get());
+        assertTrue(timeout.isCancelled());
+        assertFalse(timeout.cancel());
+        assertEquals(0, timingWheel.pendingTimeouts());
+    }
+}
@@ -0,0 +1,66 @@
+package com.evcs.protocol.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 按键令牌桶测试
+ */
+@DisplayName("按键令牌桶测试")
+class TokenBucketLimiterTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    @DisplayName("突发用尽后按稳态速率补充，不同键互不影响")
+    void testBurstAndRefill() {
+        // Given: 每秒10个，突发3个
+        TokenBucketLimiter<String> limiter = new TokenBucketLimiter<>(10, 3, 100);
+
+        // When & Then
+        assertTrue(limiter.tryAcquire("CP001", 0));
+        assertTrue(limiter.tryAcquire("CP001", 0));
+        assertTrue(limiter.tryAcquire("CP001", 0));
+        assertFalse(limiter.tryAcquire("CP001", 0));
+        assertTrue(limiter.tryAcquire("CP002", 0));
+
+        // When - 100ms补充一个
+        assertFalse(limiter.tryAcquire("CP001", 99 * MILLIS));
+        assertTrue(limiter.tryAcquire("CP001", 100 * MILLIS));
+        assertFalse(limiter.tryAcquire("CP001", 100 * MILLIS));
+
+        // When - 长时间空闲后最多恢复到突发容量
+        long later = 10_000 * MILLIS;
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire("CP001", later));
+        }
+        assertFalse(limiter.tryAcquire("CP001", later));
+    }
+
+    @Test
+    @DisplayName("键数超过上限时清除已装满的桶")
+    void testSweepFullBuckets() {
+        // Given
+        TokenBucketLimiter<String> limiter = new TokenBucketLimiter<>(10, 1, 2);
+        limiter.tryAcquire("CP001", 0);
+        limiter.tryAcquire("CP002", 0);
+
+        // When: 1秒后两个桶都已装满，新键触发清理
+        assertTrue(limiter.tryAcquire("CP003", 1000 * MILLIS));
+
+        // Then
+        assertEquals(1, limiter.size());
+        assertTrue(limiter.tryAcquire("CP001", 1000 * MILLIS));
+    }
+
+    @Test
+    @DisplayName("非法参数拒绝")
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketLimiter<String>(0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketLimiter<String>(1, 0, 1));
+    }
+}
@@ -0,0 +1,133 @@
+package com.evcs.protocol.websocket;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.metrics.ProtocolMetrics;
+import com.evcs.protocol.websocket.ConnectionAdmissionController.BootAdmission;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 充电桩接入准入控制测试
+ */
+@DisplayName("充电桩接入准入控制测试")
+class ConnectionAdmissionControllerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private ProtocolProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ProtocolProperties();
+        ProtocolProperties.OCPPConfig config = properties.getOcpp();
+        config.setHandshakeRatePerSecond(1);
+        config.setHandshakeBurst(2);
+        config.setBootRatePerSecond(1);
+        config.setBootBurst(2);
+        config.setPendingRetryMin(10);
+        config.setPendingRetryMax(60);
+        config.setHeartbeatInterval(300);
+        config.setHeartbeatJitter(0.2);
+    }
+
+    private ConnectionAdmissionController newController() {
+        return new ConnectionAdmissionController(new ProtocolMetrics(new SimpleMeterRegistry()), properties, clock::get);
+    }
+
+    @Test
+    @DisplayName("握手超出节点速率时拒绝，令牌补充后恢复")
+    void testHandshakeRate() {
+        // Given
+        ConnectionAdmissionController controller = newController();
+
+        // When & Then
+        assertTrue(controller.admitHandshake("CP001"));
+        assertTrue(controller.admitHandshake("CP002"));
+        assertFalse(controller.admitHandshake("CP003"));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertTrue(controller.admitHandshake("CP003"));
+    }
+
+    @Test
+    @DisplayName("BootNotification超出速率时应答Pending并给出随机重试间隔，接受后移出排队")
+    void testBootPending() {
+        // Given
+        ConnectionAdmissionController controller = newController();
+        controller.admitBoot("CP001");
+        controller.admitBoot("CP002");
+
+        // When
+        BootAdmission pending = controller.admitBoot("CP003");
+        BootAdmission retried = controller.admitBoot("CP003");
+
+        // Then
+        assertFalse(pending.isAccepted());
+        assertEquals(ConnectionAdmissionController.PENDING, pending.status());
+        assertTrue(pending.interval() >= 10 && pending.interval() <= 60);
+        assertFalse(retried.isAccepted());
+        assertEquals(1, controller.getQueuedCount());
+
+        // When - 重试时已有令牌
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(pending.interval()));
+        BootAdmission accepted = controller.admitBoot("CP003");
+
+        // Then
+        assertTrue(accepted.isAccepted());
+        assertEquals(0, controller.getQueuedCount());
+    }
+
+    @Test
+    @DisplayName("接受时下发的心跳间隔在抖动范围内且不全相同")
+    void testHeartbeatJitter() {
+        // Given
+        ConnectionAdmissionController controller = newController();
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            int interval = controller.jitteredHeartbeatInterval();
+            min = Math.min(min, interval);
+            max = Math.max(max, interval);
+        }
+
+        // Then
+        assertTrue(min >= 240, "min=" + min);
+        assertTrue(max <= 360, "max=" + max);
+        assertTrue(max > min);
+    }
+
+    @Test
+    @DisplayName("关闭准入控制时全部接受，断开连接移出排队")
+    void testDisabledAndRelease() {
+        // Given
+        ConnectionAdmissionController controller = newController();
+        controller.admitBoot("CP001");
+        controller.admitBoot("CP002");
+        controller.admitBoot("CP003");
+        assertEquals(1, controller.getQueuedCount());
+
+        // When
+        controller.release("CP003");
+
+        // Then
+        assertEquals(0, controller.getQueuedCount());
+
+        // When - 关闭准入控制
+        properties.getOcpp().setAdmissionEnabled(false);
+        ConnectionAdmissionController disabled = newController();
+
+        // Then
+        for (int i = 0; i < 10; i++) {
+            assertTrue(disabled.admitHandshake("CP" + i));
+            assertTrue(disabled.admitBoot("CP" + i).isAccepted());
+        }
+    }
+}
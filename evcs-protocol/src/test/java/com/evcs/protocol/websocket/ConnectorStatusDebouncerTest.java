@@ -0,0 +1,118 @@
+package com.evcs.protocol.websocket;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.metrics.ProtocolMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 充电枪状态去抖测试
+ */
+@DisplayName("充电枪状态去抖测试")
+class ConnectorStatusDebouncerTest {
+
+    private static final int AVAILABLE = 1;
+    private static final int CHARGING = 3;
+    private static final int FAULTED = 7;
+
+    private final List<Integer> forwarded = new CopyOnWriteArrayList<>();
+    private final IntConsumer forward = forwarded::add;
+    private ConnectorStatusDebouncer debouncer;
+
+    @AfterEach
+    void tearDown() {
+        if (debouncer != null) {
+            debouncer.shutdown();
+        }
+    }
+
+    private void newDebouncer(long windowMillis) {
+        ProtocolProperties properties = new ProtocolProperties();
+        properties.getOcpp().setStatusDebounceWindow(windowMillis);
+        properties.getOcpp().setStatusRetention(600);
+        debouncer = new ConnectorStatusDebouncer(new ProtocolMetrics(new SimpleMeterRegistry()), properties);
+    }
+
+    private OCPPWebSocketSession newSession(String chargerCode) {
+        WebSocketSession webSocketSession = mock(WebSocketSession.class);
+        when(webSocketSession.getId()).thenReturn("ws-" + chargerCode);
+        return new OCPPWebSocketSession(webSocketSession, chargerCode);
+    }
+
+    @Test
+    @DisplayName("无去抖窗口时只转发变化的状态，各充电枪独立")
+    void testChangeOnly() {
+        // Given
+        newDebouncer(0);
+        OCPPWebSocketSession session = newSession("CP001");
+
+        // When
+        debouncer.submit(session, 1, AVAILABLE, forward);
+        debouncer.submit(session, 1, AVAILABLE, forward);
+        debouncer.submit(session, 2, AVAILABLE, forward);
+        debouncer.submit(session, 1, CHARGING, forward);
+        debouncer.submit(session, 1, CHARGING, forward);
+
+        // Then
+        assertEquals(List.of(AVAILABLE, AVAILABLE, CHARGING), forwarded);
+    }
+
+    @Test
+    @DisplayName("窗口内反复跳变只按最终状态转发，跳回原状态不转发")
+    void testDebounceFlaps() throws Exception {
+        // Given
+        newDebouncer(200);
+        OCPPWebSocketSession session = newSession("CP002");
+        debouncer.submit(session, 1, AVAILABLE, forward);
+        Thread.sleep(500);
+        assertEquals(List.of(AVAILABLE), forwarded);
+
+        // When - 跳变后回到原状态
+        debouncer.submit(session, 1, FAULTED, forward);
+        debouncer.submit(session, 1, AVAILABLE, forward);
+        debouncer.submit(session, 1, FAULTED, forward);
+        debouncer.submit(session, 1, AVAILABLE, forward);
+        Thread.sleep(500);
+
+        // Then
+        assertEquals(List.of(AVAILABLE), forwarded);
+
+        // When - 跳变后稳定在新状态
+        debouncer.submit(session, 1, FAULTED, forward);
+        debouncer.submit(session, 1, AVAILABLE, forward);
+        debouncer.submit(session, 1, CHARGING, forward);
+        Thread.sleep(500);
+
+        // Then
+        assertEquals(List.of(AVAILABLE, CHARGING), forwarded);
+    }
+
+    @Test
+    @DisplayName("重连后接续断开前的状态，重复上报不再转发")
+    void testRetainAcrossReconnect() {
+        // Given
+        newDebouncer(0);
+        OCPPWebSocketSession before = newSession("CP003");
+        debouncer.submit(before, 1, CHARGING, forward);
+        debouncer.retain(before);
+
+        // When
+        OCPPWebSocketSession after = newSession("CP003");
+        debouncer.submit(after, 1, CHARGING, forward);
+        debouncer.submit(after, 1, AVAILABLE, forward);
+
+        // Then
+        assertEquals(List.of(CHARGING, AVAILABLE), forwarded);
+        assertEquals(0, debouncer.getRetainedCount());
+    }
+}
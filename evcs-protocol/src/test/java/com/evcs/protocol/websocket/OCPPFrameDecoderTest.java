@@ -0,0 +1,165 @@
+package com.evcs.protocol.websocket;
+
+import com.evcs.protocol.dto.ocpp.OCPPActionPayload;
+import com.evcs.protocol.dto.ocpp.OCPPCallErrorMessage;
+import com.evcs.protocol.dto.ocpp.OCPPCallMessage;
+import com.evcs.protocol.dto.ocpp.OCPPCallResultMessage;
+import com.evcs.protocol.dto.ocpp.OCPPErrorCode;
+import com.evcs.protocol.dto.ocpp.OCPPFrameDecoder;
+import com.evcs.protocol.dto.ocpp.OCPPMessage;
+import com.evcs.protocol.enums.OCPPMessageType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OCPP流式帧解码器测试
+ */
+@DisplayName("OCPP流式帧解码器测试")
+class OCPPFrameDecoderTest {
+
+    private OCPPFrameDecoder frameDecoder;
+
+    @BeforeEach
+    void setUp() {
+        frameDecoder = new OCPPFrameDecoder();
+    }
+
+    @Test
+    @DisplayName("解码BootNotification为强类型载荷")
+    void testDecodeBootNotification() {
+        // Given
+        String frame = "[2,\"12345\",\"BootNotification\",{\"chargePointVendor\":\"TestVendor\",\"chargePointModel\":\"TestModel\",\"chargePointSerialNumber\":\"SN001\",\"firmwareVersion\":\"1.0.0\",\"unknownField\":{\"nested\":[1,2]}}]";
+
+        // When
+        OCPPMessage message = frameDecoder.decode(frame);
+
+        // Then
+        assertNotNull(message);
+        assertEquals(OCPPMessageType.CALL, message.getMessageType());
+        assertEquals("12345", message.getMessageId());
+        OCPPCallMessage callMessage = (OCPPCallMessage) message;
+        assertEquals("BootNotification", callMessage.getAction());
+        OCPPActionPayload.BootNotification payload = (OCPPActionPayload.BootNotification) callMessage.getTypedPayload();
+        assertEquals("TestVendor", payload.chargePointVendor());
+        assertEquals("TestModel", payload.chargePointModel());
+        assertEquals("SN001", payload.chargePointSerialNumber());
+        assertTrue(payload.isValid());
+    }
+
+    @Test
+    @DisplayName("解码Heartbeat复用单例载荷")
+    void testDecodeHeartbeat() {
+        // When
+        OCPPMessage message = frameDecoder.decode("[2,\"hb-1\",\"Heartbeat\",{}]");
+
+        // Then
+        assertNotNull(message);
+        assertSame(OCPPActionPayload.Heartbeat.INSTANCE, ((OCPPCallMessage) message).getTypedPayload());
+    }
+
+    @Test
+    @DisplayName("解码StatusNotification")
+    void testDecodeStatusNotification() {
+        // Given
+        String frame = "[2,\"s-1\",\"StatusNotification\",{\"connectorId\":2,\"errorCode\":\"NoError\",\"status\":\"Charging\",\"timestamp\":\"2024-01-01T08:00:00Z\"}]";
+
+        // When
+        OCPPCallMessage message = (OCPPCallMessage) frameDecoder.decode(frame);
+
+        // Then
+        OCPPActionPayload.StatusNotification payload = (OCPPActionPayload.StatusNotification) message.getTypedPayload();
+        assertEquals(2, payload.connectorId());
+        assertEquals("NoError", payload.errorCode());
+        assertEquals("Charging", payload.status());
+        assertEquals("2024-01-01T08:00:00Z", payload.timestamp());
+        assertNull(payload.info());
+    }
+
+    @Test
+    @DisplayName("解码MeterValues嵌套采样值")
+    void testDecodeMeterValues() {
+        // Given
+        String frame = "[2,\"m-1\",\"MeterValues\",{\"connectorId\":1,\"transactionId\":1024,\"meterValue\":[{\"timestamp\":\"2024-01-01T08:00:00Z\",\"sampledValue\":["
+                + "{\"value\":\"12345.6\",\"measurand\":\"Energy.Active.Import.Register\",\"unit\":\"Wh\"},"
+                + "{\"value\":\"230.1\",\"measurand\":\"Voltage\",\"phase\":\"L1\",\"unit\":\"V\"}]}]}]";
+
+        // When
+        OCPPCallMessage message = (OCPPCallMessage) frameDecoder.decode(frame);
+
+        // Then
+        OCPPActionPayload.MeterValues payload = (OCPPActionPayload.MeterValues) message.getTypedPayload();
+        assertEquals(1, payload.connectorId());
+        assertEquals(1024, payload.transactionId());
+        assertEquals(1, payload.meterValue().size());
+        OCPPActionPayload.MeterValue meterValue = payload.meterValue().get(0);
+        assertEquals(2, meterValue.sampledValue().size());
+        assertEquals("Voltage", meterValue.sampledValue().get(1).measurand());
+        assertEquals("L1", meterValue.sampledValue().get(1).phase());
+    }
+
+    @Test
+    @DisplayName("解码Start/StopTransaction")
+    void testDecodeTransactions() {
+        // Given
+        String start = "[2,\"t-1\",\"StartTransaction\",{\"connectorId\":1,\"idTag\":\"TAG001\",\"meterStart\":100,\"timestamp\":\"2024-01-01T08:00:00Z\"}]";
+        String stop = "[2,\"t-2\",\"StopTransaction\",{\"transactionId\":7,\"meterStop\":5100,\"timestamp\":\"2024-01-01T09:00:00Z\",\"reason\":\"Local\"}]";
+
+        // When
+        OCPPActionPayload.StartTransaction startPayload =
+                (OCPPActionPayload.StartTransaction) ((OCPPCallMessage) frameDecoder.decode(start)).getTypedPayload();
+        OCPPActionPayload.StopTransaction stopPayload =
+                (OCPPActionPayload.StopTransaction) ((OCPPCallMessage) frameDecoder.decode(stop)).getTypedPayload();
+
+        // Then
+        assertEquals("TAG001", startPayload.idTag());
+        assertEquals(100, startPayload.meterStart());
+        assertEquals(7, stopPayload.transactionId());
+        assertEquals(5100, stopPayload.meterStop());
+        assertNull(stopPayload.idTag());
+        assertEquals("Local", stopPayload.reason());
+    }
+
+    @Test
+    @DisplayName("未识别的action不绑定载荷")
+    void testDecodeUnknownAction() {
+        // When
+        OCPPMessage message = frameDecoder.decode("[2,\"u-1\",\"DataTransfer\",{\"vendorId\":\"X\",\"data\":{\"a\":1}}]");
+
+        // Then
+        assertNotNull(message);
+        assertEquals("DataTransfer", ((OCPPCallMessage) message).getAction());
+        assertNull(((OCPPCallMessage) message).getTypedPayload());
+    }
+
+    @Test
+    @DisplayName("解码CallResult和CallError")
+    void testDecodeCallResultAndError() {
+        // When
+        OCPPMessage result = frameDecoder.decode("[3,\"r-1\",{\"status\":\"Accepted\"}]");
+        OCPPMessage error = frameDecoder.decode("[4,\"e-1\",\"InternalError\",\"boom\",{}]");
+        OCPPMessage errorWithoutDetails = frameDecoder.decode("[4,\"e-2\",\"NotSupported\",\"nope\"]");
+
+        // Then
+        assertInstanceOf(OCPPCallResultMessage.class, result);
+        assertEquals("Accepted", ((OCPPCallResultMessage) result).getPayload().get("status"));
+        assertInstanceOf(OCPPCallErrorMessage.class, error);
+        assertEquals(OCPPErrorCode.INTERNAL_ERROR, ((OCPPCallErrorMessage) error).getErrorCode());
+        assertNotNull(errorWithoutDetails);
+    }
+
+    @Test
+    @DisplayName("非法帧返回null")
+    void testDecodeInvalidFrames() {
+        assertNull(frameDecoder.decode(null));
+        assertNull(frameDecoder.decode(""));
+        assertNull(frameDecoder.decode("{\"not\":\"array\"}"));
+        assertNull(frameDecoder.decode("[2,\"x\"]"));
+        assertNull(frameDecoder.decode("[9,\"x\",\"Heartbeat\",{}]"));
+        assertNull(frameDecoder.decode("[2,\"x\",\"Heartbeat\",{}"));
+        assertNull(frameDecoder.decode("[2,\"x\",\"StatusNotification\",{\"connectorId\":\"abc\"}]"));
+        assertNull(frameDecoder.decode("[2,\"x\",\"Heartbeat\",{},\"extra\"]"));
+    }
+}
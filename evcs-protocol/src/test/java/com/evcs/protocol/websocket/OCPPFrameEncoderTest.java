@@ -0,0 +1,135 @@
+package com.evcs.protocol.websocket;
+
+import com.evcs.protocol.dto.ocpp.OCPPErrorCode;
+import com.evcs.protocol.dto.ocpp.OCPPFrameEncoder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OCPP出站帧编码器测试
+ */
+@DisplayName("OCPP出站帧编码器测试")
+class OCPPFrameEncoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private OCPPFrameEncoder frameEncoder;
+
+    @BeforeEach
+    void setUp() {
+        frameEncoder = new OCPPFrameEncoder();
+    }
+
+    @Test
+    @DisplayName("空载荷应答使用模板")
+    void testEncodeEmptyResult() {
+        assertEquals("[3,\"msg-1\",{}]", frameEncoder.encodeEmptyResult("msg-1"));
+    }
+
+    @Test
+    @DisplayName("Heartbeat应答包含UTC时间")
+    void testEncodeHeartbeatResult() throws Exception {
+        // When
+        JsonNode frame = objectMapper.readTree(frameEncoder.encodeHeartbeatResult("hb-1"));
+
+        // Then
+        assertEquals(3, frame.get(0).asInt());
+        assertEquals("hb-1", frame.get(1).asText());
+        assertTrue(frame.get(2).get("currentTime").asText().endsWith("Z"));
+    }
+
+    @Test
+    @DisplayName("需要转义的messageId回退到JsonGenerator")
+    void testEncodeEscapedMessageId() throws Exception {
+        // Given
+        String messageId = "id\"with\\quote";
+
+        // When
+        JsonNode empty = objectMapper.readTree(frameEncoder.encodeEmptyResult(messageId));
+        JsonNode heartbeat = objectMapper.readTree(frameEncoder.encodeHeartbeatResult(messageId));
+
+        // Then
+        assertEquals(messageId, empty.get(1).asText());
+        assertEquals(messageId, heartbeat.get(1).asText());
+        assertNotNull(heartbeat.get(2).get("currentTime"));
+    }
+
+    @Test
+    @DisplayName("BootNotification与idTagInfo应答")
+    void testEncodeStructuredResults() throws Exception {
+        // When
+        JsonNode boot = objectMapper.readTree(frameEncoder.encodeBootNotificationResult("b-1", "Accepted", 300));
+        JsonNode start = objectMapper.readTree(frameEncoder.encodeIdTagInfoResult("s-1", 42, "Accepted", null));
+
+        // Then
+        assertEquals("Accepted", boot.get(2).get("status").asText());
+        assertEquals(300, boot.get(2).get("interval").asInt());
+        assertEquals(42, start.get(2).get("transactionId").asInt());
+        assertEquals("Accepted", start.get(2).get("idTagInfo").get("status").asText());
+        assertFalse(start.get(2).get("idTagInfo").has("expiryDate"));
+    }
+
+    @Test
+    @DisplayName("CallError应答")
+    void testEncodeCallError() {
+        assertEquals("[4,\"e-1\",\"NotSupported\",\"Action not supported: Foo\",{}]",
+                frameEncoder.encodeCallError("e-1", OCPPErrorCode.NOT_SUPPORTED, "Action not supported: Foo"));
+    }
+
+    @Test
+    @DisplayName("缓冲区复用不串帧")
+    void testBufferReuse() {
+        String longFrame = frameEncoder.encodeCallResult("long", g -> g.writeStringField("data", "x".repeat(1024)));
+        String shortFrame = frameEncoder.encodeEmptyResult("s");
+
+        assertTrue(longFrame.length() > 1024);
+        assertEquals("[3,\"s\",{}]", shortFrame);
+    }
+
+    @Test
+    @DisplayName("每次编码在新线程上时仍复用同一帧缓冲，帧间不写分隔符")
+    void testFrameReuseAcrossThreads() throws Exception {
+        // Given
+        String[] frames = new String[100];
+
+        // When: 模拟每任务一个线程的编码
+        for (int i = 0; i < frames.length; i++) {
+            int index = i;
+            Thread thread = new Thread(() -> frames[index] = frameEncoder.encodeCall("c-" + index, "Reset",
+                    g -> g.writeStringField("type", "Soft")));
+            thread.start();
+            thread.join();
+        }
+
+        // Then
+        assertEquals(1, frameEncoder.getIdleFrameCount());
+        assertEquals("[2,\"c-0\",\"Reset\",{\"type\":\"Soft\"}]", frames[0]);
+        assertEquals("[2,\"c-99\",\"Reset\",{\"type\":\"Soft\"}]", frames[99]);
+    }
+
+    @Test
+    @DisplayName("编码中途失败的帧缓冲不归还，后续帧完整")
+    void testFailedFrameIsDiscarded() {
+        // Given
+        frameEncoder.encodeEmptyResult("warm-up");
+        assertEquals(1, frameEncoder.getIdleFrameCount());
+
+        // When
+        assertThrows(UncheckedIOException.class, () -> frameEncoder.encodeCallResult("bad", g -> {
+            g.writeStringField("partial", "value");
+            throw new IOException("payload failed");
+        }));
+
+        // Then
+        assertEquals(0, frameEncoder.getIdleFrameCount());
+        assertEquals("[3,\"ok\",{}]", frameEncoder.encodeCallResult("ok", null));
+        assertEquals(1, frameEncoder.getIdleFrameCount());
+    }
+}
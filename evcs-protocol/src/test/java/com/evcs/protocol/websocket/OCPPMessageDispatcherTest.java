@@ -0,0 +1,243 @@
+package com.evcs.protocol.websocket;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.dto.ocpp.OCPPActionPayload;
+import com.evcs.protocol.dto.ocpp.OCPPCallMessage;
+import com.evcs.protocol.dto.ocpp.OCPPCallResultMessage;
+import com.evcs.protocol.dto.ocpp.OCPPFrameEncoder;
+import com.evcs.protocol.dto.ocpp.OCPPMessage;
+import com.evcs.protocol.metrics.ProtocolMetrics;
+import com.evcs.protocol.mq.HeartbeatCoalescer;
+import com.evcs.protocol.service.ProtocolRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * OCPP消息分发器测试
+ */
+@DisplayName("OCPP消息分发器测试")
+class OCPPMessageDispatcherTest {
+
+    private OCPPMessageProcessor messageProcessor;
+    private ProtocolMetrics protocolMetrics;
+    private HeartbeatCoalescer heartbeatCoalescer;
+    private OCPPPendingCallRegistry pendingCallRegistry;
+    private OCPPMessageDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        ProtocolProperties properties = new ProtocolProperties();
+        properties.getOcpp().setMailboxCapacity(2);
+        messageProcessor = mock(OCPPMessageProcessor.class);
+        protocolMetrics = new ProtocolMetrics(new SimpleMeterRegistry());
+        heartbeatCoalescer = mock(HeartbeatCoalescer.class);
+        pendingCallRegistry = mock(OCPPPendingCallRegistry.class);
+        dispatcher = newDispatcher(properties);
+    }
+
+    private OCPPMessageDispatcher newDispatcher(ProtocolProperties properties) {
+        return new OCPPMessageDispatcher(messageProcessor, new OCPPFrameEncoder(), protocolMetrics,
+                new ProtocolRateLimiter(protocolMetrics, properties), heartbeatCoalescer, pendingCallRegistry, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    private OCPPWebSocketSession newSession(String chargerCode) {
+        WebSocketSession webSocketSession = mock(WebSocketSession.class);
+        when(webSocketSession.getId()).thenReturn("ws-" + chargerCode);
+        when(webSocketSession.isOpen()).thenReturn(true);
+        return new OCPPWebSocketSession(webSocketSession, chargerCode);
+    }
+
+    private OCPPMessage heartbeat(String messageId) {
+        return new OCPPCallMessage(messageId, "Heartbeat", OCPPActionPayload.Heartbeat.INSTANCE);
+    }
+
+    @Test
+    @DisplayName("同一充电桩消息按到达顺序处理")
+    void testPerChargerOrdering() throws Exception {
+        // Given
+        OCPPWebSocketSession session = newSession("CP001");
+        List<String> processed = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(50);
+        doAnswer(invocation -> {
+            processed.add(((OCPPMessage) invocation.getArgument(1)).getMessageId());
+            done.countDown();
+            return null;
+        }).when(messageProcessor).processMessage(any(OCPPWebSocketSession.class), any(OCPPMessage.class));
+
+        ProtocolProperties properties = new ProtocolProperties();
+        properties.getOcpp().setMailboxCapacity(100);
+        OCPPMessageDispatcher largeDispatcher = newDispatcher(properties);
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            assertTrue(largeDispatcher.dispatch(session, heartbeat(String.valueOf(i))));
+        }
+
+        // Then
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 50; i++) {
+            assertEquals(String.valueOf(i), processed.get(i));
+        }
+        largeDispatcher.shutdown();
+    }
+
+    @Test
+    @DisplayName("邮箱已满时回复Busy且不阻塞调用线程")
+    void testBusyWhenMailboxFull() throws Exception {
+        // Given: 处理器阻塞，邮箱容量为2
+        OCPPWebSocketSession session = newSession("CP002");
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(messageProcessor).processMessage(any(OCPPWebSocketSession.class), any(OCPPMessage.class));
+
+        // When
+        assertTrue(dispatcher.dispatch(session, heartbeat("1")));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(dispatcher.dispatch(session, heartbeat("2")));
+        assertTrue(dispatcher.dispatch(session, heartbeat("3")));
+        boolean accepted = dispatcher.dispatch(session, heartbeat("4"));
+        release.countDown();
+
+        // Then
+        assertFalse(accepted);
+        verify(session.getWebSocketSession()).sendMessage(argThat(message ->
+                ((TextMessage) message).getPayload().equals("[4,\"4\",\"GenericError\",\"Busy\",{}]")));
+    }
+
+    @Test
+    @DisplayName("应答帧超出邮箱容量和余量后丢弃且不回复")
+    void testResponsesBoundedByMailbox() throws Exception {
+        // Given: 处理器阻塞，邮箱容量为2
+        OCPPWebSocketSession session = newSession("CP005");
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(messageProcessor).processMessage(any(OCPPWebSocketSession.class), any(OCPPMessage.class));
+        assertTrue(dispatcher.dispatch(session, heartbeat("1")));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(dispatcher.dispatch(session, heartbeat("2")));
+        assertTrue(dispatcher.dispatch(session, heartbeat("3")));
+        when(pendingCallRegistry.isPending(eq(session), anyString())).thenReturn(true);
+
+        // When: Call已占满容量，应答仍可使用余量
+        int accepted = 0;
+        for (int i = 0; i < OCPPMessageDispatcher.RESPONSE_HEADROOM + 5; i++) {
+            if (dispatcher.dispatch(session, new OCPPCallResultMessage("r" + i, Map.of()))) {
+                accepted++;
+            }
+        }
+        release.countDown();
+
+        // Then
+        assertEquals(OCPPMessageDispatcher.RESPONSE_HEADROOM, accepted);
+        verify(session.getWebSocketSession(), never()).sendMessage(any());
+    }
+
+    @Test
+    @DisplayName("超出充电桩速率时回复RateLimited，交易类消息不受限")
+    void testRateLimitedCall() throws Exception {
+        // Given: 充电桩突发容量为2
+        ProtocolProperties properties = new ProtocolProperties();
+        properties.getRateLimit().setChargerPermitsPerSecond(0.001);
+        properties.getRateLimit().setChargerBurst(2);
+        OCPPMessageDispatcher limited = newDispatcher(properties);
+        OCPPWebSocketSession session = newSession("CP003");
+
+        // When
+        boolean first = limited.dispatch(session, heartbeat("1"));
+        boolean second = limited.dispatch(session, heartbeat("2"));
+        boolean third = limited.dispatch(session, heartbeat("3"));
+        boolean stop = limited.dispatch(session, new OCPPCallMessage("4", "StopTransaction",
+                new OCPPActionPayload.StopTransaction(1, null, 100, null, null, null)));
+
+        // Then
+        assertTrue(first);
+        assertTrue(second);
+        assertFalse(third);
+        assertTrue(stop);
+        verify(session.getWebSocketSession()).sendMessage(argThat(message ->
+                ((TextMessage) message).getPayload().equals("[4,\"3\",\"GenericError\",\"RateLimited\",{}]")));
+        limited.shutdown();
+    }
+
+    @Test
+    @DisplayName("未对应待应答请求的应答消耗充电桩令牌，对应的应答不受限")
+    void testUnsolicitedResponsesRateLimited() throws Exception {
+        // Given: 充电桩突发容量为2，r-pending 是服务端待应答请求
+        ProtocolProperties properties = new ProtocolProperties();
+        properties.getRateLimit().setChargerPermitsPerSecond(0.001);
+        properties.getRateLimit().setChargerBurst(2);
+        OCPPMessageDispatcher limited = newDispatcher(properties);
+        OCPPWebSocketSession session = newSession("CP006");
+        when(pendingCallRegistry.isPending(session, "r-pending")).thenReturn(true);
+
+        // When
+        boolean first = limited.dispatch(session, new OCPPCallResultMessage("r1", Map.of()));
+        boolean second = limited.dispatch(session, new OCPPCallResultMessage("r2", Map.of()));
+        boolean third = limited.dispatch(session, new OCPPCallResultMessage("r3", Map.of()));
+        boolean pending = limited.dispatch(session, new OCPPCallResultMessage("r-pending", Map.of()));
+        boolean call = limited.dispatch(session, heartbeat("h1"));
+
+        // Then
+        assertTrue(first);
+        assertTrue(second);
+        assertFalse(third);
+        assertTrue(pending);
+        assertFalse(call);
+        verify(session.getWebSocketSession()).sendMessage(argThat(message ->
+                ((TextMessage) message).getPayload().equals("[4,\"h1\",\"GenericError\",\"RateLimited\",{}]")));
+        limited.shutdown();
+    }
+
+    @Test
+    @DisplayName("节点过载时心跳直接应答并记录在线，不进入邮箱")
+    void testHeartbeatShedUnderOverload() throws Exception {
+        // Given: 待处理消息数达到心跳丢弃阈值
+        ProtocolProperties properties = new ProtocolProperties();
+        properties.getRateLimit().setHeartbeatShedThreshold(10);
+        OCPPMessageDispatcher overloaded = newDispatcher(properties);
+        OCPPWebSocketSession session = newSession("CP004");
+        protocolMetrics.recordEventQueued(10);
+
+        // When
+        boolean accepted = overloaded.dispatch(session, heartbeat("h1"));
+
+        // Then
+        assertFalse(accepted);
+        verify(messageProcessor, never()).processMessage(any(OCPPWebSocketSession.class), any(OCPPMessage.class));
+        verify(heartbeatCoalescer).record(any(), any(), eq("OCPP"), any());
+        verify(session.getWebSocketSession()).sendMessage(argThat(message ->
+                ((TextMessage) message).getPayload().startsWith("[3,\"h1\",{\"currentTime\"")));
+        overloaded.shutdown();
+    }
+}
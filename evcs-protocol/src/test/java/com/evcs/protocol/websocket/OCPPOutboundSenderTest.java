@@ -0,0 +1,179 @@
+package com.evcs.protocol.websocket;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.metrics.ProtocolMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * OCPP出站发送器测试
+ */
+@DisplayName("OCPP出站发送器测试")
+class OCPPOutboundSenderTest {
+
+    private OCPPOutboundSender outboundSender;
+    private WebSocketSession webSocketSession;
+    private OCPPWebSocketSession session;
+
+    @BeforeEach
+    void setUp() {
+        ProtocolProperties properties = new ProtocolProperties();
+        properties.getOcpp().setSendBufferSizeLimit(64);
+        properties.getOcpp().setSendTimeLimit(200);
+        outboundSender = new OCPPOutboundSender(new ProtocolMetrics(new SimpleMeterRegistry()), properties);
+
+        webSocketSession = mock(WebSocketSession.class);
+        when(webSocketSession.getId()).thenReturn("ws-CP001");
+        when(webSocketSession.isOpen()).thenReturn(true);
+        session = new OCPPWebSocketSession(webSocketSession, "CP001");
+        outboundSender.attach(session);
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboundSender.shutdown();
+    }
+
+    @Test
+    @DisplayName("并发入队的帧完整且按入队顺序写出")
+    void testFramesWrittenInOrder() throws Exception {
+        // Given
+        List<String> written = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(5);
+        doAnswer(invocation -> {
+            written.add(((TextMessage) invocation.getArgument(0)).getPayload());
+            done.countDown();
+            return null;
+        }).when(webSocketSession).sendMessage(any(WebSocketMessage.class));
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            assertTrue(session.sendText("[3,\"" + i + "\",{}]"));
+        }
+
+        // Then
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 5; i++) {
+            assertEquals("[3,\"" + i + "\",{}]", written.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("连接阻塞时调用方不阻塞，缓冲超限后关闭慢消费者")
+    void testSlowConsumerClosedOnBufferOverflow() throws Exception {
+        // Given: 底层发送一直阻塞
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            blocked.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(webSocketSession).sendMessage(any(WebSocketMessage.class));
+
+        // When
+        assertTrue(session.sendText("[3,\"1\",{}]"));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        long start = System.nanoTime();
+        boolean accepted = true;
+        for (int i = 0; i < 20 && accepted; i++) {
+            accepted = session.sendText("[3,\"" + i + "\",{\"k\":\"v\"}]");
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        release.countDown();
+
+        // Then
+        assertFalse(accepted);
+        assertTrue(elapsedMillis < 1000, "入队不应阻塞调用线程");
+        verify(webSocketSession, timeout(2000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertFalse(session.sendText("[3,\"x\",{}]"));
+    }
+
+    @Test
+    @DisplayName("写出阻塞超过发送时间上限时，无需新的入队即由看门狗关闭连接")
+    void testStalledWriterClosedByWatchdog() throws Exception {
+        // Given: 底层发送一直阻塞，直到连接被关闭
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            blocked.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(webSocketSession).sendMessage(any(WebSocketMessage.class));
+        doAnswer(invocation -> {
+            release.countDown();
+            return null;
+        }).when(webSocketSession).close(any(CloseStatus.class));
+
+        // When: 只入队一帧，之后没有任何出站流量
+        assertTrue(session.sendText("[3,\"1\",{}]"));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+        // Then
+        verify(webSocketSession, timeout(2000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertFalse(session.sendText("[3,\"2\",{}]"));
+    }
+
+    @Test
+    @DisplayName("积压的帧在容器会话上合并为一批写出")
+    void testBacklogWrittenAsOneBatch() throws Exception {
+        // Given: 容器会话，第一帧写出时阻塞，期间积压三帧
+        WebSocketSession containerWebSocket = mock(WebSocketSession.class,
+                withSettings().extraInterfaces(NativeWebSocketSession.class));
+        Session containerSession = mock(Session.class);
+        RemoteEndpoint.Basic remote = mock(RemoteEndpoint.Basic.class);
+        when(containerWebSocket.getId()).thenReturn("ws-CP002");
+        when(containerWebSocket.isOpen()).thenReturn(true);
+        when(((NativeWebSocketSession) containerWebSocket).getNativeSession()).thenReturn(containerSession);
+        when(containerSession.getBasicRemote()).thenReturn(remote);
+
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            blocked.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(containerWebSocket).sendMessage(any(WebSocketMessage.class));
+        OCPPWebSocketSession containerOcppSession = new OCPPWebSocketSession(containerWebSocket, "CP002");
+        outboundSender.attach(containerOcppSession);
+
+        // When
+        assertTrue(containerOcppSession.sendText("[3,\"0\",{}]"));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 3; i++) {
+            assertTrue(containerOcppSession.sendText("[3,\"" + i + "\",{}]"));
+        }
+        release.countDown();
+
+        // Then
+        verify(remote, timeout(2000)).setBatchingAllowed(false);
+        InOrder inOrder = inOrder(remote);
+        inOrder.verify(remote).setBatchingAllowed(true);
+        for (int i = 1; i <= 3; i++) {
+            inOrder.verify(remote).sendText("[3,\"" + i + "\",{}]");
+        }
+        inOrder.verify(remote).flushBatch();
+        inOrder.verify(remote).setBatchingAllowed(false);
+        verify(containerWebSocket, times(1)).sendMessage(any(WebSocketMessage.class));
+        assertEquals(0, containerOcppSession.getPendingSendSize());
+    }
+}
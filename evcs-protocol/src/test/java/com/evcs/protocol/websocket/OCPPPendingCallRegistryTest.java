@@ -0,0 +1,153 @@
+package com.evcs.protocol.websocket;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.dto.ocpp.OCPPCallErrorMessage;
+import com.evcs.protocol.dto.ocpp.OCPPCallResultMessage;
+import com.evcs.protocol.dto.ocpp.OCPPErrorCode;
+import com.evcs.protocol.dto.ocpp.OCPPFrameDecoder;
+import com.evcs.protocol.dto.ocpp.OCPPFrameEncoder;
+import com.evcs.protocol.dto.ocpp.OCPPMessage;
+import com.evcs.protocol.metrics.ProtocolMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 服务端下发Call待应答登记表测试
+ */
+@DisplayName("下发Call待应答登记表测试")
+class OCPPPendingCallRegistryTest {
+
+    private final OCPPFrameDecoder frameDecoder = new OCPPFrameDecoder();
+    private final List<String> sentFrames = new CopyOnWriteArrayList<>();
+
+    private ProtocolMetrics protocolMetrics;
+    private OCPPPendingCallRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        ProtocolProperties properties = new ProtocolProperties();
+        properties.getOcpp().setMessageTimeout(1);
+        protocolMetrics = new ProtocolMetrics(new SimpleMeterRegistry());
+        registry = new OCPPPendingCallRegistry(new OCPPFrameEncoder(), protocolMetrics, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.shutdown();
+    }
+
+    private OCPPWebSocketSession newSession(String chargerCode) throws Exception {
+        WebSocketSession webSocketSession = mock(WebSocketSession.class);
+        when(webSocketSession.getId()).thenReturn("ws-" + chargerCode);
+        when(webSocketSession.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            sentFrames.add(((TextMessage) invocation.getArgument(0)).getPayload());
+            return null;
+        }).when(webSocketSession).sendMessage(any(WebSocketMessage.class));
+        return new OCPPWebSocketSession(webSocketSession, chargerCode);
+    }
+
+    private String lastMessageId() {
+        OCPPMessage sent = frameDecoder.decode(sentFrames.get(sentFrames.size() - 1));
+        assertNotNull(sent);
+        return sent.getMessageId();
+    }
+
+    @Test
+    @DisplayName("CallResult按messageId完成对应请求")
+    void testCompleteWithCallResult() throws Exception {
+        // Given
+        OCPPWebSocketSession session = newSession("CP001");
+        CompletableFuture<OCPPCallResultMessage> future =
+                registry.sendCall(session, "RemoteStartTransaction", g -> g.writeStringField("idTag", "TAG1"));
+        assertTrue(sentFrames.get(0).startsWith("[2,\""));
+        assertTrue(sentFrames.get(0).contains("\"RemoteStartTransaction\",{\"idTag\":\"TAG1\"}"));
+
+        // When
+        boolean matched = registry.complete(session,
+                new OCPPCallResultMessage(lastMessageId(), Map.of("status", "Accepted")));
+
+        // Then
+        assertTrue(matched);
+        assertEquals("Accepted", future.get(1, TimeUnit.SECONDS).getPayloadField("status", String.class));
+        assertEquals(0, registry.getPendingCount());
+        assertEquals(0, protocolMetrics.getPendingCalls());
+    }
+
+    @Test
+    @DisplayName("CallError以OCPPCallException结束请求，其他充电桩的应答被忽略")
+    void testFailWithCallError() throws Exception {
+        // Given
+        OCPPWebSocketSession session = newSession("CP001");
+        OCPPWebSocketSession other = newSession("CP002");
+        CompletableFuture<OCPPCallResultMessage> future = registry.sendCall(session, "Reset", g -> g.writeStringField("type", "Soft"));
+        String messageId = lastMessageId();
+
+        // When
+        boolean spoofed = registry.complete(other, new OCPPCallResultMessage(messageId, Map.of()));
+        boolean matched = registry.fail(session,
+                new OCPPCallErrorMessage(messageId, OCPPErrorCode.NOT_SUPPORTED, "Reset not supported", null));
+
+        // Then
+        assertFalse(spoofed);
+        assertTrue(matched);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+        OCPPCallException cause = assertInstanceOf(OCPPCallException.class, e.getCause());
+        assertEquals(OCPPErrorCode.NOT_SUPPORTED, cause.getErrorCode());
+        assertEquals("Reset", cause.getAction());
+    }
+
+    @Test
+    @DisplayName("未应答的请求在messageTimeout后超时")
+    void testTimeout() throws Exception {
+        // Given
+        OCPPWebSocketSession session = newSession("CP001");
+
+        // When
+        CompletableFuture<OCPPCallResultMessage> future = registry.sendCall(session, "ChangeConfiguration", null);
+
+        // Then
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertEquals(0, registry.getPendingCount());
+        assertFalse(registry.complete(session, new OCPPCallResultMessage(lastMessageId(), Map.of())));
+    }
+
+    @Test
+    @DisplayName("连接断开时结束该会话的全部待应答请求")
+    void testCancelAllOnDisconnect() throws Exception {
+        // Given
+        OCPPWebSocketSession session = newSession("CP001");
+        OCPPWebSocketSession other = newSession("CP002");
+        CompletableFuture<OCPPCallResultMessage> first = registry.sendCall(session, "Reset", null);
+        CompletableFuture<OCPPCallResultMessage> second = registry.sendCall(session, "Reset", null);
+        CompletableFuture<OCPPCallResultMessage> unrelated = registry.sendCall(other, "Reset", null);
+
+        // When
+        registry.cancelAll(session);
+
+        // Then
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+        assertFalse(unrelated.isDone());
+        assertEquals(1, registry.getPendingCount());
+    }
+}
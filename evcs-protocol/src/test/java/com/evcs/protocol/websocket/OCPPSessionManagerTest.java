@@ -0,0 +1,184 @@
+package com.evcs.protocol.websocket;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * OCPP会话管理器测试
+ */
+@DisplayName("OCPP会话管理器测试")
+class OCPPSessionManagerTest {
+
+    private OCPPSessionManager sessionManager;
+
+    @BeforeEach
+    void setUp() {
+        sessionManager = new OCPPSessionManager(50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionManager.shutdown();
+    }
+
+    private OCPPWebSocketSession newSession(String chargerCode) {
+        WebSocketSession webSocketSession = mock(WebSocketSession.class);
+        when(webSocketSession.getId()).thenReturn("ws-" + chargerCode + "-" + System.nanoTime());
+        when(webSocketSession.isOpen()).thenReturn(true);
+        return new OCPPWebSocketSession(webSocketSession, chargerCode);
+    }
+
+    @Test
+    @DisplayName("容量取自配置")
+    void testCapacityFromProperties() {
+        // Given
+        ProtocolProperties properties = new ProtocolProperties();
+        properties.getOcpp().setMaxConnections(3);
+        OCPPSessionManager manager = new OCPPSessionManager(properties);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            assertTrue(manager.addSession(newSession("CP" + i)));
+        }
+
+        // Then
+        assertFalse(manager.addSession(newSession("CP3")));
+        assertTrue(manager.addSession(newSession("CP0")), "重连替换不占用额外容量");
+        assertEquals(3, manager.getActiveSessionCount());
+        manager.shutdown();
+    }
+
+    @Test
+    @DisplayName("状态计数器随状态变化更新")
+    void testStatusCounters() {
+        // Given
+        OCPPWebSocketSession first = newSession("CP001");
+        OCPPWebSocketSession second = newSession("CP002");
+        sessionManager.addSession(first);
+        sessionManager.addSession(second);
+
+        // When
+        second.setStatus(OCPPWebSocketSession.SessionStatus.AUTHENTICATED);
+        sessionManager.updateSessionActivity("CP001");
+        sessionManager.updateSessionActivity("CP002");
+
+        // Then
+        var summary = sessionManager.getStatisticsSummary();
+        assertEquals(2, summary.getTotalSessions());
+        assertEquals(2, summary.getActiveSessions());
+        assertEquals(2, summary.getTotalMessages());
+        assertEquals(1L, summary.getStatusCounts().get(OCPPWebSocketSession.SessionStatus.CONNECTED));
+        assertEquals(1L, summary.getStatusCounts().get(OCPPWebSocketSession.SessionStatus.AUTHENTICATED));
+
+        // When
+        sessionManager.removeSession("CP002");
+
+        // Then
+        summary = sessionManager.getStatisticsSummary();
+        assertEquals(1, summary.getTotalSessions());
+        assertEquals(1, summary.getTotalMessages());
+        assertEquals(0, sessionManager.getSessionCount(OCPPWebSocketSession.SessionStatus.AUTHENTICATED));
+        assertEquals(OCPPWebSocketSession.SessionStatus.DISCONNECTED, second.getStatus());
+    }
+
+    @Test
+    @DisplayName("心跳超时由时间轮检测，活动会话按新截止时间续期")
+    void testHeartbeatExpiry() throws Exception {
+        // Given
+        OCPPWebSocketSession idle = newSession("CP-IDLE");
+        OCPPWebSocketSession busy = newSession("CP-BUSY");
+        sessionManager.addSession(idle);
+        sessionManager.addSession(busy);
+        assertEquals(2, sessionManager.getPendingExpiryCount());
+
+        // When: 心跳间隔1秒，3个周期未活动即超时
+        idle.setHeartbeatInterval(1);
+        busy.setHeartbeatInterval(1);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (sessionManager.getSession("CP-IDLE") != null && System.currentTimeMillis() < deadline) {
+            sessionManager.updateSessionActivity("CP-BUSY");
+            Thread.sleep(200);
+        }
+
+        // Then
+        assertNull(sessionManager.getSession("CP-IDLE"));
+        assertEquals(OCPPWebSocketSession.SessionStatus.DISCONNECTED, idle.getStatus());
+        assertSame(busy, sessionManager.getSession("CP-BUSY"));
+        assertEquals(1, sessionManager.getActiveSessionCount());
+    }
+
+    @Test
+    @DisplayName("重连替换、超时断开和主动移除都通知移除监听器，且只通知被移除的会话")
+    void testRemovalListener() throws Exception {
+        // Given
+        List<OCPPWebSocketSession> removed = new CopyOnWriteArrayList<>();
+        sessionManager.addRemovalListener(removed::add);
+        OCPPWebSocketSession stale = newSession("CP001");
+        OCPPWebSocketSession current = newSession("CP001");
+        OCPPWebSocketSession idle = newSession("CP002");
+        sessionManager.addSession(stale);
+        sessionManager.addSession(idle);
+
+        // When: 重连替换
+        sessionManager.addSession(current);
+
+        // Then
+        assertEquals(List.of(stale), removed);
+        assertFalse(sessionManager.removeSession(stale), "已被替换的旧会话不能移除新会话");
+        assertSame(current, sessionManager.getSession("CP001"));
+
+        // When: 超时断开
+        idle.setHeartbeatInterval(1);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!removed.contains(idle) && System.currentTimeMillis() < deadline) {
+            sessionManager.updateSessionActivity("CP001");
+            Thread.sleep(200);
+        }
+
+        // Then
+        assertTrue(removed.contains(idle));
+
+        // When: 主动移除
+        assertTrue(sessionManager.removeSession(current));
+
+        // Then
+        assertEquals(List.of(stale, idle, current), removed);
+        assertEquals(0, sessionManager.getActiveSessionCount());
+    }
+
+    @Test
+    @DisplayName("分页遍历覆盖全部会话且不重复")
+    void testPagedIteration() {
+        // Given
+        for (int i = 0; i < 37; i++) {
+            sessionManager.addSession(newSession("CP" + i));
+        }
+
+        // When
+        Set<String> seen = new HashSet<>();
+        int offset = 0;
+        List<OCPPWebSocketSession> page;
+        while (!(page = sessionManager.getSessions(offset, 10)).isEmpty()) {
+            page.forEach(session -> assertTrue(seen.add(session.getChargerCode())));
+            offset += page.size();
+        }
+
+        // Then
+        assertEquals(37, seen.size());
+        assertEquals(10, sessionManager.getSessionStatistics(0, 10).size());
+        assertTrue(sessionManager.getSessions(100, 10).isEmpty());
+    }
+}
@@ -0,0 +1,142 @@
+package com.evcs.protocol.websocket;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * OCPP会话测试
+ */
+@DisplayName("OCPP会话测试")
+class OCPPWebSocketSessionTest {
+
+    /**
+     * 空闲会话（含登记表条目和超时句柄）的堆占用上限，未压缩指针时约300字节
+     * 测量依赖GC时机，标记为footprint，默认测试不运行，需要时以 -PfootprintTests 执行
+     */
+    private static final long MAX_BYTES_PER_IDLE_SESSION = 320;
+
+    private OCPPWebSocketSession newSession(String chargerCode) {
+        WebSocketSession webSocketSession = mock(WebSocketSession.class);
+        when(webSocketSession.getId()).thenReturn("ws-" + chargerCode);
+        return new OCPPWebSocketSession(webSocketSession, chargerCode);
+    }
+
+    @Test
+    @DisplayName("属性按需创建，支持覆盖、移除和类型过滤")
+    void testAttributes() {
+        // Given
+        OCPPWebSocketSession session = newSession("CP001");
+        assertFalse(session.hasAttribute("vendor"));
+
+        // When
+        session.setAttribute("vendor", "ABB");
+        session.setAttribute("model", "Terra AC");
+        session.setAttribute("serialNumber", "SN001");
+        session.setAttribute("model", "Terra DC");
+        session.removeAttribute("vendor");
+        session.setAttribute("serialNumber", null);
+
+        // Then
+        assertNull(session.getAttribute("vendor", String.class));
+        assertEquals("Terra DC", session.getAttribute("model", String.class));
+        assertFalse(session.hasAttribute("serialNumber"));
+        assertNull(session.getAttribute("model", Integer.class));
+        assertEquals(0, session.getAttribute("retries", Integer.class, 0));
+
+        // When
+        session.clearAttributes();
+
+        // Then
+        assertFalse(session.hasAttribute("model"));
+    }
+
+    @Test
+    @DisplayName("活跃时间、心跳间隔和消息计数")
+    void testActivityState() {
+        // Given
+        OCPPWebSocketSession session = newSession("CP002");
+        long before = session.getLastActiveNanos();
+
+        // When
+        session.updateLastActiveTime();
+        session.incrementMessageCount();
+        session.incrementMessageCount();
+        session.setHeartbeatInterval(300);
+
+        // Then
+        assertTrue(session.getLastActiveNanos() >= before);
+        assertEquals(2, session.getMessageCount());
+        assertEquals(300, session.getHeartbeatInterval());
+        assertTrue(Duration.between(session.getLastActiveTime(), LocalDateTime.now()).abs().getSeconds() < 5);
+        assertFalse(session.getLastActiveTime().isBefore(session.getCreateTime()));
+
+        // When - 清除心跳间隔
+        session.setHeartbeatInterval(null);
+
+        // Then
+        assertNull(session.getHeartbeatInterval());
+        assertFalse(session.needsHeartbeat());
+    }
+
+    @Test
+    @DisplayName("重复的协议字符串共享同一实例")
+    void testIntern() {
+        String vendor = new String("ABB");
+
+        assertSame(OCPPWebSocketSession.intern(vendor), OCPPWebSocketSession.intern(new String("ABB")));
+        assertNull(OCPPWebSocketSession.intern(null));
+    }
+
+    @Test
+    @Tag("footprint")
+    @DisplayName("10万空闲会话的单会话堆占用")
+    void testIdleSessionFootprint() throws Exception {
+        // Given: 底层WebSocket会话由容器持有，不计入；充电桩编码在测量前创建
+        int sessions = 100_000;
+        WebSocketSession webSocketSession = mock(WebSocketSession.class, withSettings().stubOnly());
+        String[] chargerCodes = new String[sessions];
+        for (int i = 0; i < sessions; i++) {
+            chargerCodes[i] = "CP" + i;
+        }
+        OCPPSessionManager sessionManager = new OCPPSessionManager(sessions);
+
+        try {
+            long before = usedHeap();
+
+            // When
+            for (String chargerCode : chargerCodes) {
+                sessionManager.addSession(new OCPPWebSocketSession(webSocketSession, chargerCode));
+            }
+            long bytesPerSession = (usedHeap() - before) / sessions;
+
+            // Then
+            assertEquals(sessions, sessionManager.getActiveSessionCount());
+            assertTrue(bytesPerSession < MAX_BYTES_PER_IDLE_SESSION,
+                    "Idle OCPP session footprint: " + bytesPerSession + " bytes/session at " + sessions
+                            + " sessions, limit " + MAX_BYTES_PER_IDLE_SESSION);
+        } finally {
+            sessionManager.shutdown();
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(50);
+            used = Math.min(used, memory.getHeapMemoryUsage().getUsed());
+        }
+        return used;
+    }
+}
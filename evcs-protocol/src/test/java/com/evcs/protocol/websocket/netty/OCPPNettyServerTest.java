@@ -0,0 +1,136 @@
+package com.evcs.protocol.websocket.netty;
+
+import com.evcs.protocol.config.ProtocolProperties;
+import com.evcs.protocol.websocket.OCPPWebSocketHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 独立OCPP传输测试
+ */
+@DisplayName("独立OCPP传输测试")
+class OCPPNettyServerTest {
+
+    private OCPPWebSocketHandler webSocketHandler;
+    private OCPPNettyServer server;
+    private final AtomicReference<WebSocketSession> established = new AtomicReference<>();
+    private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    private final CountDownLatch closed = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        webSocketHandler = mock(OCPPWebSocketHandler.class);
+        doAnswer(invocation -> {
+            WebSocketSession session = invocation.getArgument(0);
+            established.set(session);
+            // 与真实处理器一样在建立连接时向充电桩发送一帧
+            session.sendMessage(new TextMessage("[3,\"welcome\",{}]"));
+            return null;
+        }).when(webSocketHandler).afterConnectionEstablished(any());
+        doAnswer(invocation -> {
+            WebSocketSession session = invocation.getArgument(0);
+            WebSocketMessage<?> message = invocation.getArgument(1);
+            received.add((String) message.getPayload());
+            session.sendMessage(new TextMessage("[3,\"19223201\",{\"status\":\"Accepted\"}]"));
+            return null;
+        }).when(webSocketHandler).handleMessage(any(), any());
+        doAnswer(invocation -> {
+            closed.countDown();
+            return null;
+        }).when(webSocketHandler).afterConnectionClosed(any(), any(CloseStatus.class));
+
+        ProtocolProperties properties = new ProtocolProperties();
+        properties.getOcpp().setTransport("netty");
+        properties.getOcpp().setPort(0);
+        properties.getOcpp().setNettyWorkerThreads(1);
+        server = new OCPPNettyServer(webSocketHandler, properties);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    @DisplayName("协商ocpp1.6子协议，收发文本帧并在断开时通知处理器")
+    void testOcppRoundTrip() throws Exception {
+        // Given
+        BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+        WebSocket.Listener listener = new WebSocket.Listener() {
+            @Override
+            public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+                replies.add(data.toString());
+                webSocket.request(1);
+                return null;
+            }
+        };
+
+        // When
+        WebSocket client = HttpClient.newHttpClient().newWebSocketBuilder()
+                .subprotocols(OCPPNettyServer.SUBPROTOCOL)
+                .buildAsync(URI.create("ws://127.0.0.1:" + server.getBoundPort() + "/ocpp/CP001/websocket"), listener)
+                .get(5, TimeUnit.SECONDS);
+
+        // Then - 握手
+        assertEquals(OCPPNettyServer.SUBPROTOCOL, client.getSubprotocol());
+        assertEquals("[3,\"welcome\",{}]", replies.poll(5, TimeUnit.SECONDS));
+        WebSocketSession session = established.get();
+        assertNotNull(session);
+        assertEquals("/ocpp/CP001/websocket", session.getUri().getPath());
+        assertEquals(OCPPNettyServer.SUBPROTOCOL, session.getAcceptedProtocol());
+        assertTrue(session.isOpen());
+
+        // When - 上行Call
+        String call = "[2,\"19223201\",\"BootNotification\",{\"chargePointVendor\":\"VendorX\",\"chargePointModel\":\"M1\"}]";
+        client.sendText(call, true).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(call, received.poll(5, TimeUnit.SECONDS));
+        assertEquals("[3,\"19223201\",{\"status\":\"Accepted\"}]", replies.poll(5, TimeUnit.SECONDS));
+
+        // When - 充电桩断开
+        client.sendClose(WebSocket.NORMAL_CLOSURE, "bye").get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+        verify(webSocketHandler).afterConnectionClosed(same(session), eq(new CloseStatus(1000, "bye")));
+        assertFalse(session.isOpen());
+    }
+
+    @Test
+    @DisplayName("非OCPP路径返回404")
+    void testRejectsOtherPaths() throws Exception {
+        // When
+        HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpResponse<String> response = httpClient.send(
+                HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getBoundPort() + "/health")).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertEquals(404, response.statusCode());
+        verify(webSocketHandler, never()).afterConnectionEstablished(any());
+    }
+}
@@ -0,0 +1,577 @@
+package com.evcs.simulator;
+
+import com.evcs.simulator.config.SimulatorProperties;
+import com.evcs.simulator.stats.SwarmStats;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单个模拟充电桩（OCPP 1.6J）
+ * 在独立虚拟线程上运行：连接 → BootNotification（挂起/拒绝时按interval重试）→ 各枪StatusNotification，
+ * 随后按配置的节奏发送Heartbeat、发起和结束交易、在充电中上报MeterValues，直到模拟结束。
+ * 服务端下发的Call一律应答Accepted，RemoteStart/RemoteStop会触发对应的交易动作
+ */
+@Slf4j
+public class SimulatedCharger implements Runnable {
+
+    private static final int CALL = 2;
+    private static final int CALL_RESULT = 3;
+    private static final int CALL_ERROR = 4;
+
+    private static final long NEVER = Long.MAX_VALUE;
+
+    private final String chargerCode;
+    private final SimulatorProperties properties;
+    private final HttpClient httpClient;
+    private final SwarmStats stats;
+    private final ObjectMapper objectMapper;
+    private final SplittableRandom random;
+
+    private final Map<String, PendingCall> pendingCalls = new ConcurrentHashMap<>();
+    private final AtomicLong messageSequence = new AtomicLong();
+    private final ReentrantLock sendLock = new ReentrantLock();
+    private final Semaphore wakeup = new Semaphore(0);
+
+    /**
+     * 服务端请求远程启动的枪号，0表示没有
+     */
+    private final AtomicInteger remoteStartConnector = new AtomicInteger();
+
+    /**
+     * 服务端请求远程停止的交易号，0表示没有
+     */
+    private final AtomicInteger remoteStopTransaction = new AtomicInteger();
+
+    private final Connector[] connectors;
+
+    private volatile boolean stopping;
+    private volatile WebSocket webSocket;
+    private volatile CompletableFuture<Void> closed;
+
+    public SimulatedCharger(String chargerCode, SimulatorProperties properties, HttpClient httpClient,
+                            SwarmStats stats, ObjectMapper objectMapper, long seed) {
+        this.chargerCode = chargerCode;
+        this.properties = properties;
+        this.httpClient = httpClient;
+        this.stats = stats;
+        this.objectMapper = objectMapper;
+        this.random = new SplittableRandom(seed);
+        this.connectors = new Connector[Math.max(1, properties.getConnectorsPerCharger())];
+        for (int i = 0; i < connectors.length; i++) {
+            connectors[i] = new Connector(i + 1);
+        }
+    }
+
+    /**
+     * 通知结束模拟，当前动作完成后断开
+     */
+    public void stop() {
+        stopping = true;
+        wakeup.release();
+    }
+
+    @Override
+    public void run() {
+        while (!stopping) {
+            if (connect()) {
+                try {
+                    runSession();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    stopping = true;
+                } catch (Exception e) {
+                    log.debug("Charger {} session failed: {}", chargerCode, e.toString());
+                } finally {
+                    disconnect();
+                }
+            }
+            if (stopping || properties.getReconnectDelay() <= 0) {
+                return;
+            }
+            if (!pause(properties.getReconnectDelay())) {
+                return;
+            }
+        }
+    }
+
+    private boolean connect() {
+        URI uri = URI.create(properties.getTargetUrl().replace("{chargerCode}", chargerCode));
+        long started = System.nanoTime();
+        CompletableFuture<Void> closedFuture = new CompletableFuture<>();
+        try {
+            WebSocket.Builder builder = httpClient.newWebSocketBuilder()
+                    .connectTimeout(Duration.ofMillis(properties.getConnectTimeout()));
+            if (properties.getSubprotocol() != null && !properties.getSubprotocol().isBlank()) {
+                builder.subprotocols(properties.getSubprotocol());
+            }
+            webSocket = builder.buildAsync(uri, new Listener(closedFuture))
+                    .get(properties.getConnectTimeout() + 1000, TimeUnit.MILLISECONDS);
+            closed = closedFuture;
+            stats.recordConnected(System.nanoTime() - started);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopping = true;
+        } catch (Exception e) {
+            log.debug("Charger {} failed to connect: {}", chargerCode, e.toString());
+        }
+        stats.recordConnectFailure();
+        return false;
+    }
+
+    private void disconnect() {
+        WebSocket current = webSocket;
+        boolean expected = stopping;
+        if (current != null && !current.isOutputClosed()) {
+            try {
+                current.sendClose(WebSocket.NORMAL_CLOSURE, "simulation finished")
+                        .get(properties.getConnectTimeout(), TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                current.abort();
+            }
+        }
+        pendingCalls.clear();
+        for (Connector connector : connectors) {
+            connector.transactionId = 0;
+        }
+        stats.recordDisconnected(expected);
+    }
+
+    private void runSession() throws InterruptedException {
+        int interval = boot();
+        if (interval < 0) {
+            return;
+        }
+        int heartbeatSeconds = properties.getHeartbeatInterval() > 0 ? properties.getHeartbeatInterval() : interval;
+
+        long now = System.nanoTime();
+        for (Connector connector : connectors) {
+            statusNotification(connector.id, "Available");
+            connector.nextStartNanos = now + nextIdleNanos();
+        }
+        long nextHeartbeat = heartbeatSeconds > 0 ? now + TimeUnit.SECONDS.toNanos(heartbeatSeconds) : NEVER;
+
+        while (!stopping && !closed.isDone()) {
+            now = System.nanoTime();
+            if (now - nextHeartbeat >= 0) {
+                call("Heartbeat", objectMapper.createObjectNode());
+                nextHeartbeat = System.nanoTime() + TimeUnit.SECONDS.toNanos(heartbeatSeconds);
+            }
+            handleRemoteRequests();
+            long next = nextHeartbeat;
+            for (Connector connector : connectors) {
+                next = Math.min(next, advance(connector));
+            }
+
+            long waitNanos = next - System.nanoTime();
+            if (waitNanos > 0 && wakeup.tryAcquire(waitNanos, TimeUnit.NANOSECONDS)) {
+                wakeup.drainPermits();
+            }
+        }
+        if (!stopping) {
+            log.debug("Charger {} disconnected by server", chargerCode);
+        }
+    }
+
+    /**
+     * BootNotification，挂起或拒绝时按应答的interval重试
+     *
+     * @return 心跳间隔（秒），模拟结束或连接断开时返回-1
+     */
+    private int boot() throws InterruptedException {
+        ObjectNode payload = objectMapper.createObjectNode()
+                .put("chargePointVendor", "EVCS-Simulator")
+                .put("chargePointModel", "SIM-" + connectors.length + "C")
+                .put("chargePointSerialNumber", chargerCode)
+                .put("firmwareVersion", "1.0.0");
+        while (!stopping && !closed.isDone()) {
+            JsonNode result = call("BootNotification", payload);
+            int interval = result != null ? result.path("interval").asInt(0) : 0;
+            if (result != null && "Accepted".equals(result.path("status").asText())) {
+                return interval;
+            }
+            long retrySeconds = interval > 0 ? interval : properties.getBootRetryInterval();
+            // 加抖动避免被拒绝的充电桩同时重试
+            long retryMillis = TimeUnit.SECONDS.toMillis(retrySeconds) / 2
+                    + random.nextLong(Math.max(1, TimeUnit.SECONDS.toMillis(retrySeconds) / 2 + 1));
+            if (!pause(retryMillis)) {
+                break;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 推进单个枪的交易状态
+     *
+     * @return 该枪下一次需要处理的时间
+     */
+    private long advance(Connector connector) throws InterruptedException {
+        long now = System.nanoTime();
+        if (connector.transactionId == 0) {
+            if (now - connector.nextStartNanos >= 0) {
+                startTransaction(connector);
+            }
+            return connector.transactionId == 0 ? connector.nextStartNanos : connector.nextMeterNanos;
+        }
+        if (now - connector.endNanos >= 0) {
+            stopTransaction(connector, "Local");
+            return connector.nextStartNanos;
+        }
+        if (now - connector.nextMeterNanos >= 0) {
+            meterValues(connector);
+        }
+        return Math.min(connector.endNanos, connector.nextMeterNanos);
+    }
+
+    private void handleRemoteRequests() throws InterruptedException {
+        int connectorId = remoteStartConnector.getAndSet(0);
+        if (connectorId > 0 && connectorId <= connectors.length && connectors[connectorId - 1].transactionId == 0) {
+            startTransaction(connectors[connectorId - 1]);
+        }
+        int transactionId = remoteStopTransaction.getAndSet(0);
+        if (transactionId != 0) {
+            for (Connector connector : connectors) {
+                if (connector.transactionId == transactionId) {
+                    stopTransaction(connector, "Remote");
+                }
+            }
+        }
+    }
+
+    private void startTransaction(Connector connector) throws InterruptedException {
+        long now = System.nanoTime();
+        connector.nextStartNanos = now + nextIdleNanos();
+        if (properties.isAuthorizeBeforeStart()) {
+            JsonNode authorized = call("Authorize", objectMapper.createObjectNode().put("idTag", properties.getIdTag()));
+            if (authorized == null || !isAccepted(authorized)) {
+                return;
+            }
+        }
+        statusNotification(connector.id, "Preparing");
+        JsonNode result = call("StartTransaction", objectMapper.createObjectNode()
+                .put("connectorId", connector.id)
+                .put("idTag", properties.getIdTag())
+                .put("meterStart", connector.meterWh)
+                .put("timestamp", timestamp()));
+        int transactionId = result != null ? result.path("transactionId").asInt(0) : 0;
+        if (transactionId == 0 || !isAccepted(result)) {
+            statusNotification(connector.id, "Available");
+            return;
+        }
+        connector.transactionId = transactionId;
+        connector.powerW = 7000 + random.nextInt(15000);
+        connector.lastMeterNanos = System.nanoTime();
+        connector.endNanos = connector.lastMeterNanos + exponentialNanos(properties.getTransactionDurationSeconds());
+        connector.nextMeterNanos = properties.getMeterValuesInterval() > 0
+                ? connector.lastMeterNanos + TimeUnit.SECONDS.toNanos(properties.getMeterValuesInterval())
+                : NEVER;
+        statusNotification(connector.id, "Charging");
+    }
+
+    private void stopTransaction(Connector connector, String reason) throws InterruptedException {
+        accumulateEnergy(connector);
+        call("StopTransaction", objectMapper.createObjectNode()
+                .put("transactionId", connector.transactionId)
+                .put("idTag", properties.getIdTag())
+                .put("meterStop", connector.meterWh)
+                .put("timestamp", timestamp())
+                .put("reason", reason));
+        connector.transactionId = 0;
+        connector.nextStartNanos = System.nanoTime() + nextIdleNanos();
+        statusNotification(connector.id, "Available");
+    }
+
+    private void meterValues(Connector connector) throws InterruptedException {
+        accumulateEnergy(connector);
+        connector.nextMeterNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(properties.getMeterValuesInterval());
+
+        ObjectNode payload = objectMapper.createObjectNode()
+                .put("connectorId", connector.id)
+                .put("transactionId", connector.transactionId);
+        ObjectNode meterValue = payload.putArray("meterValue").addObject().put("timestamp", timestamp());
+        ArrayNode sampledValues = meterValue.putArray("sampledValue");
+        double voltage = 228 + random.nextDouble() * 4;
+        String[][] samples = {
+                {"Energy.Active.Import.Register", "Wh", Long.toString(connector.meterWh)},
+                {"Power.Active.Import", "W", Integer.toString(connector.powerW)},
+                {"Voltage", "V", String.format("%.1f", voltage)},
+                {"Current.Import", "A", String.format("%.1f", connector.powerW / voltage / 3)},
+                {"SoC", "Percent", Integer.toString(20 + random.nextInt(80))},
+                {"Temperature", "Celsius", Integer.toString(25 + random.nextInt(20))}
+        };
+        for (int i = 0; i < Math.min(samples.length, Math.max(1, properties.getSamplesPerMeterValue())); i++) {
+            sampledValues.addObject()
+                    .put("measurand", samples[i][0])
+                    .put("unit", samples[i][1])
+                    .put("value", samples[i][2])
+                    .put("context", "Sample.Periodic");
+        }
+        call("MeterValues", payload);
+    }
+
+    private void statusNotification(int connectorId, String status) throws InterruptedException {
+        call("StatusNotification", objectMapper.createObjectNode()
+                .put("connectorId", connectorId)
+                .put("errorCode", "NoError")
+                .put("status", status)
+                .put("timestamp", timestamp()));
+    }
+
+    /**
+     * 发送Call并等待应答
+     *
+     * @return CallResult载荷；CallError、超时或发送失败时返回null
+     */
+    private JsonNode call(String action, ObjectNode payload) throws InterruptedException {
+        SwarmStats.ActionStats actionStats = stats.action(action);
+        String messageId = chargerCode + "-" + messageSequence.incrementAndGet();
+        PendingCall pending = new PendingCall(action, System.nanoTime());
+        pendingCalls.put(messageId, pending);
+
+        ArrayNode frame = objectMapper.createArrayNode().add(CALL).add(messageId).add(action);
+        frame.add(payload);
+        actionStats.recordSent();
+        if (!send(frame.toString())) {
+            pendingCalls.remove(messageId);
+            actionStats.recordSendFailure();
+            return null;
+        }
+
+        try {
+            return pending.result.get(properties.getResponseTimeout(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (pendingCalls.remove(messageId) != null) {
+                actionStats.recordTimeout();
+            }
+            return null;
+        } catch (java.util.concurrent.ExecutionException e) {
+            return null;
+        }
+    }
+
+    private boolean send(String frame) {
+        WebSocket current = webSocket;
+        if (current == null || current.isOutputClosed()) {
+            return false;
+        }
+        // java.net.http.WebSocket 不允许上一帧发送完成前再次发送
+        sendLock.lock();
+        try {
+            current.sendText(frame, true).get(properties.getResponseTimeout(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            log.debug("Charger {} failed to send frame: {}", chargerCode, e.toString());
+            return false;
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    private void onFrame(String text) {
+        JsonNode frame;
+        try {
+            frame = objectMapper.readTree(text);
+        } catch (Exception e) {
+            log.debug("Charger {} received malformed frame: {}", chargerCode, text);
+            return;
+        }
+        if (!frame.isArray() || frame.size() < 3) {
+            return;
+        }
+        int type = frame.get(0).asInt();
+        String messageId = frame.get(1).asText();
+        switch (type) {
+            case CALL_RESULT -> {
+                PendingCall pending = pendingCalls.remove(messageId);
+                if (pending != null) {
+                    JsonNode payload = frame.get(2);
+                    stats.action(pending.action).recordResult(System.nanoTime() - pending.sentNanos, isAccepted(payload));
+                    pending.result.complete(payload);
+                }
+            }
+            case CALL_ERROR -> {
+                PendingCall pending = pendingCalls.remove(messageId);
+                if (pending != null) {
+                    stats.action(pending.action).recordCallError(System.nanoTime() - pending.sentNanos);
+                    pending.result.complete(null);
+                }
+            }
+            case CALL -> onServerCall(messageId, frame.get(2).asText(), frame.size() > 3 ? frame.get(3) : null);
+            default -> log.debug("Charger {} received unknown message type {}", chargerCode, type);
+        }
+    }
+
+    private void onServerCall(String messageId, String action, JsonNode payload) {
+        stats.recordServerCall();
+        ObjectNode response = objectMapper.createObjectNode();
+        switch (action) {
+            case "RemoteStartTransaction" -> {
+                remoteStartConnector.set(payload != null ? payload.path("connectorId").asInt(1) : 1);
+                response.put("status", "Accepted");
+            }
+            case "RemoteStopTransaction" -> {
+                remoteStopTransaction.set(payload != null ? payload.path("transactionId").asInt(0) : 0);
+                response.put("status", "Accepted");
+            }
+            case "GetConfiguration" -> response.putArray("configurationKey");
+            case "DataTransfer" -> response.put("status", "Accepted");
+            default -> response.put("status", "Accepted");
+        }
+        wakeup.release();
+        ArrayNode frame = objectMapper.createArrayNode().add(CALL_RESULT).add(messageId);
+        frame.add(response);
+        send(frame.toString());
+    }
+
+    /**
+     * 应答中的业务状态：BootNotification等直接带status，Authorize/StartTransaction/StopTransaction在idTagInfo中
+     */
+    private static boolean isAccepted(JsonNode payload) {
+        if (payload == null) {
+            return false;
+        }
+        JsonNode status = payload.has("idTagInfo") ? payload.path("idTagInfo").path("status") : payload.path("status");
+        return status.isMissingNode() || "Accepted".equals(status.asText());
+    }
+
+    private void accumulateEnergy(Connector connector) {
+        long now = System.nanoTime();
+        connector.meterWh += (long) (connector.powerW * ((now - connector.lastMeterNanos) / 3.6e12));
+        connector.lastMeterNanos = now;
+    }
+
+    private long nextIdleNanos() {
+        double perHour = properties.getTransactionsPerHour();
+        if (perHour <= 0) {
+            return NEVER / 2;
+        }
+        return exponentialNanos((long) (3600 / perHour));
+    }
+
+    private long exponentialNanos(long meanSeconds) {
+        double sample = -Math.log(1 - random.nextDouble()) * Math.max(1, meanSeconds);
+        return TimeUnit.MILLISECONDS.toNanos((long) (sample * 1000));
+    }
+
+    /**
+     * 等待一段时间，模拟结束时提前返回
+     *
+     * @return 是否应继续运行
+     */
+    private boolean pause(long millis) {
+        try {
+            wakeup.tryAcquire(millis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopping = true;
+        }
+        return !stopping;
+    }
+
+    private static String timestamp() {
+        return Instant.now().truncatedTo(ChronoUnit.MILLIS).toString();
+    }
+
+    private record PendingCall(String action, long sentNanos, CompletableFuture<JsonNode> result) {
+        PendingCall(String action, long sentNanos) {
+            this(action, sentNanos, new CompletableFuture<>());
+        }
+    }
+
+    /**
+     * 单个枪的交易状态，只在充电桩自己的虚拟线程上读写
+     */
+    private static final class Connector {
+        private final int id;
+        private int transactionId;
+        private long meterWh;
+        private int powerW;
+        private long lastMeterNanos;
+        private long nextStartNanos;
+        private long nextMeterNanos = NEVER;
+        private long endNanos = NEVER;
+
+        private Connector(int id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * 文本帧可能分片到达，拼接完整后处理
+     */
+    private final class Listener implements WebSocket.Listener {
+
+        private final CompletableFuture<Void> closedFuture;
+        private final StringBuilder partial = new StringBuilder();
+
+        private Listener(CompletableFuture<Void> closedFuture) {
+            this.closedFuture = closedFuture;
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            if (last && partial.isEmpty()) {
+                onFrame(data.toString());
+            } else {
+                partial.append(data);
+                if (last) {
+                    String text = partial.toString();
+                    partial.setLength(0);
+                    onFrame(text);
+                }
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            onClosed();
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            onClosed();
+        }
+
+        /**
+         * 连接断开后不会再有应答，未完成的Call按超时计并立即唤醒等待方
+         */
+        private void onClosed() {
+            closedFuture.complete(null);
+            pendingCalls.forEach((messageId, pending) -> {
+                if (pendingCalls.remove(messageId) != null) {
+                    stats.action(pending.action).recordTimeout();
+                    pending.result.complete(null);
+                }
+            });
+            wakeup.release();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.evcs.simulator;
+
+import com.evcs.simulator.config.SimulatorProperties;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+
+/**
+ * OCPP充电桩集群模拟器启动类
+ * 运行结束后退出进程
+ */
+@SpringBootApplication
+@EnableConfigurationProperties(SimulatorProperties.class)
+public class SimulatorApplication {
+
+    public static void main(final String[] args) {
+        System.exit(SpringApplication.exit(SpringApplication.run(SimulatorApplication.class, args)));
+    }
+}
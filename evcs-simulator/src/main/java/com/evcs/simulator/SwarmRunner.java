@@ -0,0 +1,141 @@
+package com.evcs.simulator;
+
+import com.evcs.simulator.config.SimulatorProperties;
+import com.evcs.simulator.stats.SwarmStats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 集群运行器
+ * 按接入时长均匀启动充电桩（每桩一个虚拟线程），运行期间定期输出汇总，结束后输出各动作的延迟分位数和错误率
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SwarmRunner implements CommandLineRunner {
+
+    private final SimulatorProperties properties;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void run(String... args) throws Exception {
+        int count = properties.getChargerCount();
+        int shards = Math.max(1, Math.min(properties.getClientShards(), count));
+        log.info("Starting swarm: {} chargers x {} connectors -> {}, ramp-up {}s, duration {}s",
+                count, properties.getConnectorsPerCharger(), properties.getTargetUrl(),
+                properties.getRampUpSeconds(), properties.getDurationSeconds());
+
+        SwarmStats stats = new SwarmStats();
+        ExecutorService clientExecutor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("simulator-client-", 0).factory());
+        List<HttpClient> clients = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            clients.add(HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofMillis(properties.getConnectTimeout()))
+                    .executor(clientExecutor)
+                    .build());
+        }
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("simulator-reporter").daemon().factory());
+        if (properties.getReportInterval() > 0) {
+            reporter.scheduleAtFixedRate(() -> logProgress(stats.snapshot()),
+                    properties.getReportInterval(), properties.getReportInterval(), TimeUnit.SECONDS);
+        }
+
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + TimeUnit.SECONDS.toNanos(properties.getDurationSeconds());
+        long spacingNanos = count > 0 ? TimeUnit.SECONDS.toNanos(properties.getRampUpSeconds()) / count : 0;
+
+        List<SimulatedCharger> chargers = new ArrayList<>(count);
+        List<Thread> threads = new ArrayList<>(count);
+        for (int i = 0; i < count && System.nanoTime() < deadlineNanos; i++) {
+            String chargerCode = String.format("%s%06d", properties.getChargerCodePrefix(), properties.getChargerCodeStart() + i);
+            SimulatedCharger charger = new SimulatedCharger(chargerCode, properties, clients.get(i % shards),
+                    stats, objectMapper, startNanos ^ ((long) i * 0x9E3779B97F4A7C15L));
+            chargers.add(charger);
+            threads.add(Thread.ofVirtual().name("charger-" + chargerCode).start(charger));
+            if (spacingNanos > 0) {
+                long waitNanos = startNanos + spacingNanos * (i + 1) - System.nanoTime();
+                if (waitNanos > 0) {
+                    LockSupport.parkNanos(waitNanos);
+                }
+            }
+        }
+        log.info("All {} chargers launched in {} ms", chargers.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+
+        long remainingNanos = deadlineNanos - System.nanoTime();
+        if (remainingNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(remainingNanos);
+        }
+
+        log.info("Duration reached, stopping {} chargers", chargers.size());
+        chargers.forEach(SimulatedCharger::stop);
+        long joinDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getResponseTimeout() + 5000);
+        for (Thread thread : threads) {
+            long waitMillis = TimeUnit.NANOSECONDS.toMillis(joinDeadline - System.nanoTime());
+            if (waitMillis <= 0 || !thread.join(Duration.ofMillis(waitMillis))) {
+                log.warn("Some chargers did not finish within the response timeout");
+                break;
+            }
+        }
+        reporter.shutdownNow();
+        clientExecutor.shutdownNow();
+
+        SwarmStats.Report report = stats.snapshot();
+        logFinalReport(report);
+        if (properties.getReportFile() != null && !properties.getReportFile().isBlank()) {
+            File file = new File(properties.getReportFile());
+            objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+            log.info("Report written to {}", file.getAbsolutePath());
+        }
+    }
+
+    private void logProgress(SwarmStats.Report report) {
+        long sent = 0;
+        long errors = 0;
+        for (SwarmStats.ActionReport action : report.getActions()) {
+            sent += action.getSent();
+            errors += action.getCallErrors() + action.getTimeouts() + action.getSendFailures();
+        }
+        log.info("[{}s] connected={} connectFailures={} unexpectedDisconnects={} calls={} errors={}",
+                Math.round(report.getElapsedSeconds()), report.getConnected(), report.getConnectFailures(),
+                report.getUnexpectedDisconnects(), sent, errors);
+    }
+
+    private void logFinalReport(SwarmStats.Report report) {
+        StringBuilder table = new StringBuilder();
+        table.append(String.format("%n%-22s %10s %9s %9s %9s %9s %9s %9s %8s%n",
+                "action", "sent", "p50(ms)", "p90(ms)", "p99(ms)", "p999(ms)", "max(ms)", "rate/s", "errors"));
+        for (SwarmStats.ActionReport action : report.getActions()) {
+            SwarmStats.LatencySummary latency = action.getLatency();
+            table.append(String.format("%-22s %10d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f %7.2f%%%n",
+                    action.getAction(), action.getSent(), latency.getP50(), latency.getP90(), latency.getP99(),
+                    latency.getP999(), latency.getMax(), action.getThroughput(), action.getErrorRate() * 100));
+        }
+        SwarmStats.LatencySummary connect = report.getConnectLatency();
+        table.append(String.format("%-22s %10d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                "(connect)", connect.getCount(), connect.getP50(), connect.getP90(), connect.getP99(),
+                connect.getP999(), connect.getMax()));
+        log.info("Swarm finished after {}s: connectAttempts={} connectFailures={} unexpectedDisconnects={} serverCalls={}{}",
+                Math.round(report.getElapsedSeconds()), report.getConnectAttempts(), report.getConnectFailures(),
+                report.getUnexpectedDisconnects(), report.getServerCalls(), table);
+    }
+}
@@ -0,0 +1,123 @@
+package com.evcs.simulator.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 充电桩集群模拟配置
+ * 不同场景（启动风暴、长时间浸泡、交易高频切换）通过Spring Profile覆盖这些参数
+ */
+@Data
+@ConfigurationProperties(prefix = "evcs.simulator")
+public class SimulatorProperties {
+
+    /**
+     * 目标地址，{chargerCode} 替换为充电桩编码
+     */
+    private String targetUrl = "ws://localhost:8088/ocpp/{chargerCode}/websocket";
+
+    /**
+     * 请求的WebSocket子协议
+     */
+    private String subprotocol = "ocpp1.6";
+
+    /**
+     * 模拟的充电桩数量
+     */
+    private int chargerCount = 1000;
+
+    /**
+     * 充电桩编码前缀，编码为 前缀 + 6位序号
+     */
+    private String chargerCodePrefix = "SIM";
+
+    /**
+     * 起始序号
+     */
+    private int chargerCodeStart = 1;
+
+    /**
+     * 每个充电桩的枪数
+     */
+    private int connectorsPerCharger = 2;
+
+    /**
+     * 运行时长（秒）
+     */
+    private long durationSeconds = 300;
+
+    /**
+     * 全部充电桩接入所用时间（秒），0表示同时接入（启动风暴）
+     */
+    private long rampUpSeconds = 60;
+
+    /**
+     * 共享的HTTP客户端数，连接按充电桩序号分摊
+     */
+    private int clientShards = 4;
+
+    /**
+     * 连接超时（毫秒）
+     */
+    private long connectTimeout = 10000;
+
+    /**
+     * 等待应答超时（毫秒）
+     */
+    private long responseTimeout = 30000;
+
+    /**
+     * 连接断开后的重连等待（毫秒），0表示不重连
+     */
+    private long reconnectDelay = 5000;
+
+    /**
+     * 心跳间隔（秒），0表示使用BootNotification应答中的interval
+     */
+    private int heartbeatInterval = 0;
+
+    /**
+     * BootNotification被拒绝或挂起时的重试间隔上限（秒），应答未给出interval时使用
+     */
+    private int bootRetryInterval = 30;
+
+    /**
+     * 充电中MeterValues上报间隔（秒），0表示不上报
+     */
+    private int meterValuesInterval = 60;
+
+    /**
+     * 每次MeterValues包含的采样数
+     */
+    private int samplesPerMeterValue = 4;
+
+    /**
+     * 空闲时每枪每小时开始的交易数，0表示不发起交易
+     */
+    private double transactionsPerHour = 1.0;
+
+    /**
+     * 平均交易时长（秒）
+     */
+    private long transactionDurationSeconds = 1800;
+
+    /**
+     * 开始交易前是否先发送Authorize
+     */
+    private boolean authorizeBeforeStart = true;
+
+    /**
+     * 使用的idTag
+     */
+    private String idTag = "SIMTAG0001";
+
+    /**
+     * 运行期间汇总输出间隔（秒）
+     */
+    private int reportInterval = 10;
+
+    /**
+     * 结束后写出JSON报告的路径，为空时只输出日志
+     */
+    private String reportFile;
+}
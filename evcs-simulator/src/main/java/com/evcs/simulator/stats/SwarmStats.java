@@ -0,0 +1,198 @@
+package com.evcs.simulator.stats;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 集群运行统计
+ * 按OCPP动作统计请求数、各类错误和应答延迟，另统计连接建立、失败和异常断开
+ */
+public class SwarmStats {
+
+    private final Map<String, ActionStats> actions = new ConcurrentHashMap<>();
+
+    private final LongAdder connectAttempts = new LongAdder();
+    private final LongAdder connectFailures = new LongAdder();
+    private final LongAdder unexpectedDisconnects = new LongAdder();
+    private final LongAdder serverCalls = new LongAdder();
+    private final AtomicInteger connected = new AtomicInteger();
+    private final LatencyHistogram connectLatency = new LatencyHistogram();
+
+    private final long startNanos = System.nanoTime();
+
+    public ActionStats action(String action) {
+        return actions.computeIfAbsent(action, ActionStats::new);
+    }
+
+    public void recordConnected(long nanos) {
+        connectAttempts.increment();
+        connected.incrementAndGet();
+        connectLatency.recordNanos(nanos);
+    }
+
+    public void recordConnectFailure() {
+        connectAttempts.increment();
+        connectFailures.increment();
+    }
+
+    /**
+     * @param expected 是否为模拟结束时的主动断开
+     */
+    public void recordDisconnected(boolean expected) {
+        connected.decrementAndGet();
+        if (!expected) {
+            unexpectedDisconnects.increment();
+        }
+    }
+
+    public void recordServerCall() {
+        serverCalls.increment();
+    }
+
+    public int getConnected() {
+        return connected.get();
+    }
+
+    /**
+     * 当前累计结果快照
+     */
+    public Report snapshot() {
+        Report report = new Report();
+        report.setElapsedSeconds((System.nanoTime() - startNanos) / 1_000_000_000.0);
+        report.setConnected(connected.get());
+        report.setConnectAttempts(connectAttempts.sum());
+        report.setConnectFailures(connectFailures.sum());
+        report.setUnexpectedDisconnects(unexpectedDisconnects.sum());
+        report.setServerCalls(serverCalls.sum());
+        report.setConnectLatency(LatencySummary.of(connectLatency));
+        List<ActionReport> actionReports = new ArrayList<>();
+        new TreeMap<>(actions).forEach((name, stats) -> actionReports.add(stats.report(report.getElapsedSeconds())));
+        report.setActions(actionReports);
+        return report;
+    }
+
+    /**
+     * 单个OCPP动作的统计
+     */
+    public static final class ActionStats {
+
+        private final String action;
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder accepted = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder callErrors = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder sendFailures = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private ActionStats(String action) {
+            this.action = action;
+        }
+
+        public void recordSent() {
+            sent.increment();
+        }
+
+        /**
+         * 收到CallResult
+         *
+         * @param accepted 业务状态是否为接受（Rejected/Invalid/Blocked等计为拒绝）
+         */
+        public void recordResult(long nanos, boolean accepted) {
+            latency.recordNanos(nanos);
+            (accepted ? this.accepted : rejected).increment();
+        }
+
+        public void recordCallError(long nanos) {
+            latency.recordNanos(nanos);
+            callErrors.increment();
+        }
+
+        public void recordTimeout() {
+            timeouts.increment();
+        }
+
+        public void recordSendFailure() {
+            sendFailures.increment();
+        }
+
+        private ActionReport report(double elapsedSeconds) {
+            ActionReport report = new ActionReport();
+            report.setAction(action);
+            report.setSent(sent.sum());
+            report.setAccepted(accepted.sum());
+            report.setRejected(rejected.sum());
+            report.setCallErrors(callErrors.sum());
+            report.setTimeouts(timeouts.sum());
+            report.setSendFailures(sendFailures.sum());
+            long errors = report.getCallErrors() + report.getTimeouts() + report.getSendFailures();
+            report.setErrorRate(report.getSent() == 0 ? 0 : (double) errors / report.getSent());
+            report.setThroughput(elapsedSeconds <= 0 ? 0 : report.getSent() / elapsedSeconds);
+            report.setLatency(LatencySummary.of(latency));
+            return report;
+        }
+    }
+
+    /**
+     * 运行结果
+     */
+    @Data
+    public static class Report {
+        private double elapsedSeconds;
+        private int connected;
+        private long connectAttempts;
+        private long connectFailures;
+        private long unexpectedDisconnects;
+        private long serverCalls;
+        private LatencySummary connectLatency;
+        private List<ActionReport> actions;
+    }
+
+    /**
+     * 单个动作的结果，错误率 = (CallError + 超时 + 发送失败) / 发送数
+     */
+    @Data
+    public static class ActionReport {
+        private String action;
+        private long sent;
+        private long accepted;
+        private long rejected;
+        private long callErrors;
+        private long timeouts;
+        private long sendFailures;
+        private double errorRate;
+        private double throughput;
+        private LatencySummary latency;
+    }
+
+    /**
+     * 延迟分位数（毫秒）
+     */
+    @Data
+    public static class LatencySummary {
+        private long count;
+        private double p50;
+        private double p90;
+        private double p99;
+        private double p999;
+        private double max;
+
+        static LatencySummary of(LatencyHistogram histogram) {
+            LatencySummary summary = new LatencySummary();
+            summary.setCount(histogram.getCount());
+            summary.setP50(histogram.percentile(50) / 1000.0);
+            summary.setP90(histogram.percentile(90) / 1000.0);
+            summary.setP99(histogram.percentile(99) / 1000.0);
+            summary.setP999(histogram.percentile(99.9) / 1000.0);
+            summary.setMax(histogram.getMaxMicros() / 1000.0);
+            return summary;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.evcs.simulator.stats;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 延迟直方图测试
+ */
+@DisplayName("延迟直方图测试")
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("桶上界覆盖所在桶的全部值，相对误差不超过1/16")
+    void testBucketBounds() {
+        for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 100, 1_000, 65_535, 1_000_000, Long.MAX_VALUE / 3}) {
+            // When
+            int index = LatencyHistogram.indexOf(value);
+            long upper = LatencyHistogram.upperBoundOf(index);
+
+            // Then
+            assertTrue(upper >= value, "upper bound below value " + value);
+            assertTrue(upper - value <= Math.max(1, value / 16), "bucket too wide for " + value);
+            if (index > 0) {
+                assertTrue(LatencyHistogram.upperBoundOf(index - 1) < value, "previous bucket contains " + value);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("均匀分布的百分位在误差范围内")
+    void testPercentiles() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i);
+        }
+
+        // Then
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000, histogram.getMaxMicros());
+        assertEquals(5_000, histogram.percentile(50), 5_000 / 16.0);
+        assertEquals(9_900, histogram.percentile(99), 9_900 / 16.0);
+        assertEquals(10_000, histogram.percentile(100));
+    }
+
+    @Test
+    @DisplayName("空直方图返回0，纳秒换算为微秒")
+    void testEmptyAndNanos() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // Then
+        assertEquals(0, histogram.percentile(99));
+
+        // When
+        histogram.recordNanos(2_500_000);
+
+        // Then
+        assertEquals(2_500, histogram.getMaxMicros());
+        assertEquals(2_500, histogram.percentile(50));
+    }
+
+    @Test
+    @DisplayName("并发记录不丢失计数")
+    void testConcurrentRecord() throws Exception {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        int threads = 8;
+        int perThread = 10_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            workers.add(Thread.ofVirtual().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < perThread; i++) {
+                    histogram.record(offset * perThread + i);
+                }
+            }));
+        }
+
+        // When
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        // Then
+        assertEquals((long) threads * perThread, histogram.getCount());
+        assertEquals((long) threads * perThread - 1, histogram.getMaxMicros());
+    }
+}
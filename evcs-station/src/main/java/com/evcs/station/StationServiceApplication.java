@@ -10,7 +10,7 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
  * 充电站服务启动类
  */
 @SpringBootApplication(
-    scanBasePackages = "com.evcs"
+    scanBasePackages = {"com.evcs.station", "com.evcs.common"}
 )
 @EnableDiscoveryClient
 @EnableTransactionManagement
@@ -2,9 +2,19 @@ package com.evcs.station.config;
 
 import com.evcs.protocol.api.ICloudChargeProtocolService;
 import com.evcs.protocol.api.IOCPPProtocolService;
+import com.evcs.protocol.config.RabbitMQConfig;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.ExchangeBuilder;
+import org.springframework.amqp.core.FanoutExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 /**
@@ -19,17 +29,63 @@ import org.springframework.context.annotation.Configuration;
  * - 协议事件流暂时断开
  * - 系统在standalone模式下运行
  * - 不影响基本的CRUD测试
+ * - 充电桩档案变更经 evcs.charger.changes 交换机广播给协议服务
+ * - 远程启动经 evcs.protocol.commands 队列发给协议服务，应答经direct reply-to返回
  */
 @Slf4j
 @Configuration
 public class ProtocolConfig {
 
+    /**
+     * 等待协议服务应答远程启动的超时时间（毫秒），大于协议服务的节点转发超时
+     */
+    public static final long CHARGER_COMMAND_TIMEOUT_MILLIS = 20000;
+
     @Autowired(required = false)
     private IOCPPProtocolService ocppService;
 
     @Autowired(required = false)
     private ICloudChargeProtocolService cloudService;
 
+    /**
+     * 声明充电桩档案变更广播交换机，协议服务节点各自绑定临时队列
+     */
+    @Bean
+    public FanoutExchange chargerChangeExchange() {
+        return ExchangeBuilder
+                .fanoutExchange(RabbitMQConfig.CHARGER_CHANGE_EXCHANGE)
+                .durable(true)
+                .build();
+    }
+
+    /**
+     * 声明充电桩指令队列，与协议服务的声明一致
+     */
+    @Bean
+    public Queue chargerCommandQueue() {
+        return QueueBuilder.durable(RabbitMQConfig.CHARGER_COMMAND_QUEUE).build();
+    }
+
+    /**
+     * 充电桩指令使用独立的RabbitTemplate，队列不可达时立即失败，不等到超时
+     */
+    @Bean
+    @ConditionalOnProperty(
+        name = "spring.rabbitmq.enabled",
+        havingValue = "true",
+        matchIfMissing = true
+    )
+    public AsyncRabbitTemplate chargerCommandTemplate(
+        ConnectionFactory connectionFactory
+    ) {
+        AsyncRabbitTemplate template = new AsyncRabbitTemplate(
+            new RabbitTemplate(connectionFactory)
+        );
+        template.setReceiveTimeout(CHARGER_COMMAND_TIMEOUT_MILLIS);
+        template.setMandatory(true);
+        return template;
+    }
+
     @PostConstruct
     public void init() {
         log.info(
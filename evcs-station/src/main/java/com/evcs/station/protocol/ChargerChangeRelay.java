@@ -0,0 +1,47 @@
+package com.evcs.station.protocol;
+
+import com.evcs.protocol.config.RabbitMQConfig;
+import com.evcs.protocol.event.ChargerChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 充电桩档案变更广播
+ * 事务提交后把充电桩变更发到 evcs.charger.changes 交换机，协议服务各节点据此失效充电桩目录；
+ * 未启用RabbitMQ或发送失败时由协议服务的定期重载兜底
+ */
+@Slf4j
+@Component
+public class ChargerChangeRelay {
+
+    private final ObjectProvider<RabbitTemplate> rabbitTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public ChargerChangeRelay(ObjectProvider<RabbitTemplate> rabbitTemplate) {
+        this.rabbitTemplate = rabbitTemplate;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChargerChanged(ChargerChangedEvent event) {
+        RabbitTemplate template = rabbitTemplate.getIfAvailable();
+        if (template == null) {
+            return;
+        }
+        try {
+            Message message = MessageBuilder.withBody(objectMapper.writeValueAsBytes(event.toChange()))
+                    .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                    .build();
+            template.send(RabbitMQConfig.CHARGER_CHANGE_EXCHANGE, "", message);
+        } catch (Exception e) {
+            log.warn("充电桩档案变更广播失败，充电桩: {}，将由协议服务定期重载: {}",
+                    event.getChargerCode(), e.getMessage());
+        }
+    }
+}
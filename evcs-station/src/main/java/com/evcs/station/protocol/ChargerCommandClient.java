@@ -0,0 +1,97 @@
+package com.evcs.station.protocol;
+
+import com.evcs.protocol.cluster.NodeCommand;
+import com.evcs.protocol.config.RabbitMQConfig;
+import com.evcs.station.config.ProtocolConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * 充电桩指令客户端
+ * 经 evcs.protocol.commands 队列把远程启动发给协议服务，协议服务在充电桩应答后经direct reply-to回复，
+ * 调用方拿到的是不阻塞的应答Future；未启用RabbitMQ时返回null，由调用方降级处理
+ */
+@Slf4j
+@Component
+public class ChargerCommandClient {
+
+    private static final String STATUS_ACCEPTED = "Accepted";
+
+    private final ObjectProvider<AsyncRabbitTemplate> commandTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public ChargerCommandClient(ObjectProvider<AsyncRabbitTemplate> commandTemplate) {
+        this.commandTemplate = commandTemplate;
+    }
+
+    /**
+     * 是否可以下发指令
+     */
+    public boolean isAvailable() {
+        return commandTemplate.getIfAvailable() != null;
+    }
+
+    /**
+     * 下发远程启动
+     *
+     * @return 充电桩是否接受；充电桩不在线、拒绝原因或超时以异常结束；未启用RabbitMQ时返回null
+     */
+    public CompletableFuture<Boolean> startCharging(
+        String chargerCode,
+        String sessionId,
+        Long userId
+    ) {
+        AsyncRabbitTemplate template = commandTemplate.getIfAvailable();
+        if (template == null) {
+            return null;
+        }
+        Message request;
+        try {
+            request = MessageBuilder.withBody(
+                objectMapper.writeValueAsBytes(
+                    NodeCommand.startCharging(chargerCode, sessionId, userId)
+                )
+            )
+                .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                // 超过应答等待时间仍未被消费的指令直接过期，避免调用方放弃后充电桩才被启动
+                .setExpiration(
+                    String.valueOf(ProtocolConfig.CHARGER_COMMAND_TIMEOUT_MILLIS)
+                )
+                .build();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        log.debug("下发远程启动，充电桩: {}, 会话ID: {}", chargerCode, sessionId);
+        return template
+            .sendAndReceive("", RabbitMQConfig.CHARGER_COMMAND_QUEUE, request)
+            .thenApply(this::readReply)
+            .thenApply(reply -> {
+                if (reply.error() != null) {
+                    throw new CompletionException(
+                        new IllegalStateException(reply.error())
+                    );
+                }
+                return STATUS_ACCEPTED.equals(reply.status());
+            });
+    }
+
+    private NodeCommand.Reply readReply(Message message) {
+        try {
+            return objectMapper.readValue(
+                message.getBody(),
+                NodeCommand.Reply.class
+            );
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+}
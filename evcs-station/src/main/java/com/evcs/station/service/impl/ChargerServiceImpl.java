@@ -9,7 +9,7 @@ import com.evcs.common.annotation.DataScope;
 import com.evcs.common.exception.TenantContextMissingException;
 import com.evcs.common.tenant.TenantContext;
 import com.evcs.protocol.api.ICloudChargeProtocolService;
-import com.evcs.protocol.api.IOCPPProtocolService;
+import com.evcs.protocol.event.ChargerChangedEvent;
 import com.evcs.station.entity.Charger;
 import com.evcs.station.entity.Station;
 import com.evcs.station.event.ChargingStartEvent;
@@ -17,16 +17,21 @@ import com.evcs.station.event.ChargingStopEvent;
 import com.evcs.station.mapper.ChargerMapper;
 import com.evcs.station.mapper.StationMapper;
 import com.evcs.station.metrics.StationMetrics;
+import com.evcs.station.protocol.ChargerCommandClient;
 import com.evcs.station.service.IChargerService;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * 充电桩服务实现类
@@ -37,8 +42,8 @@ public class ChargerServiceImpl
     extends ServiceImpl<ChargerMapper, Charger>
     implements IChargerService {
 
-    @Autowired(required = false)
-    private IOCPPProtocolService ocppService;
+    @Autowired
+    private ChargerCommandClient commandClient;
 
     @Autowired(required = false)
     private ICloudChargeProtocolService cloudService;
@@ -178,7 +183,17 @@ public class ChargerServiceImpl
             charger.setGunCount(1); // 默认1个枪头
         }
 
-        return this.save(charger);
+        boolean saved = this.save(charger);
+        if (saved) {
+            eventPublisher.publishEvent(
+                new ChargerChangedEvent(
+                    this,
+                    charger.getId(),
+                    charger.getChargerCode()
+                )
+            );
+        }
+        return saved;
     }
 
     /**
@@ -214,7 +229,18 @@ public class ChargerServiceImpl
         charger.setTenantId(null);
         charger.setStationId(null);
 
-        return this.updateById(charger);
+        boolean updated = this.updateById(charger);
+        if (updated) {
+            // 编码可能被修改，按ID和新编码同时失效协议层目录
+            eventPublisher.publishEvent(
+                new ChargerChangedEvent(
+                    this,
+                    charger.getId(),
+                    charger.getChargerCode()
+                )
+            );
+        }
+        return updated;
     }
 
     /**
@@ -231,7 +257,17 @@ public class ChargerServiceImpl
             throw new RuntimeException("充电桩正在充电，无法删除");
         }
 
-        return this.removeById(chargerId);
+        boolean removed = this.removeById(chargerId);
+        if (removed) {
+            eventPublisher.publishEvent(
+                new ChargerChangedEvent(
+                    this,
+                    chargerId,
+                    charger != null ? charger.getChargerCode() : null
+                )
+            );
+        }
+        return removed;
     }
 
     /**
@@ -554,12 +590,122 @@ public class ChargerServiceImpl
         String sessionId,
         Long userId
     ) {
-        // Protocol服务已临时禁用 (Week 1 Day 1)
-        // 优雅降级：允许业务逻辑继续，但不调用实际协议
-        log.warn("协议服务已禁用，充电启动协议调用跳过（Week 9重新启用）");
+        if (!commandClient.isAvailable() || !supportsOcpp(charger)) {
+            // 优雅降级：允许业务逻辑继续，但不调用实际协议
+            log.warn("协议服务未启用，充电启动协议调用跳过，充电桩: {}", charger.getChargerCode());
+            return true;
+        }
+        CompletableFuture<Boolean> ack;
+        try {
+            ack = commandClient.startCharging(
+                charger.getChargerCode(),
+                sessionId,
+                userId
+            );
+        } catch (Exception e) {
+            log.error("下发远程启动失败，充电桩: {}", charger.getChargerCode(), e);
+            return false;
+        }
+        if (ack.isCompletedExceptionally()) {
+            // 指令无法编码等同步可判定的失败，直接拒绝本次启动
+            log.warn(
+                "下发远程启动失败，充电桩: {}, 原因: {}",
+                charger.getChargerCode(),
+                ackFailureReason(ack)
+            );
+            return false;
+        }
+        // 协议服务在充电桩应答后回复：会话提交后再处理，拒绝、不在线或超时则回退本次会话
+        Long chargerId = charger.getId();
+        Long tenantId = TenantContext.getCurrentTenantId();
+        Runnable awaitAck = () ->
+            ack.whenComplete((accepted, error) ->
+                onStartAck(chargerId, sessionId, tenantId, accepted, error)
+            );
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        awaitAck.run();
+                    }
+                }
+            );
+        } else {
+            awaitAck.run();
+        }
         return true;
     }
 
+    /**
+     * 处理充电桩对远程启动的应答，未接受时结束已登记的会话
+     */
+    private void onStartAck(
+        Long chargerId,
+        String sessionId,
+        Long tenantId,
+        Boolean accepted,
+        Throwable error
+    ) {
+        if (error == null && Boolean.TRUE.equals(accepted)) {
+            log.info(
+                "充电桩已接受远程启动，充电桩ID: {}, 会话ID: {}",
+                chargerId,
+                sessionId
+            );
+            return;
+        }
+        String reason = error != null ? unwrap(error).getMessage() : "Rejected";
+        log.warn(
+            "充电桩未接受远程启动，回退充电会话，充电桩ID: {}, 会话ID: {}, 原因: {}",
+            chargerId,
+            sessionId,
+            reason
+        );
+        TenantContext.setCurrentTenantId(tenantId);
+        try {
+            Charger current = baseMapper.selectById(chargerId);
+            if (
+                current == null ||
+                !sessionId.equals(current.getCurrentSessionId())
+            ) {
+                return;
+            }
+            if (baseMapper.endChargingSession(chargerId, 0.0, 0L) > 0) {
+                eventPublisher.publishEvent(
+                    new ChargingStopEvent(this, sessionId, 0.0, 0L, tenantId)
+                );
+            }
+        } catch (Exception e) {
+            log.error("回退充电会话失败，会话ID: {}", sessionId, e);
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    private static boolean supportsOcpp(Charger charger) {
+        String protocols = charger.getSupportedProtocols();
+        return (
+            StrUtil.isBlank(protocols) ||
+            protocols.toLowerCase().contains("ocpp")
+        );
+    }
+
+    private static String ackFailureReason(CompletableFuture<Boolean> ack) {
+        try {
+            ack.join();
+            return "unknown";
+        } catch (CompletionException e) {
+            return unwrap(e).getMessage();
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null
+            ? error.getCause()
+            : error;
+    }
+
     private void invokeStopProtocol(Charger charger) {
         // Protocol服务已临时禁用 (Week 1 Day 1)
         // 优雅降级：允许业务逻辑继续，但不调用实际协议
@@ -159,6 +159,61 @@ CREATE TABLE IF NOT EXISTS charger (
     CONSTRAINT fk_charger_tenant FOREIGN KEY (tenant_id) REFERENCES sys_tenant(tenant_id)
 );
 
+-- 充电桩计量采样表（OCPP MeterValues）
+CREATE TABLE IF NOT EXISTS charger_telemetry (
+    telemetry_id BIGSERIAL PRIMARY KEY,
+    tenant_id BIGINT NOT NULL,
+    charger_id BIGINT NOT NULL,
+    connector_id INTEGER NOT NULL DEFAULT 0, -- 0表示整桩
+    transaction_id INTEGER, -- 非交易期间为空
+    sampled_at TIMESTAMP NOT NULL, -- 采样时间
+    measurand VARCHAR(64) NOT NULL, -- OCPP计量项
+    phase VARCHAR(8), -- 相位
+    value DOUBLE PRECISION NOT NULL,
+    unit VARCHAR(16), -- 基本单位：Wh/W/A/V/Celsius/Percent
+    received_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- OCPP交易ID序列（步长即ID段大小，32位整型内循环）
+CREATE SEQUENCE IF NOT EXISTS ocpp_transaction_id_seq
+    AS INTEGER
+    INCREMENT BY 1000
+    MINVALUE 1
+    MAXVALUE 2147483647
+    START WITH 1
+    CYCLE;
+
+-- OCPP交易表（transactionId → 充电会话）
+CREATE TABLE IF NOT EXISTS ocpp_transaction (
+    transaction_id INTEGER PRIMARY KEY, -- OCPP transactionId
+    tenant_id BIGINT NOT NULL,
+    charger_id BIGINT NOT NULL,
+    charger_code VARCHAR(64) NOT NULL,
+    connector_id INTEGER NOT NULL DEFAULT 0,
+    id_tag VARCHAR(64),
+    session_id VARCHAR(64) NOT NULL, -- 充电会话ID（订单session_id），本地发起的交易为TXN_{transaction_id}
+    meter_start INTEGER, -- 开始电表读数（Wh）
+    meter_stop INTEGER, -- 结束电表读数（Wh）
+    started_at TIMESTAMP NOT NULL,
+    stopped_at TIMESTAMP, -- 进行中为空
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 充电卡表（OCPP idTag授权，停用/删除使用软删除以更新本地授权列表版本）
+CREATE TABLE IF NOT EXISTS charging_card (
+    card_id BIGSERIAL PRIMARY KEY,
+    tenant_id BIGINT NOT NULL,
+    id_tag VARCHAR(20) NOT NULL, -- OCPP idToken，最长20个字符
+    user_id BIGINT, -- 绑定的用户
+    status INTEGER NOT NULL DEFAULT 1, -- 0-停用（挂失），1-正常
+    expire_time TIMESTAMP, -- 有效期，为空表示长期有效
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    deleted INTEGER DEFAULT 0,
+
+    CONSTRAINT uk_charging_card_tenant_tag UNIQUE(tenant_id, id_tag)
+);
+
 -- =====================================================
 -- 索引优化
 -- =====================================================
@@ -179,6 +234,20 @@ CREATE INDEX IF NOT EXISTS idx_charger_type ON charger(charger_type);
 CREATE INDEX IF NOT EXISTS idx_charger_heartbeat ON charger(last_heartbeat);
 CREATE INDEX IF NOT EXISTS idx_charger_session ON charger(current_session_id);
 
+-- 计量采样表索引
+CREATE INDEX IF NOT EXISTS idx_telemetry_charger_time ON charger_telemetry(charger_id, sampled_at);
+CREATE INDEX IF NOT EXISTS idx_telemetry_tenant_time ON charger_telemetry(tenant_id, sampled_at);
+CREATE INDEX IF NOT EXISTS idx_telemetry_transaction ON charger_telemetry(transaction_id) WHERE transaction_id IS NOT NULL;
+
+-- OCPP交易表索引
+CREATE INDEX IF NOT EXISTS idx_ocpp_transaction_session ON ocpp_transaction(session_id);
+CREATE INDEX IF NOT EXISTS idx_ocpp_transaction_charger_active ON ocpp_transaction(charger_code, started_at) WHERE stopped_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_ocpp_transaction_tenant_time ON ocpp_transaction(tenant_id, started_at);
+
+-- 充电卡表索引
+CREATE INDEX IF NOT EXISTS idx_charging_card_tenant_update ON charging_card(tenant_id, update_time);
+CREATE INDEX IF NOT EXISTS idx_charging_card_user ON charging_card(user_id) WHERE user_id IS NOT NULL;
+
 -- 复合索引
 CREATE INDEX IF NOT EXISTS idx_station_tenant_status ON charging_station(tenant_id, status);
 CREATE INDEX IF NOT EXISTS idx_charger_tenant_status ON charger(tenant_id, status);
@@ -207,6 +276,12 @@ CREATE TRIGGER update_charger_modtime
     BEFORE UPDATE ON charger 
     FOR EACH ROW EXECUTE FUNCTION update_modified_column();
 
+-- 充电卡更新时间触发器
+DROP TRIGGER IF EXISTS update_charging_card_modtime ON charging_card;
+CREATE TRIGGER update_charging_card_modtime
+    BEFORE UPDATE ON charging_card
+    FOR EACH ROW EXECUTE FUNCTION update_modified_column();
+
 -- =====================================================
 -- 触发器 - 更新充电站统计信息
 -- =====================================================